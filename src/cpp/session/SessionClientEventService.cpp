@@ -27,12 +27,15 @@
 
 
 #include <core/http/Request.hpp>
+#include <core/http/Response.hpp>
+#include <shared_core/SafeConvert.hpp>
 
 #include <session/SessionOptions.hpp>
 #include <session/SessionHttpConnectionListener.hpp>
 #include <session/SessionClientEventService.hpp>
 
 #include "SessionClientEventQueue.hpp"
+#include "http/SessionHttpConnectionUtils.hpp"
 
 using namespace rstudio::core;
 
@@ -43,12 +46,29 @@ namespace {
 
 const int kLastChanceWaitSeconds = 4;
 
+// how often to write to an idle event stream, so that the client (and any
+// proxies in between) can tell it's still alive
+const int kEventStreamKeepAliveSeconds = 30;
+
+// how many events written to an event stream are kept for the client to
+// fall back on (if the stream drops, those lost are the last few written)
+const std::size_t kMaxStreamedEventsRetained = 1000;
+
 bool hasEventIdLessThanOrEqualTo(const json::Value& event, int targetId)
 {
    const json::Object& eventJSON = event.getObject();
    int eventId = (*eventJSON.find("id")).getValue().getInt();
    return eventId <= targetId;
 }
+
+std::string eventStreamMessage(const json::Value& event)
+{
+   // one message per event, identified by the event's id
+   const json::Object& eventJSON = event.getObject();
+   int eventId = (*eventJSON.find("id")).getValue().getInt();
+   return "id: " + safe_convert::numberToString(eventId) + "\n" +
+          "data: " + event.write() + "\n\n";
+}
          
 } // anonymous namespace
 
@@ -173,6 +193,29 @@ void ClientEventService::addClientEvent(const json::Object& eventObject)
    END_LOCK_MUTEX
 }
 
+std::string ClientEventService::pendingEventStreamMessages()
+{
+   std::string messages;
+   LOCK_MUTEX(mutex_)
+   {
+      for (const json::Value& event : clientEvents_)
+         messages += eventStreamMessage(event);
+   }
+   END_LOCK_MUTEX
+
+   return messages;
+}
+
+void ClientEventService::trimStreamedEvents()
+{
+   LOCK_MUTEX(mutex_)
+   {
+      while (clientEvents_.getSize() > kMaxStreamedEventsRetained)
+         clientEvents_.erase(clientEvents_.begin());
+   }
+   END_LOCK_MUTEX
+}
+
 void ClientEventService::setClientEventResult(
                                        core::json::JsonRpcResponse* pResponse)
 {
@@ -184,6 +227,137 @@ void ClientEventService::setClientEventResult(
 }
 
 
+void ClientEventService::serveEventStream(
+               boost::shared_ptr<HttpConnection> ptrConnection,
+               const boost::posix_time::time_duration& batchDelay,
+               const boost::posix_time::time_duration& maxTotalBatchDelay,
+               int* pNextEventId,
+               bool* pStopServer)
+{
+   using namespace boost::posix_time;
+
+   const http::Request& request = ptrConnection->request();
+   ClientEventQueue& clientEventQueue = session::clientEventQueue();
+   HttpConnectionQueue& eventsConnectionQueue =
+                           httpConnectionListener().eventsConnectionQueue();
+
+   // send an error back if this request came from the wrong client (the
+   // stream then fails, and the client learns why when it falls back to
+   // polling)
+   std::string streamClientId = request.queryParamValue("clientId");
+   if (streamClientId != clientId())
+   {
+      Error error(json::errc::InvalidClientId, ERROR_LOCATION);
+      ptrConnection->sendJsonRpcError(error);
+      return;
+   }
+
+   // get the last event id seen by the client (browsers send this as a
+   // header when they reconnect a stream on their own)
+   int lastClientEventIdSeen = safe_convert::stringTo<int>(
+            request.queryParamValue("lastEventId"), -1);
+   std::string lastEventIdHeader = request.headerValue("Last-Event-ID");
+   if (!lastEventIdHeader.empty())
+   {
+      lastClientEventIdSeen = safe_convert::stringTo<int>(
+               lastEventIdHeader, lastClientEventIdSeen);
+   }
+
+   // as for get_events: forget what the client has seen, and continue the
+   // client's event ids
+   erasePreviouslyDeliveredEvents(lastClientEventIdSeen);
+   *pNextEventId = std::max(*pNextEventId, lastClientEventIdSeen + 1);
+
+   http::Response response;
+   response.setStatusCode(http::status::Ok);
+   response.setContentType("text/event-stream");
+   response.setNoCacheHeaders();
+   if (!ptrConnection->sendStreamHeaders(response))
+      return;
+
+   // start with the events the client hasn't seen yet
+   if (!ptrConnection->sendStreamChunk(pendingEventStreamMessages()))
+      return;
+
+   ptime nextKeepAlive = second_clock::universal_time() +
+                         seconds(kEventStreamKeepAliveSeconds);
+
+   // push events to the stream as they arrive
+   while (true)
+   {
+      // the stream is superseded by the next events request (e.g. from the
+      // client falling back to polling) or by another client
+      if (!eventsConnectionQueue.peekNextConnectionUri().empty() ||
+          streamClientId != clientId())
+      {
+         break;
+      }
+
+      bool haveEvents = false;
+      try
+      {
+         if (clientEventQueue.hasEvents() ||
+             clientEventQueue.waitForEvent(seconds(1)))
+         {
+            // wait for additional events that occur in rapid succession
+            boost::system_time maxBatchDelayTime =
+                           boost::get_system_time() + maxTotalBatchDelay;
+
+            while ( clientEventQueue.waitForEvent(batchDelay) &&
+                    (boost::get_system_time() < maxBatchDelayTime) )
+            {
+            }
+
+            haveEvents = true;
+         }
+      }
+      catch(const boost::thread_interrupted&)
+      {
+         // still send what we have (e.g. the quit event)
+         *pStopServer = true;
+         haveEvents = clientEventQueue.hasEvents();
+      }
+
+      std::string messages;
+      if (haveEvents)
+      {
+         std::vector<ClientEvent> events;
+         clientEventQueue.remove(&events);
+
+         for (const ClientEvent& clientEvent : events)
+         {
+            json::Object event;
+            clientEvent.asJsonObject((*pNextEventId)++, &event);
+            addClientEvent(event);
+            messages += eventStreamMessage(event);
+         }
+
+         trimStreamedEvents();
+      }
+      else if (second_clock::universal_time() >= nextKeepAlive)
+      {
+         messages = ": keep-alive\n\n";
+      }
+
+      if (!messages.empty())
+      {
+         if (!ptrConnection->sendStreamChunk(messages))
+            return;
+
+         // the client is still connected (keeps the session from timing out
+         // as though it were disconnected)
+         eventsConnectionQueue.updateLastConnectionTime();
+         nextKeepAlive = second_clock::universal_time() +
+                         seconds(kEventStreamKeepAliveSeconds);
+      }
+
+      if (*pStopServer)
+         break;
+   }
+
+   ptrConnection->close();
+}
+
 void ClientEventService::run()
 {
    try
@@ -245,6 +419,18 @@ void ClientEventService::run()
             continue;
          }
 
+         // event streams are served until they're superseded or the client
+         // goes away
+         if (connection::isEventStream(ptrConnection))
+         {
+            serveEventStream(ptrConnection,
+                             batchDelay,
+                             maxTotalBatchDelay,
+                             &nextEventId,
+                             &stopServer);
+            continue;
+         }
+
          // parse the json rpc request
          json::JsonRpcRequest request;
          Error error = json::parseJsonRpcRequest(ptrConnection->request().body(),
@@ -38,6 +38,14 @@ ConsoleProcessSocket s_terminalSocket;
 // Posix-only, use is gated via getTrackEnv() always being false on Win32.
 const std::string kEnvCommand = "/usr/bin/env";
 
+// How far (in bytes of output sent, whether to the main or the alternate
+// buffer) the websocket client may fall behind in acknowledging output before
+// we stop sending it more; output is held back until it catches up. The
+// client acknowledges at a smaller interval (see
+// TerminalSessionSocket.ACK_INTERVAL). Once more than this is held back, it's
+// dropped and the client told to catch up from the saved buffer instead.
+const int64_t kOutputAckWindow = 256 * 1024;
+
 } // anonymous namespace
 
 // create process options for a terminal
@@ -532,6 +540,11 @@ std::string ConsoleProcess::getSavedBufferChunk(int chunk, bool* pMoreAvailable)
    return procInfo_->getSavedBufferChunk(chunk, pMoreAvailable);
 }
 
+std::string ConsoleProcess::getSavedBufferTail(int64_t since, bool* pIsTail) const
+{
+   return procInfo_->getSavedBufferTail(since, pIsTail);
+}
+
 std::string ConsoleProcess::getBuffer() const
 {
    return procInfo_->getFullSavedBuffer();
@@ -558,9 +571,30 @@ void ConsoleProcess::enqueOutputEvent(const std::string &output)
    if (!prefs::userPrefs().limitVisibleConsole())
       string_utils::trimLeadingLines(procInfo_->getMaxOutputLines(), &trimmedOutput);
 
+   // tag the output with the sequence number it brings the buffer up to, so
+   // the client knows where to resume from after a reconnect
+   int64_t sequence = procInfo_->getOutputSequence();
+
    if (procInfo_->getChannelMode() == Websocket)
    {
-      s_terminalSocket.sendText(procInfo_->getHandle(), output);
+      if (pendingOutput_.empty())
+         pendingInAltBuffer_ = currentAltBufferStatus;
+      pendingOutput_.append(output);
+      pendingSequence_ = sequence;
+
+      // Rather than hold back ever more output, drop it and have the client
+      // fetch what it missed from the saved buffer. The saved buffer doesn't
+      // include output to the alternate buffer, so that's always held (apps
+      // using it redraw the screen rather than stream output, so it doesn't
+      // pile up the same way).
+      if (pendingOutput_.length() > static_cast<size_t>(kOutputAckWindow) &&
+          !pendingInAltBuffer_ && !procInfo_->getAltBufferActive())
+      {
+         pendingOutput_.clear();
+         outputDropped_ = true;
+      }
+
+      sendPendingOutput();
       return;
    }
 
@@ -568,10 +602,45 @@ void ConsoleProcess::enqueOutputEvent(const std::string &output)
    json::Object data;
    data["handle"] = handle();
    data["output"] = trimmedOutput;
+   data["sequence"] = static_cast<double>(sequence);
    module_context::enqueClientEvent(
          ClientEvent(client_events::kConsoleProcessOutput, data));
 }
 
+// send output held for the websocket client, unless it's too far behind in
+// acknowledging what it already has; inputOutputQueueMutex_ must be held
+void ConsoleProcess::sendPendingOutput()
+{
+   if (unackedBytes_ >= kOutputAckWindow)
+      return;
+
+   // the resync goes ahead of any output held since it was dropped, so the
+   // client holds that back until it has caught up
+   if (outputDropped_)
+   {
+      Error error = s_terminalSocket.sendResync(procInfo_->getHandle());
+      if (!error)
+         outputDropped_ = false;
+   }
+
+   if (pendingOutput_.empty())
+      return;
+
+   // the client acknowledges the number of packets it has consumed, rather
+   // than an output sequence number, since output to the alternate buffer
+   // doesn't advance the sequence
+   Error error = s_terminalSocket.sendText(procInfo_->getHandle(),
+                                           pendingOutput_,
+                                           pendingSequence_);
+   if (!error)
+   {
+      int64_t size = static_cast<int64_t>(pendingOutput_.length());
+      unackedPacketSizes_.push_back(size);
+      unackedBytes_ += size;
+   }
+   pendingOutput_.clear();
+}
+
 void ConsoleProcess::onStdout(core::system::ProcessOperations& ops,
                               const std::string& output)
 {
@@ -917,6 +986,7 @@ ConsoleProcessSocketConnectionCallbacks ConsoleProcess::createConsoleProcessSock
 {
    ConsoleProcessSocketConnectionCallbacks cb;
    cb.onReceivedInput = boost::bind(&ConsoleProcess::onReceivedInput, ConsoleProcess::shared_from_this(), _1);
+   cb.onReceivedAck = boost::bind(&ConsoleProcess::onReceivedAck, ConsoleProcess::shared_from_this(), _1);
    cb.onConnectionOpened = boost::bind(&ConsoleProcess::onConnectionOpened, ConsoleProcess::shared_from_this());
    cb.onConnectionClosed = boost::bind(&ConsoleProcess::onConnectionClosed, ConsoleProcess::shared_from_this());
    return cb;
@@ -939,6 +1009,22 @@ void ConsoleProcess::onReceivedInput(const std::string& input)
    END_LOCK_MUTEX
 }
 
+// client acknowledged output packets from websocket; called on different thread
+void ConsoleProcess::onReceivedAck(int64_t packets)
+{
+   LOCK_MUTEX(inputOutputQueueMutex_)
+   {
+      while (ackedPackets_ < packets && !unackedPacketSizes_.empty())
+      {
+         unackedBytes_ -= unackedPacketSizes_.front();
+         unackedPacketSizes_.pop_front();
+         ackedPackets_++;
+      }
+      sendPendingOutput();
+   }
+   END_LOCK_MUTEX
+}
+
 // websocket connection closed; called on different thread
 void ConsoleProcess::onConnectionClosed()
 {
@@ -948,6 +1034,16 @@ void ConsoleProcess::onConnectionClosed()
 // websocket connection opened; called on different thread
 void ConsoleProcess::onConnectionOpened()
 {
+   // a new client starts out with nothing outstanding (it catches up on
+   // anything it missed from the saved buffer)
+   LOCK_MUTEX(inputOutputQueueMutex_)
+   {
+      unackedPacketSizes_.clear();
+      unackedBytes_ = 0;
+      ackedPackets_ = 0;
+      sendPendingOutput();
+   }
+   END_LOCK_MUTEX
 }
 
 void ConsoleProcess::saveEnvironment(const std::string& env)
@@ -805,6 +805,37 @@ Error procGetBufferChunk(const json::JsonRpcRequest& request,
    return Success();
 }
 
+Error procGetBufferTail(const json::JsonRpcRequest& request,
+                        json::JsonRpcResponse* pResponse)
+{
+   std::string handle;
+   double since;
+
+   // (the sequence number is read as a double as it can outgrow an int)
+   Error error = json::readParams(request.params,
+                                  &handle,
+                                  &since);
+   if (error)
+      return error;
+
+   ConsoleProcessPtr proc = findProcByHandle(handle);
+   if (proc == nullptr)
+      return systemError(boost::system::errc::invalid_argument,
+                         "Error getting buffer tail",
+                         ERROR_LOCATION);
+
+   json::Object result;
+   bool isTail;
+   std::string chunkContent = proc->getSavedBufferTail(static_cast<int64_t>(since), &isTail);
+
+   result["chunk"] = chunkContent;
+   result["sequence"] = static_cast<double>(proc->getOutputSequence());
+   result["is_tail"] = isTail;
+   pResponse->setResult(result);
+
+   return Success();
+}
+
 Error procGetBuffer(const json::JsonRpcRequest& request,
                     json::JsonRpcResponse* pResponse)
 {
@@ -975,6 +1006,7 @@ Error initializeApi()
       (bind(registerRpcMethod, "process_set_title", procSetTitle))
       (bind(registerRpcMethod, "process_erase_buffer", procEraseBuffer))
       (bind(registerRpcMethod, "process_get_buffer_chunk", procGetBufferChunk))
+      (bind(registerRpcMethod, "process_get_buffer_tail", procGetBufferTail))
       (bind(registerRpcMethod, "process_test_exists", procTestExists))
       (bind(registerRpcMethod, "process_use_rpc", procUseRpc))
       (bind(registerRpcMethod, "process_notify_visible", procNotifyVisible))
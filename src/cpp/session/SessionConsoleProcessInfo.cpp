@@ -112,6 +112,7 @@ void ConsoleProcessInfo::appendToOutputBuffer(const std::string &str)
          core::text::stripSecondaryBuffer(str, &altBufferActive_);
 
    console_persist::appendToOutputBuffer(handle_, mainBufferStr);
+   outputSequence_ += mainBufferStr.length();
 }
 
 void ConsoleProcessInfo::appendToOutputBuffer(char ch)
@@ -161,6 +162,27 @@ std::string ConsoleProcessInfo::getFullSavedBuffer() const
    return console_persist::getSavedBuffer(handle_, maxOutputLines_);
 }
 
+std::string ConsoleProcessInfo::getSavedBufferTail(
+      int64_t since, bool* pIsTail) const
+{
+   // Read buffer (trims to maxOutputLines_); trimming only ever removes output
+   // from the start, so the end of the buffer is always at outputSequence_
+   std::string buffer = console_persist::getSavedBuffer(handle_, maxOutputLines_);
+
+   int64_t bufferStart = outputSequence_ - static_cast<int64_t>(buffer.length());
+   if (since < 0 ||
+       since > outputSequence_ ||
+       since < bufferStart ||
+       since < tailStartSequence_)
+   {
+      *pIsTail = false;
+      return buffer;
+   }
+
+   *pIsTail = true;
+   return buffer.substr(static_cast<size_t>(since - bufferStart));
+}
+
 int ConsoleProcessInfo::getBufferLineCount() const
 {
    return console_persist::getSavedBufferLineCount(handle_, maxOutputLines_);
@@ -182,6 +204,7 @@ std::string ConsoleProcessInfo::bufferedOutput() const
 void ConsoleProcessInfo::deleteLogFile(bool lastLineOnly) const
 {
    console_persist::deleteLogFile(handle_, lastLineOnly);
+   tailStartSequence_ = outputSequence_;
 }
 
 void ConsoleProcessInfo::deleteEnvFile() const
@@ -219,6 +242,7 @@ core::json::Object ConsoleProcessInfo::toJson(SerializationMode serialMode) cons
    result["autoclose"] = static_cast<int>(autoClose_);
    result["zombie"] = zombie_;
    result["track_env"] = trackEnv_;
+   result["output_sequence"] = outputSequence_;
 
 
 #ifdef RSTUDIO_SERVER
@@ -274,6 +298,15 @@ boost::shared_ptr<ConsoleProcessInfo> ConsoleProcessInfo::fromJson(const core::j
                 std::back_inserter(pProc->outputBuffer_));
    }
 
+   error = json::getOptionalParam(obj, "output_sequence", static_cast<int64_t>(0),
+                                  &pProc->outputSequence_);
+   if (error)
+      LOG_ERROR(error);
+
+   // output appended after the metadata was last saved isn't counted, so
+   // don't trust the saved buffer to line up with earlier sequence numbers
+   pProc->tailStartSequence_ = pProc->outputSequence_;
+
    error = json::getOptionalParam(obj, "exit_code", &pProc->exitCode_);
    if (error)
       LOG_ERROR(error);
@@ -537,6 +537,52 @@ TEST_CASE("ConsoleProcessInfo")
       // cleanup
       cpi.deleteLogFile();
    }
+
+   SECTION("Get terminal buffer tail by output sequence")
+   {
+      ConsoleProcessInfo cpi(caption, title, handle1, sequence, shellType,
+                             altActive, cwd, cols, rows, zombie, trackEnv);
+
+      // blow away anything that might have been left over from a previous
+      // failed run
+      cpi.deleteLogFile();
+
+      std::string orig = "one\ntwo\n";
+      cpi.appendToOutputBuffer(orig);
+      int64_t since = cpi.getOutputSequence();
+      CHECK(since == static_cast<int64_t>(orig.length()));
+
+      std::string orig2 = "three\nfour\n";
+      cpi.appendToOutputBuffer(orig2);
+
+      // only the output since the given sequence is returned
+      bool isTail;
+      std::string loaded = cpi.getSavedBufferTail(since, &isTail);
+      CHECK(isTail);
+      CHECK_FALSE(loaded.compare(orig2));
+
+      loaded = cpi.getSavedBufferTail(cpi.getOutputSequence(), &isTail);
+      CHECK(isTail);
+      CHECK(loaded.empty());
+
+      // unknown or future sequence gets the full buffer
+      loaded = cpi.getSavedBufferTail(-1, &isTail);
+      CHECK_FALSE(isTail);
+      CHECK_FALSE(loaded.compare(orig + orig2));
+
+      loaded = cpi.getSavedBufferTail(cpi.getOutputSequence() + 1, &isTail);
+      CHECK_FALSE(isTail);
+
+      // erasing the buffer invalidates earlier sequence numbers
+      cpi.deleteLogFile(true /*lastLineOnly*/);
+      std::string orig3 = "five\n";
+      cpi.appendToOutputBuffer(orig3);
+      loaded = cpi.getSavedBufferTail(since, &isTail);
+      CHECK_FALSE(isTail);
+
+      // cleanup
+      cpi.deleteLogFile();
+   }
 }
 
 } // end namespace tests
@@ -295,11 +295,24 @@ Error ConsoleProcessSocket::sendText(const std::string& terminalHandle,
    return sendRawText(terminalHandle, ConsoleProcessSocketPacket::textPacket(message));
 }
 
+Error ConsoleProcessSocket::sendText(const std::string& terminalHandle,
+                                     const std::string& message,
+                                     int64_t sequence)
+{
+   return sendRawText(terminalHandle,
+                      ConsoleProcessSocketPacket::sequencedTextPacket(message, sequence));
+}
+
 Error ConsoleProcessSocket::sendPong(const std::string& terminalHandle)
 {
    return sendRawText(terminalHandle, ConsoleProcessSocketPacket::keepAlivePacket());
 }
 
+Error ConsoleProcessSocket::sendResync(const std::string& terminalHandle)
+{
+   return sendRawText(terminalHandle, ConsoleProcessSocketPacket::resyncPacket());
+}
+
 void ConsoleProcessSocket::releaseAllConnections()
 {
    connections_.clear();
@@ -329,6 +342,11 @@ void ConsoleProcessSocket::onMessage(terminalServer* s,
    {
       sendPong(handle);
    }
+   else if (ConsoleProcessSocketPacket::isAck(payload))
+   {
+      if (details.connectionCallbacks_.onReceivedAck)
+         details.connectionCallbacks_.onReceivedAck(ConsoleProcessSocketPacket::getAckedPackets(payload));
+   }
    else if (details.connectionCallbacks_.onReceivedInput)
    {
       details.connectionCallbacks_.onReceivedInput(ConsoleProcessSocketPacket::getMessage(payload));
@@ -15,12 +15,17 @@
 
 #include <session/SessionConsoleProcessSocketPacket.hpp>
 
+#include <shared_core/SafeConvert.hpp>
+
 namespace rstudio {
 namespace session {
 namespace console_process {
 
 const std::string ConsoleProcessSocketPacket::kKeepAlivePrefix = "b";
 const std::string ConsoleProcessSocketPacket::kTextPrefix = "a";
+const std::string ConsoleProcessSocketPacket::kSequencedTextPrefix = "c";
+const std::string ConsoleProcessSocketPacket::kAckPrefix = "d";
+const std::string ConsoleProcessSocketPacket::kResyncPrefix = "e";
 
 /* static */
 std::string ConsoleProcessSocketPacket::textPacket(const std::string& text)
@@ -28,6 +33,13 @@ std::string ConsoleProcessSocketPacket::textPacket(const std::string& text)
    return kTextPrefix + text;
 }
 
+/* static */
+std::string ConsoleProcessSocketPacket::sequencedTextPacket(const std::string& text,
+                                                            int64_t sequence)
+{
+   return kSequencedTextPrefix + std::to_string(sequence) + ":" + text;
+}
+
 /* static */
 std::string ConsoleProcessSocketPacket::keepAlivePacket()
 {
@@ -40,6 +52,33 @@ bool ConsoleProcessSocketPacket::isKeepAlive(const std::string& text)
    return text == kKeepAlivePrefix;
 }
 
+/* static */
+std::string ConsoleProcessSocketPacket::ackPacket(int64_t packets)
+{
+   return kAckPrefix + std::to_string(packets);
+}
+
+/* static */
+bool ConsoleProcessSocketPacket::isAck(const std::string& text)
+{
+   return !text.compare(0, kAckPrefix.length(), kAckPrefix);
+}
+
+/* static */
+std::string ConsoleProcessSocketPacket::resyncPacket()
+{
+   return kResyncPrefix;
+}
+
+/* static */
+int64_t ConsoleProcessSocketPacket::getAckedPackets(const std::string& text)
+{
+   if (!isAck(text))
+      return -1;
+
+   return core::safe_convert::stringTo<int64_t>(text.substr(kAckPrefix.length()), -1);
+}
+
 /* static */
 std::string ConsoleProcessSocketPacket::getMessage(const std::string& text)
 {
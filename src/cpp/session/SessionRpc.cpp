@@ -170,6 +170,98 @@ SEXP rs_invokeRpc(SEXP name, SEXP args)
    return result;
 }
 
+// execute a single call on behalf of a multi_call batch. only methods with
+// a direct (synchronous) return can participate in a batch; returns false
+// (without executing anything) for calls which can't
+bool executeBatchedCall(const json::JsonRpcRequest& batchRequest,
+                        const json::Value& callValue,
+                        json::JsonRpcResponse* pResponse)
+{
+   if (!callValue.isObject())
+      return false;
+
+   // form the request for this call (inherits client identity from the batch)
+   json::Object call = callValue.getObject();
+   json::JsonRpcRequest request = batchRequest;
+   request.clear();
+   if (call.find("method") != call.end() && call["method"].isString())
+      request.method = call["method"].getString();
+   if (call.find("params") != call.end() && call["params"].isArray())
+      request.params = call["params"].getArray();
+   if (call.find("kwparams") != call.end() && call["kwparams"].isObject())
+      request.kwparams = call["kwparams"].getObject();
+
+   auto it = s_pJsonRpcMethods->find(request.method);
+   if (request.empty() || it == s_pJsonRpcMethods->end() || !it->second.first)
+      return false;
+
+   // record the time just prior to execution (so we can tell the client
+   // whether this call added any events)
+   using namespace boost::posix_time;
+   ptime executeStartTime = microsec_clock::universal_time();
+
+   // invoke handler and record response
+   core::Error rpcError = Success();
+   it->second.second(request,
+                     boost::bind(saveJsonResponse, _1, _2, &rpcError, pResponse));
+   if (rpcError)
+      pResponse->setError(rpcError);
+
+   // as for a call made on its own, note when no events are likely pending
+   if (!clientEventQueue().eventAddedSince(executeStartTime) &&
+       !pResponse->hasAfterResponse())
+   {
+      pResponse->setField(kEventsPending, "false");
+   }
+
+   return true;
+}
+
+void runAfterResponses(std::vector<json::JsonRpcResponse> responses)
+{
+   for (json::JsonRpcResponse& response : responses)
+      response.runAfterResponse();
+}
+
+// execute a batch of calls in a single round trip. the batch is an array of
+// { method, params, kwparams } objects; the result is an array of raw json-rpc
+// responses (each with either a result or an error) in the same order.
+//
+// execution stops at the first call which can't be part of a batch, so the
+// result may be shorter than the batch; the client sends that call and the
+// ones after it on their own (in order)
+Error multiCall(const json::JsonRpcRequest& request,
+                json::JsonRpcResponse* pResponse)
+{
+   json::Array calls;
+   Error error = json::readParams(request.params, &calls);
+   if (error)
+      return error;
+
+   json::Array results;
+   std::vector<json::JsonRpcResponse> afterResponses;
+   bool suppressDetectChanges = true;
+   for (const json::Value& callValue : calls)
+   {
+      json::JsonRpcResponse callResponse;
+      if (!executeBatchedCall(request, callValue, &callResponse))
+         break;
+      results.push_back(callResponse.getRawResponse());
+
+      if (!callResponse.suppressDetectChanges())
+         suppressDetectChanges = false;
+      if (callResponse.hasAfterResponse())
+         afterResponses.push_back(callResponse);
+   }
+
+   pResponse->setResult(results);
+   pResponse->setSuppressDetectChanges(suppressDetectChanges);
+   if (!afterResponses.empty())
+      pResponse->setAfterResponse(boost::bind(runAfterResponses, afterResponses));
+
+   return Success();
+}
+
 } // anonymous namespace
 
 
@@ -330,6 +422,9 @@ Error initialize()
    // the OS to clean up memory itself after the process is gone)
    s_pJsonRpcMethods = new core::json::JsonRpcAsyncMethods;
 
+   // batched calls from the client
+   module_context::registerRpcMethod("multi_call", multiCall);
+
    RS_REGISTER_CALL_METHOD(rs_invokeRpc);
 
    return Success();
@@ -16,6 +16,7 @@
 #ifndef SESSION_HTTP_CONNECTION_IMPL_HPP
 #define SESSION_HTTP_CONNECTION_IMPL_HPP
 
+#include <sstream>
 
 #include <boost/array.hpp>
 
@@ -137,6 +138,33 @@ public:
          LOG_ERROR(error);
    }
 
+   virtual bool sendStreamHeaders(const core::http::Response& response)
+   {
+      core::http::Response streamResponse;
+      streamResponse.assign(response);
+      streamResponse.setHeader(core::http::kTransferEncoding,
+                               core::http::kChunkedTransferEncoding);
+      return writeStream(streamResponse.headerBuffers(
+                               core::http::Header::connectionClose()));
+   }
+
+   virtual bool sendStreamChunk(const std::string& chunk)
+   {
+      // an empty chunk would end the response
+      if (chunk.empty())
+         return true;
+
+      std::stringstream header;
+      header << std::hex << chunk.size() << "\r\n";
+      std::string chunkHeader = header.str();
+
+      std::vector<boost::asio::const_buffer> buffers;
+      buffers.push_back(boost::asio::buffer(chunkHeader));
+      buffers.push_back(boost::asio::buffer(chunk));
+      buffers.push_back(boost::asio::buffer("\r\n", 2));
+      return writeStream(buffers);
+   }
+
    // other useful introspection methods
    virtual std::string requestId() const { return requestId_; }
 
@@ -172,6 +200,27 @@ public:
 
 private:
 
+   bool writeStream(const std::vector<boost::asio::const_buffer>& buffers)
+   {
+      try
+      {
+         boost::asio::write(socket_, buffers);
+         return true;
+      }
+      catch(const boost::system::system_error& e)
+      {
+         core::Error error = core::Error(e.code(), ERROR_LOCATION);
+         error.addProperty("request-uri", request_.uri());
+
+         // log the error if it wasn't connection terminated
+         if (!core::http::isConnectionTerminatedError(error))
+            LOG_ERROR(error);
+      }
+      CATCH_UNEXPECTED_EXCEPTION
+
+      return false;
+   }
+
    // async request reading interface
    void readSome()
    {
@@ -320,7 +320,8 @@ private:
          return;
 
       // place the connection on the correct queue
-      if (connection::isGetEvents(ptrHttpConnection))
+      if (connection::isGetEvents(ptrHttpConnection) ||
+          connection::isEventStream(ptrHttpConnection))
          eventsConnectionQueue_.enqueConnection(ptrHttpConnection);
       else
          mainConnectionQueue_.enqueConnection(ptrHttpConnection);
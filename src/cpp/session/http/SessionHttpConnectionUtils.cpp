@@ -105,6 +105,13 @@ bool isGetEvents(boost::shared_ptr<HttpConnection> ptrConnection)
                                       "events/get_events");
 }
 
+bool isEventStream(boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   // (the stream's parameters are passed in the query string)
+   return boost::algorithm::ends_with(ptrConnection->request().path(),
+                                      "events/stream");
+}
+
 void handleAbortNextProjParam(
                boost::shared_ptr<HttpConnection> ptrConnection)
 {
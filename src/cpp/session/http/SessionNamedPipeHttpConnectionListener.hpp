@@ -18,6 +18,7 @@
 // Necessary to avoid compile error on Win x64
 #include <winsock2.h>
 
+#include <sstream>
 #include <string>
 
 #include <boost/utility.hpp>
@@ -180,37 +181,35 @@ public:
 
    virtual void sendResponse(const core::http::Response &response)
    {
-      // get the buffers
-      std::vector<boost::asio::const_buffer> buffers =response.toBuffers(
-                                        core::http::Header::connectionClose());
-
-      // write them
-      DWORD bytesWritten;
-      for (std::size_t i=0; i<buffers.size(); i++)
-      {
-         DWORD bytesToWrite = boost::asio::buffer_size(buffers[i]);
-         BOOL success = ::WriteFile(
-                  hPipe_,
-                  boost::asio::buffer_cast<const unsigned char*>(buffers[i]),
-                  bytesToWrite,
-                  &bytesWritten,
-                  nullptr);
-
-         if (!success || (bytesWritten != bytesToWrite))
-         {
-            // establish error
-            Error error = LAST_SYSTEM_ERROR();
-            error.addProperty("request-uri", request_.uri());
+      // get the buffers and write them
+      writeBuffers(response.toBuffers(core::http::Header::connectionClose()));
+   }
 
-            // log the error if it wasn't connection terminated
-            if (!core::http::isConnectionTerminatedError(error))
-               LOG_ERROR(error);
+   virtual bool sendStreamHeaders(const core::http::Response& response)
+   {
+      core::http::Response streamResponse;
+      streamResponse.assign(response);
+      streamResponse.setHeader(core::http::kTransferEncoding,
+                               core::http::kChunkedTransferEncoding);
+      return writeBuffers(streamResponse.headerBuffers(
+                                 core::http::Header::connectionClose()));
+   }
 
-            // close and terminate
-            close();
-            break;
-         }
-      }
+   virtual bool sendStreamChunk(const std::string& chunk)
+   {
+      // an empty chunk would end the response
+      if (chunk.empty())
+         return true;
+
+      std::stringstream header;
+      header << std::hex << chunk.size() << "\r\n";
+      std::string chunkHeader = header.str();
+
+      std::vector<boost::asio::const_buffer> buffers;
+      buffers.push_back(boost::asio::buffer(chunkHeader));
+      buffers.push_back(boost::asio::buffer(chunk));
+      buffers.push_back(boost::asio::buffer("\r\n", 2));
+      return writeBuffers(buffers);
    }
 
    // close (occurs automatically after writeResponse, here in case it
@@ -243,6 +242,38 @@ public:
 
 
 private:
+   bool writeBuffers(const std::vector<boost::asio::const_buffer>& buffers)
+   {
+      DWORD bytesWritten;
+      for (std::size_t i=0; i<buffers.size(); i++)
+      {
+         DWORD bytesToWrite = boost::asio::buffer_size(buffers[i]);
+         BOOL success = ::WriteFile(
+                  hPipe_,
+                  boost::asio::buffer_cast<const unsigned char*>(buffers[i]),
+                  bytesToWrite,
+                  &bytesWritten,
+                  nullptr);
+
+         if (!success || (bytesWritten != bytesToWrite))
+         {
+            // establish error
+            Error error = LAST_SYSTEM_ERROR();
+            error.addProperty("request-uri", request_.uri());
+
+            // log the error if it wasn't connection terminated
+            if (!core::http::isConnectionTerminatedError(error))
+               LOG_ERROR(error);
+
+            // close and terminate
+            close();
+            return false;
+         }
+      }
+
+      return true;
+   }
+
    HANDLE hPipe_;
    core::http::Request request_;
    std::string requestId_;
@@ -401,7 +432,8 @@ private:
          return;
 
       // place the connection on the correct queue
-      if (connection::isGetEvents(ptrHttpConnection))
+      if (connection::isGetEvents(ptrHttpConnection) ||
+          connection::isEventStream(ptrHttpConnection))
          eventsConnectionQueue_.enqueConnection(ptrHttpConnection);
       else
          mainConnectionQueue_.enqueConnection(ptrHttpConnection);
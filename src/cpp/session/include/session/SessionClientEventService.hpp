@@ -18,7 +18,9 @@
 
 #include <string>
 
+#include <boost/shared_ptr.hpp>
 #include <boost/utility.hpp>
+#include <boost/date_time/posix_time/posix_time_duration.hpp>
 
 #include <core/BoostThread.hpp>
 
@@ -34,6 +36,8 @@ namespace core {
 namespace rstudio {
 namespace session {
 
+class HttpConnection;
+
 // singleton
 class ClientEventService;
 ClientEventService& clientEventService();
@@ -57,10 +61,18 @@ public:
 private:
    void run();
 
+   void serveEventStream(boost::shared_ptr<HttpConnection> ptrConnection,
+                         const boost::posix_time::time_duration& batchDelay,
+                         const boost::posix_time::time_duration& maxTotalBatchDelay,
+                         int* pNextEventId,
+                         bool* pStopServer);
+
    void erasePreviouslyDeliveredEvents(int lastClientEventIdSeen);
    bool havePendingClientEvents();
    void addClientEvent(const core::json::Object& eventObject);
    void setClientEventResult(core::json::JsonRpcResponse* pResponse);
+   std::string pendingEventStreamMessages();
+   void trimStreamedEvents();
 
   
 private:
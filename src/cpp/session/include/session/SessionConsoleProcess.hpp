@@ -191,6 +191,11 @@ public:
    // after the requested chunk, *pMoreAvailable will be set to true
    std::string getSavedBufferChunk(int chunk, bool* pMoreAvailable) const;
 
+   // Get the saved buffer's output since the given output sequence number; if
+   // that isn't available, the full buffer is returned and *pIsTail is false
+   std::string getSavedBufferTail(int64_t since, bool* pIsTail) const;
+   int64_t getOutputSequence() const { return procInfo_->getOutputSequence(); }
+
    // Get the full terminal buffer
    std::string getBuffer() const;
 
@@ -216,6 +221,7 @@ private:
 
    std::string bufferedOutput() const;
    void enqueOutputEvent(const std::string& output);
+   void sendPendingOutput();
    void enquePromptEvent(const std::string& prompt);
    void handleConsolePrompt(core::system::ProcessOperations& ops,
                             const std::string& prompt);
@@ -223,6 +229,7 @@ private:
                            const std::string& output);
 
    ConsoleProcessSocketConnectionCallbacks createConsoleProcessSocketConnectionCallbacks();
+   void onReceivedAck(int64_t packets);
    void onConnectionOpened();
    void onConnectionClosed();
 
@@ -261,6 +268,16 @@ private:
    int lastInputSequence_ = kIgnoreSequence;
    boost::mutex inputOutputQueueMutex_;
 
+   // Websocket output not yet sent, as the client hasn't acknowledged enough
+   // of what it has already been sent (guarded by inputOutputQueueMutex_)
+   std::string pendingOutput_;
+   int64_t pendingSequence_ = 0;
+   bool pendingInAltBuffer_ = false;
+   bool outputDropped_ = false;
+   std::deque<int64_t> unackedPacketSizes_;
+   int64_t unackedBytes_ = 0;
+   int64_t ackedPackets_ = 0;
+
    boost::function<bool(const std::string&, Input*)> onPrompt_;
    RSTUDIO_BOOST_SIGNAL<void(int)> onExit_;
 
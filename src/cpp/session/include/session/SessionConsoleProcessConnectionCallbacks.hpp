@@ -15,6 +15,7 @@
 #ifndef SESSION_CONSOLE_PROCESS_CONNECTION_CALLBACKS_HPP
 #define SESSION_CONSOLE_PROCESS_CONNECTION_CALLBACKS_HPP
 
+#include <cstdint>
 #include <string>
 
 #include <boost/function.hpp>
@@ -33,6 +34,10 @@ struct ConsoleProcessSocketConnectionCallbacks
    // invoked when input arrives on the socket
    boost::function<void (const std::string& input)> onReceivedInput;
 
+   // invoked when the client acknowledges the number of output packets it
+   // has consumed
+   boost::function<void (int64_t packets)> onReceivedAck;
+
    // invoked when connection opens
    boost::function<void()> onConnectionOpened;
 
@@ -136,6 +136,14 @@ public:
    std::string bufferedOutput() const;
    std::string getSavedBufferChunk(int chunk, bool* pMoreAvailable) const;
    std::string getFullSavedBuffer() const;
+
+   // Terminal output is numbered by a running count of the bytes appended to
+   // the saved buffer, so a client that has already shown output up to a
+   // given sequence number can ask for just the output since then. If that
+   // isn't available (e.g. it has been trimmed from the buffer) the full
+   // buffer is returned instead, and *pIsTail is set to false.
+   int64_t getOutputSequence() const { return outputSequence_; }
+   std::string getSavedBufferTail(int64_t since, bool* pIsTail) const;
    int getBufferLineCount() const;
    void deleteLogFile(bool lastLineOnly = false) const;
    void deleteEnvFile() const;
@@ -216,6 +224,12 @@ private:
    int maxOutputLines_ = kDefaultMaxOutputLines;
    bool showOnOutput_ = false;
    boost::circular_buffer<char> outputBuffer_ {kOutputBufferSize};
+   int64_t outputSequence_ = 0;
+
+   // sequence number at which the saved buffer last stopped being a suffix of
+   // the output (e.g. because it was erased); a tail can only be served from
+   // after this point (mutable as erasing the buffer is a const operation)
+   mutable int64_t tailStartSequence_ = 0;
    boost::optional<int> exitCode_;
 #ifdef _WIN32
    bool childProcs_ = false; // child process detection not supported on Windows
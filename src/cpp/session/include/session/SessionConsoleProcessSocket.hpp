@@ -89,11 +89,19 @@ public:
    core::Error sendText(const std::string& terminalHandle,
                         const std::string& message);
 
+   // send text packet to client, tagged with the output sequence number
+   core::Error sendText(const std::string& terminalHandle,
+                        const std::string& message,
+                        int64_t sequence);
+
    // send keepalive response to client; we're not using low-level WebSocket
    // ping/pong as that isn't accessible from JavaScript apps; so we're just doing a
    // simple message exchange to keep proxies from killing an idle terminal
    core::Error sendPong(const std::string& terminalHandle);
 
+   // tell client that output it wasn't sent must be fetched from the saved buffer
+   core::Error sendResync(const std::string& terminalHandle);
+
    // network port for websocket listener; 0 means no port
    int port() const;
 
@@ -15,6 +15,7 @@
 #ifndef SESSION_CONSOLE_PROCESS_SOCKET_PACKET_HPP
 #define SESSION_CONSOLE_PROCESS_SOCKET_PACKET_HPP
 
+#include <cstdint>
 #include <string>
 
 namespace rstudio {
@@ -29,8 +30,14 @@ namespace console_process {
  * First character is a method indicator, as follows:
  *    "a" = send text, e.g. "aHello"
  *    "b" = ping/pong, e.g. "b"
+ *    "c" = send text with output sequence number, e.g. "c1234:Hello"
+ *    "d" = acknowledge the number of output packets consumed, e.g. "d12"
+ *    "e" = output was dropped; fetch it from the saved buffer, e.g. "e"
  *
- * Only the "send text" method has a payload (everything after the "a").
+ * The "send text" method's payload is everything after the "a". The sequenced
+ * form is sent from server to client: its payload is the output sequence
+ * number reached by the text, a colon, then the text. Acknowledgements are
+ * sent from client to server, and resync requests from server to client.
  *
  * See TerminalSocketPacket in Java code for client-side of this.
  */
@@ -40,18 +47,37 @@ public:
    // create packet for given text
    static std::string textPacket(const std::string& text);
 
+   // create packet for given text, tagged with the output sequence number
+   static std::string sequencedTextPacket(const std::string& text, int64_t sequence);
+
    // create keepalive packet
    static std::string keepAlivePacket();
 
    // is this packet a keep-alive packet?
    static bool isKeepAlive(const std::string& text);
 
+   // create packet acknowledging the given number of output packets
+   static std::string ackPacket(int64_t packets);
+
+   // is this packet an acknowledgement of output?
+   static bool isAck(const std::string& text);
+
+   // create packet telling the client that output was dropped, and that it
+   // should catch up from the saved buffer
+   static std::string resyncPacket();
+
+   // extract packet count from an acknowledgement packet (-1 if unable to comply)
+   static int64_t getAckedPackets(const std::string& text);
+
    // extract text from packet (empty string if unable to comply)
    static std::string getMessage(const std::string& text);
 
 private:
    static const std::string kKeepAlivePrefix;
    static const std::string kTextPrefix;
+   static const std::string kSequencedTextPrefix;
+   static const std::string kAckPrefix;
+   static const std::string kResyncPrefix;
 };
 
 } // namespace console_process
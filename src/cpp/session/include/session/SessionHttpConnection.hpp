@@ -74,6 +74,13 @@ public:
    // need to be closed in other circumstances
    virtual void close() = 0;
 
+   // write a response whose body is streamed to the client as it is produced
+   // (e.g. server-sent events): first the headers, then the body a chunk at
+   // a time. the connection stays open until close() is called. both return
+   // false if the client is no longer connected.
+   virtual bool sendStreamHeaders(const core::http::Response& response) = 0;
+   virtual bool sendStreamChunk(const std::string& chunk) = 0;
+
    // other useful introspection methods
    virtual std::string requestId() const = 0;
 
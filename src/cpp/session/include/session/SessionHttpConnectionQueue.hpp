@@ -55,6 +55,10 @@ public:
 
    boost::posix_time::ptime lastConnectionTime();
 
+   // note that a connection taken from the queue earlier is still being
+   // served (e.g. a long-lived event stream), so the client is connected
+   void updateLastConnectionTime();
+
 private:
    boost::shared_ptr<HttpConnection> doDequeConnection();
    bool waitForConnection(const boost::posix_time::time_duration& waitDuration);
@@ -380,6 +380,9 @@ namespace prefs {
 #define kPythonVersion "python_version"
 #define kPythonPath "python_path"
 #define kSaveRetryTimeout "save_retry_timeout"
+#define kBatchRpcRequests "batch_rpc_requests"
+#define kStreamClientEvents "stream_client_events"
+#define kJobOutputMaxLines "job_output_max_lines"
 
 class UserPrefValues: public Preferences
 {
@@ -1669,6 +1672,24 @@ public:
    int saveRetryTimeout();
    core::Error setSaveRetryTimeout(int val);
 
+   /**
+    * Whether to combine RPC requests made in quick succession into a single request to the server.
+    */
+   bool batchRpcRequests();
+   core::Error setBatchRpcRequests(bool val);
+
+   /**
+    * Whether to receive events from the R session over a persistent streaming connection rather than by polling.
+    */
+   bool streamClientEvents();
+   core::Error setStreamClientEvents(bool val);
+
+   /**
+    * The maximum number of lines of output to keep for each background job while its output isn't being displayed.
+    */
+   int jobOutputMaxLines();
+   core::Error setJobOutputMaxLines(int val);
+
 };
 
         
@@ -18,11 +18,15 @@
 
 #include <string>
 #include <map>
+#include <vector>
 #include <fstream>
+#include <algorithm>
+#include <sstream>
 
 #include <gsl/gsl>
 
 #include <boost/bind.hpp>
+#include <boost/crc.hpp>
 #include <boost/utility.hpp>
 
 #include <core/r_util/RSourceIndex.hpp>
@@ -139,10 +143,13 @@ std::string inferDocumentType(const FilePath& documentPath,
 }
 
 void writeDocToJson(boost::shared_ptr<SourceDocument> pDoc,
-                    core::json::Object* pDocJson)
+                    core::json::Object* pDocJson,
+                    bool includeContents = true)
 {
    // write the doc
-   pDoc->writeToJson(pDocJson);
+   pDoc->writeToJson(pDocJson, includeContents);
+   if (!includeContents)
+      (*pDocJson)["contents_deferred"] = true;
 
    // derive the extended type property
    (*pDocJson)["extended_type"] = module_context::events()
@@ -655,6 +662,313 @@ Error saveDocumentDiff(const json::JsonRpcRequest& request,
    return Success();
 }
 
+// Finds the byte offset of a column in a line of UTF-8 encoded contents.
+// Columns are counted in UTF-16 code units, as the editor reports them.
+// Returns false if the column isn't within the line.
+bool findColumnOffset(const std::string& line, int column, std::size_t* pOffset)
+{
+   if (column < 0)
+      return false;
+
+   std::size_t offset = 0;
+   int units = 0;
+   while (units < column)
+   {
+      if (offset >= line.size())
+         return false;
+
+      unsigned char ch = static_cast<unsigned char>(line[offset]);
+      if (ch < 0x80)
+      {
+         offset += 1;
+         units += 1;
+      }
+      else if (ch < 0xE0)
+      {
+         offset += 2;
+         units += 1;
+      }
+      else if (ch < 0xF0)
+      {
+         offset += 3;
+         units += 1;
+      }
+      else
+      {
+         // outside the BMP; a surrogate pair in UTF-16
+         offset += 4;
+         units += 2;
+      }
+   }
+
+   if (offset > line.size())
+      return false;
+
+   *pOffset = offset;
+   return true;
+}
+
+void splitDocumentLines(const std::string& contents,
+                        std::vector<std::string>* pLines)
+{
+   std::size_t start = 0;
+   while (true)
+   {
+      std::size_t end = contents.find('\n', start);
+      if (end == std::string::npos)
+      {
+         pLines->push_back(contents.substr(start));
+         return;
+      }
+
+      pLines->push_back(contents.substr(start, end - start));
+      start = end + 1;
+   }
+}
+
+std::string joinDocumentLines(const std::vector<std::string>& lines)
+{
+   std::size_t size = lines.size();
+   for (const std::string& line : lines)
+      size += line.size();
+
+   std::string contents;
+   contents.reserve(size);
+   for (std::size_t i = 0; i < lines.size(); i++)
+   {
+      if (i > 0)
+         contents.push_back('\n');
+      contents.append(lines[i]);
+   }
+   return contents;
+}
+
+// Applies a single editor edit to the lines of a document; edits are encoded
+// as [0, row, column, text] (insert) or [1, row, column, endRow, endColumn]
+// (remove). Working on lines keeps each edit proportional to the lines it
+// touches rather than to the size of the document. Returns false if the edit
+// is malformed or doesn't fit.
+bool applyDocumentEdit(const json::Value& editValue,
+                       std::vector<std::string>* pLines)
+{
+   if (!editValue.isArray())
+      return false;
+
+   const json::Array& edit = editValue.getArray();
+   if (edit.getSize() < 4 || !edit[0].isInt() || !edit[1].isInt() || !edit[2].isInt())
+      return false;
+
+   std::vector<std::string>& lines = *pLines;
+   int row = edit[1].getInt();
+   if (row < 0 || static_cast<std::size_t>(row) >= lines.size())
+      return false;
+
+   std::size_t start;
+   if (!findColumnOffset(lines[row], edit[2].getInt(), &start))
+      return false;
+
+   if (edit[0].getInt() == 0)
+   {
+      if (!edit[3].isString())
+         return false;
+
+      std::vector<std::string> inserted;
+      splitDocumentLines(edit[3].getString(), &inserted);
+      if (inserted.size() == 1)
+      {
+         lines[row].insert(start, inserted.front());
+         return true;
+      }
+
+      // the rest of the line moves to the end of the last inserted line
+      inserted.back().append(lines[row], start, std::string::npos);
+      lines[row].erase(start);
+      lines[row].append(inserted.front());
+      lines.insert(lines.begin() + row + 1, inserted.begin() + 1, inserted.end());
+      return true;
+   }
+
+   if (edit.getSize() < 5 || !edit[3].isInt() || !edit[4].isInt())
+      return false;
+
+   int endRow = edit[3].getInt();
+   if (endRow < row || static_cast<std::size_t>(endRow) >= lines.size())
+      return false;
+
+   std::size_t end;
+   if (!findColumnOffset(lines[endRow], edit[4].getInt(), &end))
+      return false;
+
+   if (endRow == row)
+   {
+      if (end < start)
+         return false;
+
+      lines[row].erase(start, end - start);
+      return true;
+   }
+
+   lines[row].erase(start);
+   lines[row].append(lines[endRow], end, std::string::npos);
+   lines.erase(lines.begin() + row + 1, lines.begin() + endRow + 1);
+   return true;
+}
+
+// Computes the CRC-32 of contents as the editor holds them (UTF-16 code
+// units, low byte first), as a lower case hex string, for comparison with the
+// hash the client computes. Returns an empty string for invalid UTF-8.
+std::string editorContentsHash(const std::string& contents)
+{
+   boost::crc_32_type crc;
+   auto processUnit = [&](unsigned int unit)
+   {
+      crc.process_byte(static_cast<unsigned char>(unit & 0xFF));
+      crc.process_byte(static_cast<unsigned char>((unit >> 8) & 0xFF));
+   };
+
+   std::size_t i = 0;
+   while (i < contents.size())
+   {
+      unsigned char ch = static_cast<unsigned char>(contents[i]);
+      unsigned int codePoint;
+      std::size_t length;
+      if (ch < 0x80)
+      {
+         codePoint = ch;
+         length = 1;
+      }
+      else if ((ch & 0xE0) == 0xC0)
+      {
+         codePoint = ch & 0x1F;
+         length = 2;
+      }
+      else if ((ch & 0xF0) == 0xE0)
+      {
+         codePoint = ch & 0x0F;
+         length = 3;
+      }
+      else if ((ch & 0xF8) == 0xF0)
+      {
+         codePoint = ch & 0x07;
+         length = 4;
+      }
+      else
+      {
+         return std::string();
+      }
+
+      if (i + length > contents.size())
+         return std::string();
+
+      for (std::size_t j = 1; j < length; j++)
+      {
+         unsigned char next = static_cast<unsigned char>(contents[i + j]);
+         if ((next & 0xC0) != 0x80)
+            return std::string();
+         codePoint = (codePoint << 6) | (next & 0x3F);
+      }
+
+      if (codePoint >= 0x10000)
+      {
+         // outside the BMP; a surrogate pair in UTF-16
+         codePoint -= 0x10000;
+         processUnit(0xD800 + (codePoint >> 10));
+         processUnit(0xDC00 + (codePoint & 0x3FF));
+      }
+      else
+      {
+         processUnit(codePoint);
+      }
+
+      i += length;
+   }
+
+   std::ostringstream output;
+   output << std::hex << crc.checksum();
+   return output.str();
+}
+
+Error saveDocumentEdits(const json::JsonRpcRequest& request,
+                        json::JsonRpcResponse* pResponse)
+{
+   // unique id and jsonPath (can be null for auto-save)
+   std::string id;
+   json::Value jsonPath, jsonType, jsonEncoding, jsonFoldSpec, jsonChunkOutput;
+
+   // the edits made in the editor since the document had the given hash, and
+   // the hash of the editor's contents once they're applied (empty when the
+   // client hasn't computed one)
+   json::Array edits;
+   std::string contentsHash;
+   std::string hash;
+   bool retryWrite = false;
+
+   Error error = json::readParams(request.params,
+                                  &id,
+                                  &jsonPath,
+                                  &jsonType,
+                                  &jsonEncoding,
+                                  &jsonFoldSpec,
+                                  &jsonChunkOutput,
+                                  &edits,
+                                  &contentsHash,
+                                  &hash,
+                                  &retryWrite);
+   if (error)
+      return error;
+
+   // if this has no path then it is an autosave, in this case
+   // suppress change detection and write retries
+   bool hasPath = json::isType<std::string>(jsonPath);
+   if (!hasPath)
+      pResponse->setSuppressDetectChanges(true);
+
+   // get the doc
+   boost::shared_ptr<SourceDocument> pDoc(new SourceDocument());
+   error = source_database::get(id, pDoc);
+   if (error)
+      return sourceDatabaseError(error);
+
+   // Don't even attempt anything if we're not working off the same original
+   if (pDoc->hash() != hash)
+      return Success();
+
+   // as with saveDocumentDiff, returning without a hash tells the client to
+   // fall back to a full save
+   try
+   {
+      std::vector<std::string> lines;
+      splitDocumentLines(pDoc->contents(), &lines);
+      for (const json::Value& edit : edits)
+      {
+         if (!applyDocumentEdit(edit, &lines))
+            return Success();
+      }
+      std::string contents = joinDocumentLines(lines);
+
+      // check that we ended up with exactly the document the client has; the
+      // client only sends a hash for some saves, since computing it is a pass
+      // over the whole document on both sides
+      if (!contentsHash.empty() && editorContentsHash(contents) != contentsHash)
+         return Success();
+
+      bool hasChanges = contents != pDoc->contents();
+      error = saveDocumentCore(contents, jsonPath, jsonType, jsonEncoding,
+                               jsonFoldSpec, jsonChunkOutput, pDoc, retryWrite);
+      if (error)
+         return error;
+
+      error = sourceDatabasePutWithUpdatedContents(pDoc, hasChanges, retryWrite);
+      if (error)
+         return error;
+
+      pResponse->setResult(pDoc->hash());
+   }
+   CATCH_UNEXPECTED_EXCEPTION
+
+   return Success();
+}
+
 Error checkForExternalEdit(const json::JsonRpcRequest& request,
                            json::JsonRpcResponse* pResponse)
 {
@@ -1437,6 +1751,31 @@ SEXP rs_readSourceDocument(SEXP idSEXP)
    return r::sexp::create(pDoc->contents(), &protect);
 }
 
+// the client restores clean documents backed by text files without building
+// their editors, and fetches their contents (with get_source_document) only
+// when it builds one; so there's no need to send those contents up front
+bool canDeferContents(boost::shared_ptr<SourceDocument> pDoc)
+{
+   if (pDoc->path().empty() || pDoc->dirty() || !pDoc->collabServer().empty())
+      return false;
+
+   static const std::vector<std::string> textTypes = {
+      kSourceDocumentTypeCpp,
+      kSourceDocumentTypeJS,
+      kSourceDocumentTypePython,
+      kSourceDocumentTypeRHTML,
+      kSourceDocumentTypeRMarkdown,
+      kSourceDocumentTypeRSource,
+      kSourceDocumentTypeSQL,
+      kSourceDocumentTypeShell,
+      kSourceDocumentTypeSweave,
+      "markdown",
+      "text"
+   };
+   return std::find(textTypes.begin(), textTypes.end(), pDoc->type()) !=
+          textTypes.end();
+}
+
 } // anonymous namespace
 
 Error clientInitDocuments(core::json::Array* pJsonDocs)
@@ -1470,7 +1809,7 @@ Error clientInitDocuments(core::json::Array* pJsonDocs)
          LOG_ERROR(error);
 
       json::Object jsonDoc;
-      writeDocToJson(pDoc, &jsonDoc);
+      writeDocToJson(pDoc, &jsonDoc, !canDeferContents(pDoc));
       pJsonDocs->push_back(jsonDoc);
 
       source_database::events().onDocUpdated(pDoc);
@@ -1509,6 +1848,7 @@ Error initialize()
       (bind(registerRpcMethod, "open_document", openDocument))
       (bind(registerRpcMethod, "save_document", saveDocument))
       (bind(registerRpcMethod, "save_document_diff", saveDocumentDiff))
+      (bind(registerRpcMethod, "save_document_edits", saveDocumentEdits))
       (bind(registerRpcMethod, "check_for_external_edit", checkForExternalEdit))
       (bind(registerRpcMethod, "ignore_external_edit", ignoreExternalEdit))
       (bind(registerRpcMethod, "set_source_document_on_save", setSourceDocumentOnSave))
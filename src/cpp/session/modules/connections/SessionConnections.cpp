@@ -427,6 +427,56 @@ void sendResponse(const Error& error,
 }
 
 
+void connectionListObjectsPage(const json::JsonRpcRequest& request,
+                               const json::JsonRpcFunctionContinuation& continuation)
+{
+   // get connection and container params
+   ConnectionId connectionId;
+   json::Array objectSpecifier;
+   Error error = readConnectionIdAndObjectParams(request, &connectionId,
+         &objectSpecifier);
+   if (error)
+   {
+      json::JsonRpcResponse response;
+      continuation(error, &response);
+      return;
+   }
+
+   // get paging params
+   std::string filter;
+   int offset = 0, limit = 0;
+   bool refresh = false;
+   error = json::readParam(request.params, 2, &filter);
+   if (!error)
+      error = json::readParam(request.params, 3, &offset);
+   if (!error)
+      error = json::readParam(request.params, 4, &limit);
+   if (!error)
+      error = json::readParam(request.params, 5, &refresh);
+   if (error)
+   {
+      json::JsonRpcResponse response;
+      continuation(error, &response);
+      return;
+   }
+
+   // get the requested page of objects
+   r::sexp::Protect rProtect;
+   SEXP sexpResult;
+   r::exec::RFunction listObjects(".rs.connectionListObjectsPage",
+                                  connectionId.type,
+                                  connectionId.host);
+   listObjects.addParam(filter);
+   listObjects.addParam(offset);
+   listObjects.addParam(limit);
+   listObjects.addParam(refresh);
+   addObjectSpecifiers(objectSpecifier, &listObjects);
+   error = listObjects.call(&sexpResult, &rProtect);
+
+   // send the response
+   sendResponse(error, sexpResult, continuation, ERROR_LOCATION);
+}
+
 void connectionListFields(const json::JsonRpcRequest& request,
                           const json::JsonRpcFunctionContinuation& continuation)
 {
@@ -722,6 +772,7 @@ Error initialize()
       (bind(registerRpcMethod, "connection_disconnect", connectionDisconnect))
       (bind(registerRpcMethod, "connection_execute_action", connectionExecuteAction))
       (bind(registerIdleOnlyAsyncRpcMethod, "connection_list_objects", connectionListObjects))
+      (bind(registerIdleOnlyAsyncRpcMethod, "connection_list_objects_page", connectionListObjectsPage))
       (bind(registerIdleOnlyAsyncRpcMethod, "connection_list_fields", connectionListFields))
       (bind(registerIdleOnlyAsyncRpcMethod, "connection_preview_object", connectionPreviewObject))
       (bind(module_context::registerUriHandler, "/" kConnectionsPath, 
@@ -2805,6 +2805,45 @@ core::Error UserPrefValues::setSaveRetryTimeout(int val)
    return writePref("save_retry_timeout", val);
 }
 
+/**
+ * Whether to combine RPC requests made in quick succession into a single request to the server.
+ */
+bool UserPrefValues::batchRpcRequests()
+{
+   return readPref<bool>("batch_rpc_requests");
+}
+
+core::Error UserPrefValues::setBatchRpcRequests(bool val)
+{
+   return writePref("batch_rpc_requests", val);
+}
+
+/**
+ * Whether to receive events from the R session over a persistent streaming connection rather than by polling.
+ */
+bool UserPrefValues::streamClientEvents()
+{
+   return readPref<bool>("stream_client_events");
+}
+
+core::Error UserPrefValues::setStreamClientEvents(bool val)
+{
+   return writePref("stream_client_events", val);
+}
+
+/**
+ * The maximum number of lines of output to keep for each background job while its output isn't being displayed.
+ */
+int UserPrefValues::jobOutputMaxLines()
+{
+   return readPref<int>("job_output_max_lines");
+}
+
+core::Error UserPrefValues::setJobOutputMaxLines(int val)
+{
+   return writePref("job_output_max_lines", val);
+}
+
 std::vector<std::string> UserPrefValues::allKeys()
 {
    return std::vector<std::string>({
@@ -3022,6 +3061,9 @@ std::vector<std::string> UserPrefValues::allKeys()
       kPythonVersion,
       kPythonPath,
       kSaveRetryTimeout,
+      kBatchRpcRequests,
+      kStreamClientEvents,
+      kJobOutputMaxLines,
    });
 }
    
@@ -0,0 +1,173 @@
+/*
+ * ChunkedTextBuffer.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+/**
+ * Text storage for console-like output: a sequence of fixed-size chunks plus
+ * a sorted index of newline positions.
+ *
+ * Writes overwrite existing text starting at a position (extending the
+ * buffer if they run past its end), so only the chunks touched by a write
+ * are rebuilt no matter how large the buffer grows. Finding the start or end
+ * of the line containing a position is a binary search over the newline
+ * index rather than a character scan.
+ */
+public class ChunkedTextBuffer
+{
+   public ChunkedTextBuffer()
+   {
+      clear();
+   }
+
+   public int length()
+   {
+      return length_;
+   }
+
+   public char charAt(int pos)
+   {
+      return chunks_.get(pos / CHUNK_SIZE).charAt(pos % CHUNK_SIZE);
+   }
+
+   public void clear()
+   {
+      chunks_ = JsVectorString.createVector();
+      newlines_ = JsVectorInteger.createVector();
+      length_ = 0;
+   }
+
+   /**
+    * Writes text at the given position, overwriting any existing text there.
+    *
+    * @param pos The position to write at; must not exceed the buffer length.
+    * @param text The text to write.
+    */
+   public void write(int pos, String text)
+   {
+      int count = text.length();
+      if (count == 0)
+         return;
+
+      int end = pos + count;
+      updateNewlineIndex(pos, end, text);
+
+      int offset = pos;
+      int written = 0;
+      while (written < count)
+      {
+         int index = offset / CHUNK_SIZE;
+         int within = offset % CHUNK_SIZE;
+         int n = Math.min(CHUNK_SIZE - within, count - written);
+         String piece = text.substring(written, written + n);
+
+         if (index == chunks_.length())
+         {
+            chunks_.push(piece);
+         }
+         else
+         {
+            String chunk = chunks_.get(index);
+            if (within == 0 && n >= chunk.length())
+               chunks_.set(index, piece);
+            else if (within + n >= chunk.length())
+               chunks_.set(index, chunk.substring(0, within) + piece);
+            else
+               chunks_.set(index, chunk.substring(0, within) + piece +
+                                  chunk.substring(within + n));
+         }
+
+         offset += n;
+         written += n;
+      }
+
+      length_ = Math.max(length_, end);
+   }
+
+   /**
+    * @return The position of the first character of the line containing pos
+    *    (i.e. just past the nearest newline before pos).
+    */
+   public int lineStart(int pos)
+   {
+      int index = lowerBound(pos) - 1;
+      return index < 0 ? 0 : newlines_.get(index) + 1;
+   }
+
+   /**
+    * @return The position of the first newline at or after pos, or the
+    *    buffer length if there is none.
+    */
+   public int lineEnd(int pos)
+   {
+      int index = lowerBound(pos);
+      return index < newlines_.length() ? newlines_.get(index) : length_;
+   }
+
+   public int getLineCount()
+   {
+      return newlines_.length() + 1;
+   }
+
+   @Override
+   public String toString()
+   {
+      return chunks_.join("");
+   }
+
+   private void updateNewlineIndex(int pos, int end, String text)
+   {
+      // drop newlines that are being overwritten
+      int first = lowerBound(pos);
+      int last = lowerBound(Math.min(end, length_));
+      if (last > first)
+         newlines_.remove(first, last - first);
+
+      // record newlines that are being written (in order, at the point where
+      // the removed ones used to be)
+      int insertAt = first;
+      int index = text.indexOf('\n');
+      while (index != -1)
+      {
+         if (insertAt == newlines_.length())
+            newlines_.push(pos + index);
+         else
+            newlines_.insert(insertAt, pos + index);
+         insertAt++;
+         index = text.indexOf('\n', index + 1);
+      }
+   }
+
+   // index of the first newline at or after pos
+   private int lowerBound(int pos)
+   {
+      int lo = 0;
+      int hi = newlines_.length();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (newlines_.get(mid) < pos)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   private JsVectorString chunks_;
+   private JsVectorInteger newlines_;
+   private int length_;
+
+   private static final int CHUNK_SIZE = 8192;
+}
@@ -14,9 +14,12 @@
  */
 package org.rstudio.core.client;
 
+import java.util.ArrayDeque;
 import java.util.List;
 
+import com.google.gwt.animation.client.AnimationScheduler;
 import com.google.gwt.aria.client.Roles;
+import com.google.gwt.core.client.Duration;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.virtualscroller.VirtualScrollerManager;
 import org.rstudio.core.client.widget.PreWidget;
@@ -25,11 +28,17 @@ import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Node;
 import com.google.gwt.dom.client.SpanElement;
+import com.google.gwt.user.client.Command;
 import org.rstudio.studio.client.workbench.views.console.ConsoleResources;
 
 /**
  * Displays R Console output to user, with special behaviors for regular output
  * vs. error output.
+ *
+ * Output can either be written immediately (outputToConsole) or queued
+ * (queueOutput); queued output is coalesced and written once per animation
+ * frame, so bursts of small writes cost one DOM update and one trim per
+ * frame rather than one per write.
  */
 public class ConsoleOutputWriter
 {
@@ -42,6 +51,29 @@ public class ConsoleOutputWriter
          output_.getElement().setAttribute("aria-label", a11yLabel);
          Roles.getDocumentRole().set(output_.getElement());
       }
+
+      if (!countersRegistered_)
+      {
+         countersRegistered_ = true;
+         PerformanceCounters.register(new PerformanceCounters.Source()
+         {
+            @Override
+            public String getName()
+            {
+               return "Console Output";
+            }
+
+            @Override
+            public void dump(StringBuilder output)
+            {
+               PerformanceCounters.append(output, "Writes queued", writesQueued_);
+               PerformanceCounters.append(output, "Frames rendered", framesRendered_);
+               PerformanceCounters.append(output, "Frames dropped", framesDropped_);
+               PerformanceCounters.append(output, "Max frame render ms", maxRenderMs_);
+               PerformanceCounters.append(output, "Lines trimmed", linesTrimmed_);
+            }
+         });
+      }
    }
 
    public PreWidget getWidget()
@@ -56,7 +88,11 @@ public class ConsoleOutputWriter
 
    public void clearConsoleOutput()
    {
+      // anything still queued would be cleared right away, so just drop it
+      cancelQueuedOutput();
+
       lines_ = 0;
+      chunks_.clear();
 
       if (VirtualScrollerManager.scrollerForElement(output_.getElement()) != null)
          VirtualScrollerManager.clear(output_.getElement());
@@ -78,6 +114,98 @@ public class ConsoleOutputWriter
       trimExcess();
    }
 
+   /**
+    * Queue text for output on the next animation frame. Consecutive writes
+    * with the same style are merged into a single write. Output is subject to
+    * the maximum buffer line count.
+    *
+    * @param text Text to output
+    * @param className Text style
+    * @param ariaLiveAnnounce Include in arialive output announcement
+    */
+   public void queueOutput(String text,
+                           String className,
+                           boolean ariaLiveAnnounce)
+   {
+      writesQueued_++;
+
+      if (queuedText_.length() > 0 &&
+          (!StringUtil.equals(className, queuedClass_) ||
+           ariaLiveAnnounce != queuedAnnounce_))
+      {
+         flushQueuedOutput();
+      }
+
+      queuedText_.append(text);
+      queuedClass_ = className;
+      queuedAnnounce_ = ariaLiveAnnounce;
+
+      if (frameHandle_ == null)
+      {
+         frameRequestedAt_ = Duration.currentTimeMillis();
+         frameHandle_ = AnimationScheduler.get().requestAnimationFrame(
+               (double timestamp) -> onAnimationFrame());
+      }
+   }
+
+   /**
+    * Write any queued output now. Called implicitly before any other
+    * operation which reads or writes the console's contents.
+    */
+   public void flushQueuedOutput()
+   {
+      if (frameHandle_ != null)
+      {
+         frameHandle_.cancel();
+         frameHandle_ = null;
+      }
+
+      if (queuedText_.length() == 0)
+         return;
+
+      String text = queuedText_.toString();
+      queuedText_.setLength(0);
+      outputToConsole(text, queuedClass_, false /*isError*/,
+                      false /*ignoreLineCount*/, queuedAnnounce_);
+
+      if (onQueuedOutputRendered_ != null)
+         onQueuedOutputRendered_.execute();
+   }
+
+   /**
+    * @param command Command to run after queued output has been written
+    */
+   public void setOnQueuedOutputRendered(Command command)
+   {
+      onQueuedOutputRendered_ = command;
+   }
+
+   private void cancelQueuedOutput()
+   {
+      if (frameHandle_ != null)
+      {
+         frameHandle_.cancel();
+         frameHandle_ = null;
+      }
+      queuedText_.setLength(0);
+   }
+
+   private void onAnimationFrame()
+   {
+      frameHandle_ = null;
+
+      // any full frame that passed between queueing the output and getting
+      // a chance to render it was dropped
+      double start = Duration.currentTimeMillis();
+      double delay = start - frameRequestedAt_;
+      if (delay > FRAME_MS)
+         framesDropped_ += (int) Math.floor(delay / FRAME_MS);
+
+      flushQueuedOutput();
+      maxRenderMs_ = Math.max(maxRenderMs_, Duration.currentTimeMillis() - start);
+      framesRendered_++;
+   }
+
    /**
     * Send text to the console
     * @param text Text to output
@@ -93,6 +221,8 @@ public class ConsoleOutputWriter
                                   boolean ignoreLineCount,
                                   boolean ariaLiveAnnounce)
    {
+      flushQueuedOutput();
+
       if (text.indexOf('\f') >= 0)
          clearConsoleOutput();
 
@@ -107,51 +237,82 @@ public class ConsoleOutputWriter
          Roles.getDocumentRole().set(trailing); // https://github.com/rstudio/rstudio/issues/6884
          outEl.appendChild(trailing);
          virtualConsole_ = vcFactory_.create(trailing);
+         chunks_.addLast(new OutputChunk(trailing));
       }
 
-      // set the appendTarget to the VirtualConsole bucket if possible
-      Element appendTarget = virtualConsole_.getParent();
-
-      // we never want to count lines based on the trailing element so grab its parent, if possible
-      // otherwise just grab the outElement
-      if (appendTarget.getAttribute("tabindex").equals("-1") && appendTarget.getTagName().toLowerCase().equals("span"))
-      {
-         if (appendTarget.getParentElement() != null)
-            appendTarget = appendTarget.getParentElement();
-         else {
-            appendTarget = outEl;
-         }
-      }
-
-      int oldLineCount = DomUtils.countLines(appendTarget, true);
+      // the console tracks its own newlines, so the number of lines written
+      // is available without counting them in the DOM
+      int oldLineCount = virtualConsole_.getNewlineCount();
       virtualConsole_.submit(text, className, isError, ariaLiveAnnounce);
-      int newLineCount = DomUtils.countLines(appendTarget, true);
+      int newLineCount = virtualConsole_.getNewlineCount();
 
       if (!virtualConsole_.isLimitConsoleVisible())
-         lines_ += newLineCount - oldLineCount;
+         addLines(newLineCount - oldLineCount);
 
       return ignoreLineCount || !trimExcess();
    }
 
    public boolean trimExcess()
    {
+      flushQueuedOutput();
+
       if (maxLines_ <= 0 || virtualConsole_ != null && virtualConsole_.isLimitConsoleVisible())
          return false;  // No limit in effect
 
       int linesToTrim = lines_ - maxLines_;
+      if (linesToTrim <= 0)
+         return false;
+
+      // remove whole chunks of output (other than the one still being written
+      // to) while they fit within the excess, using their line counts
+      Element active = virtualConsole_ == null ? null : virtualConsole_.getParent();
+      while (!chunks_.isEmpty())
+      {
+         OutputChunk chunk = chunks_.peekFirst();
+         if (chunk.element == active || chunk.lines > linesToTrim)
+            break;
+
+         chunks_.pollFirst();
+         chunk.element.removeFromParent();
+         linesToTrim -= chunk.lines;
+         lines_ -= chunk.lines;
+         linesTrimmed_ += chunk.lines;
+      }
+
+      // trim the remainder from the front of the oldest chunk; this only
+      // visits the nodes being trimmed
       if (linesToTrim > 0)
       {
-         lines_ -= DomUtils.trimLines(getElement(), linesToTrim);
-         return true;
+         int trimmed;
+         OutputChunk chunk = chunks_.peekFirst();
+         if (chunk != null)
+         {
+            trimmed = DomUtils.trimLines(chunk.element, linesToTrim);
+            chunk.lines -= trimmed;
+         }
+         else
+         {
+            trimmed = DomUtils.trimLines(getElement(), linesToTrim);
+         }
+         lines_ -= trimmed;
+         linesTrimmed_ += trimmed;
       }
 
-      return false;
+      return true;
+   }
+
+   private void addLines(int count)
+   {
+      lines_ += count;
+      if (!chunks_.isEmpty())
+         chunks_.peekLast().lines += count;
    }
 
    // Elements added by last submit call; only captured if
    // outputToConsole/isError was true for performance reasons
    public List<Element> getNewElements()
    {
+      flushQueuedOutput();
       if (virtualConsole_ == null)
          return null;
       else
@@ -160,6 +321,7 @@ public class ConsoleOutputWriter
 
    public void ensureStartingOnNewLine()
    {
+      flushQueuedOutput();
       if (virtualConsole_ != null)
       {
          Node child = virtualConsole_.getParent().getLastChild();
@@ -168,6 +330,8 @@ public class ConsoleOutputWriter
              !Element.as(child).getInnerText().endsWith("\n"))
          {
             virtualConsole_.submit("\n");
+            if (!virtualConsole_.isLimitConsoleVisible())
+               addLines(1);
          }
          // clear the virtual console so we start with a fresh slate
          virtualConsole_ = null;
@@ -176,11 +340,13 @@ public class ConsoleOutputWriter
 
    public int getCurrentLines()
    {
+      flushQueuedOutput();
       return lines_;
    }
 
    public String getNewText()
    {
+      flushQueuedOutput();
       if (virtualConsole_ == null)
          return "";
       else
@@ -189,6 +355,7 @@ public class ConsoleOutputWriter
 
    public void focusEnd()
    {
+      flushQueuedOutput();
       Node lastChild = output_.getElement().getLastChild();
       if (lastChild == null)
          return;
@@ -196,9 +363,39 @@ public class ConsoleOutputWriter
       last.focus();
    }
 
+   // a top-level span of output (one per VirtualConsole) and the number of
+   // lines it holds
+   private static class OutputChunk
+   {
+      OutputChunk(Element element)
+      {
+         this.element = element;
+      }
+
+      final Element element;
+      int lines = 0;
+   }
+
    private int maxLines_ = -1;
    private int lines_ = 0;
    private final PreWidget output_;
    private VirtualConsole virtualConsole_;
    private final VirtualConsoleFactory vcFactory_;
+   private final ArrayDeque<OutputChunk> chunks_ = new ArrayDeque<>();
+
+   private final StringBuilder queuedText_ = new StringBuilder();
+   private String queuedClass_;
+   private boolean queuedAnnounce_;
+   private AnimationScheduler.AnimationHandle frameHandle_;
+   private double frameRequestedAt_;
+   private Command onQueuedOutputRendered_;
+
+   private static boolean countersRegistered_ = false;
+   private static int writesQueued_ = 0;
+   private static int framesRendered_ = 0;
+   private static int framesDropped_ = 0;
+   private static double maxRenderMs_ = 0;
+   private static int linesTrimmed_ = 0;
+
+   private static final double FRAME_MS = 1000.0 / 60;
 }
@@ -0,0 +1,133 @@
+/*
+ * IdleScheduler.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.LinkedList;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Runs low-priority work while the browser is idle.
+ *
+ * Commands are run in slices: each time the browser reports idle time, queued
+ * commands are executed round-robin until the idle period is used up. A
+ * command stays queued for as long as it returns true, so long-running work
+ * should do a small unit per call. Browsers without requestIdleCallback fall
+ * back to a short timer with a fixed time budget per slice.
+ */
+public class IdleScheduler
+{
+   public static IdleScheduler get()
+   {
+      if (INSTANCE == null)
+         INSTANCE = new IdleScheduler();
+      return INSTANCE;
+   }
+
+   private IdleScheduler()
+   {
+   }
+
+   public void schedule(RepeatingCommand command)
+   {
+      commands_.add(command);
+      requestSlice();
+   }
+
+   public void cancel(RepeatingCommand command)
+   {
+      commands_.remove(command);
+   }
+
+   public boolean isScheduled(RepeatingCommand command)
+   {
+      return commands_.contains(command);
+   }
+
+   private void requestSlice()
+   {
+      if (sliceRequested_ || commands_.isEmpty())
+         return;
+
+      sliceRequested_ = true;
+      if (!requestIdleCallback())
+         fallbackTimer_.schedule(FALLBACK_DELAY_MS);
+   }
+
+   private void onIdle(double timeRemaining)
+   {
+      sliceRequested_ = false;
+
+      double deadline = Duration.currentTimeMillis() + timeRemaining;
+      do
+      {
+         RepeatingCommand command = commands_.poll();
+         if (command == null)
+            break;
+
+         boolean again = false;
+         try
+         {
+            again = command.execute();
+         }
+         catch (Exception e)
+         {
+            Debug.logException(e);
+         }
+
+         if (again)
+            commands_.add(command);
+      }
+      while (deadline - Duration.currentTimeMillis() > MIN_SLICE_MS);
+
+      requestSlice();
+   }
+
+   private native boolean requestIdleCallback() /*-{
+      if (typeof $wnd.requestIdleCallback !== "function")
+         return false;
+
+      var self = this;
+      $wnd.requestIdleCallback($entry(function(deadline) {
+         self.@org.rstudio.core.client.IdleScheduler::onIdle(D)(deadline.timeRemaining());
+      }), { timeout: @org.rstudio.core.client.IdleScheduler::IDLE_TIMEOUT_MS });
+      return true;
+   }-*/;
+
+   private final LinkedList<RepeatingCommand> commands_ = new LinkedList<>();
+   private boolean sliceRequested_ = false;
+
+   private final Timer fallbackTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         onIdle(FALLBACK_SLICE_MS);
+      }
+   };
+
+   private static IdleScheduler INSTANCE;
+
+   // don't start another command unless at least this much idle time is left
+   private static final double MIN_SLICE_MS = 1;
+
+   // run queued work within this long even if the browser never goes idle
+   private static final int IDLE_TIMEOUT_MS = 2000;
+
+   private static final int FALLBACK_DELAY_MS = 50;
+   private static final double FALLBACK_SLICE_MS = 10;
+}
@@ -0,0 +1,66 @@
+/*
+ * PerformanceCounters.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+
+/**
+ * A registry of named performance counters. Components which track their own
+ * throughput (queue depths, timings, cache hit rates, etc.) register a source
+ * here so the counters can be dumped on demand from the request log
+ * diagnostics overlay.
+ */
+public class PerformanceCounters
+{
+   public interface Source
+   {
+      String getName();
+      void dump(StringBuilder output);
+   }
+
+   public static void register(Source source)
+   {
+      sources_.add(source);
+   }
+
+   public static void unregister(Source source)
+   {
+      sources_.remove(source);
+   }
+
+   public static String dump()
+   {
+      StringBuilder output = new StringBuilder();
+      for (Source source : sources_)
+      {
+         output.append("[").append(source.getName()).append("]\n");
+         source.dump(output);
+         output.append("\n");
+      }
+      return output.toString();
+   }
+
+   public static void append(StringBuilder output, String name, double value)
+   {
+      output.append("   ").append(name).append(": ");
+      if (value == Math.floor(value) && !Double.isInfinite(value))
+         output.append((long) value);
+      else
+         output.append(Math.round(value * 100) / 100.0);
+      output.append("\n");
+   }
+
+   private static final ArrayList<Source> sources_ = new ArrayList<>();
+}
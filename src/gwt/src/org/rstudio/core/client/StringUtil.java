@@ -858,6 +858,27 @@ public class StringUtil
       return inSingleQuotes || inDoubleQuotes;
    }
 
+   /**
+    * Computes a bitmask of the characters in a (lower-cased) string, with one
+    * bit per letter plus one shared by all digits; other characters don't
+    * contribute. A string can only contain another as a subsequence if its
+    * mask covers the other's, so comparing masks cheaply rules out most
+    * non-matches before a full subsequence check.
+    */
+   public static int charMask(String lower)
+   {
+      int mask = 0;
+      for (int i = 0, n = lower.length(); i < n; i++)
+      {
+         char ch = lower.charAt(i);
+         if (ch >= 'a' && ch <= 'z')
+            mask |= 1 << (ch - 'a');
+         else if (ch >= '0' && ch <= '9')
+            mask |= 1 << 26;
+      }
+      return mask;
+   }
+
    public static boolean isSubsequence(String self,
          String other,
          boolean caseInsensitive)
@@ -133,17 +133,13 @@ public class VirtualConsole
    private void carriageReturn()
    {
       clearPartialAnsiCode();
-      if (cursor_ == 0)
-         return;
-      while (cursor_ > 0 && output_.charAt(cursor_ - 1) != '\n')
-         cursor_--;
+      cursor_ = output_.lineStart(cursor_);
    }
 
    private void newline(String clazz)
    {
       clearPartialAnsiCode();
-      while (cursor_ < output_.length() && output_.charAt(cursor_) != '\n')
-         cursor_++;
+      cursor_ = output_.lineEnd(cursor_);
       // Now we're either at the end of the buffer, or on top of a '\n'
       text("\n", clazz, false/*forceNewRange*/);
    }
@@ -151,9 +147,10 @@ public class VirtualConsole
    private void formfeed()
    {
       clearPartialAnsiCode();
-      output_.setLength(0);
+      output_.clear();
       cursor_ = 0;
       class_.clear();
+      rangePool_.clear();
       if (parent_ != null)
          parent_.setInnerHTML("");
    }
@@ -221,6 +218,14 @@ public class VirtualConsole
       return output_.length();
    }
 
+   /**
+    * @return The number of newlines in the console's output.
+    */
+   public int getNewlineCount()
+   {
+      return output_.getLineCount() - 1;
+   }
+
    public Element getParent()
    {
       return parent_;
@@ -247,7 +252,7 @@ public class VirtualConsole
       else
       {
          // create a new output range with this class
-         final ClassRange newRange = new ClassRange(cursor_, clazz, text);
+         final ClassRange newRange = obtainRange(cursor_, clazz, text);
          appendChild(newRange.element);
          class_.put(cursor_, newRange);
       }
@@ -287,10 +292,14 @@ public class VirtualConsole
 
       // accumulators for actions to take after we finish iterating over the
       // overlapping ranges (we don't do this in place to avoid invalidating
-      // iterators)
-      Set<Integer> deletions = new TreeSet<>();
-      List<ClassRange> insertions = new ArrayList<>();
-      Map<Integer, Integer> moves = new TreeMap<>();
+      // iterators); these are reused across calls
+      Set<Integer> deletions = deletions_;
+      List<ClassRange> insertions = insertions_;
+      Map<Integer, Integer> moves = moves_;
+      deletions.clear();
+      insertions.clear();
+      moves.clear();
+      released_.clear();
 
       boolean haveInsertedRange = false;
 
@@ -333,8 +342,7 @@ public class VirtualConsole
                if (overlap.length == 0)
                {
                   deletions.add(l);
-                  if (overlap.element.getParentElement() != null)
-                     overlap.element.removeFromParent();
+                  released_.add(overlap);
                }
                else
                {
@@ -371,8 +379,7 @@ public class VirtualConsole
          {
             // this range is fully overwritten, just delete it
             deletions.add(l);
-            if (parent_ != null)
-               overlap.element.removeFromParent();
+            released_.add(overlap);
          }
          else if (start > l && end < r)
          {
@@ -396,7 +403,7 @@ public class VirtualConsole
                   parent_.insertAfter(range.element, overlap.element);
 
                // add back the remainder
-               ClassRange remainder = new ClassRange(
+               ClassRange remainder = obtainRange(
                      end,
                      overlap.clazz,
                      text.substring((text.length() - (amountTrimmed - range.length))));
@@ -424,6 +431,78 @@ public class VirtualConsole
       {
          class_.put(val.start, val);
       }
+
+      // recycle ranges that are no longer part of the output, including the
+      // new range itself if its text was merged into an existing one before
+      // it reached the DOM
+      if (!insertions.contains(range) &&
+          range.element.getParentElement() == null)
+      {
+         released_.add(range);
+      }
+      for (ClassRange val: released_)
+         releaseRange(val);
+      released_.clear();
+   }
+
+   /**
+    * Overwrites text in place when the write falls within a single existing
+    * range of the same style (e.g. redrawing a progress bar after a carriage
+    * return). This avoids creating a new range for the write.
+    *
+    * @return Whether the write was handled.
+    */
+   private boolean overwriteText(int start, String text, String clazz)
+   {
+      if (captureNewElements_)
+         return false;
+
+      Entry<Integer, ClassRange> entry = class_.floorEntry(start);
+      if (entry == null)
+         return false;
+
+      ClassRange range = entry.getValue();
+      if (!StringUtil.equals(range.clazz, clazz))
+         return false;
+
+      int l = entry.getKey();
+      int r = l + range.length;
+      int end = start + text.length();
+      if (start < l || start >= r)
+         return false;
+
+      if (end <= r)
+      {
+         range.overwrite(text, start - l);
+         return true;
+      }
+
+      // can extend past the end of the range only if it's the last one
+      if (class_.higherKey(l) == null)
+      {
+         range.appendRight(text, r - start);
+         return true;
+      }
+
+      return false;
+   }
+
+   private ClassRange obtainRange(int pos, String className, String text)
+   {
+      if (rangePool_.isEmpty())
+         return new ClassRange(pos, className, text);
+
+      ClassRange range = rangePool_.remove(rangePool_.size() - 1);
+      range.reset(pos, className, text);
+      return range;
+   }
+
+   private void releaseRange(ClassRange range)
+   {
+      if (range.element.getParentElement() != null)
+         range.element.removeFromParent();
+      if (rangePool_.size() < MAX_POOLED_RANGES)
+         rangePool_.add(range);
    }
 
    /**
@@ -459,12 +538,12 @@ public class VirtualConsole
          // short circuit common case in which we're just adding output
          if (cursor_ == output_.length() && !class_.isEmpty())
             appendText(text, clazz, forceNewRange);
-         else
-            insertText(new ClassRange(start, clazz, text));
+         else if (!overwriteText(start, text, clazz))
+            insertText(obtainRange(start, clazz, text));
       }
 
-      output_.replace(start, end, text);
-      cursor_ += text.length();
+      output_.write(start, text);
+      cursor_ = end;
    }
 
    public void submit(String data)
@@ -676,14 +755,21 @@ public class VirtualConsole
    private class ClassRange
    {
       public ClassRange(int pos, String className, String text)
+      {
+         element = Document.get().createSpanElement();
+         reset(pos, className, text);
+      }
+
+      public void reset(int pos, String className, String text)
       {
          clazz  = className;
          start = pos;
          length = text.length();
-         element = Document.get().createSpanElement();
          if (className != null)
-            element.addClassName(clazz);
-         element.setInnerText(text);
+            element.setClassName(className);
+         else
+            element.removeAttribute("class");
+         setText(text);
 
          if (captureNewElements_)
             newElements_.add(element);
@@ -693,38 +779,33 @@ public class VirtualConsole
       {
          length -= delta;
          start += delta;
-         element.setInnerText(element.getInnerText().substring(delta));
+         setText(text().substring(delta));
       }
 
       public void trimRight(int delta)
       {
          length -= delta;
-         String text = element.getInnerText();
-         element.setInnerText(text.substring(0, text.length() - delta));
+         setText(text().substring(0, text().length() - delta));
       }
 
       public void appendLeft(String content, int delta)
       {
          length += content.length() - delta;
          start -= (content.length() - delta);
-         element.setInnerText(content +
-               element.getInnerText().substring(delta));
+         setText(content + text().substring(delta));
       }
 
       public void appendRight(String content, int delta)
       {
          length += content.length() - delta;
-         String text = text();
-         element.setInnerText(text.substring(0,
-               text.length() - delta) + content);
+         setText(text().substring(0, text().length() - delta) + content);
       }
 
       public void overwrite(String content, int pos)
       {
-         String text = element.getInnerText();
-         element.setInnerText(
-               text.substring(0, pos) + content +
-               text.substring(pos + content.length()));
+         String text = text();
+         setText(text.substring(0, pos) + content +
+                 text.substring(pos + content.length()));
       }
 
       public String text()
@@ -734,7 +815,12 @@ public class VirtualConsole
 
       public void clearText()
       {
-         element.setInnerText("");
+         setText("");
+      }
+
+      private void setText(String text)
+      {
+         element.setInnerText(text);
       }
 
       public String debugDump()
@@ -743,7 +829,7 @@ public class VirtualConsole
                "], text=[" + text() + "]";
       }
 
-      public final String clazz;
+      public String clazz;
       public int length;
       public int start;
       public final SpanElement element;
@@ -755,8 +841,18 @@ public class VirtualConsole
    // on how they use the VirtualConsole (e.g. Build Pane)
    private boolean virtualizedDisableOverride_ = false;
 
-   private final StringBuilder output_ = new StringBuilder();
+   private final ChunkedTextBuffer output_ = new ChunkedTextBuffer();
    private final TreeMap<Integer, ClassRange> class_ = new TreeMap<>();
+
+   // scratch state for insertText, reused to avoid per-write allocations
+   private final Set<Integer> deletions_ = new TreeSet<>();
+   private final List<ClassRange> insertions_ = new ArrayList<>();
+   private final Map<Integer, Integer> moves_ = new TreeMap<>();
+   private final List<ClassRange> released_ = new ArrayList<>();
+
+   // ranges removed from the output, available for reuse
+   private final List<ClassRange> rangePool_ = new ArrayList<>();
+   private static final int MAX_POOLED_RANGES = 64;
    private final Element parent_;
 
    private int cursor_ = 0;
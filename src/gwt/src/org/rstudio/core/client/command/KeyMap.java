@@ -19,10 +19,10 @@ package org.rstudio.core.client.command;
 // - Given a command, one can discover what key sequences it is bound to.
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.rstudio.core.client.CommandWith2Args;
 import org.rstudio.core.client.DirectedGraph;
-import org.rstudio.core.client.Mutable;
 import org.rstudio.core.client.DirectedGraph.DefaultConstructor;
 import org.rstudio.core.client.DirectedGraph.ForEachNodeCommand;
 import org.rstudio.core.client.container.SafeMap;
@@ -67,6 +67,7 @@ public class KeyMap
       if (!idToNodeMap_.containsKey(command.getId()))
          idToNodeMap_.put(command.getId(), new ArrayList<DirectedGraph<KeyCombination, List<CommandBinding>>>());
       idToNodeMap_.get(command.getId()).add(node);
+      table_ = null;
    }
 
    public void setBindings(KeySequence keys, CommandBinding command)
@@ -102,6 +103,7 @@ public class KeyMap
       }
 
       idToNodeMap_.remove(command.getId());
+      table_ = null;
    }
 
    public List<CommandBinding> getBindings(KeySequence keys)
@@ -134,48 +136,32 @@ public class KeyMap
 
    public CommandBinding getActiveBinding(KeySequence keys, boolean includeDisabled)
    {
-      List<CommandBinding> commands = getBindings(keys);
-
-      if (commands == null)
+      DispatchTable table = getDispatchTable();
+      int node = table.findNode(keys);
+      if (node == DispatchTable.NO_NODE)
          return null;
 
-      for (CommandBinding command : commands)
-         if (command.isEnabled() || includeDisabled)
-            return command;
+      CommandBinding[] commands = table.bindings_[node];
+      for (int i = 0; i < commands.length; i++)
+         if (includeDisabled || commands[i].isEnabled())
+            return commands[i];
 
       return null;
    }
 
    public boolean isPrefix(KeySequence keys)
    {
-      DirectedGraph<KeyCombination, List<CommandBinding>> node = graph_.findNode(keys.getData());
-      if (node == null)
+      DispatchTable table = getDispatchTable();
+      int node = table.findNode(keys);
+      if (node == DispatchTable.NO_NODE)
          return false;
 
-      final Mutable<Boolean> pending = new Mutable<Boolean>(false);
-      node.forEachNode(new ForEachNodeCommand<KeyCombination, List<CommandBinding>>()
-      {
-         @Override
-         public boolean continueExecution(DirectedGraph<KeyCombination, List<CommandBinding>> node)
-         {
-            List<CommandBinding> bindings = node.getValue();
-            if (bindings == null || bindings.isEmpty())
-               return true;
-
-            for (CommandBinding binding : bindings)
-            {
-               if (binding.isEnabled())
-               {
-                  pending.set(true);
-                  return false;
-               }
-            }
-
+      CommandBinding[] commands = table.reachable_[node];
+      for (int i = 0; i < commands.length; i++)
+         if (commands[i].isEnabled())
             return true;
-         }
-      });
 
-      return pending.get();
+      return false;
    }
 
    public void forEachBinding(final CommandWith2Args<KeySequence, List<CommandBinding>> command)
@@ -194,6 +180,154 @@ public class KeyMap
       });
    }
 
+   private DispatchTable getDispatchTable()
+   {
+      if (table_ == null)
+         table_ = new DispatchTable(graph_);
+      return table_;
+   }
+
+   // A flattened, read-only copy of the binding graph used on the keystroke
+   // path. Each graph node gets an integer id, and the edges are stored in an
+   // open addressing hash table keyed on (parent id, key combination), so
+   // finding the node for a key sequence is a handful of array reads with no
+   // allocation. Enabled state can change at any time, so it is still checked
+   // at dispatch time; for prefix checks, each node keeps every binding found
+   // at or below it.
+   //
+   // The table is rebuilt lazily, on the first lookup after a binding change.
+   private static class DispatchTable
+   {
+      DispatchTable(DirectedGraph<KeyCombination, List<CommandBinding>> graph)
+      {
+         bindingList_ = new ArrayList<CommandBinding[]>();
+         reachableList_ = new ArrayList<CommandBinding[]>();
+         edgeParents_ = new ArrayList<Integer>();
+         edgeCodes_ = new ArrayList<Integer>();
+         edgeChildren_ = new ArrayList<Integer>();
+         compile(graph, new ArrayList<CommandBinding>());
+
+         bindings_ = bindingList_.toArray(new CommandBinding[0][]);
+         reachable_ = reachableList_.toArray(new CommandBinding[0][]);
+
+         int capacity = 16;
+         while (capacity < edgeCodes_.size() * 2)
+            capacity <<= 1;
+         mask_ = capacity - 1;
+         slotParents_ = new int[capacity];
+         slotCodes_ = new int[capacity];
+         slotChildren_ = new int[capacity];
+         for (int i = 0; i < capacity; i++)
+            slotChildren_[i] = NO_NODE;
+
+         for (int i = 0, n = edgeCodes_.size(); i < n; i++)
+         {
+            int parent = edgeParents_.get(i);
+            int code = edgeCodes_.get(i);
+            int slot = hash(parent, code) & mask_;
+            while (slotChildren_[slot] != NO_NODE)
+               slot = (slot + 1) & mask_;
+            slotParents_[slot] = parent;
+            slotCodes_[slot] = code;
+            slotChildren_[slot] = edgeChildren_.get(i);
+         }
+
+         bindingList_ = null;
+         reachableList_ = null;
+         edgeParents_ = null;
+         edgeCodes_ = null;
+         edgeChildren_ = null;
+      }
+
+      int findNode(KeySequence keys)
+      {
+         List<KeyCombination> data = keys.getData();
+         int node = ROOT;
+         for (int i = 0, n = data.size(); i < n && node != NO_NODE; i++)
+            node = findChild(node, encode(data.get(i)));
+         return node;
+      }
+
+      private int findChild(int parent, int code)
+      {
+         int slot = hash(parent, code) & mask_;
+         while (slotChildren_[slot] != NO_NODE)
+         {
+            if (slotParents_[slot] == parent && slotCodes_[slot] == code)
+               return slotChildren_[slot];
+            slot = (slot + 1) & mask_;
+         }
+         return NO_NODE;
+      }
+
+      // Assigns ids depth first, appending the bindings found in this subtree
+      // to 'reachable' (the caller's list of bindings below it).
+      private int compile(DirectedGraph<KeyCombination, List<CommandBinding>> node,
+                          List<CommandBinding> reachable)
+      {
+         int id = bindingList_.size();
+         bindingList_.add(null);
+         reachableList_.add(null);
+
+         List<CommandBinding> own = node.getValue();
+         CommandBinding[] ownArray = own == null
+               ? EMPTY
+               : own.toArray(new CommandBinding[own.size()]);
+
+         List<CommandBinding> below = new ArrayList<CommandBinding>();
+         for (CommandBinding binding : ownArray)
+            below.add(binding);
+
+         for (Map.Entry<KeyCombination, DirectedGraph<KeyCombination, List<CommandBinding>>> entry :
+              node.getChildren().entrySet())
+         {
+            DirectedGraph<KeyCombination, List<CommandBinding>> child = entry.getValue();
+            int childId = compile(child, below);
+            edgeParents_.add(id);
+            edgeCodes_.add(encode(child.getKey()));
+            edgeChildren_.add(childId);
+         }
+
+         bindingList_.set(id, ownArray);
+         reachableList_.set(id, below.isEmpty()
+               ? EMPTY
+               : below.toArray(new CommandBinding[below.size()]));
+         reachable.addAll(below);
+         return id;
+      }
+
+      // KeyCombination equality is on key code and modifiers only
+      private static int encode(KeyCombination keys)
+      {
+         return (keys.getModifier() << 16) | (keys.getKeyCode() & 0xFFFF);
+      }
+
+      private static int hash(int parent, int code)
+      {
+         int h = parent * 31 + code;
+         return h ^ (h >>> 16);
+      }
+
+      final CommandBinding[][] bindings_;
+      final CommandBinding[][] reachable_;
+
+      private final int mask_;
+      private final int[] slotParents_;
+      private final int[] slotCodes_;
+      private final int[] slotChildren_;
+
+      // scratch state, only used while compiling
+      private List<CommandBinding[]> bindingList_;
+      private List<CommandBinding[]> reachableList_;
+      private List<Integer> edgeParents_;
+      private List<Integer> edgeCodes_;
+      private List<Integer> edgeChildren_;
+
+      static final int ROOT = 0;
+      static final int NO_NODE = -1;
+      private static final CommandBinding[] EMPTY = new CommandBinding[0];
+   }
+
    // Private members ----
 
    // The actual graph used for dispatching key sequences to commands.
@@ -201,4 +335,8 @@ public class KeyMap
 
    // Map used so we can quickly discover what bindings are active for a particular command.
    private final SafeMap<String, List<DirectedGraph<KeyCombination, List<CommandBinding>>>> idToNodeMap_;
+
+   // Compiled form of graph_ used for dispatch; null when a binding has
+   // changed since it was last built.
+   private DispatchTable table_;
 }
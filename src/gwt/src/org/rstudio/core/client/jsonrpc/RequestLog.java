@@ -15,38 +15,193 @@
 package org.rstudio.core.client.jsonrpc;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 
+import org.rstudio.core.client.PerformanceCounters;
+
+// Keeps the most recent requests (for the request log visualization) in a
+// fixed size ring buffer, along with per-method latency and payload size
+// histograms covering every request made this session. Logged payloads are
+// capped in length; the histograms record the full sizes.
 public class RequestLog
 {
    public static RequestLogEntry log(String requestId, String requestData)
    {
+      return log(requestId, null, requestData);
+   }
+
+   public static RequestLogEntry log(String requestId,
+                                     String method,
+                                     String requestData)
+   {
+      ensureCountersRegistered();
+
+      int requestSize = requestData == null ? 0 : requestData.length();
       RequestLogEntry entry = new RequestLogEntry(System.currentTimeMillis(),
-                                                  requestId, requestData);
-      entries_.add(entry);
+                                                  requestId,
+                                                  truncate(requestData),
+                                                  method,
+                                                  requestSize);
 
-      for (int i = 0; entries_.size() > MAX_ENTRIES && i < entries_.size(); i++)
-      {
-         RequestLogEntry oldEntry = entries_.get(i);
-         if (!oldEntry.isAlive())
-         {
-            entries_.remove(i);
-            i--;
-         }
-      }
+      // overwrite the oldest entry once the buffer is full
+      entries_[(head_ + size_) % MAX_ENTRIES] = entry;
+      if (size_ < MAX_ENTRIES)
+         size_++;
+      else
+         head_ = (head_ + 1) % MAX_ENTRIES;
 
       return entry;
    }
 
    public static RequestLogEntry[] getEntries()
    {
-      RequestLogEntry[] entries = new RequestLogEntry[entries_.size()];
-      for (int i = 0; i < entries.length; i++)
-         entries[i] = entries_.get(i).clone();
+      // entries are only mutated when their response arrives, so the
+      // snapshot can share them
+      RequestLogEntry[] entries = new RequestLogEntry[size_];
+      for (int i = 0; i < size_; i++)
+         entries[i] = entries_[(head_ + i) % MAX_ENTRIES];
       return entries;
    }
 
-   private static final ArrayList<RequestLogEntry> entries_ =
-         new ArrayList<RequestLogEntry>();
+   static String truncate(String data)
+   {
+      if (data == null || data.length() <= MAX_PAYLOAD_CHARS)
+         return data;
+
+      return data.substring(0, MAX_PAYLOAD_CHARS) +
+             "... [" + (data.length() - MAX_PAYLOAD_CHARS) +
+             " more characters]";
+   }
+
+   static void recordResponse(RequestLogEntry entry, int responseSize)
+   {
+      String method = entry.getRequestMethodName();
+      if (method == null)
+         method = entry.getRequestId();
+
+      MethodStats stats = stats_.get(method);
+      if (stats == null)
+      {
+         stats = new MethodStats(method);
+         stats_.put(method, stats);
+      }
+
+      stats.record(entry, responseSize);
+   }
+
+   private static void ensureCountersRegistered()
+   {
+      if (countersRegistered_)
+         return;
+
+      countersRegistered_ = true;
+      PerformanceCounters.register(new PerformanceCounters.Source()
+      {
+         @Override
+         public String getName()
+         {
+            return "RPC Requests";
+         }
+
+         @Override
+         public void dump(StringBuilder output)
+         {
+            // slowest methods (by total time spent waiting) first
+            ArrayList<MethodStats> stats = new ArrayList<>(stats_.values());
+            Collections.sort(stats, (lhs, rhs) ->
+               Long.compare(rhs.totalMs_, lhs.totalMs_));
+
+            for (MethodStats method : stats)
+               method.dump(output);
+         }
+      });
+   }
+
+   // Request statistics for a single method. Histograms use power of two
+   // buckets: bucket i counts values in [2^(i-1), 2^i), with the last bucket
+   // collecting everything larger.
+   private static class MethodStats
+   {
+      MethodStats(String method)
+      {
+         method_ = method;
+      }
+
+      void record(RequestLogEntry entry, int responseSize)
+      {
+         long elapsed = entry.getResponseTime() - entry.getRequestTime();
+         count_++;
+         if (entry.getResponseType() == RequestLogEntry.ResponseType.Error)
+            errors_++;
+         totalMs_ += elapsed;
+         maxMs_ = Math.max(maxMs_, elapsed);
+         latency_[bucket(elapsed)]++;
+         requestSize_[bucket(entry.getRequestSize())]++;
+         responseSize_[bucket(responseSize)]++;
+      }
+
+      void dump(StringBuilder output)
+      {
+         output.append(" ").append(method_).append("\n");
+         PerformanceCounters.append(output, "Count", count_);
+         PerformanceCounters.append(output, "Errors", errors_);
+         PerformanceCounters.append(output, "Mean ms", (double) totalMs_ / count_);
+         PerformanceCounters.append(output, "Max ms", maxMs_);
+         appendHistogram(output, "Latency ms", latency_);
+         appendHistogram(output, "Request chars", requestSize_);
+         appendHistogram(output, "Response chars", responseSize_);
+      }
+
+      private static void appendHistogram(StringBuilder output,
+                                          String name,
+                                          int[] buckets)
+      {
+         output.append("   ").append(name).append(":");
+         for (int i = 0; i < buckets.length; i++)
+         {
+            if (buckets[i] == 0)
+               continue;
+            output.append(" ")
+                  .append(i == buckets.length - 1 ? ">=" : "<")
+                  .append(i == buckets.length - 1 ? 1L << (i - 1) : 1L << i)
+                  .append("=")
+                  .append(buckets[i]);
+         }
+         output.append("\n");
+      }
+
+      private static int bucket(long value)
+      {
+         int bucket = 0;
+         while (value > 0 && bucket < BUCKETS - 1)
+         {
+            value >>= 1;
+            bucket++;
+         }
+         return bucket;
+      }
+
+      private final String method_;
+      private int count_;
+      private int errors_;
+      private long totalMs_;
+      private long maxMs_;
+      private final int[] latency_ = new int[BUCKETS];
+      private final int[] requestSize_ = new int[BUCKETS];
+      private final int[] responseSize_ = new int[BUCKETS];
+
+      private static final int BUCKETS = 24;
+   }
 
    private static final int MAX_ENTRIES = 50;
+   private static final int MAX_PAYLOAD_CHARS = 4096;
+
+   private static final RequestLogEntry[] entries_ =
+         new RequestLogEntry[MAX_ENTRIES];
+   private static int head_ = 0;
+   private static int size_ = 0;
+
+   private static final HashMap<String, MethodStats> stats_ = new HashMap<>();
+   private static boolean countersRegistered_ = false;
 }
@@ -32,10 +32,22 @@ public class RequestLogEntry
    public RequestLogEntry(long requestTime,
                           String requestId,
                           String requestData)
+   {
+      this(requestTime, requestId, requestData, null,
+           requestData == null ? 0 : requestData.length());
+   }
+
+   RequestLogEntry(long requestTime,
+                   String requestId,
+                   String requestData,
+                   String requestMethodName,
+                   int requestSize)
    {
       requestTime_ = requestTime;
       requestId_ = requestId;
       requestData_ = requestData;
+      requestMethodName_ = requestMethodName;
+      requestSize_ = requestSize;
    }
 
    public long getRequestTime()
@@ -53,6 +65,12 @@ public class RequestLogEntry
       return requestData_;
    }
 
+   // length of the request before it was truncated for logging
+   public int getRequestSize()
+   {
+      return requestSize_;
+   }
+
    public Long getResponseTime()
    {
       return responseTime_;
@@ -67,7 +85,8 @@ public class RequestLogEntry
    {
       responseType_ = responseType;
       responseTime_ = System.currentTimeMillis();
-      responseData_ = data;
+      responseData_ = RequestLog.truncate(data);
+      RequestLog.recordResponse(this, data == null ? 0 : data.length());
    }
 
    public int getResponseType()
@@ -81,6 +100,13 @@ public class RequestLogEntry
    }
 
    public String getRequestMethodName()
+   {
+      if (requestMethodName_ == null)
+         requestMethodName_ = parseRequestMethodName();
+      return requestMethodName_;
+   }
+
+   private String parseRequestMethodName()
    {
       if (requestData_ == "[REDACTED]")
          return requestData_;
@@ -96,7 +122,9 @@ public class RequestLogEntry
    {
       RequestLogEntry clone = new RequestLogEntry(requestTime_,
                                                   requestId_,
-                                                  requestData_);
+                                                  requestData_,
+                                                  requestMethodName_,
+                                                  requestSize_);
       clone.responseType_ = responseType_;
       clone.responseData_ = responseData_;
       clone.responseTime_ = responseTime_;
@@ -143,6 +171,8 @@ public class RequestLogEntry
    private final long requestTime_;
    private final String requestId_;
    private final String requestData_;
+   private final int requestSize_;
+   private String requestMethodName_;
    private Long responseTime_;
    private String responseData_;
    private int responseType_ = ResponseType.None;
@@ -111,9 +111,9 @@ public class RpcRequest
          if (TRACE)
             Debug.log("Request: " + requestString);
 
-         requestLogEntry_ = RequestLog.log(requestId,
-                                           redactLog_ ? "[REDACTED]"
-                                                      : requestString);
+         requestLogEntry_ = redactLog_
+               ? RequestLog.log(requestId, "[REDACTED]")
+               : RequestLog.log(requestId, method_, requestString);
 
          request_ = builder.sendRequest(requestString, new RequestCallback() {
             
@@ -202,6 +202,8 @@ public class RpcRequest
    
    public void cancel()
    {
+      cancelled_ = true;
+      
       if (request_ != null)
       {
          request_.cancel();
@@ -215,6 +217,32 @@ public class RpcRequest
       }
    }
 
+   public boolean isCancelled()
+   {
+      return cancelled_;
+   }
+
+   // records the request in the request log as a call within a batch (send()
+   // logs requests sent by themselves)
+   void logBatchedCall(JSONObject call)
+   {
+      String requestId = Integer.toString(Random.nextInt());
+      requestLogEntry_ = redactLog_
+            ? RequestLog.log(requestId, "[REDACTED]")
+            : RequestLog.log(requestId, method_, call.toString());
+      batched_ = true;
+   }
+
+   void logBatchedResponse(int responseType, String data)
+   {
+      if (!batched_ || requestLogEntry_ == null)
+         return;
+
+      requestLogEntry_.logResponse(responseType, data);
+      requestLogEntry_ = null;
+      batched_ = false;
+   }
+
    public String getUrl()
    {
       return url_;
@@ -290,5 +318,7 @@ public class RpcRequest
    final private boolean refreshCredentials_;
    private Request request_ = null;
    private RequestLogEntry requestLogEntry_ = null;
+   private boolean cancelled_ = false;
+   private boolean batched_ = false;
 
 }
@@ -0,0 +1,353 @@
+/*
+ * RpcRequestBatcher.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.core.client.jsonrpc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Timer;
+
+// Collects RpcRequests submitted within a short window and sends them to the
+// server as a single multi_call envelope, routing each entry of the response
+// back to the callback of the request which produced it. Identical calls to
+// idempotent methods that land in the same batch are sent only once.
+//
+// Any failure of the envelope itself (transmission error, server without
+// multi_call support, authentication, etc.) causes the batched requests to be
+// re-sent individually, so callers observe exactly the same error handling
+// they would have without batching. The server stops at the first call it
+// can't execute as part of a batch; that call and the ones after it are also
+// re-sent individually.
+//
+// Batched requests reach the server in the order they were made: while an
+// envelope is in flight, batched requests made after it wait until the calls
+// the server didn't execute have been re-sent. Requests which can't be batched
+// never wait on an envelope (the server may not be able to finish a batch
+// while R is busy, and e.g. an interrupt has to get through regardless).
+//
+// Each call in an envelope gets its own entry in the RequestLog, so batched
+// requests show up in the request diagnostics just as individual ones do.
+public class RpcRequestBatcher
+{
+   public interface EnvelopeFactory
+   {
+      RpcRequest createEnvelope(JSONArray calls,
+                                boolean redactLog,
+                                boolean refreshCreds);
+   }
+
+   public RpcRequestBatcher(EnvelopeFactory envelopeFactory)
+   {
+      envelopeFactory_ = envelopeFactory;
+      flushTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            flush();
+         }
+      };
+   }
+
+   public boolean isEnabled()
+   {
+      return enabled_ && supported_;
+   }
+
+   public void setEnabled(boolean enabled)
+   {
+      enabled_ = enabled;
+      if (!isEnabled())
+         flush();
+   }
+
+   // queue a request which can be combined with others into a batch
+   public void send(RpcRequest request,
+                    RpcRequestCallback callback,
+                    boolean idempotent)
+   {
+      if (!isEnabled())
+      {
+         sendNow(request, callback);
+         return;
+      }
+
+      // collapse duplicate calls to idempotent methods
+      String key = idempotent ? callKey(request) : null;
+      if (key != null && pendingByKey_.containsKey(key))
+      {
+         pendingByKey_.get(key).addTarget(request, callback);
+         return;
+      }
+
+      BatchEntry entry = new BatchEntry(request, callback);
+      queue_.add(entry);
+      if (key != null)
+         pendingByKey_.put(key, entry);
+
+      if (queue_.size() >= MAX_BATCH_SIZE)
+         flush();
+      else if (!flushTimer_.isRunning())
+         flushTimer_.schedule(BATCH_WINDOW_MS);
+   }
+
+   // send a request which can't be batched, right away; batched requests
+   // queued before it are flushed first (unless they're waiting on an
+   // envelope in flight, which this request doesn't wait for)
+   public void sendNow(RpcRequest request, RpcRequestCallback callback)
+   {
+      flush();
+      request.send(callback);
+   }
+
+   // send any queued requests immediately (or as soon as the envelope in
+   // flight has been dealt with)
+   public void flush()
+   {
+      flushTimer_.cancel();
+      pendingByKey_.clear();
+      drain();
+   }
+
+   private void drain()
+   {
+      while (!inFlight_ && !queue_.isEmpty())
+      {
+         ArrayList<BatchEntry> batch = new ArrayList<>();
+         while (!queue_.isEmpty() && batch.size() < MAX_BATCH_SIZE)
+            batch.add(queue_.remove(0));
+
+         sendBatch(batch);
+      }
+   }
+
+   private void sendBatch(final ArrayList<BatchEntry> queued)
+   {
+      // requests cancelled while they waited are never sent
+      final ArrayList<BatchEntry> batch = new ArrayList<>();
+      for (BatchEntry entry : queued)
+      {
+         if (!entry.isCancelled())
+            batch.add(entry);
+      }
+
+      // no point in an envelope for a single request
+      if (batch.size() < 2 || !isEnabled())
+      {
+         sendIndividually(batch, 0);
+         return;
+      }
+
+      JSONArray calls = new JSONArray();
+      boolean redactLog = false;
+      boolean refreshCreds = false;
+      for (int i = 0; i < batch.size(); i++)
+      {
+         RpcRequest request = batch.get(i).getRequest();
+         JSONObject call = toCall(request);
+         calls.set(i, call);
+         batch.get(i).logBatchedCall(call);
+         redactLog = redactLog || request.getRedactLog();
+         refreshCreds = refreshCreds || request.getRefreshCreds();
+      }
+
+      JSONArray params = new JSONArray();
+      params.set(0, calls);
+      RpcRequest envelope = envelopeFactory_.createEnvelope(params,
+                                                            redactLog,
+                                                            refreshCreds);
+      inFlight_ = true;
+      envelope.send(new RpcRequestCallback()
+      {
+         @Override
+         public void onError(RpcRequest request, RpcError error)
+         {
+            onBatchFinished(batch, 0);
+         }
+
+         @Override
+         public void onResponseReceived(RpcRequest request,
+                                        RpcResponse response)
+         {
+            RpcError error = response.getError();
+            if (error != null)
+            {
+               // older servers don't know about multi_call; stop batching
+               if (error.getCode() == RpcError.METHOD_NOT_FOUND)
+               {
+                  Debug.log("Server does not support batched requests");
+                  supported_ = false;
+               }
+               onBatchFinished(batch, 0);
+               return;
+            }
+
+            JsArray<RpcResponse> responses = response.getResult();
+            if (responses == null || responses.length() > batch.size())
+            {
+               onBatchFinished(batch, 0);
+               return;
+            }
+
+            // the server executes calls in order, stopping at the first one
+            // it can't execute as part of a batch
+            int executed = 0;
+            while (executed < responses.length())
+            {
+               RpcResponse callResponse = responses.get(executed);
+               RpcError callError = callResponse.getError();
+               if (callError != null &&
+                   callError.getCode() == RpcError.METHOD_NOT_FOUND)
+                  break;
+
+               batch.get(executed).onResponseReceived(callResponse);
+               executed++;
+            }
+
+            onBatchFinished(batch, executed);
+         }
+      });
+   }
+
+   // re-sends the calls the server didn't execute, then moves on to the
+   // requests which were waiting for them
+   private void onBatchFinished(ArrayList<BatchEntry> batch, int executed)
+   {
+      sendIndividually(batch, executed);
+      inFlight_ = false;
+      drain();
+   }
+
+   private void sendIndividually(ArrayList<BatchEntry> batch, int from)
+   {
+      for (int i = from; i < batch.size(); i++)
+      {
+         batch.get(i).logResponse(ResponseType.Unknown,
+                                  "Not executed in batch; sent individually");
+         batch.get(i).sendIndividually();
+      }
+   }
+
+   private static JSONObject toCall(RpcRequest request)
+   {
+      JSONObject call = new JSONObject();
+      call.put("method", new JSONString(request.getMethod()));
+      if (request.getParams() != null)
+         call.put("params", request.getParams());
+      if (request.getKwparams() != null)
+         call.put("kwparams", request.getKwparams());
+      return call;
+   }
+
+   private static String callKey(RpcRequest request)
+   {
+      StringBuilder key = new StringBuilder(request.getMethod());
+      key.append('\n');
+      if (request.getParams() != null)
+         key.append(request.getParams().toString());
+      key.append('\n');
+      if (request.getKwparams() != null)
+         key.append(request.getKwparams().toString());
+      return key.toString();
+   }
+
+   private static class BatchEntry
+   {
+      BatchEntry(RpcRequest request, RpcRequestCallback callback)
+      {
+         request_ = request;
+         addTarget(request, callback);
+      }
+
+      void addTarget(RpcRequest request, RpcRequestCallback callback)
+      {
+         requests_.add(request);
+         callbacks_.add(callback);
+      }
+
+      RpcRequest getRequest()
+      {
+         return request_;
+      }
+
+      // whether every request sharing this call has been cancelled
+      boolean isCancelled()
+      {
+         for (RpcRequest request : requests_)
+         {
+            if (!request.isCancelled())
+               return false;
+         }
+         return true;
+      }
+
+      void logBatchedCall(JSONObject call)
+      {
+         for (RpcRequest request : requests_)
+            request.logBatchedCall(call);
+      }
+
+      void logResponse(int responseType, String data)
+      {
+         for (RpcRequest request : requests_)
+            request.logBatchedResponse(responseType, data);
+      }
+
+      void onResponseReceived(RpcResponse response)
+      {
+         logResponse(response.getError() != null ? ResponseType.Error
+                                                 : ResponseType.Normal,
+                     JsonUtils.stringify(response));
+         for (int i = 0; i < callbacks_.size(); i++)
+         {
+            if (!requests_.get(i).isCancelled())
+               callbacks_.get(i).onResponseReceived(requests_.get(i), response);
+         }
+      }
+
+      void sendIndividually()
+      {
+         for (int i = 0; i < callbacks_.size(); i++)
+         {
+            if (!requests_.get(i).isCancelled())
+               requests_.get(i).send(callbacks_.get(i));
+         }
+      }
+
+      private final RpcRequest request_;
+      private final ArrayList<RpcRequest> requests_ = new ArrayList<>();
+      private final ArrayList<RpcRequestCallback> callbacks_ = new ArrayList<>();
+   }
+
+   private final EnvelopeFactory envelopeFactory_;
+   private final Timer flushTimer_;
+   private final ArrayList<BatchEntry> queue_ = new ArrayList<>();
+   private final HashMap<String, BatchEntry> pendingByKey_ = new HashMap<>();
+   private boolean inFlight_ = false;
+   private boolean enabled_ = false;
+   private boolean supported_ = true;
+
+   private static final int BATCH_WINDOW_MS = 10;
+   private static final int MAX_BATCH_SIZE = 32;
+}
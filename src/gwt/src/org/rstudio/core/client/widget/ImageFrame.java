@@ -45,6 +45,7 @@ public class ImageFrame extends Frame
             {
                String sizing = "width=\"100%\" height=\"100%\"";
                setupContent(getElement(), sizing);
+               setObjectFit(getElement(), objectFit());
                replaceLocation(getElement(), url_);
             }
          }
@@ -63,6 +64,18 @@ public class ImageFrame extends Frame
                                 Integer.toString(height));
    }
    
+   /**
+    * When set, the image is scaled to fit the frame without distorting it
+    * (rather than being stretched to fill it), e.g. so that a stale image
+    * can stand in while one sized for the frame is being rendered.
+    */
+   public void setPreserveAspectRatio(boolean preserve)
+   {
+      preserveAspectRatio_ = preserve;
+      if (isAttached() && isReadyForContent(getElement()))
+         setObjectFit(getElement(), objectFit());
+   }
+
    public void setImageUrl(String url)
    {
       url_ = url;
@@ -86,6 +99,17 @@ public class ImageFrame extends Frame
       return true;
    }-*/;
 
+   private String objectFit()
+   {
+      return preserveAspectRatio_ ? "contain" : "";
+   }
+
+   private native final void setObjectFit(Element el, String fit) /*-{
+      var img = el.contentWindow.document.getElementById('img');
+      if (img)
+         img.style.objectFit = fit;
+   }-*/;
+
    private native boolean isReadyForContent(Element el) /*-{
       return el != null
             && el.contentWindow != null
@@ -111,4 +135,5 @@ public class ImageFrame extends Frame
    }-*/;
 
    private String url_ = "javascript:false";
+   private boolean preserveAspectRatio_ = false;
 }
@@ -32,8 +32,19 @@ public class ConsoleOutputEvent extends GwtEvent<Handler>
    }
 
    public ConsoleOutputEvent(String output)
+   {
+      this(output, NO_SEQUENCE);
+   }
+
+   /**
+    * @param output The output
+    * @param sequence The output sequence number reached by this output (for
+    *    terminals), or NO_SEQUENCE
+    */
+   public ConsoleOutputEvent(String output, double sequence)
    {
       output_ = output;
+      sequence_ = sequence;
    }
 
    public String getOutput()
@@ -41,6 +52,11 @@ public class ConsoleOutputEvent extends GwtEvent<Handler>
       return output_;
    }
 
+   public double getSequence()
+   {
+      return sequence_;
+   }
+
    @Override
    public Type<Handler> getAssociatedType()
    {
@@ -54,6 +70,9 @@ public class ConsoleOutputEvent extends GwtEvent<Handler>
    }
 
    private final String output_;
+   private final double sequence_;
+
+   public static final double NO_SEQUENCE = -1;
 
    public static final Type<Handler> TYPE = new Type<>();
 }
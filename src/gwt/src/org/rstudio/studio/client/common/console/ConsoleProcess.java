@@ -31,6 +31,7 @@ import org.rstudio.studio.client.workbench.events.SessionInitEvent;
 import org.rstudio.studio.client.workbench.model.Session;
 import org.rstudio.studio.client.workbench.views.console.model.ConsoleServerOperations;
 import org.rstudio.studio.client.workbench.views.console.model.ProcessBufferChunk;
+import org.rstudio.studio.client.workbench.views.console.model.ProcessBufferTail;
 import org.rstudio.studio.client.workbench.views.vcs.common.ConsoleProgressDialog;
 
 import com.google.gwt.core.client.JsArray;
@@ -294,7 +295,8 @@ public class ConsoleProcess implements ConsoleOutputEvent.HasHandlers,
                                              ServerConsoleOutputEvent event)
                {
                   if (event.getProcessHandle() == procInfo.getHandle())
-                     fireEvent(new ConsoleOutputEvent(event.getOutput()));
+                     fireEvent(new ConsoleOutputEvent(event.getOutput(),
+                                                    event.getSequence()));
                }
             }));
       registrations_.add(eventBus.addHandler(
@@ -358,9 +360,9 @@ public class ConsoleProcess implements ConsoleOutputEvent.HasHandlers,
       server_.processSetShellSize(procInfo_.getHandle(), cols, rows, requestCallback);
    }
 
-   public void getTerminalBufferChunk(int chunk, ServerRequestCallback<ProcessBufferChunk> requestCallback)
+   public void getTerminalBufferTail(double since, ServerRequestCallback<ProcessBufferTail> requestCallback)
    {
-      server_.processGetBufferChunk(procInfo_.getHandle(), chunk, requestCallback);
+      server_.processGetBufferTail(procInfo_.getHandle(), since, requestCallback);
    }
 
    public void getTerminalBuffer(boolean stripAnsiCodes, ServerRequestCallback<ProcessBufferChunk> requestCallback)
@@ -32,15 +32,20 @@ public class ServerConsoleOutputEvent
 
       public native final String getHandle() /*-{ return this.handle; }-*/;
       public native final String getOutput() /*-{ return this.output; }-*/;
+      public native final double getSequence() /*-{
+         return this.sequence == null ? -1 : this.sequence;
+      }-*/;
    }
 
 
    public ServerConsoleOutputEvent(String procHandle,
-                                   String output)
+                                   String output,
+                                   double sequence)
    {
 
       procHandle_ = procHandle;
       output_ = output;
+      sequence_ = sequence;
    }
 
    public String getProcessHandle()
@@ -53,6 +58,11 @@ public class ServerConsoleOutputEvent
       return output_;
    }
 
+   public double getSequence()
+   {
+      return sequence_;
+   }
+
    @Override
    public Type<Handler> getAssociatedType()
    {
@@ -67,6 +77,7 @@ public class ServerConsoleOutputEvent
 
    private final String procHandle_;
    private final String output_;
+   private final double sequence_;
 
    public static final Type<Handler> TYPE = new Type<>();
 }
@@ -89,6 +89,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
       SelectInputClickHandler secondaryInputHandler = new SelectInputClickHandler();
 
       output_ = new ConsoleOutputWriter(RStudioGinjector.INSTANCE.getVirtualConsoleFactory(), outputLabel);
+      output_.setOnQueuedOutputRendered(() -> onOutputWritten());
       output_.getWidget().setStylePrimaryName(styles_.output());
       output_.getWidget().addClickHandler(secondaryInputHandler);
       ElementIds.assignElementId(output_.getElement(), ElementIds.CONSOLE_OUTPUT);
@@ -374,7 +375,10 @@ public class ShellWidget extends Composite implements ShellDisplay,
    public void consoleWriteOutput(final String output)
    {
       clearPendingInput();
-      output(output, styles_.output(), false /*isError*/, false /*ignoreLineCount*/,
+
+      // regular output often arrives in many small pieces; let the writer
+      // coalesce it into one update per frame
+      output_.queueOutput(output, styles_.output(),
             isAnnouncementEnabled(AriaLiveService.CONSOLE_LOG));
    }
 
@@ -476,7 +480,12 @@ public class ShellWidget extends Composite implements ShellDisplay,
       boolean canContinue = output_.outputToConsole(text, className, 
                                                     isError, ignoreLineCount,
                                                     ariaLiveAnnounce);
+      onOutputWritten();
+      return canContinue;
+   }
 
+   private void onOutputWritten()
+   {
       // if we're currently scrolled to the bottom, nudge the timer so that we
       // will keep up with output
       if (scrollPanel_.isScrolledToBottom())
@@ -484,8 +493,6 @@ public class ShellWidget extends Composite implements ShellDisplay,
       
       if (liveRegion_ != null)
          liveRegion_.announce(output_.getNewText());
-
-      return canContinue;
    }
 
    private String ensureNewLine(String s)
@@ -0,0 +1,174 @@
+/*
+ * SpellingWorker.js
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+var SpellingWorker;
+
+(function () {
+    "use strict";
+
+    SpellingWorker = function(typoJsCode) {
+        this.callbacks = {};
+        this.nextId = 0;
+
+        if (!SpellingWorker.isSupported())
+            return;
+
+        /*
+         *  Worker Definition
+         *
+         *  We are defining our worker inline like this for "simplicity's"
+         *  sake due to our unique runtime environment in a Desktop deployment
+         *  See: https://stackoverflow.com/questions/5408406/web-workers-without-a-separate-javascript-file
+         *  If interested in deeper research
+         *
+         *  The worker owns every Typo.js dictionary (the main dictionary
+         *  plus any custom ones), so that neither parsing the dictionaries
+         *  nor checking words ever runs on the UI thread.
+         */
+        var blobURL = URL.createObjectURL(new Blob(['(', ""+
+"           function(){"+
+               typoJsCode +
+"              var main = null;"+
+"              var custom = {};"+
+""+
+"              var check = function(word) {"+
+"                 if (main !== null && main.check(word))"+
+"                    return true;"+
+"                 for (var name in custom) {"+
+"                    if (custom.hasOwnProperty(name) && custom[name].check(word))"+
+"                       return true;"+
+"                 }"+
+"                 return false;"+
+"              };"+
+""+
+"              onmessage = function(event) {"+
+"                 if (event.target.origin !== '" + window.origin + "') return;"+
+"                 var msg = event.data;"+
+"                 var result = null;"+
+""+
+"                 try {"+
+"                    if (msg.type === 'load') {"+
+"                       var typo = new Typo(msg.language, msg.aff, msg.dic);"+
+"                       if (msg.isCustom)"+
+"                          custom[msg.language] = typo;"+
+"                       else"+
+"                          main = typo;"+
+"                       result = true;"+
+"                    }"+
+"                    else if (msg.type === 'check') {"+
+"                       var incorrect = [];"+
+"                       var suggestions = [];"+
+"                       msg.words.forEach(function(word) {"+
+"                          if (check(word))"+
+"                             return;"+
+"                          incorrect.push(word);"+
+"                          if (main !== null && suggestions.length < msg.prefetch)"+
+"                             suggestions.push(main.suggest(word));"+
+"                       });"+
+"                       result = { incorrect: incorrect, suggestions: suggestions };"+
+"                    }"+
+"                    else if (msg.type === 'suggest') {"+
+"                       result = main !== null ? main.suggest(msg.word) : [];"+
+"                    }"+
+"                 }"+
+"                 catch (e) {"+
+"                    result = msg.type === 'load' ? false : null;"+
+"                 }"+
+""+
+"                 this.postMessage({ id: msg.id, result: result });"+
+"              }"+
+"           }",
+            ')()'], {type: 'application/javascript'}));
+        try {
+            this.w = new Worker(blobURL);
+        } catch (e) {
+            // e.g. a content security policy that disallows blob workers
+            this.w = null;
+        }
+        URL.revokeObjectURL(blobURL);
+        /*
+         * End Worker Definition
+        */
+
+        if (!this.w)
+            return;
+
+        // Worker output consumer; route each result to the callback of the
+        // message that requested it
+        var self = this;
+        this.w.onmessage = function (event) {
+            var callback = self.callbacks[event.data.id];
+            delete self.callbacks[event.data.id];
+            if (callback)
+                callback(event.data.result);
+        };
+
+        // if the worker itself fails, fail everything it still owes an
+        // answer (and everything asked of it from now on)
+        this.w.onerror = function (event) {
+            event.preventDefault();
+            self.w.terminate();
+            self.w = null;
+            self.failAll();
+        };
+    };
+
+    SpellingWorker.isSupported = function() {
+        return typeof(Worker) !== "undefined" &&
+               typeof(URL) !== "undefined" &&
+               typeof(Blob) !== "undefined";
+    };
+
+    SpellingWorker.prototype = {
+        // callbacks are always invoked; a failed load is reported as false
+        // and any other failed request as null
+        post : function (msg, callback) {
+            msg.id = this.nextId++;
+            this.callbacks[msg.id] = callback;
+
+            if (!this.w) {
+                this.failAll();
+                return;
+            }
+
+            this.w.postMessage(msg);
+        },
+
+        failAll : function () {
+            var callbacks = this.callbacks;
+            this.callbacks = {};
+            for (var id in callbacks) {
+                if (callbacks.hasOwnProperty(id))
+                    callbacks[id](null);
+            }
+        },
+
+        loadDictionary : function (language, aff, dic, isCustom, callback) {
+            this.post({ type: 'load', language: language, aff: aff, dic: dic, isCustom: isCustom },
+                      callback);
+        },
+
+        checkWords : function (words, prefetch, callback) {
+            this.post({ type: 'check', words: words, prefetch: prefetch }, callback);
+        },
+
+        suggest : function (word, callback) {
+            this.post({ type: 'suggest', word: word }, callback);
+        }
+    }
+})();
+
+if (typeof module !== 'undefined') {
+    module.exports = SpellingWorker;
+}
@@ -0,0 +1,69 @@
+/*
+ * SpellingWorkerNative.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.common.spelling;
+
+import jsinterop.annotations.JsFunction;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+
+@JsType(isNative = true, namespace = JsPackage.GLOBAL, name = "SpellingWorker")
+public class SpellingWorkerNative
+{
+   SpellingWorkerNative(String typoJsCode) {}
+
+   public static native boolean isSupported();
+
+   public native void loadDictionary(String language,
+                                     String aff,
+                                     String dic,
+                                     boolean isCustom,
+                                     LoadedCallback callback);
+
+   // checks a batch of words, also returning suggestions for the first
+   // `prefetch` misspelled words
+   public native void checkWords(String[] words,
+                                 int prefetch,
+                                 CheckedCallback callback);
+
+   public native void suggest(String word, SuggestedCallback callback);
+
+   @JsType(isNative = true, namespace = JsPackage.GLOBAL, name = "Object")
+   public static class CheckResult
+   {
+      public String[] incorrect;
+      public String[][] suggestions;
+   }
+
+   // callbacks are always invoked: with false (or null) if the dictionary
+   // couldn't be loaded, and with a null result if the worker failed
+   @JsFunction
+   public interface LoadedCallback
+   {
+      void onLoaded(Boolean loaded);
+   }
+
+   @JsFunction
+   public interface CheckedCallback
+   {
+      void onChecked(CheckResult result);
+   }
+
+   @JsFunction
+   public interface SuggestedCallback
+   {
+      void onSuggested(String[] suggestions);
+   }
+}
@@ -19,11 +19,11 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.resources.client.ClientBundle;
 import org.rstudio.core.client.resources.StaticDataResource;
 
-public interface SpellingPrefetcherResources extends ClientBundle
+public interface SpellingWorkerResources extends ClientBundle
 {
-   SpellingPrefetcherResources INSTANCE = GWT.create(SpellingPrefetcherResources.class);
+   SpellingWorkerResources INSTANCE = GWT.create(SpellingWorkerResources.class);
 
-   @Source("SpellingPrefetcher.js")
-   StaticDataResource spellingprefetcherjs();
+   @Source("SpellingWorker.js")
+   StaticDataResource spellingworkerjs();
 }
 
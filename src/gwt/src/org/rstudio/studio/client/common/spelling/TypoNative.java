@@ -1,29 +0,0 @@
-/*
- * TypoNative.java
- *
- * Copyright (C) 2020 by RStudio, PBC
- *
- * Unless you have received this program directly from RStudio pursuant
- * to the terms of a commercial license agreement with RStudio, then
- * this program is licensed to you under the terms of version 3 of the
- * GNU Affero General Public License. This program is distributed WITHOUT
- * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
- * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
- * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
- *
- */
-
-package org.rstudio.studio.client.common.spelling;
-
-import com.google.gwt.core.client.JavaScriptObject;
-import jsinterop.annotations.JsPackage;
-import jsinterop.annotations.JsType;
-
-@JsType(isNative = true, namespace = JsPackage.GLOBAL, name = "Typo")
-public class TypoNative
-{
-   TypoNative(String dictionary, String affData, String wordsData, JavaScriptObject settings) {}
-
-   public native boolean check(String word);
-   public native String[] suggest(String word);
-}
@@ -1,28 +0,0 @@
-/*
- * TypoResources.java
- *
- * Copyright (C) 2020 by RStudio, PBC
- *
- * Unless you have received this program directly from RStudio pursuant
- * to the terms of a commercial license agreement with RStudio, then
- * this program is licensed to you under the terms of version 3 of the
- * GNU Affero General Public License. This program is distributed WITHOUT
- * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
- * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
- * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
- *
- */
-
-package org.rstudio.studio.client.common.spelling;
-
-import com.google.gwt.core.client.GWT;
-import com.google.gwt.resources.client.ClientBundle;
-import org.rstudio.core.client.resources.StaticDataResource;
-
-public interface TypoResources extends ClientBundle
-{
-   TypoResources INSTANCE = GWT.create(TypoResources.class);
-
-   @Source("typo.min.js")
-   StaticDataResource typojs();
-}
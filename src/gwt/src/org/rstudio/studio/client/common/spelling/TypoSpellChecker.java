@@ -17,6 +17,7 @@ package org.rstudio.studio.client.common.spelling;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.http.client.Request;
@@ -30,6 +31,7 @@ import com.google.gwt.user.client.Command;
 import com.google.inject.Inject;
 
 import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.ExternalJavaScriptLoader;
 import org.rstudio.core.client.Mutable;
 import org.rstudio.core.client.StringUtil;
@@ -47,8 +49,10 @@ import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.SpellingDoc;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -73,20 +77,39 @@ public class TypoSpellChecker
             if (cancelled_ || aff.get() == null || dic.get() == null)
                return;
 
-            typoLoader_.addCallback(() -> {
-               TypoNative typo = new TypoNative(language_, aff.get(), dic.get(), null);
-               if (!isCustom_)
-               {
-                  typoNative_ = typo;
-                  loadedDict_ = language_;
-                  typoLoaded_ = true;
-               }
-               else
-                  customTypoNative_.put(language_, typo);
+            withWorker((worker) -> {
+               worker.loadDictionary(language_, aff.get(), dic.get(), isCustom_, (loaded) -> {
+                  if (cancelled_)
+                     return;
+
+                  // the worker couldn't be started or Typo.js couldn't parse
+                  // the dictionary; leave real time checking off (so that
+                  // checks go to the server) rather than waiting on it
+                  if (loaded == null || !loaded)
+                  {
+                     Debug.log("Unable to load spelling dictionary '" + language_ + "'");
+                     if (isCustom_)
+                        customDictionaries_.remove(language_);
+                     if (loaded == null)
+                        onWorkerFailed(worker);
+                     alive_ = false;
+                     return;
+                  }
+
+                  if (!isCustom_)
+                  {
+                     loadedDict_ = language_;
+                     typoLoaded_ = true;
+                  }
+
+                  // results cached against the old set of dictionaries
+                  // no longer hold
+                  onDictionariesChanged();
+                  alive_ = false;
+               });
 
                aff.clear();
                dic.clear();
-               alive_ = false;
             });
             
          };
@@ -169,6 +192,10 @@ public class TypoSpellChecker
       void invalidateAllWords();
       void invalidateWord(String word, boolean userDictionary);
 
+      // called when words reported as correct while the spelling worker was
+      // still checking them turn out to be misspelled
+      void refreshSpelling(String[] words);
+
       void releaseOnDismiss(HandlerRegistration handler);
    }
 
@@ -216,17 +243,6 @@ public class TypoSpellChecker
       userDictionary_ = workbenchListManager.getUserDictionaryList();
       userPrefs_ = uiPrefs;
 
-      if (!spellingWorkerInitialized_)
-      {
-         spellingWorkerInitialized_ = true;
-         ExternalJavaScriptLoader.Callback loadSpellingWorker = () -> {
-            spellingPrefetcherNative_ = new SpellingPrefetcherNative(RES.typoJsCode().getText());
-         };
-         new ExternalJavaScriptLoader(
-            SpellingPrefetcherResources.INSTANCE.spellingprefetcherjs().getSafeUri().asString()
-         ).addCallback(loadSpellingWorker);
-      }
-
       if (domainSpecificWords_.isEmpty())
       {
          String[] words = RES.domainSpecificWords().getText().split("[\\r\\n]+");
@@ -247,43 +263,81 @@ public class TypoSpellChecker
    public boolean realtimeSpellcheckEnabled()
    {
       return userPrefs_.realTimeSpellchecking().getValue() &&
-             typoNative_ != null && loadedDict_ != null &&
-             canRealtimeSpellcheckDict(loadedDict_);
+             typoLoaded_ && loadedDict_ != null;
    }
 
-   // Check the spelling of a single word, directly returning an
-   // array of suggestions for corrections. The array is empty if the
-   // word is deemed correct by the dictionary
+   // Check the spelling of a single word, without waiting on the spelling
+   // worker: words it hasn't checked yet are queued (to be checked in one
+   // batch along with the rest of the words looked up in this event loop)
+   // and reported as correct for now. If any of them turn out to be
+   // misspelled the context is asked to refresh its spelling.
    public boolean checkSpelling(String word)
    {
-      return domainSpecificWords_.contains(word.toLowerCase()) ||
-         allIgnoredWords_.contains(word) ||
-         typoNative_.check(word) ||
-         checkCustomDicts(word);
+      if (domainSpecificWords_.contains(word.toLowerCase()) ||
+          allIgnoredWords_.contains(word))
+         return true;
+
+      Boolean correct = spellingCache_.get(word);
+      if (correct != null)
+         return correct;
+
+      if (typoLoaded_)
+      {
+         if (pendingWords_.isEmpty())
+            Scheduler.get().scheduleFinally(this::checkPendingWords);
+         pendingWords_.add(word);
+      }
+      return true;
+   }
+
+   private void checkPendingWords()
+   {
+      String[] words = pendingWords_.toArray(new String[0]);
+      pendingWords_.clear();
+      if (words.length == 0)
+         return;
+
+      checkWords(words, (incorrect) ->
+      {
+         if (incorrect != null && incorrect.length > 0)
+            context_.refreshSpelling(incorrect);
+      });
    }
 
-   // go through all of the custom dictionaries and check the word
-   private boolean checkCustomDicts(String word)
+   // check words with the spelling worker, caching the results along with
+   // suggestions for the first few misspelled words (so that they're on
+   // hand if the user asks for them); onChecked gets null if the worker
+   // failed
+   private void checkWords(String[] words, CommandWithArg<String[]> onChecked)
    {
-      for (Map.Entry<String, TypoNative> pair : customTypoNative_.entrySet())
+      final int generation = dictionaryGeneration_;
+      final int prefetch = userPrefs_.maxSpellcheckPrefetch().getValue();
+      withWorker((worker) -> worker.checkWords(words, prefetch, (result) ->
       {
-         TypoNative dictNative = pair.getValue();
-         if (dictNative != null)
+         if (result == null)
          {
-            if (dictNative.check(word))
-               return true;
+            onWorkerFailed(worker);
+            onChecked.execute(null);
+            return;
          }
-      }
-      return false;
+
+         if (generation == dictionaryGeneration_)
+         {
+            HashSet<String> incorrect = new HashSet<>(Arrays.asList(result.incorrect));
+            for (String word : words)
+               spellingCache_.put(word, !incorrect.contains(word));
+            for (int i = 0; i < result.suggestions.length; i++)
+               suggestionCache_.put(result.incorrect[i], result.suggestions[i]);
+         }
+         onChecked.execute(result.incorrect);
+      }));
    }
 
    public void checkSpelling(List<String> words, final ServerRequestCallback<SpellCheckerResult> callback)
    {
-      // If realtime is turned off call the backend spellchecker because we haven't loaded a
-      // dictionary on the frontend. Ideally we DO load the frontend dictionary but currently
-      // Typo.js isn't compatible with some of our dictionaries (see: TypoSpellChecker.realtimeBlacklist)
-      // so we need to keep the legacy call for now.
-      if (!userPrefs_.realTimeSpellchecking().getValue())
+      // If realtime is turned off (or the dictionary isn't loaded into the
+      // spelling worker yet) call the backend spellchecker
+      if (!realtimeSpellcheckEnabled())
       {
          spellingService_.checkSpelling(words, callback);
          return;
@@ -299,25 +353,43 @@ public class TypoSpellChecker
          return;
       }
 
+      // answer what we can from the cache, and send the rest to the worker
+      ArrayList<String> unchecked = new ArrayList<>();
       for (String word : words)
       {
-         if (isWordIgnored(word))
-         {
+         Boolean correct = isWordIgnored(word) ? Boolean.TRUE : spellingCache_.get(word);
+         if (correct == null)
+            unchecked.add(word);
+         else if (correct)
             spellCheckerResult.getCorrect().add(word);
-         }
          else
+            spellCheckerResult.getIncorrect().add(word);
+      }
+
+      if (unchecked.isEmpty())
+      {
+         callback.onResponseReceived(spellCheckerResult);
+         return;
+      }
+
+      checkWords(unchecked.toArray(new String[0]), (incorrect) ->
+      {
+         if (incorrect == null)
          {
-            if (typoNative_.check(word) || checkCustomDicts(word))
-            {
-               spellCheckerResult.getCorrect().add(word);
-            }
-            else
-            {
+            spellingService_.checkSpelling(words, callback);
+            return;
+         }
+
+         HashSet<String> incorrectWords = new HashSet<>(Arrays.asList(incorrect));
+         for (String word : unchecked)
+         {
+            if (incorrectWords.contains(word))
                spellCheckerResult.getIncorrect().add(word);
-            }
+            else
+               spellCheckerResult.getCorrect().add(word);
          }
-      }
-      callback.onResponseReceived(spellCheckerResult);
+         callback.onResponseReceived(spellCheckerResult);
+      });
    }
 
    public void addToUserDictionary(final String word)
@@ -367,15 +439,44 @@ public class TypoSpellChecker
       spellingService_.suggestionList(word, callback);
    }
 
-   public String[] suggestionList(String word)
+   // Get suggestions for a misspelled word from the spelling worker
+   public void suggestionList(String word, CommandWithArg<String[]> callback)
    {
-      if (typoNative_ == null)
+      String[] suggestions = suggestionCache_.get(word);
+      if (suggestions != null || !typoLoaded_)
       {
-         return new String[0];
+         callback.execute(suggestions != null ? suggestions : new String[0]);
+         return;
       }
 
-      return typoNative_.suggest(word);
+      final int generation = dictionaryGeneration_;
+      withWorker((worker) -> worker.suggest(word, (result) ->
+      {
+         if (result == null)
+         {
+            onWorkerFailed(worker);
+            callback.execute(new String[0]);
+            return;
+         }
+
+         if (generation == dictionaryGeneration_)
+            suggestionCache_.put(word, result);
+         callback.execute(result);
+      }));
+   }
+
+   // Get suggestions for a misspelled word if they're already on hand
+   // (otherwise fetch them for next time, and return none)
+   public String[] suggestionList(String word)
+   {
+      String[] suggestions = suggestionCache_.get(word);
+      if (suggestions != null)
+         return suggestions;
+
+      suggestionList(word, (result) -> {});
+      return new String[0];
    }
+
    private boolean isWordIgnored(String word)
    {
       return (domainSpecificWords_.contains(word.toLowerCase()) ||
@@ -473,21 +574,50 @@ public class TypoSpellChecker
       for (int i = 0; i < customDictionaries.length(); i++)
       {
          String dict = customDictionaries.get(i);
-         if (!customTypoNative_.containsKey(dict))
+         if (!customDictionaries_.contains(dict))
          {
-            customTypoNative_.put(dict, null);
+            customDictionaries_.add(dict);
             TypoDictionaryRequest req = new TypoDictionaryRequest(dict, true);
             req.send();
          }
       }
    }
 
-   public void prefetchWords(ArrayList<String> words)
+   private void onDictionariesChanged()
    {
-      if (spellingWorkerInitialized_)
+      dictionaryGeneration_++;
+      spellingCache_.clear();
+      suggestionCache_.clear();
+      context_.invalidateAllWords();
+   }
+
+   // the spelling worker stopped answering (e.g. it ran out of memory);
+   // turn off real time checking until the dictionaries are loaded again,
+   // in a fresh worker
+   private void onWorkerFailed(SpellingWorkerNative worker)
+   {
+      // only the first failure of the current worker counts
+      if (worker_ != worker)
+         return;
+
+      Debug.log("Spelling worker failed; real time spell checking disabled");
+      worker_ = null;
+      typoLoaded_ = false;
+      loadedDict_ = null;
+      customDictionaries_.clear();
+      onDictionariesChanged();
+   }
+
+   // run a command once the spelling worker is up (the script defining it
+   // is loaded on first use)
+   private static void withWorker(CommandWithArg<SpellingWorkerNative> command)
+   {
+      workerLoader_.addCallback(() ->
       {
-         spellingPrefetcherNative_.prefetch(String.join(",", words), typoNative_);
-      }
+         if (worker_ == null)
+            worker_ = new SpellingWorkerNative(RES.typoJsCode().getText());
+         command.execute(worker_);
+      });
    }
 
    public boolean shouldCheckSpelling(SpellingDoc spellingDoc, SpellingDoc.WordRange wordRange)
@@ -513,23 +643,40 @@ public class TypoSpellChecker
    }
 
    /*
-      Stop gap function to prevent loading dictionaries that Typo.js has
-      severe issues with. This is being tracked to be fixed in issue #6041 as
-      soon as possible so this can then be removed.
+      Some dictionaries (e.g. lt_LT, pt_BR, it_IT) used to be excluded from
+      real time checking, as Typo.js takes long enough to load and check them
+      that doing so on the UI thread stalled typing. Now that all checking
+      happens in the spelling worker, every dictionary can be checked in real
+      time so long as the browser supports web workers.
     */
-   private final static String[] realtimeDictBlacklist = {"lt_LT", "lt_LT_new", "pt_BR", "it_IT"};
    public static boolean canRealtimeSpellcheckDict(String dict)
    {
-      boolean exists = false;
-      for (int i = 0; i < realtimeDictBlacklist.length; i++)
+      return isWorkerSupported();
+   }
+
+   private static native boolean isWorkerSupported() /*-{
+      return typeof($wnd.Worker) !== "undefined" &&
+             typeof($wnd.URL) !== "undefined" &&
+             typeof($wnd.Blob) !== "undefined";
+   }-*/;
+
+   // least recently used cache, evicting once it grows past a fixed size
+   @SuppressWarnings("serial")
+   private static class LruCache<K, V> extends LinkedHashMap<K, V>
+   {
+      LruCache(int maxSize)
       {
-         if (realtimeDictBlacklist[i].equals(dict))
-         {
-            exists = true;
-            break;
-         }
+         super(16, 0.75f, true);
+         maxSize_ = maxSize;
+      }
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+      {
+         return size() > maxSize_;
       }
-      return !exists;
+
+      private final int maxSize_;
    }
 
    public static boolean isLoaded() { return typoLoaded_; }
@@ -537,22 +684,30 @@ public class TypoSpellChecker
    private final Context context_;
    private static final Resources RES = GWT.create(Resources.class);
 
-   private static SpellingPrefetcherNative spellingPrefetcherNative_;
-   private static boolean spellingWorkerInitialized_ = false;
+   private static SpellingWorkerNative worker_;
+   private static final ExternalJavaScriptLoader workerLoader_ =
+         new ExternalJavaScriptLoader(SpellingWorkerResources.INSTANCE.spellingworkerjs().getSafeUri().asString());
 
    private static String loadedDict_;
    private static boolean typoLoaded_ = false;
-   private static TypoNative typoNative_;
-   private static HashMap<String, TypoNative> customTypoNative_ = new HashMap<>();
+   private static final HashSet<String> customDictionaries_ = new HashSet<>();
    private static TypoDictionaryRequest activeRequest_;
 
+   private static final int MAX_CACHED_WORDS = 20000;
+   private static final int MAX_CACHED_SUGGESTIONS = 500;
+
+   // spelling results and suggestions from the worker, per word (shared by
+   // all documents, and cleared whenever the set of dictionaries changes)
+   private static final LruCache<String, Boolean> spellingCache_ = new LruCache<>(MAX_CACHED_WORDS);
+   private static final LruCache<String, String[]> suggestionCache_ = new LruCache<>(MAX_CACHED_SUGGESTIONS);
+   private static int dictionaryGeneration_ = 0;
+
    private WorkbenchList userDictionary_;
    private ArrayList<String> userDictionaryWords_;
    private ArrayList<String> contextDictionary_;
    private final HashSet<String> allIgnoredWords_ = new HashSet<>();
    private final HashSet<String> domainSpecificWords_ = new HashSet<>();
-   private final ExternalJavaScriptLoader typoLoader_ =
-         new ExternalJavaScriptLoader(TypoResources.INSTANCE.typojs().getSafeUri().asString());
+   private final LinkedHashSet<String> pendingWords_ = new LinkedHashSet<>();
 
    private SpellingService spellingService_;
    private UserPrefs userPrefs_;
@@ -51,6 +51,17 @@ public class UserPrefPaletteItem extends BasePaletteItem<UserPrefPaletteEntry>
       return null;
    }
 
+   /**
+    * Can the given preference be shown in the palette? Only boolean, enum and
+    * integer preferences have palette entries.
+    */
+   public static boolean isEditable(PrefValue<?> val)
+   {
+      return val instanceof BooleanValue ||
+             val instanceof EnumValue ||
+             val instanceof IntValue;
+   }
+
    @Override
    public void invoke(InvocationSource source)
    {
@@ -59,9 +70,9 @@ public class UserPrefPaletteItem extends BasePaletteItem<UserPrefPaletteEntry>
    }
 
    @Override
-   public boolean matchesSearch(String[] keywords)
+   public String getSearchText()
    {
-      return super.labelMatchesSearch("setting " + val_.getTitle(), keywords);
+      return "setting " + val_.getTitle();
    }
 
    @Override
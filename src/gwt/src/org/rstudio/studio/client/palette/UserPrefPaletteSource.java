@@ -47,6 +47,12 @@ public class UserPrefPaletteSource implements CommandPaletteEntrySource
             // reasonable thing we can display)
             continue;
          }
+         if (!UserPrefPaletteItem.isEditable(val))
+         {
+            // Leave out preferences we have no way to display (so that the
+            // palette's search index only holds items it can show)
+            continue;
+         }
          items.add(new UserPrefPaletteItem(val));
       }
       
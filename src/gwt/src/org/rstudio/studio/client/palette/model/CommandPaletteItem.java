@@ -55,13 +55,12 @@ public interface CommandPaletteItem extends IsWidget, HasHandlers
    HandlerRegistration addInvokeHandler(PaletteItemInvokedEvent.Handler handler);
 
    /**
-    * Does this item match the given search keywords?
+    * Get the text that searches are matched against (the item's label, along
+    * with any context that should also be searchable).
     * 
-    * @param keywords The keywords to match on
-    * 
-    * @return True if the palette item matches; false otherwise
+    * @return The item's search text
     */
-   boolean matchesSearch(String[] keywords);
+   String getSearchText();
 
    /**
     * Turns on search highlighting for the item.
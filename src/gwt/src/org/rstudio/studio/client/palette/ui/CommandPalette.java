@@ -18,7 +18,6 @@ package org.rstudio.studio.client.palette.ui;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.rstudio.core.client.DebouncedCommand;
 import org.rstudio.core.client.ElementIds;
 import org.rstudio.core.client.HandlerRegistrations;
 import org.rstudio.core.client.StringUtil;
@@ -43,6 +42,7 @@ import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.HTMLPanel;
 import com.google.gwt.user.client.ui.ScrollPanel;
+import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.Widget;
 
@@ -79,14 +79,16 @@ public class CommandPalette extends Composite
    {
       initWidget(uiBinder.createAndBindUi(this));
 
-      items_ = new ArrayList<>();
-      visible_ = new ArrayList<>();
       host_ = host;
       selected_ = -1;
       attached_ = false;
       pageSize_ = 0;
+      rowHeight_ = 0;
       sources_ = sources;
       needles_ = new String[0];
+      results_ = new int[0];
+      topSpacer_ = new SimplePanel();
+      bottomSpacer_ = new SimplePanel();
       registrations_ = new HandlerRegistrations();
       styles_.ensureInjected();
       
@@ -126,7 +128,7 @@ public class CommandPalette extends Composite
       // If we have already populated, compute the page size. Do this deferred
       // so that a render pass occurs (otherwise the page size computations will
       // take place with unrendered elements)
-      if (commandList_.getWidgetCount() > 0)
+      if (index_ != null)
       {
          Scheduler.get().scheduleDeferred(() ->
          {
@@ -163,8 +165,7 @@ public class CommandPalette extends Composite
             if (!StringUtil.equals(searchText_, searchText))
             {
                searchText_ = searchText;
-               needles_ = searchBox_.getText().toLowerCase().split("\\s+");
-               applyFilter_.nudge();
+               applyFilter();
             }
          }
       });
@@ -225,8 +226,31 @@ public class CommandPalette extends Composite
          }
       });
       
+      // Render rows as they're scrolled into view
+      scroller_.addScrollHandler((evt) ->
+      {
+         renderVisibleRows(false);
+      });
+
+      // Gather the items from each source and index them for searching. This
+      // is cheap relative to rendering, since items create their widgets on
+      // demand.
+      List<CommandPaletteItem> items = new ArrayList<>();
+      for (CommandPaletteEntrySource source: sources_)
+      {
+         List<CommandPaletteItem> sourceItems = source.getCommandPaletteItems();
+         if (sourceItems == null)
+            continue;
+         for (CommandPaletteItem item: sourceItems)
+         {
+            if (item != null)
+               items.add(item);
+         }
+      }
+      index_ = new CommandPaletteIndex(items);
+
       // Render the first page of elements
-      renderNextPage();
+      applyFilter();
       
       // If we are already attached to the DOM at this point, compute the page
       // size for scrolling by pages. 
@@ -240,20 +264,21 @@ public class CommandPalette extends Composite
     * Compute the size of a "page" of results (for Page Up / Page Down). We do
     * this dynamically based on measuring DOM elements since the number of items
     * that fit in a page can vary based on platform, browser, and available
-    * fonts.
+    * fonts. The row height measured here is also what lets us render only the
+    * rows that are scrolled into view.
     */
    private void computePageSize()
    {
       // Find the first visible entry (we can't measure an invisible one)
-      for (CommandPaletteItem item: items_)
+      for (int i = firstRendered_; i < lastRendered_; i++)
       {
-         Widget entry = item.asWidget();
-         if (entry.isVisible())
+         Widget entry = itemAt(i).asWidget();
+         if (entry != null && entry.isVisible() && entry.getOffsetHeight() > 0)
          {
             // Compute the page size: the total size of the scrolling area
             // divided by the size of a visible entry
-            pageSize_ = Math.floorDiv(scroller_.getOffsetHeight(), 
-                  entry.getOffsetHeight());
+            rowHeight_ = entry.getOffsetHeight();
+            pageSize_ = Math.floorDiv(scroller_.getOffsetHeight(), rowHeight_);
             break;
          }
       }
@@ -270,6 +295,10 @@ public class CommandPalette extends Composite
          // 10 items as a default.
          pageSize_ = 10;
       }
+
+      // Now that we know how tall rows are, trim the rendered rows down to the
+      // ones in view
+      renderVisibleRows(true);
    }
    
    /**
@@ -277,17 +306,47 @@ public class CommandPalette extends Composite
     */
    private void applyFilter()
    {
-      // Clear the command list and render marker in preparation for a re-render
-      commandList_.clear();
-      renderedItem_ = 0;
-      if (selected_ >= 0)
-         visible_.get(selected_).setSelected(false);
-      visible_.clear();
+      String query = StringUtil.notNull(searchText_).toLowerCase();
+      List<String> needles = new ArrayList<>();
+      for (String needle: query.split("\\s+"))
+      {
+         if (!needle.isEmpty())
+            needles.add(needle);
+      }
+      needles_ = needles.toArray(new String[needles.size()]);
+
+      if (needles_.length == 0)
+      {
+         // No search; show everything in source order
+         matches_ = null;
+         results_ = new int[index_.size()];
+         for (int i = 0; i < results_.length; i++)
+            results_[i] = i;
+      }
+      else
+      {
+         // Adding to the query can only narrow it, so in that case we need
+         // only search among the previous matches
+         int[] candidates = null;
+         if (matches_ != null && lastQuery_ != null && query.startsWith(lastQuery_))
+            candidates = matches_;
+         matches_ = index_.match(needles_, candidates);
+         results_ = index_.rank(matches_, MAX_RANKED_RESULTS);
+      }
+      lastQuery_ = query;
 
+      // Clear the selection and rendered rows in preparation for a re-render
+      if (selected_ >= 0)
+         selectedItem_.setSelected(false);
       selected_ = -1;
-      
-      // Render the next page of command entries
-      renderNextPage();
+      selectedItem_ = null;
+      scroller_.setVerticalScrollPosition(0);
+      renderVisibleRows(true);
+
+      if (results_.length > 0)
+         selectNewCommand(0);
+
+      completeRender();
    }
    
    /**
@@ -295,7 +354,7 @@ public class CommandPalette extends Composite
     */
    private void completeRender()
    {
-      int matches = commandList_.getWidgetCount();
+      int matches = results_.length;
       
       // Show "no results" message if appropriate
       if (matches == 0 && !noResults_.isVisible())
@@ -332,9 +391,9 @@ public class CommandPalette extends Composite
       {
          target = 0;
       }
-      else if (target >= visible_.size())
+      else if (target >= results_.length)
       {
-         target = visible_.size() - 1;
+         target = results_.length - 1;
       }
 
       // Select new command if we moved
@@ -359,11 +418,11 @@ public class CommandPalette extends Composite
    {
       if (selected_ >= 0)
       {
-         if (visible_.get(selected_).dismissOnInvoke())
+         if (selectedItem_.dismissOnInvoke())
          {
             host_.dismiss();
          }
-         visible_.get(selected_).invoke(InvocationSource.Keyboard);
+         selectedItem_.invoke(InvocationSource.Keyboard);
       }
    }
    
@@ -381,145 +440,152 @@ public class CommandPalette extends Composite
       // Clear previous selection, if any
       if (selected_ >= 0)
       {
-         visible_.get(selected_).setSelected(false);
+         selectedItem_.setSelected(false);
       }
       
-      // Set new selection
+      // Set new selection, scrolling it into view (which renders it)
       selected_ = target;
-      CommandPaletteItem selected = visible_.get(selected_);
+      scrollToRow(target);
+      CommandPaletteItem selected = itemAt(target);
+      Widget widget = renderItem(selected);
+      selectedItem_ = selected;
+      if (widget == null)
+         return;
       selected.setSelected(true);
-      selected.asWidget().getElement().scrollIntoView();
 
       // Update active descendant for accessibility
       Roles.getComboboxRole().setAriaActivedescendantProperty(
-            searchBox_.getElement(), Id.of(selected.asWidget().getElement()));
+            searchBox_.getElement(), Id.of(widget.getElement()));
    }
    
    /**
-    * Renders the next page of search results from the command palette.
+    * Scrolls the results list (if necessary) so that a row is in view.
     * 
-    * By far the slowest part of the command palette is the rendering of
-    * individual items into GWT widgets, so doing this all at once would cause
-    * the palette to take several seconds to appear. To make it performant, we
-    * render just a few widgets at a time, letting the browser do a render
-    * pass after each batch. 
+    * @param row The index of the row in the results.
     */
-   private void renderNextPage()
+   private void scrollToRow(int row)
    {
-      // If we haven't already pulled items from all our sources and we have
-      // less than a page of data left, pull in data from the next source.
-      if (renderedSource_ < sources_.size() &&
-          items_.size() - renderedItem_ < RENDER_PAGE_SIZE)
+      if (rowHeight_ > 0)
       {
-         // Read the next non-null data source
-         List<CommandPaletteItem> items = null;
-         do
-         {
-            items = sources_.get(renderedSource_).getCommandPaletteItems();
-            renderedSource_++;
-         } while (items == null);
-            
-         items_.addAll(items);
+         int top = row * rowHeight_;
+         int scrollTop = scroller_.getVerticalScrollPosition();
+         int height = scroller_.getOffsetHeight();
+         if (top < scrollTop)
+            scroller_.setVerticalScrollPosition(top);
+         else if (top + rowHeight_ > scrollTop + height)
+            scroller_.setVerticalScrollPosition(top + rowHeight_ - height);
       }
       
-      // Set initial conditions for render loop
-      int rendered = 0;
-      int idx = renderedItem_;
-
-      // Main render loop; render items until we have rendered a full page
-      while (idx < items_.size() && rendered < RENDER_PAGE_SIZE)
+      renderVisibleRows(false);
+   }
+   
+   /**
+    * Renders the rows of search results that are scrolled into view.
+    * 
+    * By far the slowest part of the command palette is the rendering of
+    * individual items into GWT widgets, so we only render widgets for the rows
+    * in (or just outside) the scroll area, and stand in for the rest with
+    * spacers sized to match. Until we've measured how tall a row is, we
+    * render the first page of results.
+    * 
+    * @param force Whether to re-render even if the rows in view haven't
+    *   changed (e.g. because the results have).
+    */
+   private void renderVisibleRows(boolean force)
+   {
+      int count = results_.length;
+      int first = 0;
+      int last = Math.min(count, RENDER_PAGE_SIZE);
+      int height = scroller_.getOffsetHeight();
+      if (rowHeight_ > 0 && height > 0)
       {
-         CommandPaletteItem item = items_.get(idx);
-
-         // Render this item if non-null and matches the search keywords, if we
-         // have them
-         if (item != null && (needles_.length == 0 || item.matchesSearch(needles_)))
-         {
-            // Remember whether this item has been rendered
-            boolean isRendered = item.isRendered();
-            
-            // Render the item to a widget (this is the expensive step)
-            Widget widget = item.asWidget();
-            if (widget != null)
-            {
-               // Add and highlight the item
-               commandList_.add(item.asWidget());
-               visible_.add(item);
-               item.setSearchHighlight(needles_);
-               
-               // If we just added the first widget to the box, select it
-               if (visible_.size() == 1)
-               {
-                  selectNewCommand(0);
-               }
-               rendered++;
-            }
-            
-            // Attach an invocation handler if this is the first time we've
-            // rendered this item
-            if (!isRendered)
-            {
-               registrations_.add(item.addInvokeHandler((evt) ->
-               {
-                  if (evt.getItem().dismissOnInvoke())
-                  {
-                     host_.dismiss();
-                  }
-                  evt.getItem().invoke(InvocationSource.Mouse);
-               }));
-            }
-         }
-         
-         // Advance to next command palette item
-         idx++;
+         int scrollTop = scroller_.getVerticalScrollPosition();
+         first = Math.max(0, scrollTop / rowHeight_ - RENDER_OVERSCAN);
+         last = Math.min(count,
+               (scrollTop + height) / rowHeight_ + 1 + RENDER_OVERSCAN);
       }
       
-      // Save our place so we'll start rendering at the next page
-      renderedItem_ = idx;
+      if (!force && first == firstRendered_ && last == lastRendered_)
+         return;
       
-      // If we didn't render everything, schedule another pass
-      if (renderedItem_ < items_.size() || renderedSource_ < sources_.size())
+      commandList_.clear();
+      topSpacer_.setHeight(first * rowHeight_ + "px");
+      bottomSpacer_.setHeight((count - last) * rowHeight_ + "px");
+      commandList_.add(topSpacer_);
+      for (int i = first; i < last; i++)
       {
-         // Don't populate while user is typing as dumping more elements into
-         // the DOM is distracting (plus the additional elements will be
-         // discarded once the timer finishes running)
-         if (!applyFilter_.isRunning())
+         CommandPaletteItem item = itemAt(i);
+         Widget widget = renderItem(item);
+         if (widget != null)
          {
-            Scheduler.get().scheduleDeferred(() ->
-            {
-               renderNextPage();
-            });
+            commandList_.add(widget);
+            item.setSearchHighlight(needles_);
          }
       }
-      else
+      commandList_.add(bottomSpacer_);
+      
+      firstRendered_ = first;
+      lastRendered_ = last;
+   }
+   
+   /**
+    * Renders an item to a widget, if it hasn't been already.
+    * 
+    * @param item The item to render.
+    * @return The item's widget.
+    */
+   private Widget renderItem(CommandPaletteItem item)
+   {
+      // Remember whether this item has been rendered
+      boolean isRendered = item.isRendered();
+
+      // Render the item to a widget (this is the expensive step)
+      Widget widget = item.asWidget();
+
+      // Attach an invocation handler if this is the first time we've
+      // rendered this item
+      if (!isRendered)
       {
-         completeRender();
+         registrations_.add(item.addInvokeHandler((evt) ->
+         {
+            if (evt.getItem().dismissOnInvoke())
+            {
+               host_.dismiss();
+            }
+            evt.getItem().invoke(InvocationSource.Mouse);
+         }));
       }
+      
+      return widget;
+   }
+   
+   private CommandPaletteItem itemAt(int row)
+   {
+      return index_.get(results_[row]);
    }
    
    private final Host host_;
    private final List<CommandPaletteEntrySource> sources_;
-   private final List<CommandPaletteItem> items_;
-   private final List<CommandPaletteItem> visible_;
    private final HandlerRegistrations registrations_;
+   private final SimplePanel topSpacer_;
+   private final SimplePanel bottomSpacer_;
+   private CommandPaletteIndex index_;
+   private int[] matches_; // Indices of all items matching the search (null if no search)
+   private int[] results_; // Indices of the items to show, in display order
    private int selected_;
+   private CommandPaletteItem selectedItem_;
    private String searchText_;
+   private String lastQuery_;
    private String[] needles_;
    private boolean attached_;
    private int pageSize_;
+   private int rowHeight_;
    
-   private int renderedItem_; // The index of the last rendered item
-   private int renderedSource_ = 0; // The index of the last rendered data source
+   private int firstRendered_; // The index of the first rendered row
+   private int lastRendered_; // The index just past the last rendered row
    private final int RENDER_PAGE_SIZE = 50;
-
-   DebouncedCommand applyFilter_ = new DebouncedCommand(100)
-   {
-      @Override
-      protected void execute()
-      {
-         applyFilter();
-      }
-   };
+   private final int RENDER_OVERSCAN = 10;
+   private final int MAX_RANKED_RESULTS = 500;
 
    @UiField public TextBox searchBox_;
    @UiField public HTMLPanel commandList_;
@@ -0,0 +1,266 @@
+/*
+ * CommandPaletteIndex.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.palette.ui;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.palette.model.CommandPaletteItem;
+
+/**
+ * A search index over the command palette's items, built once each time the
+ * palette is opened.
+ *
+ * Each item's search text is lower-cased up front, along with a bitmask of the
+ * letters and digits it contains and the positions at which words begin, so
+ * that a keystroke only costs a scan over precomputed strings. Search terms
+ * match fuzzily (as a subsequence of the search text), and matches are scored
+ * in the manner of fzf: consecutive characters and characters at the start of
+ * words score highest, and gaps between matched characters are penalized.
+ */
+class CommandPaletteIndex
+{
+   CommandPaletteIndex(List<CommandPaletteItem> items)
+   {
+      int n = items.size();
+      items_ = items.toArray(new CommandPaletteItem[n]);
+      keys_ = new String[n];
+      boundaries_ = new boolean[n][];
+      masks_ = new int[n];
+      scores_ = new int[n];
+
+      for (int i = 0; i < n; i++)
+      {
+         String text = items_[i].getSearchText();
+         if (text == null)
+            text = "";
+
+         // (lower-casing can change the length of some strings, in which
+         // case look for word boundaries in the lower-cased text instead)
+         keys_[i] = text.toLowerCase();
+         boundaries_[i] = wordBoundaries(
+               text.length() == keys_[i].length() ? text : keys_[i]);
+         masks_[i] = StringUtil.charMask(keys_[i]);
+      }
+   }
+
+   public int size()
+   {
+      return items_.length;
+   }
+
+   public CommandPaletteItem get(int index)
+   {
+      return items_[index];
+   }
+
+   /**
+    * Finds the items matching every one of the given search terms.
+    *
+    * @param needles The lower-cased search terms.
+    * @param candidates Indices of the items to consider (e.g. the matches for
+    *    a query this one extends), or null to consider all of them.
+    * @return Indices of the matching items, in index order.
+    */
+   public int[] match(String[] needles, int[] candidates)
+   {
+      int needlesMask = 0;
+      for (String needle : needles)
+         needlesMask |= StringUtil.charMask(needle);
+
+      int count = candidates == null ? items_.length : candidates.length;
+      int[] matches = new int[count];
+      int matched = 0;
+      for (int i = 0; i < count; i++)
+      {
+         int index = candidates == null ? i : candidates[i];
+         if ((masks_[index] & needlesMask) != needlesMask)
+            continue;
+
+         int score = 0;
+         for (String needle : needles)
+         {
+            int needleScore = score(keys_[index], boundaries_[index], needle);
+            if (needleScore == NO_MATCH)
+            {
+               score = NO_MATCH;
+               break;
+            }
+            score += needleScore;
+         }
+
+         if (score == NO_MATCH)
+            continue;
+
+         scores_[index] = score;
+         matches[matched++] = index;
+      }
+
+      int[] result = new int[matched];
+      System.arraycopy(matches, 0, result, 0, matched);
+      return result;
+   }
+
+   /**
+    * Selects the best scoring of the given matches.
+    *
+    * @param matches Indices of matching items, as returned from match().
+    * @param max The maximum number of items to return.
+    * @return Indices of at most max items, best match first (ties are broken
+    *    by index order).
+    */
+   public int[] rank(int[] matches, int max)
+   {
+      if (max <= 0)
+         return new int[0];
+
+      // keep the best max matches in a min-heap (so the worst of them is on
+      // top, ready to be displaced by a better match)
+      PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, Math.min(max, matches.length)),
+            (lhs, rhs) -> compareMatches(rhs, lhs));
+      for (int index : matches)
+      {
+         if (best.size() < max)
+         {
+            best.add(index);
+         }
+         else if (compareMatches(index, best.peek()) < 0)
+         {
+            best.poll();
+            best.add(index);
+         }
+      }
+
+      int[] result = new int[best.size()];
+      for (int i = result.length - 1; i >= 0; i--)
+         result[i] = best.poll();
+      return result;
+   }
+
+   // negative if lhs is the better match
+   private int compareMatches(int lhs, int rhs)
+   {
+      if (scores_[lhs] != scores_[rhs])
+         return scores_[lhs] > scores_[rhs] ? -1 : 1;
+      return lhs - rhs;
+   }
+
+   /**
+    * Scores a fuzzy match of a search term against an item's search text.
+    *
+    * As in fzf's fast path, we find the first place the term appears as a
+    * subsequence and then scan backwards from its end for the shortest
+    * match, rather than scoring every possible alignment.
+    *
+    * @return The score (higher is better), or NO_MATCH.
+    */
+   static int score(String key, boolean[] boundaries, String needle)
+   {
+      int n = needle.length();
+      if (n == 0)
+         return 0;
+
+      // forward pass: find where the first match ends
+      int end = -1;
+      for (int i = 0, j = 0, length = key.length(); i < length; i++)
+      {
+         if (key.charAt(i) == needle.charAt(j) && ++j == n)
+         {
+            end = i;
+            break;
+         }
+      }
+      if (end < 0)
+         return NO_MATCH;
+
+      // backward pass: find the latest start of a match ending there
+      int start = end;
+      for (int i = end, j = n - 1; i >= 0; i--)
+      {
+         if (key.charAt(i) == needle.charAt(j) && --j < 0)
+         {
+            start = i;
+            break;
+         }
+      }
+
+      int score = 0;
+      int consecutive = 0;
+      boolean inGap = false;
+      for (int i = start, j = 0; i <= end; i++)
+      {
+         if (j < n && key.charAt(i) == needle.charAt(j))
+         {
+            int bonus = boundaries[i] ? BONUS_BOUNDARY : 0;
+            if (consecutive > 0)
+               bonus = Math.max(bonus, BONUS_CONSECUTIVE);
+
+            // the first character counts double, as it's what users most
+            // often anchor on
+            score += SCORE_MATCH + (j == 0 ? bonus * 2 : bonus);
+            consecutive++;
+            inGap = false;
+            j++;
+         }
+         else
+         {
+            score -= inGap ? PENALTY_GAP_EXTENSION : PENALTY_GAP_START;
+            consecutive = 0;
+            inGap = true;
+         }
+      }
+      return score;
+   }
+
+   // positions which start a word: the first character, any letter or digit
+   // following a non-alphanumeric character, and the upper case letter of a
+   // camelCase hump
+   private static boolean[] wordBoundaries(String text)
+   {
+      int n = text.length();
+      boolean[] boundaries = new boolean[n];
+      for (int i = 0; i < n; i++)
+      {
+         char ch = text.charAt(i);
+         if (i == 0)
+         {
+            boundaries[i] = true;
+            continue;
+         }
+
+         char prev = text.charAt(i - 1);
+         boundaries[i] =
+               (Character.isLetterOrDigit(ch) && !Character.isLetterOrDigit(prev)) ||
+               (Character.isUpperCase(ch) && Character.isLowerCase(prev));
+      }
+      return boundaries;
+   }
+
+   private final CommandPaletteItem[] items_;
+   private final String[] keys_;
+   private final boolean[][] boundaries_;
+   private final int[] masks_;
+   private final int[] scores_;
+
+   static final int NO_MATCH = Integer.MIN_VALUE;
+
+   private static final int SCORE_MATCH = 16;
+   private static final int BONUS_BOUNDARY = 8;
+   private static final int BONUS_CONSECUTIVE = 4;
+   private static final int PENALTY_GAP_START = 3;
+   private static final int PENALTY_GAP_EXTENSION = 1;
+}
@@ -37,9 +37,9 @@ public class PanmirrorCommandPaletteItem extends BasePaletteItem<PanmirrorComman
    }
 
    @Override
-   public boolean matchesSearch(String[] keywords)
+   public String getSearchText()
    {
-      return super.labelMatchesSearch("visual editor " + cmd_.getFullMenuText(), keywords);
+      return "visual editor " + cmd_.getFullMenuText();
    }
 
    @Override
@@ -21,6 +21,10 @@ import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 
+import jsinterop.base.Js;
+
+import org.rstudio.core.client.PerformanceCounters;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.events.ExecuteAppCommandEvent;
 import org.rstudio.core.client.events.HighlightEvent;
 import org.rstudio.core.client.files.FileSystemItem;
@@ -200,13 +204,34 @@ import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEve
 import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEvent.Reason;
 import org.rstudio.studio.client.workbench.views.viewer.events.ViewerNavigateEvent;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 
 public class ClientEventDispatcher
 {
    public ClientEventDispatcher(EventBus eventBus)
    {
       eventBus_ = eventBus;
+      PerformanceCounters.register(new PerformanceCounters.Source()
+      {
+         @Override
+         public String getName()
+         {
+            return "Client Events";
+         }
+
+         @Override
+         public void dump(StringBuilder output)
+         {
+            PerformanceCounters.append(output, "Queue depth", pendingEvents_.size());
+            PerformanceCounters.append(output, "Max queue depth", maxQueueDepth_);
+            PerformanceCounters.append(output, "Events received", eventsReceived_);
+            PerformanceCounters.append(output, "Events merged", eventsMerged_);
+            PerformanceCounters.append(output, "Events dispatched", eventsDispatched_);
+            PerformanceCounters.append(output, "Dispatch slices", dispatchSlices_);
+            PerformanceCounters.append(output, "Total dispatch ms", totalDispatchMs_);
+            PerformanceCounters.append(output, "Max slice ms", maxSliceMs_);
+         }
+      });
    }
 
    public void enqueEventAsJso(JavaScriptObject event)
@@ -217,27 +242,77 @@ public class ClientEventDispatcher
 
    public void enqueEvent(ClientEvent event)
    {
-      pendingEvents_.add(event);
+      eventsReceived_++;
+
+      // coalesce runs of console output into a single event
+      ClientEvent merged = mergeConsoleText(pendingEvents_.peekLast(), event);
+      if (merged != null)
+      {
+         pendingEvents_.pollLast();
+         pendingEvents_.addLast(merged);
+         eventsMerged_++;
+         return;
+      }
+
+      pendingEvents_.addLast(event);
+      maxQueueDepth_ = Math.max(maxQueueDepth_, pendingEvents_.size());
       if (pendingEvents_.size() == 1)
       {
          Scheduler.get().scheduleIncremental(new RepeatingCommand()
          {
             public boolean execute()
             {
-               final int MAX_EVENTS_AT_ONCE = 200;
-               for (int i = 0;
-                    i < MAX_EVENTS_AT_ONCE && pendingEvents_.size() > 0;
-                    i++)
+               // dispatch events until we've used up our time budget for
+               // this slice (always dispatching at least one)
+               long startTime = System.currentTimeMillis();
+               long elapsed = 0;
+               do
                {
-                  ClientEvent currentEvent = pendingEvents_.remove(0);
+                  ClientEvent currentEvent = pendingEvents_.pollFirst();
                   dispatchEvent(currentEvent);
+                  eventsDispatched_++;
+                  elapsed = System.currentTimeMillis() - startTime;
                }
-               return pendingEvents_.size() > 0;
+               while (elapsed < DISPATCH_BUDGET_MS && !pendingEvents_.isEmpty());
+
+               dispatchSlices_++;
+               totalDispatchMs_ += elapsed;
+               maxSliceMs_ = Math.max(maxSliceMs_, elapsed);
+               return !pendingEvents_.isEmpty();
             }
          });
       }
    }
 
+   // returns a single event equivalent to 'previous' followed by 'next' when
+   // both write text to the same console stream, or null if they can't be merged
+   private ClientEvent mergeConsoleText(ClientEvent previous, ClientEvent next)
+   {
+      if (previous == null)
+         return null;
+
+      String type = next.getType();
+      if (!StringUtil.equals(type, previous.getType()))
+         return null;
+      if (!StringUtil.equals(type, ClientEvent.ConsoleOutput) &&
+          !StringUtil.equals(type, ClientEvent.ConsoleError))
+         return null;
+
+      ConsoleText previousText = previous.getData();
+      ConsoleText nextText = next.getData();
+      if (previousText.text == null || nextText.text == null)
+         return null;
+      if (!StringUtil.equals(previousText.console, nextText.console))
+         return null;
+      if (previousText.text.length() + nextText.text.length() > MAX_MERGED_TEXT)
+         return null;
+
+      ConsoleText mergedText = new ConsoleText();
+      mergedText.text = previousText.text + nextText.text;
+      mergedText.console = nextText.console;
+      return ClientEvent.create(next.getId(), type, Js.uncheckedCast(mergedText));
+   }
+
    private void dispatchEvent(ClientEvent event)
    {
       String type = event.getType();
@@ -390,7 +465,8 @@ public class ClientEventDispatcher
          {
             ServerConsoleOutputEvent.Data data = event.getData();
             eventBus_.dispatchEvent(new ServerConsoleOutputEvent(data.getHandle(),
-                                                            data.getOutput()));
+                                                            data.getOutput(),
+                                                            data.getSequence()));
          }
          else if (type == ClientEvent.ConsoleProcessPrompt)
          {
@@ -1083,7 +1159,22 @@ public class ClientEventDispatcher
 
    private final EventBus eventBus_;
 
-   private final ArrayList<ClientEvent> pendingEvents_ = new ArrayList<ClientEvent>();
+   private final ArrayDeque<ClientEvent> pendingEvents_ = new ArrayDeque<>();
+
+   // counters
+   private int maxQueueDepth_ = 0;
+   private int eventsReceived_ = 0;
+   private int eventsMerged_ = 0;
+   private int eventsDispatched_ = 0;
+   private int dispatchSlices_ = 0;
+   private long totalDispatchMs_ = 0;
+   private long maxSliceMs_ = 0;
+
+   // time allotted to each dispatch slice before yielding to the browser
+   private static final int DISPATCH_BUDGET_MS = 25;
+
+   // upper bound on the size of coalesced console output
+   private static final int MAX_MERGED_TEXT = 65536;
 
 
 }
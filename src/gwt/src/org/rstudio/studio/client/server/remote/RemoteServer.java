@@ -17,6 +17,7 @@ package org.rstudio.studio.client.server.remote;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +36,7 @@ import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
 import org.rstudio.core.client.jsonrpc.RpcError;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.core.client.jsonrpc.RpcRequestBatcher;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
 import org.rstudio.core.client.jsonrpc.RpcResponse;
 import org.rstudio.core.client.jsonrpc.RpcResponseHandler;
@@ -147,12 +149,14 @@ import org.rstudio.studio.client.workbench.model.TerminalOptions;
 import org.rstudio.studio.client.workbench.model.TexCapabilities;
 import org.rstudio.studio.client.workbench.model.WorkbenchMetrics;
 import org.rstudio.studio.client.workbench.prefs.model.SpellingPrefsContext;
+import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.prefs.views.PythonInterpreter;
 import org.rstudio.studio.client.workbench.prefs.views.PythonInterpreters;
 import org.rstudio.studio.client.workbench.projects.RenvAction;
 import org.rstudio.studio.client.workbench.snippets.model.SnippetData;
 import org.rstudio.studio.client.workbench.views.buildtools.model.BookdownFormats;
 import org.rstudio.studio.client.workbench.views.connections.model.ConnectionId;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectPage;
 import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectSpecifier;
 import org.rstudio.studio.client.workbench.views.connections.model.ConnectionUninstallResult;
 import org.rstudio.studio.client.workbench.views.connections.model.ConnectionUpdateResult;
@@ -161,6 +165,7 @@ import org.rstudio.studio.client.workbench.views.connections.model.Field;
 import org.rstudio.studio.client.workbench.views.connections.model.NewConnectionContext;
 import org.rstudio.studio.client.workbench.views.connections.model.NewConnectionInfo;
 import org.rstudio.studio.client.workbench.views.console.model.ProcessBufferChunk;
+import org.rstudio.studio.client.workbench.views.console.model.ProcessBufferTail;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.PythonCompletionContext;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.SqlCompletionParseContext;
 import org.rstudio.studio.client.workbench.views.environment.dataimport.DataImportOptions;
@@ -225,9 +230,11 @@ public class RemoteServer implements Server
    public RemoteServer(Session session,
                        EventBus eventBus,
                        final SatelliteManager satelliteManager,
-                       Provider<ConsoleProcessFactory> pConsoleProcessFactory)
+                       Provider<ConsoleProcessFactory> pConsoleProcessFactory,
+                       Provider<UserPrefs> pUserPrefs)
    {
       pConsoleProcessFactory_ = pConsoleProcessFactory;
+      pUserPrefs_ = pUserPrefs;
       clientId_ = null;
       disconnected_ = false;
       listeningForEvents_ = false;
@@ -235,6 +242,19 @@ public class RemoteServer implements Server
       session_ = session;
       eventBus_ = eventBus;
       serverAuth_ = new RemoteServerAuth(this);
+      requestBatcher_ = new RpcRequestBatcher((calls, redactLog, refreshCreds) ->
+      {
+         return new RpcRequest(getApplicationURL(RPC_SCOPE) + "/" + MULTI_CALL,
+                               MULTI_CALL,
+                               calls,
+                               null,
+                               redactLog,
+                               null,
+                               null,
+                               clientId_,
+                               clientVersion_,
+                               refreshCreds);
+      });
 
       // define external event listener if we are the main window
       // (so we can forward to the satellites)
@@ -278,7 +298,17 @@ public class RemoteServer implements Server
       if (session_.getSessionInfo().getMode() == SessionInfo.SERVER_MODE)
          serverAuth_.schedulePeriodicCredentialsUpdate();
 
+      // batch rpc requests if requested
+      UserPrefs prefs = pUserPrefs_.get();
+      requestBatcher_.setEnabled(prefs.batchRpcRequests().getValue());
+      prefs.batchRpcRequests().addValueChangeHandler(event ->
+      {
+         requestBatcher_.setEnabled(event.getValue());
+      });
+
       // start event listener
+      serverEventListener_.setStreamingEnabled(
+            prefs.streamClientEvents().getValue());
       serverEventListener_.start();
 
       // register satellite callback
@@ -780,6 +810,17 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, PROCESS_GET_BUFFER_CHUNK, params, requestCallback);
    }
 
+   @Override
+   public void processGetBufferTail(String handle,
+                                    double since,
+                                    ServerRequestCallback<ProcessBufferTail> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(StringUtil.notNull(handle)));
+      params.set(1, new JSONNumber(since));
+      sendRequest(RPC_SCOPE, PROCESS_GET_BUFFER_TAIL, params, requestCallback);
+   }
+
    @Override
    public void processGetBuffer(String handle,
                                 boolean stripAnsiCodes,
@@ -2162,6 +2203,34 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, SAVE_DOCUMENT_DIFF, params, requestCallback);
    }
 
+   public void saveDocumentEdits(String id,
+                                 String path,
+                                 String fileType,
+                                 String encoding,
+                                 String foldSpec,
+                                 JsArray<ChunkDefinition> chunkDefs,
+                                 JavaScriptObject edits,
+                                 String contentsHash,
+                                 String hash,
+                                 boolean retryWrite,
+                                 ServerRequestCallback<String> requestCallback)
+   {
+      eventBus_.fireEvent(new ApplicationTutorialEvent(ApplicationTutorialEvent.FILE_SAVE));
+
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(id));
+      params.set(1, path == null ? JSONNull.getInstance() : new JSONString(path));
+      params.set(2, fileType == null ? JSONNull.getInstance() : new JSONString(fileType));
+      params.set(3, encoding == null ? JSONNull.getInstance() : new JSONString(encoding));
+      params.set(4, new JSONString(StringUtil.notNull(foldSpec)));
+      params.set(5, chunkDefs == null ? JSONNull.getInstance() : new JSONObject(chunkDefs));
+      params.set(6, new JSONArray(edits));
+      params.set(7, new JSONString(contentsHash));
+      params.set(8, new JSONString(hash));
+      params.set(9, JSONBoolean.getInstance(retryWrite));
+      sendRequest(RPC_SCOPE, SAVE_DOCUMENT_EDITS, params, requestCallback);
+   }
+
    public void checkForExternalEdit(
          String id,
          ServerRequestCallback<CheckForExternalEditResult> requestCallback)
@@ -3047,6 +3116,16 @@ public class RemoteServer implements Server
                          retryHandler);
    }
 
+   String getEventStreamURL()
+   {
+      return getApplicationURL(EVENTS_SCOPE) + "/" + EVENT_STREAM;
+   }
+
+   String getClientId()
+   {
+      return clientId_;
+   }
+
    void handleUnauthorizedError()
    {
       UnauthorizedEvent event = new UnauthorizedEvent();
@@ -3382,7 +3461,7 @@ public class RemoteServer implements Server
          return rpcRequest;
 
       // send the request
-      rpcRequest.send(new RpcRequestCallback() {
+      RpcRequestCallback rpcRequestCallback = new RpcRequestCallback() {
          public void onError(RpcRequest request, RpcError error)
          {
             // ignore errors if we are disconnected
@@ -3453,7 +3532,28 @@ public class RemoteServer implements Server
                   serverEventListener_.ensureEvents();
             }
          }
-      });
+      };
+
+      // requests proxied from satellites and methods which aren't known to be
+      // safe to batch are sent on their own, right away; those which have to
+      // reach the server while R is busy (e.g. interrupt) bypass the batcher
+      // altogether
+      if (UNBATCHED_METHODS.contains(method))
+      {
+         rpcRequest.send(rpcRequestCallback);
+      }
+      else if (sourceWindow == null &&
+               StringUtil.equals(scope, RPC_SCOPE) &&
+               BATCHABLE_METHODS.contains(method))
+      {
+         requestBatcher_.send(rpcRequest,
+                              rpcRequestCallback,
+                              IDEMPOTENT_METHODS.contains(method));
+      }
+      else
+      {
+         requestBatcher_.sendNow(rpcRequest, rpcRequestCallback);
+      }
 
       // return the request
       return rpcRequest;
@@ -3769,9 +3869,11 @@ public class RemoteServer implements Server
       if (params != null)
          request.put("params", params);
 
-      final RequestLogEntry requestLogEntry = RequestLog.log(
-         Integer.toString(Random.nextInt()),
-         redactLog ? "[REDACTED]": request.toString());
+      final RequestLogEntry requestLogEntry = redactLog
+         ? RequestLog.log(Integer.toString(Random.nextInt()), "[REDACTED]")
+         : RequestLog.log(Integer.toString(Random.nextInt()),
+                          method,
+                          request.toString());
 
       sendRequestViaMainWorkbench(
             scope,
@@ -5906,6 +6008,26 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, CONNECTION_LIST_OBJECTS, params, callback);
    }
 
+   @Override
+   public void connectionListObjectsPage(
+                              ConnectionId connectionId,
+                              ConnectionObjectSpecifier container,
+                              String filter,
+                              int offset,
+                              int limit,
+                              boolean refresh,
+                              ServerRequestCallback<ConnectionObjectPage> callback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONObject(connectionId));
+      params.set(1, new JSONArray(container.asJsArray()));
+      params.set(2, new JSONString(filter));
+      params.set(3, new JSONNumber(offset));
+      params.set(4, new JSONNumber(limit));
+      params.set(5, JSONBoolean.getInstance(refresh));
+      sendRequest(RPC_SCOPE, CONNECTION_LIST_OBJECTS_PAGE, params, callback);
+   }
+
    @Override
    public void connectionListFields(
                               ConnectionId connectionId,
@@ -6374,6 +6496,8 @@ public class RemoteServer implements Server
    private final RemoteServerEventListener serverEventListener_;
 
    private final Provider<ConsoleProcessFactory> pConsoleProcessFactory_;
+   private final Provider<UserPrefs> pUserPrefs_;
+   private final RpcRequestBatcher requestBatcher_;
 
    protected final Session session_;
    protected final EventBus eventBus_;
@@ -6398,6 +6522,8 @@ public class RemoteServer implements Server
    private static final String QUIT_SESSION = "quit_session";
    private static final String SUSPEND_FOR_RESTART = "suspend_for_restart";
    private static final String PING = "ping";
+   private static final String MULTI_CALL = "multi_call";
+   private static final String EVENT_STREAM = "stream";
    private static final String RSTUDIOAPI_RESPONSE = "rstudioapi_response";
 
    private static final String SET_WORKBENCH_METRICS = "set_workbench_metrics";
@@ -6442,6 +6568,7 @@ public class RemoteServer implements Server
    private static final String PROCESS_SET_TITLE = "process_set_title";
    private static final String PROCESS_ERASE_BUFFER = "process_erase_buffer";
    private static final String PROCESS_GET_BUFFER_CHUNK = "process_get_buffer_chunk";
+   private static final String PROCESS_GET_BUFFER_TAIL = "process_get_buffer_tail";
    private static final String PROCESS_GET_BUFFER = "process_get_buffer";
    private static final String PROCESS_USE_RPC = "process_use_rpc";
    private static final String PROCESS_TEST_EXISTS = "process_test_exists";
@@ -6532,6 +6659,7 @@ public class RemoteServer implements Server
    private static final String OPEN_DOCUMENT = "open_document";
    private static final String SAVE_DOCUMENT = "save_document";
    private static final String SAVE_DOCUMENT_DIFF = "save_document_diff";
+   private static final String SAVE_DOCUMENT_EDITS = "save_document_edits";
    private static final String CHECK_FOR_EXTERNAL_EDIT = "check_for_external_edit";
    private static final String IGNORE_EXTERNAL_EDIT = "ignore_external_edit";
    private static final String CLOSE_DOCUMENT = "close_document";
@@ -6817,6 +6945,7 @@ public class RemoteServer implements Server
    private static final String CONNECTION_DISCONNECT = "connection_disconnect";
    private static final String CONNECTION_EXECUTE_ACTION = "connection_execute_action";
    private static final String CONNECTION_LIST_OBJECTS = "connection_list_objects";
+   private static final String CONNECTION_LIST_OBJECTS_PAGE = "connection_list_objects_page";
    private static final String CONNECTION_LIST_FIELDS = "connection_list_fields";
    private static final String CONNECTION_PREVIEW_OBJECT = "connection_preview_object";
    private static final String CONNECTION_TEST = "connection_test";
@@ -6879,5 +7008,45 @@ public class RemoteServer implements Server
 
    private static final String XREF_INDEX_FOR_FILE = "xref_index_for_file";
    private static final String XREF_FOR_ID = "xref_for_id";
+
+   // methods which can be combined with others into a single multi_call
+   // request (must be synchronous on the server and insensitive to being
+   // delayed by the batching window)
+   private static final HashSet<String> BATCHABLE_METHODS = new HashSet<>();
+   static
+   {
+      BATCHABLE_METHODS.add(PING);
+      BATCHABLE_METHODS.add(SET_WORKBENCH_METRICS);
+      BATCHABLE_METHODS.add(PROCESS_NOTIFY_VISIBLE);
+      BATCHABLE_METHODS.add(SAVE_DOCUMENT_DIFF);
+      BATCHABLE_METHODS.add(CHECK_FOR_EXTERNAL_EDIT);
+      BATCHABLE_METHODS.add(SET_SOURCE_DOCUMENT_ON_SAVE);
+      BATCHABLE_METHODS.add(MODIFY_DOCUMENT_PROPERTIES);
+      BATCHABLE_METHODS.add(GET_CHUNK_OPTIONS);
+      BATCHABLE_METHODS.add(SET_DOC_ORDER);
+      BATCHABLE_METHODS.add(GET_ENVIRONMENT_STATE);
+   }
+
+   // methods which are sent without going through the batcher at all (they
+   // must not be held up behind a batch, which can't finish while R is busy)
+   private static final HashSet<String> UNBATCHED_METHODS = new HashSet<>();
+   static
+   {
+      UNBATCHED_METHODS.add(INTERRUPT);
+      UNBATCHED_METHODS.add(CONSOLE_INPUT);
+   }
+
+   // batchable methods for which identical calls in the same batch can be
+   // collapsed into a single call
+   private static final HashSet<String> IDEMPOTENT_METHODS = new HashSet<>();
+   static
+   {
+      IDEMPOTENT_METHODS.add(PING);
+      IDEMPOTENT_METHODS.add(SET_WORKBENCH_METRICS);
+      IDEMPOTENT_METHODS.add(PROCESS_NOTIFY_VISIBLE);
+      IDEMPOTENT_METHODS.add(CHECK_FOR_EXTERNAL_EDIT);
+      IDEMPOTENT_METHODS.add(GET_CHUNK_OPTIONS);
+      IDEMPOTENT_METHODS.add(GET_ENVIRONMENT_STATE);
+   }
   
 }
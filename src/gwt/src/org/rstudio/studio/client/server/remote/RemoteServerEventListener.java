@@ -61,6 +61,35 @@ class RemoteServerEventListener
       isListening_ = false;
       sessionWasQuit_ = false;
 
+      eventStream_ = new RemoteServerEventStream(
+            new RemoteServerEventStream.Handler()
+      {
+         @Override
+         public void onEventReceived(ClientEvent event)
+         {
+            if (!isListening_)
+               return;
+
+            try
+            {
+               dispatchEvent(event);
+               lastEventId_ = event.getId();
+            }
+            catch(Throwable e)
+            {
+               GWT.log("ERROR: Processing client events", e);
+            }
+         }
+
+         @Override
+         public void onStreamFailed()
+         {
+            // fall back to polling (resumes from the last event we saw)
+            if (isListening_)
+               listen();
+         }
+      });
+
       listenTimer_ = new Timer() {
          @Override
          public void run()
@@ -130,12 +159,28 @@ class RemoteServerEventListener
       // eliminate this scenario then
       lastEventId_ = -1;
       
-      // start listening
-      listen();
+      // start listening (prefer the event stream if we have one)
+      if (useEventStream())
+         eventStream_.open(server_.getEventStreamURL(),
+                           server_.getClientId(),
+                           lastEventId_);
+      else
+         listen();
+   }
+
+   public void setStreamingEnabled(boolean enabled)
+   {
+      streamingEnabled_ = enabled;
+   }
+
+   private boolean useEventStream()
+   {
+      return streamingEnabled_ && eventStream_.isSupported();
    }
      
    public void stop()
    {
+      eventStream_.close();
       listenTimer_.cancel();
       isListening_ = false;
       listenCount_ = 0;
@@ -192,6 +237,13 @@ class RemoteServerEventListener
          start();
      } 
      
+     // events are pushed to us over the stream so there's nothing to
+     // wait for; just make sure it's still connected
+     else if (eventStream_.isOpen())
+     {
+        return;
+     }
+
      // if we are listening then use the Watchdog to still make sure we 
      // receive the events even if it requires restarting
      else
@@ -469,6 +521,8 @@ class RemoteServerEventListener
    private final int kWatchdogIntervalMs = 1000;
    private final int kSecondListenBounceMs = 250;
    private Timer listenTimer_;
+   private final RemoteServerEventStream eventStream_;
+   private boolean streamingEnabled_ = false;
        
    private boolean isListening_;
    private int lastEventId_;
@@ -0,0 +1,186 @@
+/*
+ * RemoteServerEventStream.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.http.client.URL;
+
+import elemental2.dom.EventSource;
+
+// Receives client events over a single persistent server-sent events
+// connection (as an alternative to polling get_events). Each message
+// carries one JSON encoded ClientEvent; the event id doubles as the stream
+// sequence number, so reconnects resume from the last event we processed.
+//
+// The stream reports failure to its handler (rather than retrying on its
+// own) so that the event listener can fall back to long polling, which
+// resumes from the same event id.
+class RemoteServerEventStream
+{
+   interface Handler
+   {
+      void onEventReceived(ClientEvent event);
+      void onStreamFailed();
+   }
+
+   // a connection to the server's event stream: an EventSource in practice,
+   // a stub in tests
+   interface Connection
+   {
+      boolean isClosed();
+      void close();
+   }
+
+   RemoteServerEventStream(Handler handler)
+   {
+      handler_ = handler;
+   }
+
+   // false once the server has shown it doesn't provide an event stream
+   public boolean isSupported()
+   {
+      return supported_;
+   }
+
+   public boolean isOpen()
+   {
+      return connection_ != null && !connection_.isClosed();
+   }
+
+   public void open(String url, String clientId, int lastEventId)
+   {
+      close();
+
+      lastEventId_ = lastEventId;
+      connected_ = false;
+      connection_ = connect(url +
+                            "?clientId=" + URL.encodeQueryString(clientId) +
+                            "&lastEventId=" + lastEventId);
+   }
+
+   public void close()
+   {
+      if (connection_ != null)
+      {
+         connection_.close();
+         connection_ = null;
+      }
+   }
+
+   Connection connect(String url)
+   {
+      final EventSource source = new EventSource(url);
+      final Connection connection = new Connection()
+      {
+         @Override
+         public boolean isClosed()
+         {
+            return source.readyState == EventSource.CLOSED;
+         }
+
+         @Override
+         public void close()
+         {
+            source.close();
+         }
+      };
+
+      source.onopen = (event) ->
+      {
+         onOpen(connection);
+      };
+
+      source.onmessage = (message) ->
+      {
+         onMessage(connection, message.data);
+      };
+
+      source.onerror = (event) ->
+      {
+         onError(connection);
+      };
+
+      return connection;
+   }
+
+   void onOpen(Connection connection)
+   {
+      if (connection == connection_)
+         connected_ = true;
+   }
+
+   void onMessage(Connection connection, String data)
+   {
+      if (connection != connection_)
+         return;
+
+      ClientEvent event;
+      try
+      {
+         event = JsonUtils.<ClientEvent>safeEval(data);
+      }
+      catch(Exception e)
+      {
+         GWT.log("ERROR: Parsing streamed client event", e);
+         fail();
+         return;
+      }
+
+      // ignore events we've already seen (can happen on reconnect) and
+      // give up on the stream if it skipped ahead; polling from our last
+      // known id will fill in the gap
+      int id = event.getId();
+      if (id <= lastEventId_)
+         return;
+      if (lastEventId_ >= 0 && id != lastEventId_ + 1)
+      {
+         fail();
+         return;
+      }
+
+      lastEventId_ = id;
+      failureCount_ = 0;
+      handler_.onEventReceived(event);
+   }
+
+   void onError(Connection connection)
+   {
+      if (connection != connection_)
+         return;
+
+      // a stream that never connected means the server doesn't have one;
+      // repeated drops mean something between us and the server doesn't
+      // tolerate long-lived responses. either way, stop trying.
+      if (!connected_ || ++failureCount_ >= MAX_FAILURES)
+         supported_ = false;
+      fail();
+   }
+
+   private void fail()
+   {
+      close();
+      handler_.onStreamFailed();
+   }
+
+   private final Handler handler_;
+   private Connection connection_;
+   private int lastEventId_ = -1;
+   private boolean connected_ = false;
+   private boolean supported_ = true;
+   private int failureCount_ = 0;
+
+   static final int MAX_FAILURES = 3;
+}
@@ -23,6 +23,7 @@ import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
 import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.PerformanceCounters;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.js.JsUtil;
 
@@ -143,6 +144,23 @@ public abstract class Prefs
       }
       
       public T getValue()
+      {
+         // Resolving a value means checking every layer, so remember the
+         // result until this value changes or the layers are replaced.
+         if (cacheValid_ && cacheGeneration_ == generation_)
+         {
+            cacheHits_++;
+            return cachedValue_;
+         }
+
+         cacheMisses_++;
+         cachedValue_ = resolveValue();
+         cacheGeneration_ = generation_;
+         cacheValid_ = true;
+         return cachedValue_;
+      }
+
+      private T resolveValue()
       {
          // Work backwards through all layers, starting with the most specific
          // and working towards the most general.
@@ -156,6 +174,14 @@ public abstract class Prefs
          return defaultValue_;
       }
 
+      private void invalidate()
+      {
+         if (cacheValid_)
+            cacheInvalidations_++;
+         cacheValid_ = false;
+         cachedValue_ = null;
+      }
+
       public T getGlobalValue()
       {
          // Skip the project layer if it exists by starting at the user layer.
@@ -194,6 +220,9 @@ public abstract class Prefs
                wasUnset = true;
             }
          }
+
+         if (wasUnset)
+            invalidate();
          
          if (fireEvents && wasUnset)
             ValueChangeEvent.fire(this, getValue());
@@ -227,6 +256,7 @@ public abstract class Prefs
          if (projValues.hasKey(name_))
          {
             projValues.unset(name_);
+            invalidate();
             if (fireEvents)
                ValueChangeEvent.fire(this, getValue());
          }
@@ -255,6 +285,7 @@ public abstract class Prefs
             return;
 
          doSetValue(root, name_, value);
+         invalidate();
          if (fireEvents)
             ValueChangeEvent.fire(this, getValue());
          
@@ -274,6 +305,10 @@ public abstract class Prefs
       private final String description_;
       private final T defaultValue_;
       private final HandlerManager handlerManager_ = new HandlerManager(this);
+
+      private T cachedValue_;
+      private boolean cacheValid_ = false;
+      private int cacheGeneration_ = 0;
    }
 
    public class BooleanValue extends JsonValue<Boolean>
@@ -413,6 +448,31 @@ public abstract class Prefs
    public Prefs(JsArray<PrefLayer> layers)
    {
       layers_ = layers;
+
+      if (!countersRegistered_)
+      {
+         countersRegistered_ = true;
+         PerformanceCounters.register(new PerformanceCounters.Source()
+         {
+            @Override
+            public String getName()
+            {
+               return "Preferences";
+            }
+
+            @Override
+            public void dump(StringBuilder output)
+            {
+               double reads = cacheHits_ + cacheMisses_;
+               PerformanceCounters.append(output, "Cache hits", cacheHits_);
+               PerformanceCounters.append(output, "Cache misses", cacheMisses_);
+               PerformanceCounters.append(output, "Cache hit rate %",
+                     reads == 0 ? 0 : 100 * cacheHits_ / reads);
+               PerformanceCounters.append(output, "Cache invalidations",
+                     cacheInvalidations_);
+            }
+         });
+      }
    }
    
    public JsObject getUserLayer()
@@ -522,9 +582,18 @@ public abstract class Prefs
    protected void updatePrefs(JsArray<PrefLayer> layers)
    {
       layers_ = layers;
+
+      // drop every cached value
+      generation_++;
    }
    
    private JsArray<PrefLayer> layers_;
+   private int generation_ = 0;
    private final HashMap<String, PrefValue<?>> values_ =
          new HashMap<String, PrefValue<?>>();
+
+   private static boolean countersRegistered_ = false;
+   private static double cacheHits_ = 0;
+   private static double cacheMisses_ = 0;
+   private static double cacheInvalidations_ = 0;
 }
@@ -3051,6 +3051,42 @@ public class UserPrefsAccessor extends Prefs
          15);
    }
 
+   /**
+    * Whether to combine RPC requests made in quick succession into a single request to the server.
+    */
+   public PrefValue<Boolean> batchRpcRequests()
+   {
+      return bool(
+         "batch_rpc_requests",
+         "Batch RPC requests", 
+         "Whether to combine RPC requests made in quick succession into a single request to the server.", 
+         false);
+   }
+
+   /**
+    * Whether to receive events from the R session over a persistent streaming connection rather than by polling.
+    */
+   public PrefValue<Boolean> streamClientEvents()
+   {
+      return bool(
+         "stream_client_events",
+         "Stream client events", 
+         "Whether to receive events from the R session over a persistent streaming connection rather than by polling.", 
+         false);
+   }
+
+   /**
+    * The maximum number of lines of output to keep for each background job while its output isn't being displayed.
+    */
+   public PrefValue<Integer> jobOutputMaxLines()
+   {
+      return integer(
+         "job_output_max_lines",
+         "Maximum buffered job output lines", 
+         "The maximum number of lines of output to keep for each background job while its output isn't being displayed.", 
+         5000);
+   }
+
    public void syncPrefs(String layer, JsObject source)
    {
       if (source.hasKey("run_rprofile_on_resume"))
@@ -3481,6 +3517,12 @@ public class UserPrefsAccessor extends Prefs
          pythonPath().setValue(layer, source.getString("python_path"));
       if (source.hasKey("save_retry_timeout"))
          saveRetryTimeout().setValue(layer, source.getInteger("save_retry_timeout"));
+      if (source.hasKey("batch_rpc_requests"))
+         batchRpcRequests().setValue(layer, source.getBool("batch_rpc_requests"));
+      if (source.hasKey("stream_client_events"))
+         streamClientEvents().setValue(layer, source.getBool("stream_client_events"));
+      if (source.hasKey("job_output_max_lines"))
+         jobOutputMaxLines().setValue(layer, source.getInteger("job_output_max_lines"));
    }
    public List<PrefValue<?>> allPrefs()
    {
@@ -3699,6 +3741,9 @@ public class UserPrefsAccessor extends Prefs
       prefs.add(pythonVersion());
       prefs.add(pythonPath());
       prefs.add(saveRetryTimeout());
+      prefs.add(batchRpcRequests());
+      prefs.add(streamClientEvents());
+      prefs.add(jobOutputMaxLines());
       return prefs;
    }
    
@@ -0,0 +1,190 @@
+/*
+ * ConnectionSchemaCache.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.connections.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches what has been listed within the nodes of connections' object trees
+ * (e.g. the tables in a schema, or the fields of a table), so that collapsing
+ * and re-expanding a node, or returning to a filter, doesn't list it again.
+ *
+ * Entries expire a fixed time after they were listed. The cache also holds
+ * at most a fixed number of items across all its entries; when it holds more,
+ * the least recently used entries are evicted.
+ */
+public class ConnectionSchemaCache<T>
+{
+   public static class Entry<T>
+   {
+      Entry(List<T> items, int total, long listedAt)
+      {
+         items_ = items;
+         total_ = total;
+         listedAt_ = listedAt;
+      }
+
+      /**
+       * @return The items listed so far
+       */
+      public List<T> getItems()
+      {
+         return items_;
+      }
+
+      /**
+       * @return The number of items in the listing, some of which may not
+       *   have been listed yet
+       */
+      public int getTotal()
+      {
+         return total_;
+      }
+
+      public boolean isComplete()
+      {
+         return items_.size() >= total_;
+      }
+
+      private final List<T> items_;
+      private final int total_;
+      private final long listedAt_;
+   }
+
+   /**
+    * Creates a new cache.
+    *
+    * @param maxItems The maximum number of items to hold
+    * @param ttlMs How long (in milliseconds) an entry remains fresh
+    */
+   public ConnectionSchemaCache(int maxItems, int ttlMs)
+   {
+      maxItems_ = maxItems;
+      ttlMs_ = ttlMs;
+   }
+
+   /**
+    * @return The fresh entry with the given key, or null if there isn't one
+    */
+   public Entry<T> get(String key)
+   {
+      Entry<T> entry = entries_.get(key);
+      if (entry == null)
+         return null;
+
+      if (isExpired(entry))
+      {
+         remove(key);
+         return null;
+      }
+
+      return entry;
+   }
+
+   /**
+    * @return Whether there is an entry with the given key which is no longer
+    *   fresh (in which case whatever it was listed from is likely stale too)
+    */
+   public boolean hasExpired(String key)
+   {
+      Entry<T> entry = entries_.get(key);
+      return entry != null && isExpired(entry);
+   }
+
+   /**
+    * Records the items listed for a key, replacing any entry it had.
+    *
+    * @param key The key
+    * @param items The items listed so far
+    * @param total The number of items in the listing
+    */
+   public void put(String key, List<T> items, int total)
+   {
+      remove(key);
+
+      Entry<T> entry = new Entry<T>(new ArrayList<T>(items), total,
+            System.currentTimeMillis());
+      entries_.put(key, entry);
+      size_ += items.size();
+      trimExcess();
+   }
+
+   /**
+    * Removes the entries whose keys start with the given prefix (e.g. all of
+    * those for a connection which has changed).
+    */
+   public void invalidate(String prefix)
+   {
+      // (iterate over entries, since looking an entry up reorders the map)
+      for (Iterator<Map.Entry<String, Entry<T>>> it = entries_.entrySet().iterator();
+           it.hasNext(); )
+      {
+         Map.Entry<String, Entry<T>> entry = it.next();
+         if (entry.getKey().startsWith(prefix))
+         {
+            size_ -= entry.getValue().items_.size();
+            it.remove();
+         }
+      }
+   }
+
+   public void clear()
+   {
+      entries_.clear();
+      size_ = 0;
+   }
+
+   /**
+    * @return The number of items held, across all entries
+    */
+   public int size()
+   {
+      return size_;
+   }
+
+   private boolean isExpired(Entry<T> entry)
+   {
+      return System.currentTimeMillis() - entry.listedAt_ >= ttlMs_;
+   }
+
+   private void remove(String key)
+   {
+      Entry<T> entry = entries_.remove(key);
+      if (entry != null)
+         size_ -= entry.items_.size();
+   }
+
+   private void trimExcess()
+   {
+      // always keep the newest entry, even if it's too large by itself
+      Iterator<Entry<T>> it = entries_.values().iterator();
+      while (size_ > maxItems_ && entries_.size() > 1)
+      {
+         size_ -= it.next().items_.size();
+         it.remove();
+      }
+   }
+
+   // in access order, so that the eldest entry is the least recently used
+   private final LinkedHashMap<String, Entry<T>> entries_ =
+         new LinkedHashMap<String, Entry<T>>(16, 0.75f, true);
+   private final int maxItems_;
+   private final int ttlMs_;
+   private int size_ = 0;
+}
@@ -37,6 +37,14 @@ public interface ConnectionsServerOperations extends CryptoServerOperations
                               ConnectionObjectSpecifier object,
                               ServerRequestCallback<JsArray<DatabaseObject>> callback);
    
+   void connectionListObjectsPage(ConnectionId connectionId,
+                                  ConnectionObjectSpecifier object,
+                                  String filter,
+                                  int offset,
+                                  int limit,
+                                  boolean refresh,
+                                  ServerRequestCallback<ConnectionObjectPage> callback);
+   
    void connectionListFields(ConnectionId connectionId,
                              ConnectionObjectSpecifier object,
                              ServerRequestCallback<JsArray<Field>> callback);
@@ -131,12 +131,14 @@ public class ConnectionExplorer extends Composite implements RequiresResize
    
    public void updateObjectBrowser()
    {
-      updateObjectBrowser("");
+      objectBrowser_.update(connection_, false);
    }
    
    public void updateObjectBrowser(String hint)
    {   
-      objectBrowser_.update(connection_, hint);
+      // the connection has changed (or the user asked for a refresh), so
+      // don't reuse objects listed earlier
+      objectBrowser_.update(connection_, true);
    }
    
    public void setFilterText(String text)
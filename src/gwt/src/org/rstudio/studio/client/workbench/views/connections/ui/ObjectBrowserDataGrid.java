@@ -0,0 +1,341 @@
+/*
+ * ObjectBrowserDataGrid.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.workbench.views.connections.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rstudio.core.client.SafeHtmlUtil;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.dom.DomUtils;
+import org.rstudio.core.client.theme.RStudioDataGridResources;
+import org.rstudio.core.client.theme.RStudioDataGridStyle;
+import org.rstudio.core.client.theme.res.ThemeStyles;
+import org.rstudio.core.client.widget.VirtualizedDataGrid;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectType;
+import org.rstudio.studio.client.workbench.views.connections.model.DatabaseObject;
+import org.rstudio.studio.client.workbench.views.connections.model.Field;
+import org.rstudio.studio.client.workbench.views.connections.ui.ObjectBrowserModel.Node;
+
+import com.google.gwt.cell.client.AbstractCell;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.BrowserEvents;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.KeyCodes;
+import com.google.gwt.resources.client.ImageResource;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.cellview.client.IdentityColumn;
+import com.google.gwt.user.client.Event;
+import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.view.client.CellPreviewEvent;
+import com.google.gwt.view.client.ListDataProvider;
+import com.google.gwt.view.client.NoSelectionModel;
+
+/**
+ * Shows the rows of an object browser's tree, drawing only those in view.
+ */
+public class ObjectBrowserDataGrid extends VirtualizedDataGrid<Node>
+                                   implements ClickHandler,
+                                              CellPreviewEvent.Handler<Node>
+{
+   public ObjectBrowserDataGrid(ObjectBrowserModel model)
+   {
+      super(RES);
+      model_ = model;
+
+      setSize("100%", "100%");
+
+      addColumn(new IdentityColumn<Node>(new NameCell()));
+
+      dataProvider_ = new ListDataProvider<Node>();
+      dataProvider_.setList(new ArrayList<Node>());
+      dataProvider_.addDataDisplay(this);
+
+      Label emptyLabel = new Label("(No tables)");
+      emptyLabel.addStyleName(RES.dataGridStyle().emptyMessage());
+      setEmptyTableWidget(emptyLabel);
+
+      setSelectionModel(new NoSelectionModel<Node>());
+      addCellPreviewHandler(this);
+      addDomHandler(this, ClickEvent.getType());
+   }
+
+   public void setRows(List<Node> rows)
+   {
+      dataProvider_.setList(rows);
+   }
+
+   @Override
+   public int getRowHeight()
+   {
+      return 20;
+   }
+
+   @Override
+   public int getTotalNumberOfRows()
+   {
+      if (dataProvider_ == null)
+         return 0;
+      return dataProvider_.getList().size();
+   }
+
+   @Override
+   public void onClick(ClickEvent event)
+   {
+      Element targetEl = event.getNativeEvent().getEventTarget().cast();
+      if (targetEl == null)
+         return;
+
+      Element dataEl = DomUtils.findParentElement(targetEl, true,
+            el -> el.hasAttribute("data-action"));
+      Element rowEl = DomUtils.findParentElement(targetEl,
+            el -> el.hasAttribute("__gwt_row"));
+      if (dataEl == null || rowEl == null)
+         return;
+
+      int row = StringUtil.parseInt(rowEl.getAttribute("__gwt_row"), -1);
+      if (row < 0 || row >= getTotalNumberOfRows())
+         return;
+
+      performAction(dataEl.getAttribute("data-action"),
+            dataProvider_.getList().get(row));
+   }
+
+   @Override
+   public void onCellPreview(CellPreviewEvent<Node> preview)
+   {
+      if (!StringUtil.equals(preview.getNativeEvent().getType(), BrowserEvents.KEYDOWN))
+         return;
+
+      Node node = preview.getValue();
+      if (node == null)
+         return;
+
+      switch (preview.getNativeEvent().getKeyCode())
+      {
+      case KeyCodes.KEY_RIGHT:
+         model_.setExpanded(node, true);
+         break;
+
+      case KeyCodes.KEY_LEFT:
+         if (node.isExpanded())
+         {
+            model_.setExpanded(node, false);
+         }
+         else
+         {
+            // move to the parent row
+            int parentRow = dataProvider_.getList().indexOf(node.getParent());
+            if (parentRow >= 0)
+               setKeyboardSelectedRow(parentRow);
+         }
+         break;
+
+      case KeyCodes.KEY_ENTER:
+         if (node.isMore())
+            model_.loadMore(node);
+         else
+            model_.setExpanded(node, !node.isExpanded());
+         break;
+
+      default:
+         return;
+      }
+
+      preview.setCanceled(true);
+      Event.getCurrentEvent().preventDefault();
+   }
+
+   private void performAction(String action, Node node)
+   {
+      if (StringUtil.equals(action, ACTION_OPEN))
+         model_.setExpanded(node, true);
+      else if (StringUtil.equals(action, ACTION_CLOSE))
+         model_.setExpanded(node, false);
+      else if (StringUtil.equals(action, ACTION_MORE))
+         model_.loadMore(node);
+      else if (StringUtil.equals(action, ACTION_VIEW))
+         model_.viewDataset(node);
+   }
+
+   private class NameCell extends AbstractCell<Node>
+   {
+      @Override
+      public void render(Context context, Node node, SafeHtmlBuilder builder)
+      {
+         if (node == null)
+            return;
+
+         builder.append(TABLE_OPEN_TAG);
+         builder.appendHtmlConstant("<tr>");
+
+         int indentPx = node.getDepth() * 14;
+         if (indentPx > 0)
+            builder.appendHtmlConstant("<td style='width: " + indentPx + "px'></td>");
+
+         addExpandIcon(builder, node);
+
+         builder.appendHtmlConstant("<td>");
+         if (node.isMore())
+            addMore(builder, node);
+         else if (node.isField())
+            addField(builder, node.getField());
+         else
+            addName(builder, node.getObject());
+         builder.appendHtmlConstant("</td>");
+
+         if (!node.isMore() && !node.isField())
+            addTypeIcon(builder, node);
+
+         builder.appendHtmlConstant("</tr>");
+         builder.appendHtmlConstant("</table>");
+      }
+
+      private void addExpandIcon(SafeHtmlBuilder builder, Node node)
+      {
+         builder.appendHtmlConstant("<td style='width: 20px;'>");
+         if (node.isExpanded() && node.isLoading())
+         {
+            builder.append(SafeHtmlUtil.createOpenTag("div",
+                  "class", RES.dataGridStyle().spriteLoadingIcon()));
+            builder.appendHtmlConstant("</div>");
+         }
+         else if (model_.isExpandable(node))
+         {
+            boolean expanded = node.isExpanded();
+            builder.append(SafeHtmlUtil.createOpenTag("div",
+                  "class", expanded ?
+                        RES.dataGridStyle().spriteCollapseIcon() :
+                        RES.dataGridStyle().spriteExpandIcon(),
+                  "data-action", expanded ? ACTION_CLOSE : ACTION_OPEN));
+            builder.appendHtmlConstant("</div>");
+         }
+         builder.appendHtmlConstant("</td>");
+      }
+
+      private void addName(SafeHtmlBuilder builder, DatabaseObject object)
+      {
+         SafeHtmlUtil.highlightSearchMatch(builder, object.getName(),
+               model_.getFilterText(), ThemeStyles.INSTANCE.filterMatch());
+      }
+
+      private void addField(SafeHtmlBuilder builder, Field field)
+      {
+         SafeHtmlUtil.appendSpan(builder,
+               RES.dataGridStyle().fieldName(),
+               field.getName() + " :");
+         SafeHtmlUtil.appendSpan(builder,
+               RES.dataGridStyle().fieldType(),
+               field.getType());
+      }
+
+      private void addMore(SafeHtmlBuilder builder, Node node)
+      {
+         Node parent = node.getParent();
+         if (parent.isLoading())
+         {
+            SafeHtmlUtil.appendSpan(builder, RES.dataGridStyle().more(),
+                  "Loading...");
+            return;
+         }
+
+         builder.append(SafeHtmlUtil.createOpenTag("span",
+               "class", RES.dataGridStyle().more(),
+               "data-action", ACTION_MORE));
+         builder.appendEscaped("Show more (" +
+               StringUtil.formatGeneralNumber(parent.getLoaded()) + " of " +
+               StringUtil.formatGeneralNumber(parent.getTotal()) + ")");
+         builder.appendHtmlConstant("</span>");
+      }
+
+      private void addTypeIcon(SafeHtmlBuilder builder, Node node)
+      {
+         ConnectionObjectType type = model_.getConnection().getObjectType(
+               node.getObject().getType());
+         if (type == null || StringUtil.isNullOrEmpty(type.getIconData()))
+            return;
+
+         builder.appendHtmlConstant("<td style='width: 32px;'>");
+         if (type.isDataType())
+         {
+            builder.append(SafeHtmlUtil.createOpenTag("img",
+                  "src", type.getIconData(),
+                  "class", RES.dataGridStyle().tableViewDataset(),
+                  "title", "View table (up to 1,000 records)",
+                  "data-action", ACTION_VIEW));
+         }
+         else
+         {
+            builder.append(SafeHtmlUtil.createOpenTag("img",
+                  "src", type.getIconData(),
+                  "class", RES.dataGridStyle().containerIcon()));
+         }
+         builder.appendHtmlConstant("</td>");
+      }
+   }
+
+   private final ObjectBrowserModel model_;
+   private final ListDataProvider<Node> dataProvider_;
+
+   private static final String ACTION_OPEN  = "open";
+   private static final String ACTION_CLOSE = "close";
+   private static final String ACTION_MORE  = "more";
+   private static final String ACTION_VIEW  = "view";
+
+   // Resources, etc ----
+   public interface Resources extends RStudioDataGridResources
+   {
+      @Source({RStudioDataGridStyle.RSTUDIO_DEFAULT_CSS, "ObjectBrowserDataGrid.css"})
+      Styles dataGridStyle();
+
+      @Source("ExpandIcon_2x.png")
+      ImageResource expandIcon2x();
+
+      @Source("CollapseIcon_2x.png")
+      ImageResource collapseIcon2x();
+
+      @Source("ExpandingIcon_2x.png")
+      ImageResource expandingIcon2x();
+   }
+
+   public interface Styles extends RStudioDataGridStyle
+   {
+      String spriteExpandIcon();
+      String spriteCollapseIcon();
+      String spriteLoadingIcon();
+
+      String cellInnerTable();
+      String emptyMessage();
+      String fieldName();
+      String fieldType();
+      String more();
+      String tableViewDataset();
+      String containerIcon();
+   }
+
+   private static final Resources RES = GWT.create(Resources.class);
+
+   private static final SafeHtml TABLE_OPEN_TAG = SafeHtmlUtil.createOpenTag(
+         "table",
+         "class", RES.dataGridStyle().cellInnerTable());
+
+   static {
+      RES.dataGridStyle().ensureInjected();
+   }
+}
@@ -17,49 +17,136 @@ package org.rstudio.studio.client.workbench.views.connections.ui;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Set;
+import java.util.List;
 
-import org.rstudio.core.client.CommandWithArg;
-import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.JsArrayUtil;
-import org.rstudio.core.client.SafeHtmlUtil;
 import org.rstudio.core.client.StringUtil;
-import org.rstudio.core.client.js.JsObject;
-import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.workbench.views.connections.events.ViewConnectionDatasetEvent;
 import org.rstudio.studio.client.workbench.views.connections.model.Connection;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectPage;
 import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectSpecifier;
-import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectType;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionSchemaCache;
 import org.rstudio.studio.client.workbench.views.connections.model.ConnectionsServerOperations;
 import org.rstudio.studio.client.workbench.views.connections.model.DatabaseObject;
 import org.rstudio.studio.client.workbench.views.connections.model.Field;
 
-import com.google.gwt.cell.client.AbstractCell;
-import com.google.gwt.cell.client.Cell;
-import com.google.gwt.cell.client.ValueUpdater;
-import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
-import com.google.gwt.dom.client.Element;
-import com.google.gwt.dom.client.NativeEvent;
-import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.user.client.Command;
-import com.google.gwt.view.client.AsyncDataProvider;
-import com.google.gwt.view.client.HasData;
-import com.google.gwt.view.client.NoSelectionModel;
-import com.google.gwt.view.client.TreeViewModel;
 import com.google.inject.Inject;
 
-public class ObjectBrowserModel implements TreeViewModel
+/**
+ * The tree of objects within a connection, as shown by the object browser.
+ *
+ * Objects are listed a page at a time (and, when filtering, filtered by name
+ * on the server), and what's been listed is kept in a cache shared by all
+ * connections, so that browsing back and forth doesn't list objects again.
+ * The tree is flattened into the rows that are shown, so that only the rows
+ * in view need be drawn.
+ */
+public class ObjectBrowserModel
 {
+   public static class Node
+   {
+      private Node(Node parent, DatabaseObject object, Field field)
+      {
+         parent_ = parent;
+         object_ = object;
+         field_ = field;
+         depth_ = parent == null ? -1 : parent.depth_ + 1;
+      }
+
+      /**
+       * @return The object this node represents, or null if it's a field (or
+       *   the row that lists more of its parent's objects)
+       */
+      public DatabaseObject getObject()
+      {
+         return object_;
+      }
+
+      public Field getField()
+      {
+         return field_;
+      }
+
+      public Node getParent()
+      {
+         return parent_;
+      }
+
+      public int getDepth()
+      {
+         return depth_;
+      }
+
+      public boolean isField()
+      {
+         return field_ != null;
+      }
+
+      /**
+       * @return Whether this is the row that lists more of its parent's objects
+       */
+      public boolean isMore()
+      {
+         return object_ == null && field_ == null;
+      }
+
+      public boolean isExpanded()
+      {
+         return expanded_;
+      }
+
+      public boolean isLoading()
+      {
+         return request_ != 0;
+      }
+
+      /**
+       * @return The number of children listed so far
+       */
+      public int getLoaded()
+      {
+         return children_ == null ? 0 : children_.size();
+      }
+
+      /**
+       * @return The number of children, some of which may not be listed yet
+       */
+      public int getTotal()
+      {
+         return total_;
+      }
+
+      private final Node parent_;
+      private final DatabaseObject object_;
+      private final Field field_;
+      private final int depth_;
+
+      private boolean expanded_ = false;
+      private ArrayList<Node> children_ = null;
+      private List<DatabaseObject> objects_ = null;
+      private int total_ = 0;
+      private String filter_ = "";
+      private int request_ = 0;
+      private Node more_ = null;
+   }
+
    public ObjectBrowserModel()
    {
       RStudioGinjector.INSTANCE.injectMembers(this);
    }
-   
+
+   // for tests, which supply their own server
+   ObjectBrowserModel(ConnectionsServerOperations server, EventBus eventBus)
+   {
+      initialize(server, eventBus);
+   }
+
    @Inject
    public void initialize(ConnectionsServerOperations server,
                           EventBus eventBus)
@@ -67,496 +154,409 @@ public class ObjectBrowserModel implements TreeViewModel
       server_ = server;
       eventBus_ = eventBus;
    }
-  
-   
-   public void update(Connection connection,
-                      Set<DatabaseObject> expandedNodes,
-                      Command onTableUpdateCompleted,
-                      Command onNodeExpansionCompleted)
+
+   /**
+    * Sets a command to run when the rows shown change.
+    */
+   public void setOnChanged(Command onChanged)
+   {
+      onChanged_ = onChanged;
+   }
+
+   /**
+    * Lists the objects in a connection. If the connection is the one already
+    * shown, the nodes that were expanded are listed again (and stay expanded).
+    *
+    * @param connection The connection
+    * @param refresh Whether to list objects from the connection afresh, rather
+    *   than from the cache (e.g. because the connection has changed)
+    * @param onLoaded Command to run once the top level objects are listed
+    */
+   public void update(Connection connection, boolean refresh, Command onLoaded)
    {
+      if (refresh)
+      {
+         String prefix = connectionKey(connection);
+         OBJECTS.invalidate(prefix);
+         FIELDS.invalidate(prefix);
+      }
+
+      if (connection_ == null || !connection_.getId().equalTo(connection.getId()))
+         root_ = new Node(null, null, null);
       connection_ = connection;
-      expandedNodeRefreshQueue_ = expandedNodes;
-      onTableUpdateCompleted_ = onTableUpdateCompleted;
-      onNodeExpansionCompleted_ = onNodeExpansionCompleted;
-      objectProvider_ = new ObjectProvider();
-      refresh();
+
+      root_.expanded_ = true;
+      reload(root_, refresh, onLoaded);
    }
-   
+
    public void clear()
    {
       connection_ = null;
-      if (objectProvider_ != null)
-         objectProvider_.clear();
+      root_ = new Node(null, null, null);
+      fireChanged();
    }
-   
-   public void setFilterText(String filterText)
+
+   /**
+    * Filters data objects by name, listing the objects in expanded nodes
+    * again.
+    */
+   public void setFilterText(String filter)
    {
-      filter_ = filterText;
-      objectProvider_.applyFilter(filterText);
-    }
-   
-   @Override
-   public <T> NodeInfo<?> getNodeInfo(T value)
+      String lowerFilter = StringUtil.notNull(filter).toLowerCase();
+      if (StringUtil.equals(filter_, lowerFilter))
+         return;
+
+      filter_ = lowerFilter;
+      if (connection_ != null)
+         reload(root_, false, null);
+      fireChanged();
+   }
+
+   public String getFilterText()
    {
-      // no connection info yet
-      if (connection_ == null)
-         return null;
-
-      // return the list of objects for the root node
-      ConnectionObjectType rootType = null;
-      boolean rootData = true;
-      if (connection_.getObjectTypes() != null)
-         rootType = connection_.getObjectTypes().get(0);
-      if (rootType != null)
-         rootData = rootType.getContains() == "data";
-
-      if (value == null || rootData)
-      {
-         return new DefaultNodeInfo<DatabaseObject>(
-                  objectProvider_,
-                   new ContainerCell(),
-                  noObjectSelectionModel_,
-                  null);
-      }
-      else if (value instanceof DatabaseObject)
-      {
-         DatabaseObject val = (DatabaseObject)value;
+      return filter_;
+   }
 
-         // ascertain whether this object contains data 
-         if (connection_.isDataType(val.getType()))
-         {
-            FieldProvider fieldProvider = new FieldProvider((DatabaseObject)value);
-            fieldProviders_.put(val, fieldProvider);
-            return new DefaultNodeInfo<Field>(fieldProvider, 
-                                              new FieldCell(),
-                                              noFieldSelectionModel_,
-                                              null);
-         }
-         
-         ObjectProvider objectProvider = new ObjectProvider(val);
-         objectProviders_.put(val, objectProvider);
-         
-         // does not contain data, so draw as a container cell
-         return new DefaultNodeInfo<DatabaseObject>(
-               objectProvider,
-               new ContainerCell(),
-               noObjectSelectionModel_, null);
-      }
-      
-      // Unhandled type.
-      String type = value.getClass().getName();
-      throw new IllegalArgumentException("Unsupported object type: " + type);
+   public Connection getConnection()
+   {
+      return connection_;
    }
 
-   @Override
-   public boolean isLeaf(Object value)
+   public boolean isDataObject(Node node)
    {
-      if (value == null)
-         return false;
-      
-      // extract the type of the object; if it's a known type, it's not a leaf
-      JsObject jso = JsObject.fromJavaScriptObject((JavaScriptObject)value);
-      String type = jso.getString("type").toLowerCase();
-      JsArray<ConnectionObjectType> types = connection_.getObjectTypes();
-      for (int i = 0; i < types.length(); i++)
-      {
-         if (types.get(i).getName() == type)
-            return false;
-      }
-      return true;
+      return node.object_ != null && connection_ != null &&
+             connection_.isDataType(node.object_.getType());
    }
-   
-   public void refresh()
+
+   public boolean isExpandable(Node node)
+   {
+      return node.object_ != null;
+   }
+
+   public void setExpanded(Node node, boolean expanded)
    {
-      if (objectProvider_ != null)
-         objectProvider_.refresh();
+      if (!isExpandable(node) || node.expanded_ == expanded)
+         return;
+
+      node.expanded_ = expanded;
+      if (expanded)
+         load(node, false, false);
+      fireChanged();
    }
-   
-   public void refreshObject(DatabaseObject object)
+
+   public void viewDataset(Node node)
    {
-      if (fieldProviders_.containsKey(object))
-         fieldProviders_.get(object).refresh();
-      else if (objectProviders_.containsKey(object))
-         objectProviders_.get(object).refresh();
+      if (isDataObject(node))
+         eventBus_.fireEvent(new ViewConnectionDatasetEvent(node.object_));
    }
 
-   private void dequeNodeExpansion(DatabaseObject object)
+   /**
+    * Lists the next page of objects for the parent of a 'more' row.
+    */
+   public void loadMore(Node more)
    {
-      if (expandedNodeRefreshQueue_ != null)
+      if (more.isMore() && !more.parent_.isLoading())
+         load(more.parent_, true, false);
+   }
+
+   /**
+    * @return The rows to show: the objects in each expanded node, followed by
+    *   a 'more' row if not all have been listed yet
+    */
+   public List<Node> getRows()
+   {
+      ArrayList<Node> rows = new ArrayList<Node>();
+      if (connection_ != null)
+         addRows(root_, rows);
+      return rows;
+   }
+
+   private void addRows(Node node, List<Node> rows)
+   {
+      if (node.children_ == null)
+         return;
+
+      for (Node child : node.children_)
       {
-         expandedNodeRefreshQueue_.remove(object);
-         if (expandedNodeRefreshQueue_.size() == 0)
+         // containers are listed regardless of the filter, since their
+         // contents may match; show them only if they (or, when expanded,
+         // their contents) do
+         if (!filter_.isEmpty() && !child.isField() && !isDataObject(child) &&
+             !nameMatches(child))
          {
-            expandedNodeRefreshQueue_ = null;
-            if (onNodeExpansionCompleted_ != null)
-            {
-               onNodeExpansionCompleted_.execute();
-               onNodeExpansionCompleted_ = null;
-            }
+            if (!child.expanded_)
+               continue;
+
+            ArrayList<Node> childRows = new ArrayList<Node>();
+            addRows(child, childRows);
+            if (childRows.isEmpty())
+               continue;
+
+            rows.add(child);
+            rows.addAll(childRows);
+            continue;
          }
+
+         rows.add(child);
+         if (child.expanded_)
+            addRows(child, rows);
       }
+
+      if (node.more_ != null && node.getLoaded() < node.total_)
+         rows.add(node.more_);
+   }
+
+   private boolean nameMatches(Node node)
+   {
+      String name = node.object_.getName();
+      return name != null && name.toLowerCase().contains(filter_);
    }
-   
-   private class ObjectProvider extends AsyncDataProvider<DatabaseObject>
+
+   // lists the first page of objects for a node, and for its expanded
+   // descendants
+   private void reload(Node node, boolean refresh, Command onLoaded)
    {
-      public ObjectProvider()
+      load(node, false, refresh, onLoaded);
+      if (node.children_ == null)
+         return;
+
+      for (Node child : node.children_)
       {
-         this(null);
+         if (child.expanded_)
+            reload(child, refresh, null);
       }
+   }
+
+   private void load(Node node, boolean more, boolean refresh)
+   {
+      load(node, more, refresh, null);
+   }
 
-      public ObjectProvider(DatabaseObject parent)
+   private void load(Node node, boolean more, boolean refresh, Command onLoaded)
+   {
+      if (node == root_ || !isDataObject(node))
+         listObjects(node, more, refresh, onLoaded);
+      else
+         listFields(node, refresh);
+   }
+
+   private void listObjects(final Node node, boolean more,
+                            boolean refresh, final Command onLoaded)
+   {
+      final String key = objectsKey(node, filter_);
+      final String filter = filter_;
+
+      // the session's listing is at least as old as ours, so once ours has
+      // expired have the session list the objects afresh (from the start)
+      if (OBJECTS.hasExpired(key))
       {
-         parent_ = parent;
+         more = false;
+         refresh = true;
       }
 
-      public void clear()
+      // use the cached listing if we have one (unless we need to list more)
+      ConnectionSchemaCache.Entry<DatabaseObject> entry = OBJECTS.get(key);
+      if (!more && !refresh && entry != null)
       {
-         prefetchedObjectList_ = null;
-         fieldProviders_.clear();
-         clearData();
+         node.request_ = 0;
+         setObjects(node, entry.getItems(), entry.getTotal(), filter);
+         fireChanged();
+         if (onLoaded != null)
+            onLoaded.execute();
+         return;
       }
-      
-      public void refresh()
-      {  
-         if (connection_ == null)
-            return;
-        
-         // prefetch the objects so there is no gap between clearing the table
-         // and redrawing the nodes
-         listObjects(new CommandWithArg<JsArray<DatabaseObject>>() {
-            @Override
-            public void execute(JsArray<DatabaseObject> objects)
+
+      // if we're listing more, carry on from where we got to
+      final int offset = more && StringUtil.equals(node.filter_, filter) ?
+            node.objects_.size() : 0;
+
+      ConnectionObjectSpecifier specifier = node.object_ == null ?
+            new ConnectionObjectSpecifier() :
+            node.object_.createSpecifier();
+
+      final Connection connection = connection_;
+      final int request = ++nextRequest_;
+      node.request_ = request;
+      fireChanged();
+
+      server_.connectionListObjectsPage(
+            connection.getId(),
+            specifier,
+            filter,
+            offset,
+            PAGE_SIZE,
+            refresh,
+            new SimpleRequestCallback<ConnectionObjectPage>()
             {
-               for (HasData<DatabaseObject> display : getDataDisplays())
+               @Override
+               public void onResponseReceived(ConnectionObjectPage page)
                {
-                 display.setVisibleRangeAndClearData(display.getVisibleRange(), 
-                                                     true);
+                  // ignore responses superseded by a later request
+                  if (node.request_ != request || connection_ != connection)
+                     return;
+                  node.request_ = 0;
+
+                  JsArray<DatabaseObject> objects = page.getObjects();
+                  ArrayList<DatabaseObject> listed = new ArrayList<DatabaseObject>();
+                  if (offset > 0)
+                     listed.addAll(node.objects_);
+                  listed.addAll(JsArrayUtil.toArrayList(objects));
+
+                  OBJECTS.put(key, listed, page.getTotal());
+                  setObjects(node, listed, page.getTotal(), filter);
+                  fireChanged();
+                  if (onLoaded != null)
+                     onLoaded.execute();
                }
-            }
-         });
-      }
-      
-      /**
-       * Applies a text filter to this node and its children
-       * @param filter The text to filter on
-       * @return true if this object or any of its children matched the search
-       */
-      public boolean applyFilter(String filter)
-      {
-         // ignore if not fetched yet
-         if (prefetchedObjectList_ == null)
-            return false;
-
-         boolean anyMatched = false;
-         
-         // don't be case sensitive
-         String lowerFilter = filter.toLowerCase();
-         
-         for (int i = 0; i < prefetchedObjectList_.length(); i++)
-         {
-            // retrieve name of object for matching
-            DatabaseObject object = prefetchedObjectList_.get(i);
-            String name = object.getName();
-            if (name == null)
-               continue;
-            
-            // don't match by default
-            boolean matches = false;
-            
-            // if we have a provider for this object, apply the filter
-            // recursively; we also match if any child object matches
-            if (objectProviders_.containsKey(object))
-               matches |= objectProviders_.get(object).applyFilter(filter);
-            
-            // we match if our own name matches
-            matches |= name.toLowerCase().contains(lowerFilter);
-            
-            // remember whether we matched; we'll use this later to render a CSS
-            // class to indicate the match
-            object.setMatches(matches);
-
-            anyMatched |= matches;
-         }
-         
-         // redraw
-         updateData(prefetchedObjectList_);
 
-         // indicate whether any of the child nodes matched
-         return anyMatched;
-      }
-      
-      @Override
-      protected void onRangeChanged(final HasData<DatabaseObject> display)
-      {
-        if (connection_ == null)
-        {
-           clearData();
-        }
-        else if (prefetchedObjectList_ != null)
-        {
-           JsArray<DatabaseObject> objects = prefetchedObjectList_;
-           updateData(objects);
-        }
-        else
-        {
-           listObjects(new CommandWithArg<JsArray<DatabaseObject>>() {
                @Override
-               public void execute(JsArray<DatabaseObject> objects)
+               public void onError(ServerError error)
                {
-                  updateData(objects);
+                  super.onError(error);
+                  if (node.request_ != request)
+                     return;
+                  node.request_ = 0;
+                  fireChanged();
+                  if (onLoaded != null)
+                     onLoaded.execute();
                }
-           });
-        }
-      } 
-      
-      private void clearData()
-      {
-         updateRowCount(0, true);
-         updateRowData(0, new ArrayList<DatabaseObject>());
-         prefetchedObjectList_ = null; 
-         fireUpdateCompleted();
-      }
-      
-      private void updateData(JsArray<DatabaseObject> objects)
+            });
+   }
+
+   private void listFields(final Node node, boolean refresh)
+   {
+      final String key = objectsKey(node, "");
+
+      ConnectionSchemaCache.Entry<Field> entry = FIELDS.get(key);
+      if (!refresh && entry != null)
       {
-         updateRowCount(objects.length(), true);
-         ArrayList<DatabaseObject> data = JsArrayUtil.toArrayList(objects);
-         updateRowData(0, data);
-         fireUpdateCompleted();
+         node.request_ = 0;
+         setFields(node, entry.getItems());
+         fireChanged();
+         return;
       }
-      
-      private void listObjects(final CommandWithArg<JsArray<DatabaseObject>> onCompleted)
-      {
-         objectListContinuations_.add(onCompleted);
-         if (objectListContinuations_.size() > 1)
-         {
-            // if we're currently waiting for objects to come back, just leave this one on the stack
-            return;
-         }
-         
-         // create the specifier
-         ConnectionObjectSpecifier specifier = null;
-         if (parent_ == null)
-            specifier = new ConnectionObjectSpecifier();
-         else
-            specifier = parent_.createSpecifier();
-         
-         server_.connectionListObjects(
-            connection_.getId(), 
-            specifier,
-            new SimpleRequestCallback<JsArray<DatabaseObject>>() {
+
+      final Connection connection = connection_;
+      final int request = ++nextRequest_;
+      node.request_ = request;
+      fireChanged();
+
+      server_.connectionListFields(
+            connection.getId(),
+            node.object_.createSpecifier(),
+            new SimpleRequestCallback<JsArray<Field>>()
+            {
                @Override
-               public void onResponseReceived(JsArray<DatabaseObject> objects)
+               public void onResponseReceived(JsArray<Field> fields)
                {
-                  for (int i = 0; i < objects.length(); i++)
-                     objects.get(i).setParent(parent_);
-                  
-                  // save object list for later manipulation
-                  prefetchedObjectList_ = objects;
-                  
-                  // execute each continuation, w/ try/catch so that any that throw exceptions
-                  // won't prevent execution of further continuations (nor leave us with a stack
-                  // of uncompleted continuations)
-                  for (CommandWithArg<JsArray<DatabaseObject>> cmd: objectListContinuations_)
-                  {
-                     try
-                     {
-                        cmd.execute(objects);
-                     }
-                     catch (Exception e)
-                     {
-                        Debug.logException(e);
-                     }
-                  }
-                  
-                  // clear completed continuations
-                  objectListContinuations_.clear();
-                  dequeNodeExpansion(parent_);
+                  if (node.request_ != request || connection_ != connection)
+                     return;
+                  node.request_ = 0;
+
+                  ArrayList<Field> listed = fields == null ?
+                        new ArrayList<Field>() :
+                        JsArrayUtil.toArrayList(fields);
+                  FIELDS.put(key, listed, listed.size());
+                  setFields(node, listed);
+                  fireChanged();
                }
-               
+
                @Override
                public void onError(ServerError error)
                {
                   super.onError(error);
-                  objectListContinuations_.clear();
-                  clearData();
+                  if (node.request_ != request)
+                     return;
+                  node.request_ = 0;
+                  fireChanged();
                }
             });
-      }
-      
-      private void fireUpdateCompleted()
-      {
-         if (onTableUpdateCompleted_ != null)
-         {
-            // execute update completed
-            onTableUpdateCompleted_.execute();
-            onTableUpdateCompleted_ = null;
-            
-            // if there is no node refresh queue execute node expansion complete
-            if (expandedNodeRefreshQueue_ == null || 
-                expandedNodeRefreshQueue_.size() == 0)
-            {
-               expandedNodeRefreshQueue_ = null;
-               if (onNodeExpansionCompleted_ != null)
-               {
-                  onNodeExpansionCompleted_.execute();
-                  onNodeExpansionCompleted_ = null;
-               }
-            }
-         }
-      }
-      
-      private final DatabaseObject parent_;
-      private JsArray<DatabaseObject> prefetchedObjectList_ = null;
    }
-   
-   private class FieldProvider extends AsyncDataProvider<Field>
+
+   private void setObjects(Node node, List<DatabaseObject> objects, int total,
+                           String filter)
    {
-      public FieldProvider(DatabaseObject table)
+      // keep the nodes for objects we already had, so that they stay
+      // expanded
+      HashMap<String, Node> existing = new HashMap<String, Node>();
+      if (node.children_ != null)
       {
-         table_ = table;
+         for (Node child : node.children_)
+            existing.put(objectKey(child.object_), child);
       }
-      
-      public void refresh()
+
+      ArrayList<Node> children = new ArrayList<Node>(objects.size());
+      for (DatabaseObject object : objects)
       {
-         for (HasData<Field> display : getDataDisplays())  
-           display.setVisibleRangeAndClearData(display.getVisibleRange(), true);
-      }
-      
-      @Override
-      protected void onRangeChanged(final HasData<Field> display)
-      {  
-         if (connection_ == null)
+         Node child = existing.get(objectKey(object));
+         if (child == null)
          {
-            clearData();
-            return;
+            object.setParent(node.object_);
+            child = new Node(node, object, null);
          }
-
-         server_.connectionListFields(
-               connection_.getId(),
-               table_.createSpecifier(),
-               new SimpleRequestCallback<JsArray<Field>>() {
-                  @Override
-                  public void onResponseReceived(JsArray<Field> fields)
-                  {
-                     ArrayList<Field> data = new ArrayList<Field>();
-                     if (fields != null)
-                     {
-                        for (int i=0; i<fields.length(); i++)
-                           data.add(fields.get(i));
-                     }
-                     updateRowCount(data.size(), true);
-                     updateRowData(0, data);
-                     dequeNodeExpansion(table_);
-                  }
-                  
-                  @Override
-                  public void onError(ServerError error)
-                  {
-                     super.onError(error);
-                     clearData();
-                  } 
-               });
-      }
-      
-      private void clearData()
-      {
-         updateRowCount(0, true);
-         updateRowData(0, new ArrayList<Field>());
-         dequeNodeExpansion(table_);
+         children.add(child);
       }
-      
-      private DatabaseObject table_;
+
+      node.children_ = children;
+      node.objects_ = objects;
+      node.total_ = total;
+      node.filter_ = filter;
+      if (node.more_ == null)
+         node.more_ = new Node(node, null, null);
+   }
+
+   private void setFields(Node node, List<Field> fields)
+   {
+      ArrayList<Node> children = new ArrayList<Node>(fields.size());
+      for (Field field : fields)
+         children.add(new Node(node, null, field));
+
+      node.children_ = children;
+      node.total_ = children.size();
    }
-   
-   private class ContainerCell extends AbstractCell<DatabaseObject>
+
+   private void fireChanged()
    {
-      public ContainerCell()
-      {
-         super("click");
-      }
-      
-      @Override
-      public void render(Cell.Context context, DatabaseObject container, 
-            SafeHtmlBuilder sb)
-      {
-         sb.appendHtmlConstant("<span class=\"" + (container.matches() ? 
-            ObjectBrowser.RES.cellTreeStyle().searchMatches() :
-            ObjectBrowser.RES.cellTreeStyle().searchHidden()) +
-               "\">");
-                                 
-         SafeHtmlUtil.highlightSearchMatch(sb, container.getName(), filter_, 
-               ThemeStyles.INSTANCE.filterMatch());
-         
-         sb.appendHtmlConstant("</span>");
-         
-         ConnectionObjectType type = connection_.getObjectType(
-               container.getType());
-         if (type != null && !StringUtil.isNullOrEmpty(type.getIconData()))
-         {
-            sb.appendHtmlConstant("<img src=\"" + type.getIconData() + "\" " + 
-                 (type.isDataType() ? 
-                     "class=\"" + RES.cellTreeStyle().tableViewDataset() + "\" " +
-                     "title=\"View table (up to 1,000 records)\"" 
-                     : 
-                     "class=\"" + RES.cellTreeStyle().containerIcon() + "\" ") +
-                 "/ >");
-         }
-      }
-      
-      @Override
-      public void onBrowserEvent(Cell.Context context,
-              Element parent, DatabaseObject value, NativeEvent event,
-              ValueUpdater<DatabaseObject> valueUpdater) {
-          if ("click".equals(event.getType()))
-          {
-             Element eventTarget = event.getEventTarget().cast();
-             if (eventTarget.getAttribute("class").equals(
-                               RES.cellTreeStyle().tableViewDataset()))
-             {
-                eventBus_.fireEvent(new ViewConnectionDatasetEvent(value));
-             }
-          }
-      }
+      if (onChanged_ != null)
+         onChanged_.execute();
    }
-   
-   private static class FieldCell extends AbstractCell<Field> 
+
+   private static String connectionKey(Connection connection)
    {
-      @Override
-      public void render(Cell.Context context, Field value, SafeHtmlBuilder sb)
-      {
-         SafeHtmlUtil.appendSpan(sb, 
-                                 RES.cellTreeStyle().fieldName(), 
-                                 value.getName() + " : ");
-         SafeHtmlUtil.appendSpan(sb, 
-                                 RES.cellTreeStyle().fieldType(), 
-                                 value.getType());
-      }
+      return connection.getId().asString() + "|";
+   }
+
+   private String objectsKey(Node node, String filter)
+   {
+      // identify the node by its path from the root
+      StringBuilder path = new StringBuilder();
+      for (DatabaseObject object = node.object_; object != null; object = object.getParent())
+         path.insert(0, objectKey(object) + "/");
+      return connectionKey(connection_) + path.toString() + "|" + filter;
    }
-   
-   private ObjectProvider objectProvider_;
-   private HashMap<DatabaseObject,FieldProvider> fieldProviders_ 
-                              = new HashMap<DatabaseObject,FieldProvider>();
-   private HashMap<DatabaseObject,ObjectProvider> objectProviders_ 
-                              = new HashMap<DatabaseObject,ObjectProvider>();
-   
-   private Connection connection_;
-   private String filter_;
-   
-   private Set<DatabaseObject> expandedNodeRefreshQueue_ = null;
-   private Command onTableUpdateCompleted_ = null;
-   private Command onNodeExpansionCompleted_ = null;
-   
+
+   private static String objectKey(DatabaseObject object)
+   {
+      return object.getType() + ":" + object.getName();
+   }
+
+   private Connection connection_ = null;
+   private Node root_ = new Node(null, null, null);
+   private String filter_ = "";
+   private int nextRequest_ = 0;
+   private Command onChanged_ = null;
+
    private ConnectionsServerOperations server_;
    private EventBus eventBus_;
 
-   private final ArrayList<CommandWithArg<JsArray<DatabaseObject>>> objectListContinuations_ = 
-         new ArrayList<CommandWithArg<JsArray<DatabaseObject>>>();
-   
-   private static NoSelectionModel<DatabaseObject> noObjectSelectionModel_ = 
-         new NoSelectionModel<DatabaseObject>();
-   private static NoSelectionModel<Field> noFieldSelectionModel_ =
-         new NoSelectionModel<Field>();
-   
-   static final ObjectBrowser.Resources RES = ObjectBrowser.RES;
+   // objects are listed a page at a time
+   private static final int PAGE_SIZE = 500;
+
+   // listings are kept for five minutes, up to a limit on the number of
+   // objects (and fields) held for all connections
+   private static final int CACHE_TTL_MS = 5 * 60 * 1000;
+   private static final ConnectionSchemaCache<DatabaseObject> OBJECTS =
+         new ConnectionSchemaCache<DatabaseObject>(50000, CACHE_TTL_MS);
+   private static final ConnectionSchemaCache<Field> FIELDS =
+         new ConnectionSchemaCache<Field>(20000, CACHE_TTL_MS);
 }
@@ -64,6 +64,14 @@ public interface ConsoleServerOperations extends CodeToolsServerOperations,
                               int chunk,
                               ServerRequestCallback<ProcessBufferChunk> requestCallback);
 
+   /**
+    * Get the output in a terminal's saved buffer since the given output
+    * sequence number (or the whole buffer, if that isn't available)
+    */
+   void processGetBufferTail(String handle,
+                             double since,
+                             ServerRequestCallback<ProcessBufferTail> requestCallback);
+
    void processGetBuffer(String handle,
                          boolean stripAnsiCodes,
                          ServerRequestCallback<ProcessBufferChunk> requestCallback);
@@ -0,0 +1,50 @@
+/*
+ * ProcessBufferTail.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.workbench.views.console.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+public class ProcessBufferTail extends JavaScriptObject
+{
+   protected ProcessBufferTail()
+   {
+   }
+
+   public static final native ProcessBufferTail create(String chunk,
+                                                       double sequence,
+                                                       boolean isTail) /*-{
+      return { chunk: chunk, sequence: sequence, is_tail: isTail };
+   }-*/;
+
+   public final native String getChunk() /*-{
+      return this.chunk;
+   }-*/;
+
+   /**
+    * @return The output sequence number the buffer has reached
+    */
+   public final native double getSequence() /*-{
+      return this.sequence;
+   }-*/;
+
+   /**
+    * @return true if the chunk holds only the output since the requested
+    *    sequence number; false if it holds the whole buffer
+    */
+   public final native boolean isTail() /*-{
+      return this.is_tail;
+   }-*/;
+}
@@ -0,0 +1,155 @@
+/*
+ * CompletionIndex.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.console.shell.assist;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.common.codetools.RCompletionType;
+import org.rstudio.studio.client.workbench.codesearch.CodeSearchOracle;
+
+// A search index over a list of completions, built once per server result.
+//
+// Each completion's match key (its name, or the file name for files) is
+// lower-cased up front along with a bitmask of the letters and digits it
+// contains, so most non-matching candidates are rejected with a single mask
+// test before the subsequence check. Narrowing can start from the matches of
+// a shorter token: since matching is by subsequence, anything which matches
+// a token also matches every prefix of it.
+class CompletionIndex<T extends CompletionIndex.Item<T>>
+{
+   // the parts of a completion the index matches on (ties in score are
+   // ordered by comparing the completions)
+   interface Item<T> extends Comparable<T>
+   {
+      String getName();
+      int getType();
+   }
+
+   @SuppressWarnings("unchecked")
+   CompletionIndex(ArrayList<T> completions)
+   {
+      int n = completions.size();
+      completions_ = (T[]) new Item[n];
+      keys_ = new String[n];
+      masks_ = new int[n];
+      scores_ = new int[n];
+
+      for (int i = 0; i < n; i++)
+      {
+         T completion = completions.get(i);
+         String key = RCompletionType.isFileType(completion.getType())
+               ? basename(completion.getName())
+               : completion.getName();
+
+         completions_[i] = completion;
+         keys_[i] = key.toLowerCase();
+         masks_[i] = StringUtil.charMask(keys_[i]);
+      }
+   }
+
+   public int size()
+   {
+      return completions_.length;
+   }
+
+   public T get(int index)
+   {
+      return completions_[index];
+   }
+
+   /**
+    * Finds the completions matching a token, ranked best match first.
+    *
+    * @param token The token to match.
+    * @param candidates Indices of the completions to consider (e.g. the
+    *    matches for a prefix of the token), or null to consider all of them.
+    * @return Indices of the matching completions, in ranked order.
+    */
+   public int[] narrow(final String token, int[] candidates)
+   {
+      final String tokenSub = token.substring(token.lastIndexOf('/') + 1);
+      String tokenFuzzy = fuzzy(tokenSub).toLowerCase();
+      int tokenMask = StringUtil.charMask(tokenFuzzy);
+      boolean tokenStartsWithDot = token.startsWith(".");
+
+      ArrayList<Integer> matches = new ArrayList<>();
+      int count = candidates == null ? completions_.length : candidates.length;
+      for (int i = 0; i < count; i++)
+      {
+         int index = candidates == null ? i : candidates[i];
+         if ((masks_[index] & tokenMask) != tokenMask)
+            continue;
+
+         if (!StringUtil.isSubsequence(keys_[index], tokenFuzzy))
+            continue;
+
+         // File types are narrowed only by the file name
+         T completion = completions_[index];
+         String name = completion.getName();
+         boolean isFile = RCompletionType.isFileType(completion.getType());
+         if (!isFile && !tokenStartsWithDot && name.startsWith("."))
+            continue;
+
+         // score each match once, rather than on every comparison
+         int score = isFile
+               ? CodeSearchOracle.scoreMatch(basename(name), tokenSub, true)
+               : CodeSearchOracle.scoreMatch(name, token, false);
+
+         // Place arguments higher (give less penalty)
+         if (completion.getType() == RCompletionType.ARGUMENT)
+            score -= 3;
+
+         scores_[index] = score;
+         matches.add(index);
+      }
+
+      matches.sort((lhs, rhs) ->
+      {
+         int lhsScore = scores_[lhs];
+         int rhsScore = scores_[rhs];
+         if (lhsScore == rhsScore)
+            return completions_[lhs].compareTo(completions_[rhs]);
+         return lhsScore < rhsScore ? -1 : 1;
+      });
+
+      int[] result = new int[matches.size()];
+      for (int i = 0; i < result.length; i++)
+         result[i] = matches.get(i);
+      return result;
+   }
+
+   public ArrayList<T> toList(int[] indices)
+   {
+      ArrayList<T> result = new ArrayList<>(indices.length);
+      for (int index : indices)
+         result.add(completions_[index]);
+      return result;
+   }
+
+   static String basename(String absolutePath)
+   {
+      return absolutePath.substring(absolutePath.lastIndexOf('/') + 1);
+   }
+
+   static final native String fuzzy(String string) /*-{
+      return string.replace(/(?!^)[._]/g, "");
+   }-*/;
+
+   private final T[] completions_;
+   private final String[] keys_;
+   private final int[] masks_;
+   private final int[] scores_;
+}
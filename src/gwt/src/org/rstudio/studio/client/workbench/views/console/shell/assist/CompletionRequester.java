@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.console.shell.assist;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayBoolean;
 import com.google.gwt.core.client.JsArrayInteger;
@@ -35,7 +36,6 @@ import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.common.icons.code.CodeIcons;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
-import org.rstudio.studio.client.workbench.codesearch.CodeSearchOracle;
 import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.snippets.SnippetHelper;
 import org.rstudio.studio.client.workbench.views.console.shell.ConsoleLanguageTracker;
@@ -66,8 +66,8 @@ public class CompletionRequester
    private final DocDisplay docDisplay_;
    private final SnippetHelper snippets_;
 
-   private String cachedLinePrefix_;
-   private HashMap<String, CompletionResult> cachedCompletions_ = new HashMap<>();
+   // recent completion sites, most recent last
+   private final ArrayList<CompletionContext> contexts_ = new ArrayList<>();
    private RnwCompletionContext rnwContext_;
 
    public CompletionRequester(RnwCompletionContext rnwContext,
@@ -91,40 +91,40 @@ public class CompletionRequester
          String token,
          final ServerRequestCallback<CompletionResult> callback)
    {
-      return usingCache(token, false, callback);
+      return usingCache(token, false, null, callback);
    }
 
    private boolean usingCache(
          String token,
          boolean isHelpCompletion,
+         String key,
          final ServerRequestCallback<CompletionResult> callback)
    {
       if (isHelpCompletion)
          token = token.substring(token.lastIndexOf(':') + 1);
 
-      if (cachedLinePrefix_ == null)
-         return false;
-
-      CompletionResult cachedResult = cachedCompletions_.get("");
-      if (cachedResult == null)
-         return false;
-
-      if (token.toLowerCase().startsWith(cachedLinePrefix_.toLowerCase()))
+      double now = Duration.currentTimeMillis();
+      for (int i = contexts_.size() - 1; i >= 0; i--)
       {
-         String diff = token.substring(cachedLinePrefix_.length());
-
-         // if we already have a cached result for this diff, use it
-         CompletionResult cached = cachedCompletions_.get(diff);
-         if (cached != null)
+         CompletionContext context = contexts_.get(i);
+
+         // the current context can always be used (as long as the token
+         // still extends it); earlier ones only at the same completion site,
+         // and only for a short while since the results may have gone stale
+         if (context.retired &&
+             (key == null ||
+              !key.equals(context.key) ||
+              now - context.createdAt > RECENT_CONTEXT_TTL_MS))
          {
-            callback.onResponseReceived(cached);
-            return true;
+            continue;
          }
 
-         // otherwise, produce a new completion list
-         if (diff.length() > 0 && !diff.endsWith("::"))
+         CompletionResult result = getCachedResult(context, token);
+         if (result != null)
          {
-            callback.onResponseReceived(narrow(cachedResult.token + diff, diff, cachedResult));
+            contexts_.remove(i);
+            contexts_.add(context);
+            callback.onResponseReceived(result);
             return true;
          }
       }
@@ -132,90 +132,108 @@ public class CompletionRequester
       return false;
    }
 
-   private String basename(String absolutePath)
+   private CompletionResult getCachedResult(CompletionContext context,
+                                            String token)
    {
-      return absolutePath.substring(absolutePath.lastIndexOf('/') + 1);
-   }
+      CompletionResult cachedResult = context.results.get("");
+      if (cachedResult == null)
+         return null;
 
-   private boolean filterStartsWithDot(String item,
-                                       String token)
-   {
-      return !(!token.startsWith(".") && item.startsWith("."));
-   }
+      if (!token.toLowerCase().startsWith(context.linePrefix.toLowerCase()))
+         return null;
 
-   private static final native String fuzzy(String string) /*-{
-      return string.replace(/(?!^)[._]/g, "");
-   }-*/;
+      String diff = token.substring(context.linePrefix.length());
 
-   private CompletionResult narrow(final String token,
-                                   final String diff,
-                                   CompletionResult cachedResult)
-   {
-      ArrayList<QualifiedName> newCompletions = new ArrayList<>();
-      newCompletions.ensureCapacity(cachedResult.completions.size());
+      // if we already have a cached result for this diff, use it
+      CompletionResult cached = context.results.get(diff);
+      if (cached != null)
+         return cached;
 
-      // For completions that are files or directories, we need to post-process
-      // the token and the qualified name to strip out just the basename (filename).
-      // Note that we normalize the paths such that files will have no trailing slash,
-      // while directories will have one trailing slash (but we defend against multiple
-      // trailing slashes)
+      // otherwise, produce a new completion list
+      if (diff.length() > 0 && !diff.endsWith("::"))
+         return narrow(context, cachedResult.token + diff, diff, cachedResult);
 
-      // Transform the token once beforehand for completions.
-      final String tokenSub   = token.substring(token.lastIndexOf('/') + 1);
-      final String tokenFuzzy = fuzzy(tokenSub);
+      return null;
+   }
 
-      for (QualifiedName qname : cachedResult.completions)
+   private CompletionResult narrow(final CompletionContext context,
+                                   final String token,
+                                   final String diff,
+                                   CompletionResult cachedResult)
+   {
+      // anything matching this token also matches its prefixes, so start
+      // from the matches for the longest prefix we've already narrowed to
+      // (unless a '/' was typed since, which restarts file name matching)
+      int[] candidates = null;
+      for (int i = diff.length() - 1; i > 0; i--)
       {
-         // File types are narrowed only by the file name
-         if (RCompletionType.isFileType(qname.type))
-         {
-            if (StringUtil.isSubsequence(basename(qname.name), tokenFuzzy, true))
-               newCompletions.add(qname);
-         }
-         else
-         {
-            if (StringUtil.isSubsequence(qname.name, tokenFuzzy, true) &&
-                filterStartsWithDot(qname.name, token))
-               newCompletions.add(qname);
-         }
-      }
+         if (diff.charAt(i) == '/')
+            break;
 
-      newCompletions.sort(new Comparator<QualifiedName>()
-      {
+         candidates = context.matches.get(diff.substring(0, i));
+         if (candidates != null)
+            break;
+      }
 
-         @Override
-         public int compare(QualifiedName lhs, QualifiedName rhs)
-         {
-            int lhsScore = RCompletionType.isFileType(lhs.type)
-                  ? CodeSearchOracle.scoreMatch(basename(lhs.name), tokenSub, true)
-                  : CodeSearchOracle.scoreMatch(lhs.name, token, false);
-            
-            int rhsScore = RCompletionType.isFileType(rhs.type)
-               ? CodeSearchOracle.scoreMatch(basename(rhs.name), tokenSub, true)
-               : CodeSearchOracle.scoreMatch(rhs.name, token, false);
-
-            // Place arguments higher (give less penalty)
-            if (lhs.type == RCompletionType.ARGUMENT) lhsScore -= 3;
-            if (rhs.type == RCompletionType.ARGUMENT) rhsScore -= 3;
-
-            if (lhsScore == rhsScore)
-               return lhs.compareTo(rhs);
-
-            return lhsScore < rhsScore ? -1 : 1;
-         }
-      });
+      int[] matches = context.index.narrow(token, candidates);
 
       CompletionResult result = new CompletionResult(
             token,
-            newCompletions,
+            context.index.toList(matches),
             cachedResult.guessedFunctionName,
             cachedResult.suggestOnAccept,
             cachedResult.dontInsertParens);
 
-      cachedCompletions_.put(diff, result);
+      context.matches.put(diff, matches);
+      context.results.put(diff, result);
       return result;
    }
 
+   private void beginContext(String key, String linePrefix)
+   {
+      // keep recent contexts around for reuse at the same completion site,
+      // but don't let the current one be extended to other sites
+      for (CompletionContext context : contexts_)
+         context.retired = true;
+
+      contexts_.add(new CompletionContext(key, linePrefix));
+      if (contexts_.size() > MAX_RECENT_CONTEXTS)
+         contexts_.remove(0);
+   }
+
+   private void cacheResult(CompletionResult result)
+   {
+      if (contexts_.isEmpty())
+         return;
+
+      CompletionContext context = contexts_.get(contexts_.size() - 1);
+      context.index = new CompletionIndex<>(result.completions);
+      context.results.put("", result);
+   }
+
+   // Identifies a completion site: everything about the request other than
+   // the token being completed.
+   private static String contextKey(String token,
+                                    List<String> assocData,
+                                    List<Integer> dataType,
+                                    List<Integer> numCommas,
+                                    String functionCallString,
+                                    String chainDataName,
+                                    String documentId,
+                                    String line)
+   {
+      if (line == null || !line.endsWith(token))
+         return null;
+
+      return StringUtil.notNull(documentId) + "\n" +
+             line.substring(0, line.length() - token.length()) + "\n" +
+             assocData + "\n" +
+             dataType + "\n" +
+             numCommas + "\n" +
+             StringUtil.notNull(functionCallString) + "\n" +
+             StringUtil.notNull(chainDataName);
+   }
+
    public void getDplyrJoinCompletionsString(
          final String token,
          final String string,
@@ -235,7 +253,7 @@ public class CompletionRequester
                @Override
                public void onResponseReceived(Completions response)
                {
-                  cachedLinePrefix_ = token;
+                  beginContext(null, token);
                   fillCompletionResult(response, implicit, callback);
                }
 
@@ -274,7 +292,7 @@ public class CompletionRequester
                @Override
                public void onResponseReceived(Completions response)
                {
-                  cachedLinePrefix_ = token;
+                  beginContext(null, token);
                   fillCompletionResult(response, implicit, callback);
                }
 
@@ -306,7 +324,7 @@ public class CompletionRequester
 
       if (response.isCacheable())
       {
-         cachedCompletions_.put("", result);
+         cacheResult(result);
       }
 
       if (!implicit || result.completions.size() != 0)
@@ -341,7 +359,10 @@ public class CompletionRequester
       boolean isHelp = dataType.size() > 0 &&
             dataType.get(0) == AutocompletionContext.TYPE_HELP;
 
-      if (usingCache(token, isHelp, callback))
+      final String key = contextKey(token, assocData, dataType, numCommas,
+                                    functionCallString, chainDataName,
+                                    documentId, line);
+      if (usingCache(token, isHelp, key, callback))
          return;
 
       doGetCompletions(
@@ -369,7 +390,7 @@ public class CompletionRequester
          @Override
          public void onResponseReceived(Completions response)
          {
-            cachedLinePrefix_ = token;
+            beginContext(key, token);
             String token = response.getToken();
 
             JsArrayString comp = response.getCompletions();
@@ -431,7 +452,7 @@ public class CompletionRequester
 
             if (response.isCacheable())
             {
-               cachedCompletions_.put("", result);
+               cacheResult(result);
             }
 
             callback.onResponseReceived(result);
@@ -732,10 +753,37 @@ public class CompletionRequester
 
    public void flushCache()
    {
-      cachedLinePrefix_ = null;
-      cachedCompletions_.clear();
+      // the cached results may be stale (e.g. new objects were defined), so
+      // none of them can be reused, even at the same completion site
+      contexts_.clear();
+   }
+
+   // completion results for a single completion site: the server's result for
+   // the token that was requested, and the results narrowed from it as the
+   // user typed
+   private static class CompletionContext
+   {
+      CompletionContext(String key, String linePrefix)
+      {
+         this.key = key;
+         this.linePrefix = linePrefix;
+         createdAt = Duration.currentTimeMillis();
+      }
+
+      final String key;
+      final String linePrefix;
+      final double createdAt;
+      boolean retired = false;
+      CompletionIndex<QualifiedName> index;
+
+      // results and (index) matches, keyed by the text typed after linePrefix
+      final HashMap<String, CompletionResult> results = new HashMap<>();
+      final HashMap<String, int[]> matches = new HashMap<>();
    }
 
+   private static final int MAX_RECENT_CONTEXTS = 4;
+   private static final int RECENT_CONTEXT_TTL_MS = 10000;
+
    public static class CompletionResult
    {
       public CompletionResult(String token,
@@ -758,7 +806,8 @@ public class CompletionRequester
       public final boolean dontInsertParens;
    }
 
-   public static class QualifiedName implements Comparable<QualifiedName>
+   public static class QualifiedName
+         implements CompletionIndex.Item<QualifiedName>
    {
       public QualifiedName(String name,
                            String source,
@@ -971,6 +1020,18 @@ public class CompletionRequester
          return new QualifiedName(name, pkgName);
       }
 
+      @Override
+      public String getName()
+      {
+         return name;
+      }
+
+      @Override
+      public int getType()
+      {
+         return type;
+      }
+
       public int compareTo(QualifiedName o)
       {
          if (name.endsWith("=") ^ o.name.endsWith("="))
@@ -17,7 +17,10 @@ package org.rstudio.studio.client.workbench.views.environment.view;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
@@ -137,71 +140,28 @@ public class EnvironmentObjects extends ResizeComposite
       contextDepth_ = contextDepth;
    }
 
+   // Changes to individual objects are queued and applied together, so that a
+   // burst of assignments or removals (e.g. rm() on many objects) costs one
+   // pass over the list rather than one per object.
    public void addObject(RObject obj)
    {
-      int idx = indexOfExistingObject(obj.getName());
-      final RObjectEntry newEntry = entryFromRObject(obj);
-      boolean added = false;
-
-      // if the object is already in the environment, just update the value
-      if (idx >= 0)
-      {
-         final RObjectEntry oldEntry = objectDataProvider_.getList().get(idx);
-
-         if (oldEntry.rObject.getType() == obj.getType())
-         {
-            // type hasn't changed
-            if (oldEntry.expanded &&
-                newEntry.contentsAreDeferred)
-            {
-               // we're replacing an object that has server-deferred contents--
-               // refill it immediately. (another approach would be to push the
-               // set of currently expanded objects to the server so these
-               // objects would show up on the client already expanded)
-               fillEntryContents(newEntry, idx, false);
-            }
-            else
-            {
-               // contents aren't deferred, just use the expanded state directly
-               newEntry.expanded = oldEntry.expanded;
-            }
-            objectDataProvider_.getList().set(idx, newEntry);
-            added = true;
-         }
-         else
-         {
-            // types did change, do a full add/remove
-            objectDataProvider_.getList().remove(idx);
-         }
-
-      }
-      if (!added)
-      {
-         RObjectEntry entry = entryFromRObject(obj);
-         idx = indexOfNewObject(entry);
-         objectDataProvider_.getList().add(idx, entry);
-      }
-      updateCategoryLeaders(true);
-
-      // scroll into view
-      scrollTimer_.setRow(idx);
-      scrollTimer_.schedule(100);
+      pendingChanges_.put(obj.getName(), obj);
+      schedulePendingChanges();
    }
 
    public void removeObject(String objName)
    {
-      int idx = indexOfExistingObject(objName);
-      if (idx >= 0)
-      {
-         objectDataProvider_.getList().remove(idx);
-      }
-
-      updateCategoryLeaders(true);
+      pendingChanges_.put(objName, null);
+      schedulePendingChanges();
    }
 
    public void clearObjects()
    {
+      pendingChanges_.clear();
       objectDataProvider_.getList().clear();
+      entries_.clear();
+      categoryLeaders_ = new RObjectEntry[NUM_CATEGORIES];
+      firstObject_ = null;
    }
 
    public void clearSelection()
@@ -212,6 +172,8 @@ public class EnvironmentObjects extends ResizeComposite
    // bulk add for objects--used on init or environment switch
    public void addObjects(JsArray<RObject> objects)
    {
+      applyPendingChanges();
+
       // create an entry for each object and sort the array
       int numObjects = objects.length();
       ArrayList<RObjectEntry> objectEntryList = new ArrayList<RObjectEntry>();
@@ -219,11 +181,16 @@ public class EnvironmentObjects extends ResizeComposite
       {
          RObjectEntry entry = entryFromRObject(objects.get(i));
          objectEntryList.add(entry);
+         entries_.put(entry.rObject.getName(), entry);
       }
       Collections.sort(objectEntryList, objectSort_);
 
       // push the list into the UI and update category leaders
-      objectDataProvider_.getList().addAll(objectEntryList);
+      List<RObjectEntry> list = objectDataProvider_.getList();
+      boolean wasEmpty = list.isEmpty();
+      list.addAll(objectEntryList);
+      if (!wasEmpty)
+         Collections.sort(list, objectSort_);
       updateCategoryLeaders(false);
 
       if (useStatePersistence())
@@ -296,7 +263,13 @@ public class EnvironmentObjects extends ResizeComposite
 
    public void setFilterText (String filterText)
    {
+      applyPendingChanges();
+
+      // if the filter only got longer, objects that were hidden stay hidden
+      String previousFilter = filterText_;
       filterText_ = filterText.toLowerCase();
+      boolean narrowing = !previousFilter.isEmpty() &&
+                          filterText_.startsWith(previousFilter);
 
       // Iterate over each entry in the list, and toggle its visibility based
       // on whether it matches the current filter text.
@@ -304,6 +277,8 @@ public class EnvironmentObjects extends ResizeComposite
       for (int i = 0; i < objects.size(); i++)
       {
          RObjectEntry entry = objects.get(i);
+         if (narrowing && !entry.visible)
+            continue;
          boolean visible = matchesFilter(entry.rObject);
          // Redraw the object if its visibility status has changed, or if it's
          // visible (for visible entries we need to update the search highlight)
@@ -490,6 +465,7 @@ public class EnvironmentObjects extends ResizeComposite
    @Override
    public void setSortColumn(int col)
    {
+      applyPendingChanges();
       objectSort_.setSortColumn(col);
       observer_.setViewDirty();
       Collections.sort(objectDataProvider_.getList(), objectSort_);
@@ -509,6 +485,7 @@ public class EnvironmentObjects extends ResizeComposite
 
    public void setAscendingSort(boolean ascending)
    {
+      applyPendingChanges();
       objectSort_.setAscending(ascending);
       observer_.setViewDirty();
       Collections.sort(objectDataProvider_.getList(), objectSort_);
@@ -516,6 +493,7 @@ public class EnvironmentObjects extends ResizeComposite
 
    public void setSort(int column, boolean ascending)
    {
+      applyPendingChanges();
       objectSort_.setSortColumn(column);
       objectSort_.setAscending(ascending);
       Collections.sort(objectDataProvider_.getList(), objectSort_);
@@ -542,42 +520,318 @@ public class EnvironmentObjects extends ResizeComposite
 
    // Private methods: object management --------------------------------------
 
-   private int indexOfExistingObject(String objectName)
+   private void schedulePendingChanges()
+   {
+      if (applyScheduled_)
+         return;
+
+      applyScheduled_ = true;
+      Scheduler.get().scheduleDeferred(() -> applyPendingChanges());
+   }
+
+   private void applyPendingChanges()
    {
+      applyScheduled_ = false;
+      if (pendingChanges_.isEmpty())
+         return;
+
+      LinkedHashMap<String, RObject> changes = pendingChanges_;
+      pendingChanges_ = new LinkedHashMap<>();
+
+      if (changes.size() > MAX_INCREMENTAL_CHANGES)
+      {
+         applyChangesInBulk(changes);
+         return;
+      }
+
       List<RObjectEntry> objects = objectDataProvider_.getList();
+      int touchedCategories = 0;
+      RObjectEntry lastChanged = null;
 
-      // find the position of the object in the list--we can't use binary
-      // search here since we're matching on names and the list isn't sorted
-      // by name (it's sorted by type, then name)
-      int index;
-      boolean foundObject = false;
-      for (index = 0; index < objects.size(); index++)
+      for (Map.Entry<String, RObject> change : changes.entrySet())
       {
-         if (objects.get(index).rObject.getName() == objectName)
+         RObjectEntry oldEntry = entries_.get(change.getKey());
+         RObject obj = change.getValue();
+
+         if (oldEntry != null)
+            touchedCategories |= 1 << oldEntry.getCategory();
+
+         if (obj == null)
          {
-            foundObject = true;
-            break;
+            if (oldEntry != null)
+               removeEntry(oldEntry);
+            continue;
+         }
+
+         RObjectEntry newEntry = entryFromRObject(obj);
+         touchedCategories |= 1 << newEntry.getCategory();
+         lastChanged = newEntry;
+
+         if (oldEntry == null)
+         {
+            insertEntry(newEntry);
+            continue;
+         }
+
+         // if the object is already in the environment, just update the value
+         int idx = indexOfEntry(oldEntry);
+         if (oldEntry.rObject.getType() == obj.getType())
+         {
+            // type hasn't changed; keep the row where it is unless the new
+            // value moves it in the sort order
+            boolean refill = oldEntry.expanded && newEntry.contentsAreDeferred;
+            if (!refill)
+               newEntry.expanded = oldEntry.expanded;
+
+            if (isInSortedPosition(newEntry, idx))
+            {
+               newEntry.isCategoryLeader = oldEntry.isCategoryLeader;
+               newEntry.isFirstObject = oldEntry.isFirstObject;
+               replaceTrackedEntry(oldEntry, newEntry);
+               objects.set(idx, newEntry);
+               entries_.put(obj.getName(), newEntry);
+            }
+            else
+            {
+               removeEntry(oldEntry);
+               idx = insertEntry(newEntry);
+            }
+
+            // we're replacing an object that has server-deferred contents--
+            // refill it immediately. (another approach would be to push the
+            // set of currently expanded objects to the server so these
+            // objects would show up on the client already expanded)
+            if (refill)
+               fillEntryContents(newEntry, idx, false);
+         }
+         else
+         {
+            // types did change, do a full add/remove
+            removeEntry(oldEntry);
+            insertEntry(newEntry);
          }
       }
 
-      return foundObject ? index : -1;
+      updateCategoryLeaders(touchedCategories);
+
+      // scroll into view
+      if (lastChanged != null)
+      {
+         scrollTimer_.setRow(indexOfEntry(lastChanged));
+         scrollTimer_.schedule(100);
+      }
    }
 
-   // returns the position a new object entry should occupy in the table
-   private int indexOfNewObject(RObjectEntry obj)
+   // applies a large set of changes by rebuilding and re-sorting the list once
+   private void applyChangesInBulk(LinkedHashMap<String, RObject> changes)
    {
+      ArrayList<RObjectEntry> refill = new ArrayList<>();
+      for (Map.Entry<String, RObject> change : changes.entrySet())
+      {
+         RObjectEntry oldEntry = entries_.remove(change.getKey());
+         RObject obj = change.getValue();
+         if (obj == null)
+            continue;
+
+         RObjectEntry newEntry = entryFromRObject(obj);
+         if (oldEntry != null && oldEntry.rObject.getType() == obj.getType())
+         {
+            if (oldEntry.expanded && newEntry.contentsAreDeferred)
+               refill.add(newEntry);
+            else
+               newEntry.expanded = oldEntry.expanded;
+         }
+         entries_.put(obj.getName(), newEntry);
+      }
+
+      ArrayList<RObjectEntry> objects = new ArrayList<>(entries_.values());
+      Collections.sort(objects, objectSort_);
+      objectDataProvider_.setList(objects);
+      updateCategoryLeaders(false);
+
+      for (RObjectEntry entry : refill)
+         fillEntryContents(entry, indexOfEntry(entry), false);
+   }
+
+   // returns the position of an entry in the table, or -1 if it isn't there
+   private int indexOfEntry(RObjectEntry entry)
+   {
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+
+      // the list is kept sorted, and the sort breaks ties by name, so we can
+      // find the entry by binary search
+      int idx = lowerBound(entry);
+      if (idx < objects.size() && objects.get(idx) == entry)
+         return idx;
+
+      // fall back to a scan in case the sort order has been disturbed
+      return objects.indexOf(entry);
+   }
+
+   // index of the first entry which doesn't sort before the given one
+   private int lowerBound(RObjectEntry entry)
+   {
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+      int lo = 0;
+      int hi = objects.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (objectSort_.compare(objects.get(mid), entry) < 0)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   // index of the first entry which sorts after the given one (i.e. the
+   // position a new object entry should occupy in the table)
+   private int upperBound(RObjectEntry entry)
+   {
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+      int lo = 0;
+      int hi = objects.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (objectSort_.compare(entry, objects.get(mid)) < 0)
+            hi = mid;
+         else
+            lo = mid + 1;
+      }
+      return lo;
+   }
+
+   private boolean isInSortedPosition(RObjectEntry entry, int idx)
+   {
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+      return idx >= 0 &&
+             (idx == 0 ||
+              objectSort_.compare(objects.get(idx - 1), entry) <= 0) &&
+             (idx == objects.size() - 1 ||
+              objectSort_.compare(entry, objects.get(idx + 1)) <= 0);
+   }
+
+   private int insertEntry(RObjectEntry entry)
+   {
+      int idx = upperBound(entry);
+      objectDataProvider_.getList().add(idx, entry);
+      entries_.put(entry.rObject.getName(), entry);
+      return idx;
+   }
+
+   private void removeEntry(RObjectEntry entry)
+   {
+      int idx = indexOfEntry(entry);
+      if (idx >= 0)
+         objectDataProvider_.getList().remove(idx);
+      if (entries_.get(entry.rObject.getName()) == entry)
+         entries_.remove(entry.rObject.getName());
+   }
+
+   private void replaceTrackedEntry(RObjectEntry oldEntry,
+                                    RObjectEntry newEntry)
+   {
+      for (int i = 0; i < categoryLeaders_.length; i++)
+         if (categoryLeaders_[i] == oldEntry)
+            categoryLeaders_[i] = newEntry;
+      if (firstObject_ == oldEntry)
+         firstObject_ = newEntry;
+   }
+
+   // re-evaluates the leaders of the given categories (a bitmask) after
+   // objects in them were added, removed or changed
+   private void updateCategoryLeaders(int categories)
+   {
+      if (objectDisplayType_ != OBJECT_LIST_VIEW)
+         return;
+
+      // in the list view, objects are sorted by category first, so each
+      // category's objects are contiguous and its leader is the first
+      // visible one
       List<RObjectEntry> objects = objectDataProvider_.getList();
-      int numObjects = objects.size();
-      int idx;
-      // consider: can we use binary search here?
-      for (idx = 0; idx < numObjects; idx++)
+      for (int category = 0; category < NUM_CATEGORIES; category++)
+      {
+         if ((categories & (1 << category)) == 0)
+            continue;
+
+         int lo = 0;
+         int hi = objects.size();
+         while (lo < hi)
+         {
+            int mid = (lo + hi) >>> 1;
+            if (objects.get(mid).getCategory() < category)
+               lo = mid + 1;
+            else
+               hi = mid;
+         }
+
+         RObjectEntry leader = null;
+         for (int i = lo; i < objects.size(); i++)
+         {
+            RObjectEntry entry = objects.get(i);
+            if (entry.getCategory() != category)
+               break;
+            if (entry.visible)
+            {
+               leader = entry;
+               break;
+            }
+         }
+
+         RObjectEntry oldLeader = categoryLeaders_[category];
+         if (oldLeader != leader)
+         {
+            categoryLeaders_[category] = leader;
+            if (oldLeader != null)
+            {
+               oldLeader.isCategoryLeader = false;
+               redrawEntry(oldLeader);
+            }
+            if (leader != null)
+            {
+               leader.isCategoryLeader = true;
+               redrawEntry(leader);
+            }
+         }
+      }
+
+      RObjectEntry first = null;
+      for (RObjectEntry leader : categoryLeaders_)
       {
-         if (objectSort_.compare(obj, objects.get(idx)) < 0)
+         if (leader != null)
          {
+            first = leader;
             break;
          }
       }
-      return idx;
+
+      if (first != firstObject_)
+      {
+         if (firstObject_ != null)
+         {
+            firstObject_.isFirstObject = false;
+            redrawEntry(firstObject_);
+         }
+         if (first != null)
+         {
+            first.isFirstObject = true;
+            redrawEntry(first);
+         }
+         firstObject_ = first;
+      }
+   }
+
+   private void redrawEntry(RObjectEntry entry)
+   {
+      // skip entries which are no longer in the table
+      if (entries_.get(entry.rObject.getName()) != entry)
+         return;
+
+      int idx = indexOfEntry(entry);
+      if (idx >= 0)
+         redrawRowSafely(idx);
    }
 
    // after adds or removes, we need to tag the new category-leading objects
@@ -593,6 +847,8 @@ public class EnvironmentObjects extends ResizeComposite
       // whether or not we've found a leader for each category
       Boolean[] leaders = { false, false, false, false };
       boolean foundFirstObject = false;
+      categoryLeaders_ = new RObjectEntry[NUM_CATEGORIES];
+      firstObject_ = null;
 
       for (int i = 0; i < objects.size(); i++)
       {
@@ -603,6 +859,7 @@ public class EnvironmentObjects extends ResizeComposite
          {
             entry.isFirstObject = true;
             foundFirstObject = true;
+            firstObject_ = entry;
          }
          else
          {
@@ -615,6 +872,7 @@ public class EnvironmentObjects extends ResizeComposite
          if (!leaders[category])
          {
             leaders[category] = true;
+            categoryLeaders_[category] = entry;
             if (!leader)
             {
                entry.isCategoryLeader = true;
@@ -764,6 +1022,17 @@ public class EnvironmentObjects extends ResizeComposite
    private ListDataProvider<RObjectEntry> objectDataProvider_;
    private RObjectEntrySort objectSort_;
 
+   // entries by object name
+   private final HashMap<String, RObjectEntry> entries_ = new HashMap<>();
+
+   // object changes not yet applied to the list (null for removals)
+   private LinkedHashMap<String, RObject> pendingChanges_ = new LinkedHashMap<>();
+   private boolean applyScheduled_ = false;
+
+   // current category leaders (list view only)
+   private RObjectEntry[] categoryLeaders_ = new RObjectEntry[NUM_CATEGORIES];
+   private RObjectEntry firstObject_;
+
    private EnvironmentObjectsObserver observer_;
    private int contextDepth_;
    private int callFramePanelHeight_;
@@ -781,4 +1050,9 @@ public class EnvironmentObjects extends ResizeComposite
    private int gridRenderRetryCount_ = 0;
 
    public final static int MAX_ENVIRONMENT_OBJECTS = 1024;
+
+   private final static int NUM_CATEGORIES = 3;
+
+   // batches larger than this rebuild the list instead of editing it in place
+   private final static int MAX_INCREMENTAL_CHANGES = 64;
 }
@@ -102,6 +102,14 @@ class RObjectEntrySort implements Comparator<RObjectEntry>
                                    second.getDisplayValue());
             break;
          }
+
+         // break ties by name, so that the order is total (the environment
+         // pane relies on this to find entries by binary search)
+         if (result == 0 && sortColumn_ != ObjectGridColumn.COLUMN_NAME)
+         {
+            result = localeCompare(first.rObject.getName(),
+                                   second.rObject.getName());
+         }
       }
       return result;
    }
@@ -16,7 +16,10 @@ package org.rstudio.studio.client.workbench.views.files.ui;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.rstudio.core.client.Debug;
@@ -27,7 +30,7 @@ import org.rstudio.core.client.cellview.LabeledBoolean;
 import org.rstudio.core.client.cellview.LinkColumn;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.widget.OperationWithInput;
-import org.rstudio.core.client.widget.RStudioDataGrid;
+import org.rstudio.core.client.widget.VirtualizedDataGrid;
 import org.rstudio.studio.client.ResizableHeader;
 import org.rstudio.studio.client.common.filetypes.FileIcon;
 import org.rstudio.studio.client.common.filetypes.FileIconResourceCell;
@@ -38,10 +41,13 @@ import org.rstudio.studio.client.workbench.views.files.model.FileChange;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.dom.client.NodeList;
 import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.dom.client.Style.WhiteSpace;
+import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.logical.shared.ResizeEvent;
 import com.google.gwt.event.logical.shared.ResizeHandler;
+import com.google.gwt.safehtml.shared.SafeHtml;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.safehtml.shared.SafeHtmlUtils;
 import com.google.gwt.user.cellview.client.DataGrid;
@@ -78,11 +84,48 @@ public class FilesList extends Composite
       sortHandler_ = new ColumnSortEvent.ListHandler<FileSystemItem>(
                                                       dataProvider_.getList());
 
-      // create cell table
-      filesDataGrid_ = new RStudioDataGrid<FileSystemItem>(
-                                          15,
+      // create cell table (virtualized, so that only the rows scrolled into
+      // view are drawn in very large directories)
+      filesDataGrid_ = new VirtualizedDataGrid<FileSystemItem>(
                                           FilesListDataGridResources.INSTANCE,
-                                          KEY_PROVIDER);
+                                          KEY_PROVIDER)
+      {
+         @Override
+         public int getRowHeight()
+         {
+            // measure a drawn row if we can, since the height depends on the
+            // theme and font size (the first row may be padding)
+            NodeList<TableRowElement> rows = getTableBodyElement().getRows();
+            for (int i = 0; i < rows.getLength() && i < 2; i++)
+            {
+               TableRowElement row = rows.getItem(i);
+               if (row.hasAttribute("__gwt_row") && row.getOffsetHeight() > 0)
+               {
+                  rowHeight_ = row.getOffsetHeight();
+                  break;
+               }
+            }
+            return rowHeight_;
+         }
+
+         @Override
+         public int getTotalNumberOfRows()
+         {
+            return dataProvider_.getList().size();
+         }
+
+         @Override
+         protected void replaceChildren(List<FileSystemItem> values,
+                                        int start,
+                                        SafeHtml html)
+         {
+            // we edit the list in place as files change, so the data provider
+            // pushes ranges of rows; the padding rows mean that rows in the
+            // DOM don't line up with rows of data, so rather than replacing
+            // a range of rows, re-draw the active rows
+            redraw();
+         }
+      };
       selectionModel_ = new MultiSelectionModel<FileSystemItem>(KEY_PROVIDER);
       filesDataGrid_.setSelectionModel(
          selectionModel_,
@@ -382,16 +425,17 @@ public class FilesList extends Composite
       // clear the selection
       selectNone();
 
+      // the listing supersedes any changes we haven't applied yet
+      pendingChanges_.clear();
+
       // set containing path
       containingPath_ = containingPath;
       parentPath_ = containingPath_.getParentPath();
 
-      // set page size (+1 for parent path)
-      filesDataGrid_.setPageSize(files.length() + 1);
-
-      // get underlying list
-      List<FileSystemItem> fileList = dataProvider_.getList();
-      fileList.clear();
+      // build the new list and index off to the side, then hand the list over
+      // in one go
+      List<FileSystemItem> fileList = new ArrayList<FileSystemItem>(files.length() + 1);
+      filesByPath_.clear();
 
       // add entry for parent path if we have one
       if (parentPath_ != null)
@@ -399,7 +443,14 @@ public class FilesList extends Composite
 
       // add files to table
       for (int i=0; i<files.length(); i++)
-         fileList.add(files.get(i));
+      {
+         FileSystemItem file = files.get(i);
+         fileList.add(file);
+         filesByPath_.put(keyForFile(file), file);
+      }
+
+      dataProvider_.getList().clear();
+      dataProvider_.getList().addAll(fileList);
 
       // apply sort list
       applyColumnSortList();
@@ -433,61 +484,65 @@ public class FilesList extends Composite
    }
 
    public void updateWithAction(FileChange viewAction)
+   {
+      // file monitor events tend to arrive in bursts (e.g. when an archive is
+      // extracted or a build writes its outputs), so queue them up and apply
+      // them together. only the latest change to each file matters, except
+      // that a file added and then modified still needs adding.
+      String key = keyForFile(viewAction.getFile());
+      FileChange pending = pendingChanges_.remove(key);
+      if (pending != null &&
+          pending.getType() == FileChange.ADD &&
+          viewAction.getType() == FileChange.MODIFIED)
+      {
+         viewAction = FileChange.createAdd(viewAction.getFile());
+      }
+      pendingChanges_.put(key, viewAction);
+
+      if (pendingChanges_.size() == 1)
+      {
+         Scheduler.get().scheduleDeferred(() -> applyPendingChanges());
+      }
+   }
+
+   private void applyPendingChanges()
+   {
+      if (pendingChanges_.isEmpty())
+         return;
+
+      List<FileChange> changes = new ArrayList<FileChange>(pendingChanges_.values());
+      pendingChanges_.clear();
+
+      for (FileChange change : changes)
+         applyChange(change);
+
+      // push the changes to the table now, so they're drawn in one pass
+      dataProvider_.flush();
+   }
+
+   private void applyChange(FileChange viewAction)
    {
       final FileSystemItem file = viewAction.getFile();
-      final List<FileSystemItem> files = getFiles();
       switch(viewAction.getType())
       {
       case FileChange.ADD:
          if (file.getParentPath().equalTo(containingPath_))
          {
-            int row = rowForFile(file);
-            if (row == -1)
-            {
-               files.add(file);
-               filesDataGrid_.setPageSize(files.size() + 1);
-            }
-            else
-            {
-               // since we eagerly perform renames at the client UI
-               // layer then sometimes an "added" file is really just
-               // a rename. in this case the file already exists due
-               // to the eager rename in the client but still needs its
-               // metadata updated
-               files.set(row, file);
-            }
+            // since we eagerly perform renames at the client UI layer then
+            // sometimes an "added" file is really just a rename. in this case
+            // the file already exists due to the eager rename in the client
+            // but still needs its metadata updated
+            replaceFile(file);
          }
          break;
 
       case FileChange.MODIFIED:
-         {
-            int row = rowForFile(file);
-            if (row != -1)
-            {
-               // the selection model loses the selection state when we update
-               // the row, so save and restore it manually.
-               boolean selected = selectionModel_.isSelected(file);
-               files.set(row, file);
-               selectionModel_.setSelected(file, selected);
-            }
-         }
+         if (filesByPath_.containsKey(keyForFile(file)))
+            replaceFile(file);
          break;
 
       case FileChange.DELETE:
-         {
-            int row = rowForFile(file);
-            if (row != -1)
-            {
-               files.remove(row);
-
-               // if a file is deleted and then re-added within the same
-               // event loop (as occurs when gedit saves a text file) the
-               // table doesn't always update correctly (it has a duplicate
-               // of the item deleted / re-added). the call to flush overcomes
-               // this issue
-               dataProvider_.flush();
-            }
-         }
+         removeFile(file);
          break;
 
       default:
@@ -499,11 +554,11 @@ public class FilesList extends Composite
 
    public void renameFile(FileSystemItem from, FileSystemItem to)
    {
-      int index = getFiles().indexOf(from);
-      if (index != -1)
+      if (filesByPath_.containsKey(keyForFile(from)))
       {
          selectNone();
-         getFiles().set(index, to);
+         removeFile(from);
+         insertFile(to);
       }
    }
 
@@ -512,14 +567,107 @@ public class FilesList extends Composite
       return dataProvider_.getList();
    }
 
-   private int rowForFile(FileSystemItem file)
+   // adds a file, or replaces the existing entry for it (which may sort
+   // differently, e.g. if its size changed)
+   private void replaceFile(FileSystemItem file)
+   {
+      // the selection model loses the selection state when we update
+      // the row, so save and restore it manually.
+      boolean selected = selectionModel_.isSelected(file);
+      removeFile(file);
+      insertFile(file);
+      if (selected)
+         selectionModel_.setSelected(file, true);
+   }
+
+   private void insertFile(FileSystemItem file)
    {
       List<FileSystemItem> files = getFiles();
-      for (int i=0; i<files.size(); i++)
-         if (files.get(i).equalTo(file))
-            return i;
+      Comparator<FileSystemItem> comparator = getActiveComparator();
+      if (comparator == null)
+         files.add(file);
+      else
+         files.add(searchFiles(file, comparator, true), file);
+      filesByPath_.put(keyForFile(file), file);
+   }
+
+   private void removeFile(FileSystemItem file)
+   {
+      FileSystemItem existing = filesByPath_.remove(keyForFile(file));
+      if (existing == null)
+         return;
+
+      int row = rowForFile(existing);
+      if (row != -1)
+         getFiles().remove(row);
+   }
 
-      return -1;
+   // finds the row of an item in the list (the item itself, rather than
+   // another one representing the same file)
+   private int rowForFile(FileSystemItem item)
+   {
+      List<FileSystemItem> files = getFiles();
+      Comparator<FileSystemItem> comparator = getActiveComparator();
+      if (comparator != null)
+      {
+         // the list is kept sorted, so the item is among the run of rows which
+         // sort equal to it
+         for (int row = searchFiles(item, comparator, false);
+              row < files.size() && comparator.compare(files.get(row), item) == 0;
+              row++)
+         {
+            if (files.get(row) == item)
+               return row;
+         }
+      }
+
+      return files.indexOf(item);
+   }
+
+   // binary search of the (sorted) list for the first row which sorts after
+   // the item (if after is true), or the first which doesn't sort before it
+   private int searchFiles(FileSystemItem item,
+                           Comparator<FileSystemItem> comparator,
+                           boolean after)
+   {
+      List<FileSystemItem> files = getFiles();
+      int lo = 0;
+      int hi = files.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         int result = comparator.compare(files.get(mid), item);
+         if (result < 0 || (after && result == 0))
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   // the comparator the list is currently sorted with, or null if it isn't
+   // sorted
+   @SuppressWarnings("unchecked")
+   private Comparator<FileSystemItem> getActiveComparator()
+   {
+      ColumnSortList sortList = filesDataGrid_.getColumnSortList();
+      if (sortList.size() == 0)
+         return null;
+
+      ColumnSortList.ColumnSortInfo sortInfo = sortList.get(0);
+      final Comparator<FileSystemItem> comparator = sortHandler_.getComparator(
+            (Column<FileSystemItem, ?>) sortInfo.getColumn());
+      if (comparator == null || sortInfo.isAscending())
+         return comparator;
+
+      // (as the sort handler does for descending sorts)
+      return (lhs, rhs) -> -comparator.compare(lhs, rhs);
+   }
+
+   // matches FileSystemItem.equalTo: paths are compared without regard to case
+   private static String keyForFile(FileSystemItem file)
+   {
+      return (file.isDirectory() ? "d:" : "f:") + file.getPath().toLowerCase();
    }
 
    private void applyColumnSortList()
@@ -694,11 +842,15 @@ public class FilesList extends Composite
 
    private final MultiSelectionModel<FileSystemItem> selectionModel_;
    private final ListDataProvider<FileSystemItem> dataProvider_;
+   private final Map<String, FileSystemItem> filesByPath_ = new HashMap<>();
+   private final LinkedHashMap<String, FileChange> pendingChanges_ = new LinkedHashMap<>();
+   private int rowHeight_ = DEFAULT_ROW_HEIGHT_PIXELS;
    private final ColumnSortEvent.ListHandler<FileSystemItem> sortHandler_;
 
    private final Files.Display.Observer observer_;
    private final ResizeLayoutPanel layoutPanel_;
 
+   private static final int DEFAULT_ROW_HEIGHT_PIXELS = 24;
    private static final int CHECK_COLUMN_WIDTH_PIXELS = 30;
    private static final int ICON_COLUMN_WIDTH_PIXELS = 26;
    private static final int SIZE_COLUMN_WIDTH_PIXELS = 80;
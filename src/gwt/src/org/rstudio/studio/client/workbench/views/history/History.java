@@ -17,6 +17,7 @@ package org.rstudio.studio.client.workbench.views.history;
 import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.event.dom.client.KeyCodes;
 import com.google.gwt.event.dom.client.KeyDownEvent;
@@ -117,6 +118,7 @@ public class History extends BasePresenter implements SelectionCommitEvent.Handl
       void dismissSearchResults();
       void showSearchResults(String query,
                              ArrayList<HistoryEntry> entries);
+      void addSearchResults(ArrayList<HistoryEntry> entries);
       void showContext(String command,
                        ArrayList<HistoryEntry> entries,
                        long highlightOffset,
@@ -147,30 +149,66 @@ public class History extends BasePresenter implements SelectionCommitEvent.Handl
       protected void performAction(boolean shouldSchedulePassive)
       {
          final String query = searchQuery_;
-         if (searchQuery_ != null && searchQuery_.length() > 0)
+         if (query == null || query.length() == 0)
+            return;
+
+         cancelRequest();
+
+         // answer from the entries we've already fetched where we can; if
+         // that answer is exact we're done, otherwise it's shown until the
+         // server responds
+         boolean complete = searchIndex_.isComplete(query);
+         if (complete || view_.getMode() == Display.Mode.SearchResults)
          {
-            server_.searchHistoryArchive(
-                  searchQuery_, COMMAND_CHUNK_SIZE,
-                  new SimpleRequestCallback<RpcObjectList<HistoryEntry>>()
-                  {
-                     @Override
-                     public void onResponseReceived(
-                           RpcObjectList<HistoryEntry> response)
-                     {
-                        if (!StringUtil.equals(query, searchQuery_))
-                           return;
-
-                        ArrayList<HistoryEntry> entries = toList(response);
-                        view_.showSearchResults(query, entries);
-                     }
-                  });
+            ArrayList<HistoryEntry> entries =
+                  searchIndex_.search(query, COMMAND_CHUNK_SIZE);
+            if (complete)
+            {
+               showResults(query, entries);
+               return;
+            }
+            else if (!entries.isEmpty())
+            {
+               showResults(query, entries);
+            }
          }
+
+         request_ = new SimpleRequestCallback<RpcObjectList<HistoryEntry>>()
+         {
+            @Override
+            public void onResponseReceived(
+                  RpcObjectList<HistoryEntry> response)
+            {
+               request_ = null;
+               if (!StringUtil.equals(query, searchQuery_))
+                  return;
+
+               ArrayList<HistoryEntry> entries = toList(response);
+               searchIndex_.addResults(query,
+                                       entries,
+                                       entries.size() < COMMAND_CHUNK_SIZE);
+               showResults(query, entries);
+            }
+
+            @Override
+            public void onError(ServerError error)
+            {
+               request_ = null;
+               super.onError(error);
+            }
+         };
+
+         server_.searchHistoryArchive(query, COMMAND_CHUNK_SIZE, request_);
       }
 
       public void onValueChange(ValueChangeEvent<String> event)
       {
          String query = event.getValue();
          searchQuery_ = query;
+
+         // a response for the old query is of no use
+         cancelRequest();
+
          if (searchQuery_ == "")
          {
             view_.dismissSearchResults();
@@ -181,13 +219,68 @@ public class History extends BasePresenter implements SelectionCommitEvent.Handl
          }
       }
 
+      // new entries may match queries we thought we had all the results for
+      public void onHistoryAdded()
+      {
+         searchIndex_.invalidate();
+      }
+
+      public void onHistoryReset()
+      {
+         searchIndex_.clear();
+      }
+
       public void dismissResults()
       {
+         cancelRequest();
          view_.dismissSearchResults();
          searchQuery_ = null;
       }
 
+      // shows the first page of results right away and the rest in
+      // subsequent passes, so a large result set doesn't block input
+      private void showResults(final String query,
+                               final ArrayList<HistoryEntry> entries)
+      {
+         final int generation = ++resultsGeneration_;
+         int first = Math.min(entries.size(), RESULTS_PAGE_SIZE);
+         view_.showSearchResults(query,
+                                 new ArrayList<HistoryEntry>(entries.subList(0, first)));
+         if (first == entries.size())
+            return;
+
+         Scheduler.get().scheduleIncremental(new RepeatingCommand()
+         {
+            @Override
+            public boolean execute()
+            {
+               if (generation != resultsGeneration_)
+                  return false;
+
+               int end = Math.min(entries.size(), position_ + RESULTS_PAGE_SIZE);
+               view_.addSearchResults(
+                     new ArrayList<HistoryEntry>(entries.subList(position_, end)));
+               position_ = end;
+               return position_ < entries.size();
+            }
+
+            private int position_ = RESULTS_PAGE_SIZE;
+         });
+      }
+
+      private void cancelRequest()
+      {
+         if (request_ != null)
+         {
+            request_.cancel();
+            request_ = null;
+         }
+      }
+
       private String searchQuery_;
+      private ServerRequestCallback<RpcObjectList<HistoryEntry>> request_;
+      private int resultsGeneration_;
+      private final HistorySearchIndex searchIndex_ = new HistorySearchIndex();
    }
 
    @Inject
@@ -219,6 +312,8 @@ public class History extends BasePresenter implements SelectionCommitEvent.Handl
          @Override
          public void onConsoleResetHistory(ConsoleResetHistoryEvent event)
          {
+            searchCommand_.onHistoryReset();
+
             // convert to HistoryEntry
             ArrayList<HistoryEntry> commands = toRecentCommandsList(
                                                          event.getHistory());
@@ -262,6 +357,7 @@ public class History extends BasePresenter implements SelectionCommitEvent.Handl
       {
          public void onHistoryEntriesAdded(HistoryEntriesAddedEvent event)
          {
+            searchCommand_.onHistoryAdded();
             view_.addRecentCommands(toList(event.getEntries()), false);
             view_.truncateRecentCommands(
                         session_.getSessionInfo().getConsoleHistoryCapacity());
@@ -656,6 +752,7 @@ public class History extends BasePresenter implements SelectionCommitEvent.Handl
    private long historyPosition_ = 0;
 
    private static final int COMMAND_CHUNK_SIZE = 300;
+   private static final int RESULTS_PAGE_SIZE = 50;
    private static final int CONTEXT_LINES = 50;
    private boolean fetchingMoreCommands_ = false;
    private final Display view_;
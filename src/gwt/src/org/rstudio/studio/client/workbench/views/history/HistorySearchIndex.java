@@ -0,0 +1,232 @@
+/*
+ * HistorySearchIndex.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.history;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.rstudio.core.client.JsVectorInteger;
+import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
+
+// A client-side index of the history archive entries returned by searches,
+// used to answer (or provisionally answer) a query without a server round
+// trip as the user types.
+//
+// Queries are matched the way the server matches them: the query is split
+// into terms, and an entry matches if its command contains every term. So
+// if the server has returned *all* the matches for a query, the matches for
+// any refinement of it (a query each of whose terms contains one of the
+// earlier query's terms) are among them, and can be found locally.
+//
+// Entries are found through a trigram index: the candidates for a query are
+// the entries containing every trigram of its longest term, and only those
+// are checked against the full query.
+class HistorySearchIndex
+{
+   /**
+    * Records the server's results for a query.
+    *
+    * @param complete Whether the results contain every match for the query
+    *    (i.e. the server didn't stop at its result limit).
+    */
+   public void addResults(String query, ArrayList<HistoryEntry> entries,
+                          boolean complete)
+   {
+      if (entries_.size() + entries.size() > MAX_ENTRIES)
+         clear();
+
+      for (HistoryEntry entry : entries)
+         add(entry);
+
+      if (complete)
+         completeQueries_.add(tokenize(query));
+   }
+
+   /**
+    * @return Whether the matches for the query can be computed exactly from
+    *    the entries already indexed.
+    */
+   public boolean isComplete(String query)
+   {
+      ArrayList<String> terms = tokenize(query);
+      for (ArrayList<String> complete : completeQueries_)
+      {
+         if (refines(terms, complete))
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * @return The indexed entries matching the query, newest first (at most
+    *    maxEntries of them).
+    */
+   public ArrayList<HistoryEntry> search(String query, int maxEntries)
+   {
+      ArrayList<String> terms = tokenize(query);
+      ArrayList<HistoryEntry> result = new ArrayList<HistoryEntry>();
+      if (terms.isEmpty())
+         return result;
+
+      // use the longest term to narrow the candidates
+      String longest = terms.get(0);
+      for (String term : terms)
+      {
+         if (term.length() > longest.length())
+            longest = term;
+      }
+
+      JsVectorInteger candidates = null;
+      for (int i = 0; i + 3 <= longest.length(); i++)
+      {
+         JsVectorInteger slots = trigrams_.get(longest.substring(i, i + 3));
+         if (slots == null)
+            return result;
+         if (candidates == null || slots.length() < candidates.length())
+            candidates = slots;
+      }
+
+      int count = candidates == null ? entries_.size() : candidates.length();
+      for (int i = 0; i < count; i++)
+      {
+         HistoryEntry entry = entries_.get(candidates == null ? i : candidates.get(i));
+         if (matches(entry.getCommand(), terms))
+            result.add(entry);
+      }
+
+      result.sort((lhs, rhs) -> Long.compare(rhs.getIndex(), lhs.getIndex()));
+      if (result.size() > maxEntries)
+         result.subList(maxEntries, result.size()).clear();
+      return result;
+   }
+
+   /**
+    * Forgets which queries have complete results (e.g. because new entries
+    * have been added to the history), keeping the entries themselves.
+    */
+   public void invalidate()
+   {
+      completeQueries_.clear();
+   }
+
+   public void clear()
+   {
+      entries_.clear();
+      slots_.clear();
+      trigrams_.clear();
+      completeQueries_.clear();
+   }
+
+   private void add(HistoryEntry entry)
+   {
+      Long index = entry.getIndex();
+      if (slots_.containsKey(index))
+         return;
+
+      int slot = entries_.size();
+      entries_.add(entry);
+      slots_.put(index, slot);
+
+      String command = entry.getCommand();
+      for (int i = 0; i + 3 <= command.length(); i++)
+      {
+         String trigram = command.substring(i, i + 3);
+         JsVectorInteger slots = trigrams_.get(trigram);
+         if (slots == null)
+         {
+            slots = JsVectorInteger.createVector();
+            trigrams_.put(trigram, slots);
+         }
+
+         // a command may contain the same trigram more than once
+         if (slots.isEmpty() || slots.get(slots.length() - 1) != slot)
+            slots.push(slot);
+      }
+   }
+
+   private static boolean matches(String command, ArrayList<String> terms)
+   {
+      for (String term : terms)
+      {
+         if (!command.contains(term))
+            return false;
+      }
+      return true;
+   }
+
+   // true if every entry matching 'terms' also matches 'earlier'
+   private static boolean refines(ArrayList<String> terms,
+                                  ArrayList<String> earlier)
+   {
+      for (String term : earlier)
+      {
+         boolean contained = false;
+         for (String candidate : terms)
+         {
+            if (candidate.contains(term))
+            {
+               contained = true;
+               break;
+            }
+         }
+         if (!contained)
+            return false;
+      }
+      return true;
+   }
+
+   // Splits a query into terms the same way the server does: runs of
+   // whitespace separate terms, and each punctuation character is a term
+   // of its own.
+   static ArrayList<String> tokenize(String query)
+   {
+      ArrayList<String> terms = new ArrayList<String>();
+      int start = -1;
+      for (int i = 0, n = query.length(); i <= n; i++)
+      {
+         char ch = i < n ? query.charAt(i) : ' ';
+         boolean space = Character.isWhitespace(ch);
+         boolean punct = !space && isPunct(ch);
+         if (space || punct)
+         {
+            if (start != -1)
+               terms.add(query.substring(start, i));
+            start = -1;
+            if (punct)
+               terms.add(String.valueOf(ch));
+         }
+         else if (start == -1)
+         {
+            start = i;
+         }
+      }
+      return terms;
+   }
+
+   private static boolean isPunct(char ch)
+   {
+      return (ch >= '!' && ch <= '/') ||
+             (ch >= ':' && ch <= '@') ||
+             (ch >= '[' && ch <= '`') ||
+             (ch >= '{' && ch <= '~');
+   }
+
+   private final ArrayList<HistoryEntry> entries_ = new ArrayList<HistoryEntry>();
+   private final HashMap<Long, Integer> slots_ = new HashMap<Long, Integer>();
+   private final HashMap<String, JsVectorInteger> trigrams_ = new HashMap<String, JsVectorInteger>();
+   private final ArrayList<ArrayList<String>> completeQueries_ = new ArrayList<ArrayList<String>>();
+
+   private static final int MAX_ENTRIES = 20000;
+}
@@ -520,6 +520,11 @@ public class HistoryPane extends WorkbenchPane
          searchResults_.highlightRows(0, 1);
    }
 
+   public void addSearchResults(ArrayList<HistoryEntry> entries)
+   {
+      searchResults_.addItems(entries, false);
+   }
+
    public void dismissContext()
    {
       setMode(Mode.SearchResults);
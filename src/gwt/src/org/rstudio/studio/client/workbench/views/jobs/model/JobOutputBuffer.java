@@ -0,0 +1,178 @@
+/*
+ * JobOutputBuffer.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.jobs.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds a job's output until it has been rendered.
+ *
+ * Output is kept as a ring of chunks (as received from the server) holding at
+ * most a fixed number of lines; when more arrives than has been rendered
+ * (e.g. because the job logs faster than we can draw, or the output isn't
+ * visible) the oldest chunks are dropped. The buffer also counts the bytes
+ * received and dropped over the life of the job.
+ */
+public class JobOutputBuffer
+{
+   public static class Chunk
+   {
+      Chunk(int type, String output)
+      {
+         this.type = type;
+         this.output = output;
+         this.lines = countLines(output);
+      }
+
+      public final int type;
+      public final String output;
+      final int lines;
+   }
+
+   /**
+    * Creates a new output buffer.
+    *
+    * @param maxLines The maximum number of unrendered lines to hold
+    */
+   public JobOutputBuffer(int maxLines)
+   {
+      maxLines_ = maxLines;
+   }
+
+   public void setMaxLines(int maxLines)
+   {
+      maxLines_ = maxLines;
+      trimExcess();
+   }
+
+   /**
+    * Adds output to the buffer, dropping the oldest unrendered output if the
+    * buffer is full.
+    *
+    * @param type The type of the output (a CompileOutput type)
+    * @param output The output
+    */
+   public void append(int type, String output)
+   {
+      if (output == null || output.isEmpty())
+         return;
+
+      bytesReceived_ += output.length();
+
+      Chunk chunk = new Chunk(type, output);
+      chunks_.add(chunk);
+      lines_ += chunk.lines;
+      trimExcess();
+   }
+
+   public boolean isEmpty()
+   {
+      return chunks_.isEmpty();
+   }
+
+   /**
+    * Removes the oldest unrendered chunk of output from the buffer.
+    *
+    * @return The chunk, or null if the buffer is empty
+    */
+   public Chunk poll()
+   {
+      Chunk chunk = chunks_.poll();
+      if (chunk != null)
+         lines_ -= chunk.lines;
+      return chunk;
+   }
+
+   /**
+    * Removes a batch of the oldest unrendered chunks of output from the
+    * buffer, so that a lot of output can be rendered a piece at a time.
+    *
+    * @param maxChunks The most chunks to remove
+    * @return The chunks, oldest first (empty if the buffer is empty)
+    */
+   public List<Chunk> pollBatch(int maxChunks)
+   {
+      List<Chunk> batch = new ArrayList<>();
+      while (batch.size() < maxChunks && !chunks_.isEmpty())
+         batch.add(poll());
+      return batch;
+   }
+
+   /**
+    * @return The number of lines dropped since this was last called (so that
+    *   the gap can be noted in the rendered output)
+    */
+   public int takeDroppedLines()
+   {
+      int dropped = droppedLines_;
+      droppedLines_ = 0;
+      return dropped;
+   }
+
+   /**
+    * Discards all unrendered output (e.g. because the server is about to
+    * replay the job's output from the start). Output discarded here isn't
+    * counted as dropped.
+    */
+   public void clear()
+   {
+      chunks_.clear();
+      lines_ = 0;
+      droppedLines_ = 0;
+   }
+
+   public long getBytesReceived()
+   {
+      return bytesReceived_;
+   }
+
+   public long getBytesDropped()
+   {
+      return bytesDropped_;
+   }
+
+   private void trimExcess()
+   {
+      // always keep the newest chunk, even if it's too long by itself
+      while (lines_ > maxLines_ && chunks_.size() > 1)
+      {
+         Chunk chunk = chunks_.poll();
+         lines_ -= chunk.lines;
+         droppedLines_ += chunk.lines;
+         bytesDropped_ += chunk.output.length();
+      }
+   }
+
+   private static int countLines(String output)
+   {
+      int lines = 0;
+      for (int i = output.indexOf('\n'); i != -1; i = output.indexOf('\n', i + 1))
+         lines++;
+
+      // count a trailing partial line, too
+      if (!output.endsWith("\n"))
+         lines++;
+      return lines;
+   }
+
+   private final ArrayDeque<Chunk> chunks_ = new ArrayDeque<>();
+   private int maxLines_;
+   private int lines_ = 0;
+   private int droppedLines_ = 0;
+   private long bytesReceived_ = 0;
+   private long bytesDropped_ = 0;
+}
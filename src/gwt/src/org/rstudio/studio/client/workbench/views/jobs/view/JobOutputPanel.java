@@ -17,15 +17,18 @@ package org.rstudio.studio.client.workbench.views.jobs.view;
 import org.rstudio.studio.client.common.compile.CompileOutput;
 import org.rstudio.studio.client.common.compile.CompileOutputBufferWithHighlight;
 import org.rstudio.studio.client.common.compile.CompilePanel;
+import org.rstudio.studio.client.workbench.views.jobs.model.JobOutputBuffer;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.RequiresResize;
 import com.google.gwt.user.client.ui.Widget;
 
-public class JobOutputPanel extends Composite
+public class JobOutputPanel extends Composite implements RequiresResize
 {
    private static JobOutputPanelUiBinder uiBinder = GWT.create(JobOutputPanelUiBinder.class);
 
@@ -56,6 +59,37 @@ public class JobOutputPanel extends Composite
       output_.scrollToBottom();
    }
    
+   /**
+    * Sets the buffer to render output from, replacing any output currently
+    * shown. Output is drawn from the buffer in batches, and only while the
+    * panel is showing; call outputAvailable() when more has been added.
+    * 
+    * @param buffer The buffer, or null to stop rendering output
+    */
+   public void setBuffer(JobOutputBuffer buffer)
+   {
+      clearOutput();
+      buffer_ = buffer;
+      outputAvailable();
+   }
+   
+   public void outputAvailable()
+   {
+      if (buffer_ == null || renderScheduled_)
+         return;
+      
+      renderScheduled_ = true;
+      Scheduler.get().scheduleIncremental(() -> renderBatch());
+   }
+   
+   @Override
+   public void onResize()
+   {
+      // we may have just been shown; catch up on anything buffered while we
+      // were hidden
+      outputAvailable();
+   }
+   
    public void showOutput(CompileOutput output, boolean scrollToBottom)
    {
       if (output.getOutput().isEmpty())
@@ -68,6 +102,41 @@ public class JobOutputPanel extends Composite
       output_.showOutput(output, scrollToBottom);
    }
    
+   private boolean renderBatch()
+   {
+      // output that isn't visible can wait (and if it piles up, the buffer
+      // will drop the oldest of it)
+      if (buffer_ == null || !isAttached() || getOffsetHeight() == 0)
+      {
+         renderScheduled_ = false;
+         return false;
+      }
+      
+      int dropped = buffer_.takeDroppedLines();
+      if (dropped > 0)
+      {
+         showOutput(CompileOutput.create(CompileOutput.kCommand,
+               "[" + dropped + " lines of output omitted]\n"), false);
+      }
+      
+      for (JobOutputBuffer.Chunk chunk : buffer_.pollBatch(RENDER_BATCH_SIZE))
+         showOutput(CompileOutput.create(chunk.type, chunk.output), false);
+      output_.scrollToBottom();
+      
+      if (buffer_.isEmpty())
+      {
+         renderScheduled_ = false;
+         return false;
+      }
+      return true;
+   }
+   
+   private JobOutputBuffer buffer_;
+   private boolean renderScheduled_ = false;
+   
+   // the number of chunks of output to render at a time
+   private static final int RENDER_BATCH_SIZE = 100;
+   
    @UiField(provided=true) CompilePanel output_;
    @UiField Label empty_;
 }
@@ -17,17 +17,21 @@ package org.rstudio.studio.client.workbench.views.jobs.view;
 import com.google.gwt.core.client.JsArray;
 import com.google.inject.Inject;
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.PerformanceCounters;
 import org.rstudio.core.client.widget.SlidingLayoutPanel;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.events.EventBus;
-import org.rstudio.studio.client.common.compile.CompileOutput;
+import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.ui.WorkbenchPane;
 import org.rstudio.studio.client.workbench.views.jobs.events.JobSelectionEvent;
 import org.rstudio.studio.client.workbench.views.jobs.model.Job;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobConstants;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobOutput;
+import org.rstudio.studio.client.workbench.views.jobs.model.JobOutputBuffer;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implements common behavior for the JobsDisplay methods
@@ -41,12 +45,40 @@ public class JobsDisplayImpl implements JobsDisplay
       widgets_ = widgets;
       
       RStudioGinjector.INSTANCE.injectMembers(this);
+      
+      PerformanceCounters.register(new PerformanceCounters.Source()
+      {
+         @Override
+         public String getName()
+         {
+            return pane_.getTitle() + " Output";
+         }
+
+         @Override
+         public void dump(StringBuilder output)
+         {
+            for (Map.Entry<String, JobOutputBuffer> entry : buffers_.entrySet())
+            {
+               PerformanceCounters.append(output, entry.getKey() + " bytes received",
+                     entry.getValue().getBytesReceived());
+               PerformanceCounters.append(output, entry.getKey() + " bytes dropped",
+                     entry.getValue().getBytesDropped());
+            }
+         }
+      });
    }
    
    @Inject
-   private void initialize(EventBus events)
+   private void initialize(EventBus events, UserPrefs prefs)
    {
       events_ = events;
+      prefs_ = prefs;
+      
+      prefs_.jobOutputMaxLines().addValueChangeHandler((evt) ->
+      {
+         for (JobOutputBuffer buffer : buffers_.values())
+            buffer.setMaxLines(evt.getValue());
+      });
    }
    
    @Override
@@ -77,6 +109,7 @@ public class JobsDisplayImpl implements JobsDisplay
             
             // clean up
             widgets_.removeJob(job);
+            buffers_.remove(job.id);
             break;
 
          case JobConstants.JOB_UPDATED:
@@ -101,19 +134,17 @@ public class JobsDisplayImpl implements JobsDisplay
    @Override
    public void showJobOutput(String id, JsArray<JobOutput> output, boolean animate)
    {
-       // clear any existing output in the pane
-      widgets_.getOutputPanel().clearOutput();
-
-      // display all the output, but don't scroll as we go
+      // the server sends all the job's output so far, so start over with it
+      JobOutputBuffer buffer = getBuffer(id);
+      buffer.clear();
       for (int i = 0; i < output.length(); i++)
       {
-         widgets_.getOutputPanel().showOutput(CompileOutput.create(
-               output.get(i).type(),
-               output.get(i).output()), false /* scroll */);
+         buffer.append(output.get(i).type(), output.get(i).output());
       }
       
-      // scroll to show all output so far
-      widgets_.getOutputPanel().scrollToBottom();
+      // replace any existing output in the pane (the output is drawn in
+      // batches, scrolling to the bottom as it goes)
+      widgets_.getOutputPanel().setBuffer(buffer);
       
       // remove the progress for the current job if we're showing it
       widgets_.removeProgressWidget();
@@ -137,8 +168,10 @@ public class JobsDisplayImpl implements JobsDisplay
          return;
       }
       
-      // add the output
-      widgets_.getOutputPanel().showOutput(CompileOutput.create(type, output), true /* scroll */);
+      // add the output; it's drawn when the panel gets to it (which, if
+      // the panel is hidden, won't be until it's shown again)
+      getBuffer(id).append(type, output);
+      widgets_.getOutputPanel().outputAvailable();
    }
    
    @Override
@@ -155,6 +188,7 @@ public class JobsDisplayImpl implements JobsDisplay
       widgets_.getPanel().slideWidgets(SlidingLayoutPanel.Direction.SlideLeft,
             animate, widgets_::installMainToolbar);
       
+      widgets_.getOutputPanel().setBuffer(null);
       widgets_.setCurrent(null);
    }
    
@@ -215,6 +249,8 @@ public class JobsDisplayImpl implements JobsDisplay
    @Override
    public void onSelected()
    {
+      // draw any output that arrived while we were hidden
+      widgets_.getOutputPanel().outputAvailable();
    }
    
    @Override
@@ -223,10 +259,23 @@ public class JobsDisplayImpl implements JobsDisplay
       widgets_.focus();
    }
 
+   private JobOutputBuffer getBuffer(String id)
+   {
+      JobOutputBuffer buffer = buffers_.get(id);
+      if (buffer == null)
+      {
+         buffer = new JobOutputBuffer(prefs_.jobOutputMaxLines().getValue());
+         buffers_.put(id, buffer);
+      }
+      return buffer;
+   }
+
    // private state
    private final WorkbenchPane pane_;
    private final JobsPaneOperations widgets_;
+   private final Map<String, JobOutputBuffer> buffers_ = new HashMap<>();
   
    // injected
    private EventBus events_;
+   private UserPrefs prefs_;
 }
@@ -95,6 +95,13 @@ public class JobsPane extends WorkbenchPane
    {
       baseImpl_.syncElapsedTime(timestamp);
    }
+
+   @Override
+   public void onSelected()
+   {
+      super.onSelected();
+      baseImpl_.onSelected();
+   }
    
    @Override
    public void bringToFront()
@@ -93,6 +93,13 @@ public class LauncherJobsPane extends WorkbenchPane
       baseImpl_.syncElapsedTime(timestamp);
    }
 
+   @Override
+   public void onSelected()
+   {
+      super.onSelected();
+      baseImpl_.onSelected();
+   }
+
    @Override
    public void bringToFront()
    {
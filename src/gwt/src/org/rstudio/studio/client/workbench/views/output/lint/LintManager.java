@@ -132,6 +132,9 @@ public class LintManager
          @Override
          public void onValueChange(ValueChangeEvent<Void> event)
          {
+            // positions in the last lint no longer line up with the document
+            lastLint_ = null;
+
             if (!userPrefs_.backgroundDiagnostics().getValue())
                return;
 
@@ -338,15 +341,37 @@ public class LintManager
       else
          finalLint = lint;
 
+      lastLint_ = finalLint;
+      showLintWithSpelling();
+   }
+
+   // Redisplay the most recent lint along with freshly computed spelling lint
+   // (used when the background spell checker finds misspellings among words
+   // it hadn't seen when the lint was last shown). Does nothing if the
+   // document has changed since, as the next lint will pick them up.
+   public void refreshSpellingLint()
+   {
+      if (lastLint_ == null || docDisplay_.isPopupVisible())
+         return;
+
+      showLintWithSpelling();
+   }
+
+   private void showLintWithSpelling()
+   {
+      JsArray<LintItem> allLint = JsArray.createArray().cast();
+      for (int i = 0; i < lastLint_.length(); i++)
+         allLint.push(lastLint_.get(i));
+
       if (userPrefs_.realTimeSpellchecking().getValue() && TypoSpellChecker.isLoaded())
       {
          JsArray<LintItem> spellingLint = target_.getSpellingTarget().getLint();
          for (int i = 0; i < spellingLint.length(); i++)
          {
-            finalLint.push(spellingLint.get(i));
+            allLint.push(spellingLint.get(i));
          }
       }
-      docDisplay_.showLint(finalLint);
+      docDisplay_.showLint(allLint);
    }
    
    public void schedule(int milliseconds)
@@ -399,6 +424,7 @@ public class LintManager
    private boolean explicit_;
    private boolean showMarkers_;
    private boolean excludeCurrentStatement_;
+   private JsArray<LintItem> lastLint_;
    
    private LintServerOperations server_;
    private UserPrefs userPrefs_;
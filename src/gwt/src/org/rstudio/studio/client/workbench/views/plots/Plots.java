@@ -185,6 +185,11 @@ public class Plots extends BasePresenter implements PlotsChangedEvent.Handler,
       view_.setProgress(false);
       manipulatorManager_.setProgress(false);
 
+      // update plot size
+      plotSize_ = new Size(plotsState.getWidth(), plotsState.getHeight());
+      plotIndex_ = plotsState.getPlotIndex();
+      plotCount_ = plotsState.getPlotCount();
+
       // if this is the empty plot then clear the display
       // NOTE: we currently return a zero byte PNG as our "empty.png" from
       // the server. this is shown as a blank pane by Webkit, however
@@ -192,21 +197,21 @@ public class Plots extends BasePresenter implements PlotsChangedEvent.Handler,
       // pane. therefore, we put in this workaround.
       if (plotsState.getFilename().startsWith("empty."))
       {
+         plotsCache_.clear();
          view_.showEmptyPlot();
       }
       else
       {
          String url = server_.getGraphicsUrl(plotsState.getFilename());
+         plotsCache_.put(plotIndex_, plotCount_, url, plotSize_);
          view_.showPlot(url);
+         plotsCache_.prefetchNeighbors(plotIndex_, plotSize_);
       }
 
       // activate the plots tab if requested
       if (plotsState.getActivatePlots())
          view_.bringToFront();
 
-      // update plot size
-      plotSize_ = new Size(plotsState.getWidth(), plotsState.getHeight());
-
       // manipulator
       manipulatorManager_.setManipulator(plotsState.getManipulator(),
                                          plotsState.getShowManipulator());
@@ -226,15 +231,17 @@ public class Plots extends BasePresenter implements PlotsChangedEvent.Handler,
    void onNextPlot()
    {
       view_.bringToFront();
-      setChangePlotProgress();
-      server_.nextPlot(new PlotRequestCallback());
+      PlotRequestCallback callback = new ChangePlotRequestCallback();
+      showPlotOrProgress(plotIndex_ + 1);
+      server_.nextPlot(callback);
    }
 
    void onPreviousPlot()
    {
       view_.bringToFront();
-      setChangePlotProgress();
-      server_.previousPlot(new PlotRequestCallback());
+      PlotRequestCallback callback = new ChangePlotRequestCallback();
+      showPlotOrProgress(plotIndex_ - 1);
+      server_.previousPlot(callback);
    }
 
    void onRemovePlot()
@@ -499,6 +506,27 @@ public class Plots extends BasePresenter implements PlotsChangedEvent.Handler,
       }
    }
 
+   // if we still have the image for the plot we're moving to (and the pane
+   // hasn't been resized since it was rendered) then show it right away;
+   // otherwise show progress until the server renders it
+   private void showPlotOrProgress(int index)
+   {
+      if (index < 0 || index >= plotCount_)
+         return;
+
+      String url = plotsCache_.get(index, plotSize_);
+      if (url != null)
+      {
+         plotIndex_ = index;
+         view_.showPlot(url);
+         plotsCache_.prefetchNeighbors(plotIndex_, plotSize_);
+      }
+      else
+      {
+         setChangePlotProgress();
+      }
+   }
+
    private void setChangePlotProgress()
    {
       if (!Desktop.isDesktop())
@@ -540,6 +568,30 @@ public class Plots extends BasePresenter implements PlotsChangedEvent.Handler,
       private final boolean showErrors_;
    }
 
+   // paging shows the remembered image for the plot we're moving to before
+   // the server has moved there; if it can't, go back to the plot we were on
+   private class ChangePlotRequestCallback extends PlotRequestCallback
+   {
+      public ChangePlotRequestCallback()
+      {
+         previousIndex_ = plotIndex_;
+         previousUrl_ = view_.getPlotUrl();
+      }
+
+      @Override
+      public void onError(ServerError error)
+      {
+         super.onError(error);
+
+         plotIndex_ = previousIndex_;
+         if (previousUrl_ != null)
+            view_.showPlot(previousUrl_);
+      }
+
+      private final int previousIndex_;
+      private final String previousUrl_;
+   }
+
    public void onLocator(LocatorEvent event)
    {
       view_.bringToFront();
@@ -616,6 +668,13 @@ public class Plots extends BasePresenter implements PlotsChangedEvent.Handler,
    // export plot impl
    private final ExportPlot exportPlot_;
 
+   // images for plots we've already seen at the current size
+   private final PlotsCache plotsCache_ = new PlotsCache();
+
    // size of most recently rendered plot
    Size plotSize_ = null;
+
+   // position of the displayed plot in the plot history
+   private int plotIndex_ = 0;
+   private int plotCount_ = 0;
 }
@@ -0,0 +1,114 @@
+/*
+ * PlotsCache.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.plots;
+
+import java.util.ArrayList;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.ImageElement;
+
+import org.rstudio.core.client.Size;
+
+// Remembers the image the server last rendered for each plot in the history,
+// along with the size it was rendered at.
+//
+// The server only re-renders a plot when it changes or the device is
+// resized, and rendered images are strong named (and cached by the browser
+// indefinitely), so while the size matches, paging back to a plot can show
+// its remembered image right away rather than waiting on a round trip.
+class PlotsCache
+{
+   public void put(int index, int count, String url, Size size)
+   {
+      // removing plots shifts the indices of those after it, so start over
+      if (count < count_)
+         clear();
+      count_ = count;
+
+      while (entries_.size() <= index)
+         entries_.add(null);
+      entries_.set(index, new Entry(url, size));
+   }
+
+   /**
+    * @return The url of the image for the plot at the given index, or null
+    *    if it hasn't been rendered at the given size.
+    */
+   public String get(int index, Size size)
+   {
+      if (index < 0 || index >= entries_.size())
+         return null;
+
+      Entry entry = entries_.get(index);
+      if (entry == null || !entry.size.equals(size))
+         return null;
+
+      return entry.url;
+   }
+
+   /**
+    * Loads the images for the plots either side of the given index, so that
+    * paging to them doesn't have to wait on the image being fetched and
+    * decoded.
+    */
+   public void prefetchNeighbors(int index, Size size)
+   {
+      String[] urls = new String[] { get(index - 1, size),
+                                     get(index + 1, size) };
+      for (int i = 0; i < urls.length; i++)
+      {
+         if (urls[i] == null)
+         {
+            prefetched_[i] = null;
+         }
+         else if (prefetched_[i] == null ||
+                  !urls[i].equals(prefetchedUrls_[i]))
+         {
+            // hold a reference to the image so it stays decoded
+            prefetched_[i] = Document.get().createImageElement();
+            prefetched_[i].setSrc(urls[i]);
+         }
+         prefetchedUrls_[i] = urls[i];
+      }
+   }
+
+   public void clear()
+   {
+      entries_.clear();
+      for (int i = 0; i < prefetched_.length; i++)
+      {
+         prefetched_[i] = null;
+         prefetchedUrls_[i] = null;
+      }
+      count_ = 0;
+   }
+
+   private static class Entry
+   {
+      Entry(String url, Size size)
+      {
+         this.url = url;
+         this.size = size;
+      }
+
+      final String url;
+      final Size size;
+   }
+
+   private final ArrayList<Entry> entries_ = new ArrayList<>();
+   private final ImageElement[] prefetched_ = new ImageElement[2];
+   private final String[] prefetchedUrls_ = new String[2];
+   private int count_ = 0;
+}
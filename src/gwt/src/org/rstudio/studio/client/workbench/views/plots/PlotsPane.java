@@ -141,13 +141,17 @@ public class PlotsPane extends WorkbenchPane implements Plots.Display,
    {
       // also set frame to about:blank during progress
       if (enabled)
+      {
+         frame_.setPreserveAspectRatio(false);
          frame_.setImageUrl(null);
+      }
 
       super.setProgress(enabled);
    }
 
    public void showEmptyPlot()
    {
+      frame_.setPreserveAspectRatio(false);
       frame_.setImageUrl(null);
       plotsToolbar_.invalidateSeparators();
    }
@@ -157,6 +161,10 @@ public class PlotsPane extends WorkbenchPane implements Plots.Display,
       // save plot url for refresh
       plotUrl_ = plotUrl;
 
+      // the plot was rendered for the pane's current size, so it no longer
+      // needs scaling (see onResize)
+      frame_.setPreserveAspectRatio(false);
+
       // use frame.contentWindow.location.replace to avoid having the plot
       // enter the browser's history
       frame_.setImageUrl(plotUrl);
@@ -194,6 +202,12 @@ public class PlotsPane extends WorkbenchPane implements Plots.Display,
    public void onResize()
    {
       super.onResize();
+
+      // until the server has rendered the plot at the new size, show the
+      // current one scaled to fit rather than stretched
+      if (plotUrl_ != null)
+         frame_.setPreserveAspectRatio(true);
+
       int width = getOffsetWidth();
       ResizeEvent.fire(this, width, getOffsetHeight());
 
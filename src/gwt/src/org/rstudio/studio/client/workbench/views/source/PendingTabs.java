@@ -0,0 +1,167 @@
+/*
+ * PendingTabs.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.SimpleLayoutPanel;
+import com.google.gwt.user.client.ui.Widget;
+
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
+import org.rstudio.studio.client.workbench.views.source.editors.PendingEditingTarget;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+
+/**
+ * Builds the editors of a column's pending tabs (see PendingEditingTarget).
+ *
+ * A pending tab's editor is put inside the tab's placeholder widget, which
+ * remains the widget the column's tab panel knows about; getTabWidget maps
+ * an editor's widget back to it. Documents restored without their contents
+ * have them fetched before their editors are built.
+ */
+class PendingTabs implements PendingEditingTarget.Hydrator
+{
+   interface Column
+   {
+      ArrayList<EditingTarget> getEditors();
+
+      EditingTarget createTarget(SourceDocument doc);
+
+      // called once a pending tab's editor has replaced it in the editor list
+      void onReplaced(PendingEditingTarget pending,
+                      EditingTarget target,
+                      Widget host,
+                      boolean fetched);
+
+      // fetches a document along with its contents, running onFailed if
+      // that isn't possible
+      void fetchDocument(String docId,
+                         CommandWithArg<SourceDocument> onFetched,
+                         Command onFailed);
+   }
+
+   PendingTabs(Column column)
+   {
+      column_ = column;
+   }
+
+   /**
+    * Replaces a pending tab's placeholder with the document's real editor,
+    * and hands the editor to the pending target (see onHydrated). Documents
+    * restored without their contents have them fetched first, in which case
+    * the editor arrives later.
+    */
+   @Override
+   public void hydrate(final PendingEditingTarget pending)
+   {
+      if (!column_.getEditors().contains(pending))
+      {
+         pending.onHydrated(null);
+         return;
+      }
+
+      if (!pending.getDocument().isContentsDeferred())
+      {
+         pending.onHydrated(replace(pending, pending.getDocument(), false));
+         return;
+      }
+
+      column_.fetchDocument(pending.getId(), (doc) ->
+      {
+         // the tab may have been closed while we waited
+         if (!column_.getEditors().contains(pending))
+         {
+            pending.onHydrated(null);
+            return;
+         }
+
+         pending.setDocument(doc);
+         pending.onHydrated(replace(pending, doc, true));
+      },
+      () -> pending.onHydrated(null));
+   }
+
+   /**
+    * Starts building the editor for the next pending tab, if there is one
+    * (skipping those already underway, or which failed to build).
+    *
+    * @return True if a tab was hydrated.
+    */
+   boolean hydrateNext()
+   {
+      for (EditingTarget target : column_.getEditors())
+      {
+         if (target instanceof PendingEditingTarget)
+         {
+            PendingEditingTarget pending = (PendingEditingTarget) target;
+            if (pending.isHydrating() || pending.hasFailed())
+               continue;
+
+            pending.getTarget();
+            return true;
+         }
+      }
+      return false;
+   }
+
+   // returns a tab's real editor, building it if need be; while its contents
+   // are being fetched the pending target stands in for it
+   EditingTarget ensureHydrated(EditingTarget target)
+   {
+      if (target instanceof PendingEditingTarget)
+      {
+         EditingTarget hydrated = ((PendingEditingTarget) target).getTarget();
+         return hydrated == null ? target : hydrated;
+      }
+      return target;
+   }
+
+   // editors of hydrated tabs sit inside their placeholder's widget, which is
+   // the one the tab panel knows about
+   Widget getTabWidget(Widget widget)
+   {
+      Widget host = hosts_.get(widget);
+      return host == null ? widget : host;
+   }
+
+   void onClosed(EditingTarget target)
+   {
+      hosts_.remove(target.asWidget());
+   }
+
+   private EditingTarget replace(PendingEditingTarget pending,
+                                 SourceDocument doc,
+                                 boolean fetched)
+   {
+      ArrayList<EditingTarget> editors = column_.getEditors();
+      EditingTarget target = column_.createTarget(doc);
+      editors.set(editors.indexOf(pending), target);
+
+      // the tab keeps the placeholder's widget; the editor lives inside it
+      SimpleLayoutPanel host = (SimpleLayoutPanel) pending.asWidget();
+      Widget widget = target.asWidget();
+      host.setWidget(widget);
+      hosts_.put(widget, host);
+
+      column_.onReplaced(pending, target, host, fetched);
+      return target;
+   }
+
+   private final Column column_;
+   private final HashMap<Widget, Widget> hosts_ = new HashMap<>();
+}
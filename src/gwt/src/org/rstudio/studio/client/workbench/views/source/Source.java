@@ -87,6 +87,7 @@ import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.dependencies.DependencyManager;
 import org.rstudio.studio.client.common.filetypes.EditableFileType;
 import org.rstudio.studio.client.common.filetypes.FileIcon;
+import org.rstudio.studio.client.common.filetypes.FileType;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.common.filetypes.TextFileType;
 import org.rstudio.studio.client.common.filetypes.events.OpenPresentationSourceFileEvent;
@@ -131,6 +132,7 @@ import org.rstudio.studio.client.workbench.views.files.model.DirectoryListing;
 import org.rstudio.studio.client.workbench.views.source.NewShinyWebApplication.Result;
 import org.rstudio.studio.client.workbench.views.source.SourceWindowManager.NavigationResult;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
+import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetSource;
 import org.rstudio.studio.client.workbench.views.source.editors.codebrowser.CodeBrowserEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.explorer.events.OpenObjectExplorerEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.explorer.model.ObjectExplorerHandle;
@@ -693,15 +695,32 @@ public class Source implements InsertSourceHandler,
             {
                // determine the correct display if the doc belongs to this window,
                // otherwise use the active one
+               SourceColumn column = null;
                if (currentSourceWindowId == docWindowId &&
                    SourceWindowManager.isMainSourceWindow())
                {
                   String name = doc.getSourceDisplayName();
-                  sourceEditor = columnManager_.addTab(doc, true, OPEN_REPLAY,
-                                                       columnManager_.getByName(name));
+                  column = columnManager_.getByName(name);
+               }
+
+               // clean documents on disk don't need their editor until
+               // they're shown, so restore those as placeholders
+               if (canRestorePending(doc))
+               {
+                  sourceEditor = columnManager_.addPendingTab(doc, OPEN_REPLAY, column);
+               }
+               else if (doc.isContentsDeferred())
+               {
+                  // the session left out the contents of a document we can't
+                  // restore as a placeholder (e.g. one of a type we don't
+                  // know); fetch it before opening its editor
+                  restoreDeferredDocument(doc, column);
+                  continue;
                }
                else
-                  sourceEditor = columnManager_.addTab(doc, true, OPEN_REPLAY, null);
+               {
+                  sourceEditor = columnManager_.addTab(doc, true, OPEN_REPLAY, column);
+               }
             }
             catch (Exception e)
             {
@@ -716,6 +735,35 @@ public class Source implements InsertSourceHandler,
       }
       columnManager_.setDocsRestored();
       columnManager_.beforeShow(true);
+      columnManager_.hydratePendingTabs();
+   }
+
+   private void restoreDeferredDocument(SourceDocument doc,
+                                        final SourceColumn column)
+   {
+      server_.getSourceDocument(doc.getId(), new ServerRequestCallback<SourceDocument>()
+      {
+         @Override
+         public void onResponseReceived(SourceDocument response)
+         {
+            columnManager_.addTab(response, true, OPEN_REPLAY, column);
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            Debug.logError(error);
+         }
+      });
+   }
+
+   private boolean canRestorePending(SourceDocument doc)
+   {
+      if (doc.getPath() == null || doc.isDirty() || doc.getCollabParams() != null)
+         return false;
+
+      FileType type = EditingTargetSource.getTypeFromDocument(fileTypeRegistry_, doc);
+      return type instanceof TextFileType;
    }
 
    private void openEditPublishedDocs()
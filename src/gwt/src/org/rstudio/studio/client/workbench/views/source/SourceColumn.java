@@ -22,6 +22,7 @@ import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
+import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.JsArrayUtil;
 import org.rstudio.core.client.ResultCallback;
@@ -55,6 +56,7 @@ import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.ui.unsaved.UnsavedChangesDialog;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetSource;
+import org.rstudio.studio.client.workbench.views.source.editors.PendingEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.codebrowser.CodeBrowserEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.FileTypeChangedEvent;
@@ -198,12 +200,12 @@ public class SourceColumn implements BeforeShowEvent.Handler,
 
    public void closeTab(Widget child, boolean interactive)
    {
-      display_.closeTab(child, interactive);
+      display_.closeTab(getTabWidget(child), interactive);
    }
 
    public void closeTab(Widget child, boolean interactive, Command onClosed)
    {
-      display_.closeTab(child, interactive, onClosed);
+      display_.closeTab(getTabWidget(child), interactive, onClosed);
    }
 
    public int getTabCount()
@@ -223,7 +225,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
 
    public void selectTab(Widget widget)
    {
-	   display_.selectTab(widget);
+	   display_.selectTab(getTabWidget(widget));
    }
 
    public void showOverflowPopout()
@@ -252,7 +254,9 @@ public class SourceColumn implements BeforeShowEvent.Handler,
           display_.getActiveTabIndex() >= 0 &&
           index <= (editors_.size() - 1))
       {
-         editors_.get(index).onInitiallyLoaded();
+         EditingTarget target = ensureHydrated(editors_.get(index));
+         if (target != null)
+            target.onInitiallyLoaded();
       }
    }
 
@@ -299,6 +303,8 @@ public class SourceColumn implements BeforeShowEvent.Handler,
 
    private void onActivate(EditingTarget target)
    {
+       target = ensureHydrated(target);
+
        // return if we're already set properly
        if (activeEditor_ != null && activeEditor_ == target)
           return;
@@ -312,7 +318,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
        if (activeEditor_ != null)
        {
           activeEditor_.onActivate();
-          display_.selectTab(activeEditor_.asWidget());
+          display_.selectTab(getTabWidget(activeEditor_.asWidget()));
        }
    }
 
@@ -347,6 +353,8 @@ public class SourceColumn implements BeforeShowEvent.Handler,
 
    public void setActiveEditor(EditingTarget target)
    {
+      target = ensureHydrated(target);
+
       // This should never happen
       if (!editors_.contains(target))
       {
@@ -431,7 +439,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
       for (EditingTarget target : editors_)
       {
          if (StringUtil.equals(docId, target.getId()))
-            return target;
+            return ensureHydrated(target);
       }
       return null;
    }
@@ -441,7 +449,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
       for (EditingTarget target : editors_)
       {
          if (StringUtil.equals(path, target.getPath()))
-            return target;
+            return ensureHydrated(target);
       }
       return null;
    }
@@ -466,7 +474,138 @@ public class SourceColumn implements BeforeShowEvent.Handler,
 
    public EditingTarget addTab(SourceDocument doc, Integer position, int mode)
    {
-      final EditingTarget target = editingTargetSource_.getEditingTarget(
+      final EditingTarget target = createTarget(doc);
+      final Widget widget = createWidget(target);
+
+      insertTab(target, widget, position, true);
+      attachTarget(target, widget);
+
+      events_.fireEvent(new SourceDocAddedEvent(doc, mode, name_));
+
+      if (target instanceof TextEditingTarget && doc.isReadOnly())
+      {
+         ((TextEditingTarget) target).setIntendedAsReadOnly(
+            JsUtil.toList(doc.getReadOnlyAlternatives()));
+      }
+
+      // adding a tab may enable commands that are only available when
+      // multiple documents are open; if this is the second document, go check
+      if (editors_.size() == 2)
+         manageMultiTabCommands(true);
+
+      // if the target had an editing session active, attempt to resume it
+      if (doc.getCollabParams() != null)
+         target.beginCollabSession(doc.getCollabParams());
+
+      return target;
+   }
+
+   /**
+    * Adds a tab for a document without building its editor; the editor is
+    * created when the tab is first activated or looked up (see hydrate).
+    * The document must be a clean, file-backed text document.
+    */
+   public EditingTarget addPendingTab(SourceDocument doc, int mode)
+   {
+      FileTypeRegistry registry = RStudioGinjector.INSTANCE.getFileTypeRegistry();
+      TextFileType type = (TextFileType) EditingTargetSource.getTypeFromDocument(
+            registry, doc);
+
+      PendingEditingTarget target = new PendingEditingTarget(pendingTabs_, doc, type);
+
+      // don't switch to the tab, since that would build its editor right away
+      insertTab(target, target.asWidget(), null, false);
+
+      events_.fireEvent(new SourceDocAddedEvent(doc, mode, name_));
+
+      if (editors_.size() == 2)
+         manageMultiTabCommands(true);
+
+      return target;
+   }
+
+   /**
+    * Starts building the editor for the next pending tab, if there is one.
+    *
+    * @return True if a tab was hydrated.
+    */
+   public boolean hydrateNext()
+   {
+      return pendingTabs_.hydrateNext();
+   }
+
+   private EditingTarget ensureHydrated(EditingTarget target)
+   {
+      return pendingTabs_.ensureHydrated(target);
+   }
+
+   private Widget getTabWidget(Widget widget)
+   {
+      return pendingTabs_.getTabWidget(widget);
+   }
+
+   private class PendingTabsColumn implements PendingTabs.Column
+   {
+      @Override
+      public ArrayList<EditingTarget> getEditors()
+      {
+         return editors_;
+      }
+
+      @Override
+      public EditingTarget createTarget(SourceDocument doc)
+      {
+         return SourceColumn.this.createTarget(doc);
+      }
+
+      @Override
+      public void onReplaced(PendingEditingTarget pending,
+                             EditingTarget target,
+                             Widget host,
+                             boolean fetched)
+      {
+         if (activeEditor_ == pending)
+            activeEditor_ = target;
+         attachTarget(target, host);
+
+         SourceDocument doc = pending.getDocument();
+         if (target instanceof TextEditingTarget && doc.isReadOnly())
+         {
+            ((TextEditingTarget) target).setIntendedAsReadOnly(
+               JsUtil.toList(doc.getReadOnlyAlternatives()));
+         }
+
+         // the tab may have been activated while its contents were fetched
+         if (fetched && activeEditor_ == target)
+            manageCommands(true);
+      }
+
+      @Override
+      public void fetchDocument(String docId,
+                                final CommandWithArg<SourceDocument> onFetched,
+                                final Command onFailed)
+      {
+         server_.getSourceDocument(docId, new ServerRequestCallback<SourceDocument>()
+         {
+            @Override
+            public void onResponseReceived(SourceDocument doc)
+            {
+               onFetched.execute(doc);
+            }
+
+            @Override
+            public void onError(ServerError error)
+            {
+               Debug.logError(error);
+               onFailed.execute();
+            }
+         });
+      }
+   }
+
+   private EditingTarget createTarget(SourceDocument doc)
+   {
+      return editingTargetSource_.getEditingTarget(
             this,
             doc,
             fileContext_,
@@ -475,9 +614,13 @@ public class SourceColumn implements BeforeShowEvent.Handler,
                String prefix = et.getDefaultNamePrefix();
                return getNextDefaultName(prefix);
             });
+   }
 
-      final Widget widget = createWidget(target);
-
+   private void insertTab(EditingTarget target,
+                          Widget widget,
+                          Integer position,
+                          boolean switchToTab)
+   {
       if (position == null)
       {
          editors_.add(target);
@@ -504,9 +647,12 @@ public class SourceColumn implements BeforeShowEvent.Handler,
                       target.getName().getValue(),
                       target.getTabTooltip(), // used as tooltip, if non-null
                       position,
-                      true);
+                      switchToTab);
       fireDocTabsChanged();
+   }
 
+   private void attachTarget(final EditingTarget target, final Widget widget)
+   {
       target.getName().addValueChangeHandler(event -> {
          display_.renameTab(widget,
                             target.getIcon(),
@@ -524,25 +670,6 @@ public class SourceColumn implements BeforeShowEvent.Handler,
       target.addEnsureVisibleHandler(event -> display_.selectTab(widget));
 
       target.addCloseHandler(voidCloseEvent -> closeTab(widget, false));
-
-      events_.fireEvent(new SourceDocAddedEvent(doc, mode, name_));
-
-      if (target instanceof TextEditingTarget && doc.isReadOnly())
-      {
-         ((TextEditingTarget) target).setIntendedAsReadOnly(
-            JsUtil.toList(doc.getReadOnlyAlternatives()));
-      }
-
-      // adding a tab may enable commands that are only available when
-      // multiple documents are open; if this is the second document, go check
-      if (editors_.size() == 2)
-         manageMultiTabCommands(true);
-
-      // if the target had an editing session active, attempt to resume it
-      if (doc.getCollabParams() != null)
-         target.beginCollabSession(doc.getCollabParams());
-
-      return target;
    }
 
    public void closeDoc(String docId)
@@ -627,7 +754,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
          return activeEditor_;
       if (display_.getActiveTabIndex() > -1 &&
          editors_.size() > display_.getActiveTabIndex())
-         return editors_.get(display_.getActiveTabIndex());
+         return ensureHydrated(editors_.get(display_.getActiveTabIndex()));
       return null;
    }
 
@@ -1085,7 +1212,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
 
       if (event.getSelectedItem() >= 0)
       {
-         activeEditor_ = editors_.get(event.getSelectedItem());
+         activeEditor_ = ensureHydrated(editors_.get(event.getSelectedItem()));
          activeEditor_.onActivate();
          manager_.setActive(name_);
 
@@ -1243,6 +1370,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
    private void closeTabIndex(int idx, boolean closeDocument)
    {
       EditingTarget target = editors_.remove(idx);
+      pendingTabs_.onClosed(target);
 
       tabOrder_.remove(Integer.valueOf(idx));
       for (int i = 0; i < tabOrder_.size(); i++)
@@ -1298,6 +1426,7 @@ public class SourceColumn implements BeforeShowEvent.Handler,
    private EditingTarget activeEditor_;
    private final ArrayList<EditingTarget> editors_ = new ArrayList<>();
    private final ArrayList<Integer> tabOrder_ = new ArrayList<>();
+   private final PendingTabs pendingTabs_ = new PendingTabs(new PendingTabsColumn());
    private HashSet<AppCommand> activeCommands_ = new HashSet<>();
 
    private RemoteFileSystemContext fileContext_;
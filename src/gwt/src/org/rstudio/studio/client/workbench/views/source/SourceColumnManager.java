@@ -774,6 +774,30 @@ public class SourceColumnManager implements CommandPaletteEntrySource,
       return column.addTab(doc, atEnd, mode);
    }
 
+   public EditingTarget addPendingTab(SourceDocument doc, int mode, SourceColumn column)
+   {
+      if (column == null || getByName(column.getName()) == null)
+         column = getActive();
+      return column.addPendingTab(doc, mode);
+   }
+
+   /**
+    * Builds the editors of tabs restored as placeholders, one per idle slice,
+    * so that switching to them later doesn't have to wait.
+    */
+   public void hydratePendingTabs()
+   {
+      IdleScheduler.get().schedule(() ->
+      {
+         for (SourceColumn column : columnList_)
+         {
+            if (column.hydrateNext())
+               return true;
+         }
+         return false;
+      });
+   }
+
    public EditingTarget findEditor(String docId)
    {
       for (SourceColumn column : columnList_)
@@ -2376,6 +2400,9 @@ public class SourceColumnManager implements CommandPaletteEntrySource,
             {
                column.selectTab(target.asWidget());
                pMruList_.get().add(thisPath);
+
+               // selecting a restored tab replaces its placeholder editor
+               target = column.getEditors().get(i);
                if (resultCallback != null)
                   resultCallback.onSuccess(target);
                return true;
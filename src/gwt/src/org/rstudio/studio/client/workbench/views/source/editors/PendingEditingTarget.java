@@ -0,0 +1,513 @@
+/*
+ * PendingEditingTarget.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import com.google.gwt.event.logical.shared.CloseHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.HasValue;
+import com.google.gwt.user.client.ui.SimpleLayoutPanel;
+import com.google.gwt.user.client.ui.Widget;
+
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.command.AppCommand;
+import org.rstudio.core.client.events.EnsureHeightEvent;
+import org.rstudio.core.client.events.EnsureVisibleEvent;
+import org.rstudio.core.client.files.FileSystemContext;
+import org.rstudio.core.client.files.FileSystemItem;
+import org.rstudio.studio.client.common.ReadOnlyValue;
+import org.rstudio.studio.client.common.Value;
+import org.rstudio.studio.client.common.filetypes.FileIcon;
+import org.rstudio.studio.client.common.filetypes.FileType;
+import org.rstudio.studio.client.common.filetypes.TextFileType;
+import org.rstudio.studio.client.palette.model.CommandPaletteItem;
+import org.rstudio.studio.client.workbench.views.source.SourceColumn;
+import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetSource.EditingTargetNameProvider;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.events.CollabEditStartParams;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
+
+/**
+ * Stands in for the editor of a restored document until it is first needed.
+ *
+ * The tab shows the document's name and icon, which come from the document's
+ * metadata; the editor itself (and its Ace session) is only built when the
+ * column hydrates the tab, e.g. on activation or while the browser is idle.
+ * Anything that needs the real editor hydrates the tab and forwards the call;
+ * since the document's contents may need fetching first, calls made before
+ * the editor exists are queued and forwarded once it does.
+ *
+ * Only clean, file-backed text documents are restored this way, so a pending
+ * target never has unsaved changes.
+ */
+public class PendingEditingTarget implements EditingTarget
+{
+   /**
+    * Builds the editor for a pending target, then calls its onHydrated.
+    */
+   public interface Hydrator
+   {
+      void hydrate(PendingEditingTarget pending);
+   }
+
+   public PendingEditingTarget(Hydrator hydrator,
+                               SourceDocument document,
+                               TextFileType fileType)
+   {
+      hydrator_ = hydrator;
+      document_ = document;
+      fileType_ = fileType;
+      name_ = new Value<>(FileSystemItem.getNameFromPath(document.getPath()));
+   }
+
+   public SourceDocument getDocument()
+   {
+      return document_;
+   }
+
+   /**
+    * Replaces the document this target stands in for (e.g. with one whose
+    * contents have been fetched).
+    */
+   public void setDocument(SourceDocument document)
+   {
+      document_ = document;
+   }
+
+   /**
+    * @return The editor which replaced this one, starting to build it if
+    *    necessary. This is null while the document's contents are being
+    *    fetched, or if the tab has since been closed.
+    */
+   public EditingTarget getTarget()
+   {
+      if (target_ == null && !hydrating_)
+      {
+         hydrating_ = true;
+         hydrator_.hydrate(this);
+      }
+      return target_;
+   }
+
+   /**
+    * Called by the hydrator once the editor is built (right away, or once the
+    * document's contents arrive), or with null if it couldn't be built.
+    * Calls made in the meantime are forwarded to the editor.
+    */
+   public void onHydrated(EditingTarget target)
+   {
+      target_ = target;
+      hydrating_ = false;
+      failed_ = target == null;
+
+      ArrayList<Forwarded> forwarded = forwarded_;
+      forwarded_ = new ArrayList<>();
+      for (Forwarded command : forwarded)
+         command.run(target);
+   }
+
+   public boolean isHydrating()
+   {
+      return hydrating_;
+   }
+
+   /**
+    * @return Whether the last attempt to build the editor failed (it's tried
+    *    again the next time the editor is needed)
+    */
+   public boolean hasFailed()
+   {
+      return failed_;
+   }
+
+   // Metadata (answered without hydrating) ----
+
+   public String getId()
+   {
+      return document_.getId();
+   }
+
+   public HasValue<String> getName()
+   {
+      return name_;
+   }
+
+   public String getTitle()
+   {
+      return name_.getValue();
+   }
+
+   public String getPath()
+   {
+      return document_.getPath();
+   }
+
+   public String getContext()
+   {
+      return null;
+   }
+
+   public FileIcon getIcon()
+   {
+      return fileType_.getDefaultFileIcon();
+   }
+
+   public String getTabTooltip()
+   {
+      return getPath();
+   }
+
+   public FileType getFileType()
+   {
+      return fileType_;
+   }
+
+   public TextFileType getTextFileType()
+   {
+      return fileType_;
+   }
+
+   public String getExtendedFileType()
+   {
+      return document_.getExtendedType();
+   }
+
+   public ReadOnlyValue<Boolean> dirtyState()
+   {
+      return dirtyState_;
+   }
+
+   public boolean isSaveCommandActive()
+   {
+      return false;
+   }
+
+   public Widget asWidget()
+   {
+      return host_;
+   }
+
+   public boolean onBeforeDismiss()
+   {
+      return true;
+   }
+
+   public void onDismiss(int dismissType)
+   {
+   }
+
+   public void onDeactivate()
+   {
+   }
+
+   public void initialize(SourceColumn column,
+                          SourceDocument document,
+                          FileSystemContext fileContext,
+                          FileType type,
+                          EditingTargetNameProvider defaultNameProvider)
+   {
+      // pending targets are created fully formed
+   }
+
+   public long getFileSizeLimit()
+   {
+      return 5 * 1024 * 1024;
+   }
+
+   public long getLargeFileSize()
+   {
+      return 2 * 1024 * 1024;
+   }
+
+   public String getDefaultNamePrefix()
+   {
+      return null;
+   }
+
+   public String getCurrentStatus()
+   {
+      return "Loading " + getTitle();
+   }
+
+   public List<CommandPaletteItem> getCommandPaletteItems()
+   {
+      return new ArrayList<>();
+   }
+
+   // None of these ever fire before the tab is hydrated; the column attaches
+   // its handlers to the real editor once it exists.
+
+   public HandlerRegistration addEnsureVisibleHandler(EnsureVisibleEvent.Handler handler)
+   {
+      return NO_REGISTRATION;
+   }
+
+   public HandlerRegistration addEnsureHeightHandler(EnsureHeightEvent.Handler handler)
+   {
+      return NO_REGISTRATION;
+   }
+
+   public HandlerRegistration addCloseHandler(CloseHandler<Void> handler)
+   {
+      return NO_REGISTRATION;
+   }
+
+   public void fireEvent(GwtEvent<?> event)
+   {
+   }
+
+   // Everything else needs the real editor ----
+
+   public void adaptToExtendedFileType(String extendedType)
+   {
+      forward((target) -> target.adaptToExtendedFileType(extendedType));
+   }
+
+   public HashSet<AppCommand> getSupportedCommands()
+   {
+      EditingTarget target = getTarget();
+      return target == null ? new HashSet<>() : target.getSupportedCommands();
+   }
+
+   public void manageCommands()
+   {
+      forward((target) -> target.manageCommands());
+   }
+
+   public boolean canCompilePdf()
+   {
+      EditingTarget target = getTarget();
+      return target != null && target.canCompilePdf();
+   }
+
+   public void verifyCppPrerequisites()
+   {
+      forward((target) -> target.verifyCppPrerequisites());
+   }
+
+   public void verifyPythonPrerequisites()
+   {
+      forward((target) -> target.verifyPythonPrerequisites());
+   }
+
+   public void verifyD3Prerequisites()
+   {
+      forward((target) -> target.verifyD3Prerequisites());
+   }
+
+   public void verifyNewSqlPrerequisites()
+   {
+      forward((target) -> target.verifyNewSqlPrerequisites());
+   }
+
+   public void focus()
+   {
+      forward((target) -> target.focus());
+   }
+
+   public void onActivate()
+   {
+      forward((target) -> target.onActivate());
+   }
+
+   public void onInitiallyLoaded()
+   {
+      forward((target) -> target.onInitiallyLoaded());
+   }
+
+   public void recordCurrentNavigationPosition()
+   {
+      forward((target) -> target.recordCurrentNavigationPosition());
+   }
+
+   public void navigateToPosition(SourcePosition position,
+                                  boolean recordCurrent)
+   {
+      forward((target) -> target.navigateToPosition(position, recordCurrent));
+   }
+
+   public void navigateToPosition(SourcePosition position,
+                                  boolean recordCurrent,
+                                  boolean highlightLine)
+   {
+      forward((target) -> target.navigateToPosition(position, recordCurrent,
+                                                    highlightLine));
+   }
+
+   public void navigateToPosition(SourcePosition position,
+                                  boolean recordCurrent,
+                                  boolean highlightLine,
+                                  boolean moveCursor,
+                                  Command onNavigationCompleted)
+   {
+      forward((target) -> target.navigateToPosition(position, recordCurrent,
+                                                    highlightLine, moveCursor,
+                                                    onNavigationCompleted));
+   }
+
+   public void restorePosition(SourcePosition position)
+   {
+      forward((target) -> target.restorePosition(position));
+   }
+
+   public SourcePosition currentPosition()
+   {
+      EditingTarget target = getTarget();
+      return target == null ? null : target.currentPosition();
+   }
+
+   public boolean isAtSourceRow(SourcePosition position)
+   {
+      EditingTarget target = getTarget();
+      return target != null && target.isAtSourceRow(position);
+   }
+
+   public void forceLineHighlighting()
+   {
+      forward((target) -> target.forceLineHighlighting());
+   }
+
+   public void setSourceOnSave(boolean sourceOnSave)
+   {
+      forward((target) -> target.setSourceOnSave(sourceOnSave));
+   }
+
+   public void setCursorPosition(Position position)
+   {
+      forward((target) -> target.setCursorPosition(position));
+   }
+
+   public void ensureCursorVisible()
+   {
+      forward((target) -> target.ensureCursorVisible());
+   }
+
+   public Position search(String regex)
+   {
+      EditingTarget target = getTarget();
+      return target == null ? null : target.search(regex);
+   }
+
+   public Position search(Position startPos, String regex)
+   {
+      EditingTarget target = getTarget();
+      return target == null ? null : target.search(startPos, regex);
+   }
+
+   public void highlightDebugLocation(SourcePosition startPos,
+                                      SourcePosition endPos,
+                                      boolean executing)
+   {
+      forward((target) -> target.highlightDebugLocation(startPos, endPos,
+                                                        executing));
+   }
+
+   public void endDebugHighlighting()
+   {
+      forward((target) -> target.endDebugHighlighting());
+   }
+
+   public void beginCollabSession(CollabEditStartParams params)
+   {
+      forward((target) -> target.beginCollabSession(params));
+   }
+
+   public void endCollabSession()
+   {
+      forward((target) -> target.endCollabSession());
+   }
+
+   public void forceSaveCommandActive()
+   {
+      forward((target) -> target.forceSaveCommandActive());
+   }
+
+   public void save(Command onCompleted)
+   {
+      forward((target) -> target.save(onCompleted), onCompleted);
+   }
+
+   public void saveWithPrompt(Command onCompleted, Command onCancelled)
+   {
+      forward((target) -> target.saveWithPrompt(onCompleted, onCancelled),
+              onCompleted);
+   }
+
+   public void revertChanges(Command onCompleted)
+   {
+      forward((target) -> target.revertChanges(onCompleted), onCompleted);
+   }
+
+   private void forward(CommandWithArg<EditingTarget> command)
+   {
+      forward(command, null);
+   }
+
+   // runs a command against the real editor: right away if it's built, or
+   // once it is if its contents are still being fetched; if it can't be
+   // built, runs 'otherwise' instead
+   private void forward(CommandWithArg<EditingTarget> command,
+                        Command otherwise)
+   {
+      Forwarded forwarded = new Forwarded(command, otherwise);
+      EditingTarget target = getTarget();
+      if (target == null && hydrating_)
+         forwarded_.add(forwarded);
+      else
+         forwarded.run(target);
+   }
+
+   private static class Forwarded
+   {
+      Forwarded(CommandWithArg<EditingTarget> command, Command otherwise)
+      {
+         command_ = command;
+         otherwise_ = otherwise;
+      }
+
+      void run(EditingTarget target)
+      {
+         if (target != null)
+            command_.execute(target);
+         else if (otherwise_ != null)
+            otherwise_.execute();
+      }
+
+      private final CommandWithArg<EditingTarget> command_;
+      private final Command otherwise_;
+   }
+
+   private final Hydrator hydrator_;
+   private SourceDocument document_;
+   private final TextFileType fileType_;
+   private final Value<String> name_;
+   private final Value<Boolean> dirtyState_ = new Value<>(false);
+   private EditingTarget target_;
+   private boolean hydrating_ = false;
+   private boolean failed_ = false;
+   private ArrayList<Forwarded> forwarded_ = new ArrayList<>();
+
+   // holds the real editor's widget once hydrated, so the tab keeps its
+   // content widget
+   private final SimpleLayoutPanel host_ = new SimpleLayoutPanel();
+
+   private static final HandlerRegistration NO_REGISTRATION = () -> {};
+}
@@ -19,8 +19,6 @@ import java.util.List;
 
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.JsVectorString;
-import org.rstudio.core.client.ListUtil;
-import org.rstudio.core.client.ListUtil.FilterPredicate;
 import org.rstudio.core.client.command.KeyboardShortcut;
 import org.rstudio.core.client.SafeHtmlUtil;
 import org.rstudio.core.client.StringUtil;
@@ -110,11 +108,6 @@ public class ObjectExplorerDataGrid
                  RowHoverEvent.Handler,
                  CellPreviewEvent.Handler<ObjectExplorerDataGrid.Data>
 {
-   private static interface Filter<T>
-   {
-      public boolean accept(T data);
-   }
-
    public static class Data extends ObjectExplorerInspectionResult
    {
       protected Data()
@@ -247,9 +240,27 @@ public class ObjectExplorerDataGrid
          this["children"] = children;
       }-*/;
 
-      // Return the node's depth, or the number of parents.
+      // The index of this node's row in the table, as of the last time the
+      // table's rows were computed (or -1 if it has never been shown).
+      public final native int getRowIndex()
+      /*-{
+         var row = this["row"];
+         return typeof row === "undefined" ? -1 : row;
+      }-*/;
+
+      public final native void setRowIndex(int row)
+      /*-{
+         this["row"] = row;
+      }-*/;
+
+      // Return the node's depth, or the number of parents. The depth is
+      // cached on nodes as they're added to the table.
       public final int getDepth()
       {
+         int cached = getCachedDepth();
+         if (cached >= 0)
+            return cached;
+
          int depth = 0;
          for (Data parent = getParentData();
               parent != null;
@@ -261,6 +272,22 @@ public class ObjectExplorerDataGrid
          return depth;
       }
 
+      private final native int getCachedDepth()
+      /*-{
+         var depth = this["depth"];
+         return typeof depth === "undefined" ? -1 : depth;
+      }-*/;
+
+      public final native void setDepth(int depth)
+      /*-{
+         this["depth"] = depth;
+      }-*/;
+
+      public final native void setMoreAvailable(boolean more)
+      /*-{
+         this["more"] = more;
+      }-*/;
+
       // Used to update ownership of children within the tree.
       // This is necessary as nodes received from the server
       // side will not have marked ownership (no known parent).
@@ -908,15 +935,9 @@ public class ObjectExplorerDataGrid
       if (parent == null)
          return;
 
-      List<Data> list = getData();
-      for (int i = 0, n = row; i < n; i++)
-      {
-         if (list.get(i).equals(parent))
-         {
-            setKeyboardSelectedRow(i);
-            break;
-         }
-      }
+      int parentRow = parent.getRowIndex();
+      if (parentRow >= 0 && parentRow < row && getData().get(parentRow) == parent)
+         setKeyboardSelectedRow(parentRow);
    }
 
    private void selectChildOrOpen(int row)
@@ -1012,8 +1033,8 @@ public class ObjectExplorerDataGrid
             if (attributes != null)
                attributes.setVisible(true);
 
-            // force update of data grid
-            synchronize();
+            // update the rows below this one
+            synchronizeChildren(data);
             setFocusDeferred(true);
          }
       });
@@ -1046,8 +1067,8 @@ public class ObjectExplorerDataGrid
             if (attributes != null)
                attributes.setVisible(false);
 
-            // force update of data grid
-            synchronize();
+            // update the rows below this one
+            synchronizeChildren(data);
             setFocusDeferred(true);
          }
       });
@@ -1086,12 +1107,12 @@ public class ObjectExplorerDataGrid
    private void retrieveMore(int row)
    {
       Data data = getData().get(row);
-      Data parent = data.getParentData();
+      final Data parent = data.getParentData();
       if (parent == null)
          return;
 
       // select the previous row (so that we don't end up scrolling all over the place)
-      selectRowRelative(row);
+      selectRowRelative(-1);
 
       // update the limit on the number of children we're showing
       parent.setMaximumChildRowsShown(parent.getMaximumChildRowsShown() + DEFAULT_ROW_LIMIT);
@@ -1101,7 +1122,7 @@ public class ObjectExplorerDataGrid
          @Override
          public void execute()
          {
-            synchronize();
+            synchronizeChildren(parent);
          }
       });
    }
@@ -1136,6 +1157,7 @@ public class ObjectExplorerDataGrid
                   // set parent ownership for children
                   JsArray<Data> children = result.getChildren().cast();
                   data.addChildrenData(children);
+                  data.setMoreAvailable(result.isMoreAvailable());
                   for (int i = 0, n = children.length(); i < n; i++)
                      children.get(i).setParentData(data);
 
@@ -1208,68 +1230,73 @@ public class ObjectExplorerDataGrid
    {
       saveScrollPosition();
 
-      final String filter = StringUtil.notNull(filter_).trim();
+      List<Data> rows = new ArrayList<Data>();
+      flattenImpl(root_, 0, false, getNormalizedFilter(), rows);
+      updateRowIndices(rows, 0);
 
-      // only include visible data in the table
-      // TODO: we should consider how to better handle
-      // piecewise updates to the table, rather than
-      // shunting a whole new list in
-      List<Data> data = flatten(root_, new Filter<Data>()
+      setData(rows);
+      redraw();
+   }
+
+   // Recomputes only the rows belonging to a node's descendants (e.g. after
+   // it has been expanded or collapsed), leaving the rest of the table as is.
+   private void synchronizeChildren(Data data)
+   {
+      List<Data> rows = getData();
+      int row = data.getRowIndex();
+      if (row < 0 || row >= rows.size() || rows.get(row) != data)
       {
-         @Override
-         public boolean accept(Data data)
-         {
-            // detect if this matches the current filter
-            if (!filter.isEmpty())
-            {
-               data.setMatched(false);
-               String[] fields = {
-                     data.getDisplayName(),
-                     data.getDisplayType(),
-                     data.getDisplayDesc()
-               };
-
-               for (String field : fields)
-               {
-                  int index = field.toLowerCase().indexOf(filter.toLowerCase());
-                  if (index != -1)
-                  {
-                     data.setMatched(true);
-                     break;
-                  }
-               }
-            }
+         synchronize();
+         return;
+      }
 
-            // otherwise, check whether it's currently visible
-            return data.isVisible();
-         }
-      });
+      saveScrollPosition();
 
-      // remove entries that don't match filter
+      // descendants are the rows that follow this one and are nested deeper
+      int depth = data.getDepth();
+      int end = row + 1;
+      while (end < rows.size() && rows.get(end).getDepth() > depth)
+         end++;
+
+      String filter = getNormalizedFilter();
+      boolean ancestorMatched = false;
       if (!filter.isEmpty())
       {
-         data = ListUtil.filter(data, new FilterPredicate<Data>()
+         for (Data self = data; self != null; self = self.getParentData())
          {
-            @Override
-            public boolean test(Data object)
+            if (self.isMatched())
             {
-               for (Data self = object;
-                    self != null;
-                    self = self.getParentData())
-               {
-                  if (self.isMatched())
-                     return true;
-               }
-
-               return false;
+               ancestorMatched = true;
+               break;
             }
-         });
+         }
       }
 
-      setData(data);
+      List<Data> children = new ArrayList<Data>();
+      flattenChildren(data, depth, ancestorMatched, filter, children);
+
+      List<Data> updated = new ArrayList<Data>(
+            rows.size() - (end - row - 1) + children.size());
+      updated.addAll(rows.subList(0, row + 1));
+      updated.addAll(children);
+      updated.addAll(rows.subList(end, rows.size()));
+      updateRowIndices(updated, row + 1);
+
+      setData(updated);
       redraw();
    }
 
+   private String getNormalizedFilter()
+   {
+      return StringUtil.notNull(filter_).trim().toLowerCase();
+   }
+
+   private static void updateRowIndices(List<Data> rows, int start)
+   {
+      for (int i = start, n = rows.size(); i < n; i++)
+         rows.get(i).setRowIndex(i);
+   }
+
    @Override
    public int getRowHeight()
    {
@@ -1302,25 +1329,39 @@ public class ObjectExplorerDataGrid
       dataProvider_.setList(data);
    }
 
-   private final List<Data> flatten(Data data,
-                                    Filter<Data> filter)
-   {
-      List<Data> list = new ArrayList<Data>();
-      flattenImpl(data, filter, list);
-      return list;
-   }
-
+   // Adds the visible rows for a node and its descendants. When filtering,
+   // a row is shown if it, or any of its ancestors, matches the filter.
    private final void flattenImpl(Data data,
-                                  Filter<Data> filter,
+                                  int depth,
+                                  boolean ancestorMatched,
+                                  String filter,
                                   List<Data> output)
    {
-      // exit if we're not accepting data here
-      if (filter != null && !filter.accept(data))
+      // exit if this node isn't currently visible
+      if (!data.isVisible())
          return;
 
+      boolean matched = false;
+      if (!filter.isEmpty())
+      {
+         matched = isFilterMatch(data, filter);
+         data.setMatched(matched);
+      }
+
       // add data
-      output.add(data);
+      data.setDepth(depth);
+      if (filter.isEmpty() || matched || ancestorMatched)
+         output.add(data);
+
+      flattenChildren(data, depth, matched || ancestorMatched, filter, output);
+   }
 
+   private final void flattenChildren(Data data,
+                                      int depth,
+                                      boolean ancestorMatched,
+                                      String filter,
+                                      List<Data> output)
+   {
       // recurse through children
       JsArray<Data> children = data.getChildrenData();
       if (children == null)
@@ -1329,25 +1370,47 @@ public class ObjectExplorerDataGrid
       // only add children within the drawing limit to this list
       int n = Math.min(children.length(), data.getMaximumChildRowsShown());
       for (int i = 0; i < n; i++)
-         flattenImpl(children.get(i), filter, output);
+         flattenImpl(children.get(i), depth + 1, ancestorMatched, filter, output);
 
       // add a dummy 'More...' element
       boolean drawMore =
             data.getExpansionState() == ExpansionState.OPEN &&
-            data.isMoreAvailable();
+            data.isMoreAvailable() &&
+            (filter.isEmpty() || ancestorMatched);
 
       if (drawMore)
-         output.add(Data.createMorePlaceholder(data));
+      {
+         Data placeholder = Data.createMorePlaceholder(data);
+         placeholder.setDepth(depth + 1);
+         output.add(placeholder);
+      }
 
       // add attributes if relevant
       if (showAttributes_)
       {
          Data attributes = data.getObjectAttributes().<Data>cast();
          if (attributes != null)
-            flattenImpl(data.getObjectAttributes().<Data>cast(), filter, output);
+            flattenImpl(attributes, depth + 1, ancestorMatched, filter, output);
       }
    }
 
+   private static boolean isFilterMatch(Data data, String filter)
+   {
+      String[] fields = {
+            data.getDisplayName(),
+            data.getDisplayType(),
+            data.getDisplayDesc()
+      };
+
+      for (String field : fields)
+      {
+         if (field.toLowerCase().indexOf(filter) != -1)
+            return true;
+      }
+
+      return false;
+   }
+
    private void saveScrollPosition()
    {
       scrollPosition_ = getScrollPanel().getVerticalScrollPosition();
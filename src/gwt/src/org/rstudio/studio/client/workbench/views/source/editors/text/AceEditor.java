@@ -4457,6 +4457,15 @@ public class AceEditor implements DocDisplay,
       return widget_.isRendered();
    }
    
+   /**
+    * @return Whether the editor is attached and has a size (i.e. isn't in a
+    *   hidden tab or a collapsed pane)
+    */
+   public boolean isShowing()
+   {
+      return widget_.isAttached() && widget_.getOffsetHeight() > 0;
+   }
+   
    @Override
    public boolean showChunkOutputInline()
    {
@@ -64,6 +64,11 @@ public class ChunkDataPage extends ChunkOutputPage
    {
       content_.onResize();
    }
+   
+   public boolean hasInteracted()
+   {
+      return content_.hasInteracted();
+   }
 
    private final Widget thumbnail_;
    private final ChunkDataWidget content_;
@@ -20,6 +20,8 @@ import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.ScriptInjector;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.KeyDownEvent;
+import com.google.gwt.event.dom.client.MouseDownEvent;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.SimplePanel;
 
@@ -46,6 +48,11 @@ public class ChunkDataWidget extends SimplePanel
          getElement().getStyle().setProperty("flexGrow", "1");
       }
 
+      // note when the user pages or sorts the table, so we don't throw away
+      // the state they've left it in
+      addDomHandler(event -> interacted_ = true, MouseDownEvent.getType());
+      addDomHandler(event -> interacted_ = true, KeyDownEvent.getType());
+
       initPagedTableOrDelay();
    }
 
@@ -102,6 +109,11 @@ public class ChunkDataWidget extends SimplePanel
       return data_;
    }
    
+   public boolean hasInteracted()
+   {
+      return interacted_;
+   }
+   
    // Private methods ---------------------------------------------------------
 
    private void onDataOutputChange()
@@ -212,4 +224,5 @@ public class ChunkDataWidget extends SimplePanel
    private final JavaScriptObject data_;
    private final NotebookFrameMetadata metadata_;
    private final ChunkOutputSize chunkOutputSize_;
+   private boolean interacted_ = false;
 }
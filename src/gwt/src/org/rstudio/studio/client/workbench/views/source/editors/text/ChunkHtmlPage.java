@@ -144,6 +144,11 @@ public class ChunkHtmlPage extends ChunkOutputPage
       frame_.runAfterRender(afterRender_);
    }
 
+   public boolean hasInteracted()
+   {
+      return frame_.hasInteracted();
+   }
+
    @Override
    public void onEditorThemeChanged(Colors colors)
    {
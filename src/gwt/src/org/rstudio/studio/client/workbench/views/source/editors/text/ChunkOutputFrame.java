@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
+import org.rstudio.core.client.dom.DocumentEx;
 import org.rstudio.core.client.widget.DynamicIFrame;
 
 import com.google.gwt.dom.client.Element;
@@ -86,6 +87,7 @@ public class ChunkOutputFrame extends DynamicIFrame
    protected void onFrameLoaded()
    {
       loaded_ = true;
+      listenForInteraction(getDocument());
       if (onCompleted_ != null)
          onCompleted_.execute();
    }
@@ -116,8 +118,29 @@ public class ChunkOutputFrame extends DynamicIFrame
       onRenderedTimer.schedule(100);
    }
    
+   /**
+    * @return Whether the user has clicked, touched or typed in the frame
+    *    (e.g. to zoom or filter an htmlwidget)
+    */
+   public boolean hasInteracted()
+   {
+      return interacted_;
+   }
+
+   private final native void listenForInteraction(DocumentEx doc) /*-{
+      var self = this;
+      var onInteraction = $entry(function() {
+         self.@org.rstudio.studio.client.workbench.views.source.editors.text.ChunkOutputFrame::interacted_ = true;
+      });
+      
+      doc.addEventListener("mousedown", onInteraction, true);
+      doc.addEventListener("touchstart", onInteraction, true);
+      doc.addEventListener("keydown", onInteraction, true);
+   }-*/;
+   
    private final Timer timer_;
    private String url_;
    private Command onCompleted_;
    private boolean loaded_ = false;
+   private boolean interacted_ = false;
 }
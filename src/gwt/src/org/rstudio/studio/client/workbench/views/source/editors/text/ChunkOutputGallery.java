@@ -296,6 +296,21 @@ public class ChunkOutputGallery extends Composite
       return false;
    }
 
+   @Override
+   public boolean hasInteracted()
+   {
+      for (ChunkOutputPage page: pages_)
+      {
+         if (page instanceof ChunkHtmlPage &&
+             ((ChunkHtmlPage)page).hasInteracted())
+            return true;
+         if (page instanceof ChunkDataPage &&
+             ((ChunkDataPage)page).hasInteracted())
+            return true;
+      }
+      return false;
+   }
+
    @Override
    public boolean hasErrors()
    {
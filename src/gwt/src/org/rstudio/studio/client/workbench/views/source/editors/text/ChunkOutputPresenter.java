@@ -65,6 +65,9 @@ public interface ChunkOutputPresenter extends IsWidget, EditorThemeListener
    boolean hasErrors();
    boolean hasHtmlWidgets();
    
+   // whether the user has interacted with HTML widgets or data frames
+   boolean hasInteracted();
+   
    // notify of size changes
    void onResize();
 }
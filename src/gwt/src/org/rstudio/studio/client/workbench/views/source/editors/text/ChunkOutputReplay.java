@@ -0,0 +1,246 @@
+/*
+ * ChunkOutputReplay.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import org.rstudio.core.client.js.JsArrayEx;
+import org.rstudio.studio.client.common.FilePathUtils;
+import org.rstudio.studio.client.rmarkdown.model.RmdChunkOutput;
+import org.rstudio.studio.client.rmarkdown.model.RmdChunkOutputUnit;
+import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkOutputUi;
+
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * The replayed output behind a chunk's output widget, from which the output
+ * can be rendered again; while the output is held (rather than rendered), an
+ * empty frame of the reserved height stands in for it.
+ *
+ * Output can only be rendered again if all of it came from complete replays;
+ * output from anything else (e.g. running the chunk) discards the replay.
+ */
+class ChunkOutputReplay
+{
+   /**
+    * Records output that's about to be shown.
+    *
+    * @param empty Whether the widget was showing no output beforehand
+    */
+   public void record(RmdChunkOutput output, boolean complete, boolean empty)
+   {
+      if (output.isReplay() && complete && (empty || replayable_))
+      {
+         if (empty)
+            outputs_.clear();
+         outputs_.add(output);
+         replayable_ = true;
+      }
+      else
+      {
+         discard();
+      }
+   }
+
+   public void discard()
+   {
+      outputs_.clear();
+      refreshedPlots_.clear();
+      replayable_ = false;
+   }
+
+   /**
+    * @return Whether there's output, and all of it can be rendered again
+    */
+   public boolean isReplayable()
+   {
+      return replayable_ && !outputs_.isEmpty();
+   }
+
+   /**
+    * Holds the output back, rather than rendering it.
+    */
+   public void hold()
+   {
+      held_ = true;
+   }
+
+   public boolean isHeld()
+   {
+      return held_;
+   }
+
+   /**
+    * Stops holding the output back.
+    *
+    * @return The output to render, which is recorded again as it's shown
+    */
+   public List<RmdChunkOutput> release()
+   {
+      held_ = false;
+      List<RmdChunkOutput> outputs = new ArrayList<RmdChunkOutput>(outputs_);
+      outputs_.clear();
+      return outputs;
+   }
+
+   /**
+    * Reserves space for the held output.
+    *
+    * @param height The height of the output when last rendered, or 0 if
+    *    unknown (in which case it's estimated from the output)
+    */
+   public void reserve(int height)
+   {
+      reservedHeight_ = height > 0 ? height : estimateHeight();
+   }
+
+   public void setReservedHeight(int height)
+   {
+      reservedHeight_ = height;
+   }
+
+   public int getReservedHeight()
+   {
+      return reservedHeight_;
+   }
+
+   /**
+    * Remembers a plot's new URL, so the plot is up to date when the output
+    * is rendered again.
+    */
+   public void onPlotUpdated(String url)
+   {
+      if (replayable_)
+         refreshedPlots_.put(FilePathUtils.friendlyFileName(url), url);
+   }
+
+   public Collection<String> getRefreshedPlots()
+   {
+      return refreshedPlots_.values();
+   }
+
+   public boolean hasPlots()
+   {
+      return hasUnit(RmdChunkOutputUnit.TYPE_PLOT);
+   }
+
+   public boolean hasErrors()
+   {
+      return hasUnit(RmdChunkOutputUnit.TYPE_ERROR);
+   }
+
+   /**
+    * @return The height the output is likely to take up: a plot's worth for
+    *    block output (which is shown a page at a time), or else a line's
+    *    worth for each line of text
+    */
+   public int estimateHeight()
+   {
+      int lines = 0;
+      for (RmdChunkOutput output: outputs_)
+      {
+         for (RmdChunkOutputUnit unit: getUnits(output))
+         {
+            if (isBlockType(unit.getType()))
+            {
+               return (int)(ChunkOutputUi.MAX_PLOT_WIDTH /
+                            ChunkOutputUi.OUTPUT_ASPECT);
+            }
+            else if (unit.getType() == RmdChunkOutputUnit.TYPE_TEXT)
+            {
+               lines += countLines(unit.getArray());
+            }
+            else if (unit.getType() == RmdChunkOutputUnit.TYPE_ERROR)
+            {
+               lines++;
+            }
+         }
+      }
+      return Math.max(ChunkOutputUi.MIN_CHUNK_HEIGHT,
+                      lines * ESTIMATED_LINE_HEIGHT);
+   }
+
+   public static List<RmdChunkOutputUnit> getUnits(RmdChunkOutput output)
+   {
+      List<RmdChunkOutputUnit> units = new ArrayList<RmdChunkOutputUnit>();
+      if (output.getType() == RmdChunkOutput.TYPE_MULTIPLE_UNIT)
+      {
+         JsArray<RmdChunkOutputUnit> array = output.getUnits();
+         for (int i = 0; i < array.length(); i++)
+            units.add(array.get(i));
+      }
+      else if (output.getType() == RmdChunkOutput.TYPE_SINGLE_UNIT)
+      {
+         units.add(output.getUnit());
+      }
+      return units;
+   }
+
+   public static boolean isBlockType(int type)
+   {
+      switch (type)
+      {
+      case RmdChunkOutputUnit.TYPE_PLOT:
+      case RmdChunkOutputUnit.TYPE_DATA:
+      case RmdChunkOutputUnit.TYPE_HTML:
+          return true;
+      case RmdChunkOutputUnit.TYPE_TEXT:
+      case RmdChunkOutputUnit.TYPE_ERROR:
+      case RmdChunkOutputUnit.TYPE_ORDINAL:
+         return false;
+      }
+      return true;
+   }
+
+   private boolean hasUnit(int type)
+   {
+      for (RmdChunkOutput output: outputs_)
+      {
+         for (RmdChunkOutputUnit unit: getUnits(output))
+         {
+            if (unit.getType() == type)
+               return true;
+         }
+      }
+      return false;
+   }
+
+   private static int countLines(JsArray<JsArrayEx> output)
+   {
+      int lines = 0;
+      for (int i = 0; i < output.length(); i++)
+      {
+         if (output.get(i).length() < 2 ||
+             output.get(i).getInt(0) == ChunkConsolePage.CONSOLE_INPUT)
+            continue;
+
+         String text = output.get(i).getString(1);
+         for (int j = text.indexOf('\n'); j != -1; j = text.indexOf('\n', j + 1))
+            lines++;
+      }
+      return lines + 1;
+   }
+
+   private final List<RmdChunkOutput> outputs_ = new ArrayList<RmdChunkOutput>();
+   private final HashMap<String, String> refreshedPlots_ = new HashMap<String, String>();
+   private boolean replayable_ = false;
+   private boolean held_ = false;
+   private int reservedHeight_ = 0;
+
+   private final static int ESTIMATED_LINE_HEIGHT = 15;
+}
@@ -546,6 +546,26 @@ public class ChunkOutputStream extends FlowPanel
       return false;
    }
    
+   @Override
+   public boolean hasInteracted()
+   {
+      for (Widget w: this)
+      {
+         Widget inner = w;
+         if (w instanceof FixedRatioWidget)
+            inner = ((FixedRatioWidget)w).getWidget();
+         
+         if (inner instanceof ChunkOutputFrame &&
+             ((ChunkOutputFrame)inner).hasInteracted())
+            return true;
+         if (inner instanceof ChunkDataWidget &&
+             ((ChunkDataWidget)inner).hasInteracted())
+            return true;
+      }
+      
+      return false;
+   }
+   
    @Override
    public boolean hasErrors()
    {
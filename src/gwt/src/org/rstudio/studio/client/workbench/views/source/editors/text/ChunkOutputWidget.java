@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -267,11 +269,119 @@ public class ChunkOutputWidget extends Composite
    {
       if (StringUtil.isNullOrEmpty(htmlOutput))
          return;
+      
+      // callback HTML isn't part of the replayed output, so once it's been
+      // added the output can't be rebuilt from that
+      materialize();
+      replay_.discard();
       presenter_.showCallbackHtml(htmlOutput, parentElement);
    }
 
    public void showChunkOutput(RmdChunkOutput output, int mode, int scope,
          boolean complete, boolean ensureVisible)
+   {
+      materialize();
+      replay_.record(output, complete, state_ == CHUNK_EMPTY);
+      renderChunkOutput(output, mode, scope, complete, ensureVisible);
+   }
+   
+   /**
+    * Holds on to replayed output without rendering it; until materialize() is
+    * called, an empty frame reserves the space the output will take.
+    * 
+    * @param output The replayed output
+    * @param reservedHeight The height of the output when last rendered, or 0
+    *    if unknown (in which case it's estimated from the output)
+    */
+   public void deferChunkOutput(RmdChunkOutput output, int reservedHeight)
+   {
+      // we can only defer replays, and only if we aren't already showing 
+      // some output
+      if (!output.isReplay() || 
+          chunkOutputSize_ != ChunkOutputSize.Default ||
+          (!replay_.isHeld() && state_ != CHUNK_EMPTY))
+      {
+         showChunkOutput(output, NotebookQueueUnit.EXEC_MODE_BATCH,
+               NotebookQueueUnit.EXEC_SCOPE_PARTIAL, true, false);
+         return;
+      }
+      
+      replay_.record(output, true, state_ == CHUNK_EMPTY);
+      replay_.hold();
+      state_ = CHUNK_READY;
+      
+      // note errors up front, since they affect whether output is shown
+      if (replay_.hasErrors())
+         hasErrors_ = true;
+      
+      replay_.reserve(reservedHeight);
+      syncHeight(false, false);
+   }
+   
+   /**
+    * Renders output held back by deferChunkOutput() or release().
+    */
+   public void materialize()
+   {
+      if (!replay_.isHeld())
+         return;
+      
+      state_ = CHUNK_EMPTY;
+      hasErrors_ = false;
+      lastOutputType_ = RmdChunkOutputUnit.TYPE_NONE;
+      
+      // rendering the output records it again
+      Collection<String> refreshedPlots = 
+            new ArrayList<String>(replay_.getRefreshedPlots());
+      for (RmdChunkOutput output: replay_.release())
+      {
+         showChunkOutput(output, NotebookQueueUnit.EXEC_MODE_BATCH,
+               NotebookQueueUnit.EXEC_SCOPE_PARTIAL, true, false);
+      }
+      
+      for (String url: refreshedPlots)
+         presenter_.updatePlot(url, style.pendingResize());
+   }
+   
+   /**
+    * Discards the rendered output, leaving an empty frame of the same height
+    * in its place, if the output came entirely from a replay (and so can be
+    * rendered again by materialize()). Output the user has interacted with 
+    * (e.g. a zoomed htmlwidget or a paged data frame) is kept, since 
+    * rendering it again would lose that state.
+    */
+   public void release()
+   {
+      if (replay_.isHeld() || !replay_.isReplayable() ||
+          state_ != CHUNK_READY ||
+          presenter_.hasInteracted() ||
+          chunkOutputSize_ != ChunkOutputSize.Default ||
+          (collapseTimer_ != null && collapseTimer_.isRunning()))
+      {
+         return;
+      }
+      
+      presenter_.clearOutput();
+      attachPresenter(new ChunkOutputStream(this, chunkOutputSize_));
+      replay_.hold();
+   }
+   
+   public boolean isDeferred()
+   {
+      return replay_.isHeld();
+   }
+   
+   /**
+    * @return The height of the output frame when last expanded, or 0 if
+    *    it hasn't been shown expanded
+    */
+   public int getContentHeight()
+   {
+      return replay_.getReservedHeight();
+   }
+
+   private void renderChunkOutput(RmdChunkOutput output, int mode, int scope,
+         boolean complete, boolean ensureVisible)
    {
       if (output.getType() == RmdChunkOutput.TYPE_MULTIPLE_UNIT)
       {
@@ -336,7 +446,13 @@ public class ChunkOutputWidget extends Composite
       // clamp chunk height to min/max (the +19 is the sum of the vertical
       // padding on the element)
       int height = ChunkOutputUi.CHUNK_COLLAPSED_HEIGHT;
-      if (expansionState_.getValue() == EXPANDED)
+      if (expansionState_.getValue() == EXPANDED && replay_.isHeld())
+      {
+         // hold the place of the output we haven't rendered
+         height = Math.max(ChunkOutputUi.MIN_CHUNK_HEIGHT, 
+               replay_.getReservedHeight());
+      }
+      else if (expansionState_.getValue() == EXPANDED)
       {
          int contentHeight = root_.getElement().getOffsetHeight() + 19;
          height = Math.max(ChunkOutputUi.MIN_CHUNK_HEIGHT, contentHeight);
@@ -351,6 +467,8 @@ public class ChunkOutputWidget extends Composite
          // if we have renders pending, don't shrink until they're loaded 
          if (pendingRenders_ > 0 && height < renderedHeight_)
             return;
+         
+         replay_.setReservedHeight(height);
       }
 
       // don't report height if it hasn't changed (unless we also need to ensure
@@ -422,6 +540,10 @@ public class ChunkOutputWidget extends Composite
 
       // clean error state
       hasErrors_ = false;
+      
+      // the output we're about to replace can't be replayed
+      replay_.release();
+      replay_.discard();
 
       // if we already had output, clear it
       if (state_ == CHUNK_READY)
@@ -501,11 +623,16 @@ public class ChunkOutputWidget extends Composite
    
    public boolean hasPlots()
    {
+      if (replay_.isHeld())
+         return replay_.hasPlots();
       return presenter_.hasPlots();
    }
    
    public void updatePlot(String url)
    {
+      // remember the new URL, so the plot is up to date if the output is
+      // rendered again from the replay
+      replay_.onPlotUpdated(url);
       presenter_.updatePlot(url, style.pendingResize());
    }
 
@@ -887,8 +1014,9 @@ public class ChunkOutputWidget extends Composite
       }
       else if (state_ == CHUNK_POST_OUTPUT &&
                presenter_ instanceof ChunkOutputStream &&
-               (isBlockType(type) || 
-                isBlockType(type) != isBlockType(lastOutputType_)))
+               (ChunkOutputReplay.isBlockType(type) || 
+                ChunkOutputReplay.isBlockType(type) != 
+                   ChunkOutputReplay.isBlockType(lastOutputType_)))
       {
          // we switch to gallery mode when we have either two block-type
          // outputs (e.g. two plots), or a block-type output combined with 
@@ -929,22 +1057,6 @@ public class ChunkOutputWidget extends Composite
       lastOutputType_ = type;
    }
    
-   private boolean isBlockType(int type)
-   {
-      switch (type)
-      {
-      case RmdChunkOutputUnit.TYPE_PLOT:
-      case RmdChunkOutputUnit.TYPE_DATA:
-      case RmdChunkOutputUnit.TYPE_HTML:
-          return true;
-      case RmdChunkOutputUnit.TYPE_TEXT:
-      case RmdChunkOutputUnit.TYPE_ERROR:
-      case RmdChunkOutputUnit.TYPE_ORDINAL:
-         return false;
-      }
-      return true;
-   }
-   
    @UiField HTMLPanel clear_;
    @UiField HTMLPanel expand_;
    @UiField Image popout_;
@@ -969,6 +1081,9 @@ public class ChunkOutputWidget extends Composite
    private boolean hideSatellitePopup_ = false;
    private String classId_;
    
+   // replayed output that can rebuild what's shown
+   private final ChunkOutputReplay replay_ = new ChunkOutputReplay();
+   
    private Timer collapseTimer_ = null;
    private final String documentId_;
    private final String chunkId_;
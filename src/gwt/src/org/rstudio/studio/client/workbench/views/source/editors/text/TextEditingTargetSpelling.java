@@ -28,7 +28,6 @@ import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.MenuItem;
 import org.rstudio.core.client.command.AppCommand;
 import org.rstudio.core.client.widget.ToolbarPopupMenu;
-import org.rstudio.studio.client.common.spelling.TypoSpellChecker;
 import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.views.output.lint.LintManager;
 import org.rstudio.studio.client.workbench.views.output.lint.model.LintItem;
@@ -64,18 +63,6 @@ public class TextEditingTargetSpelling extends SpellingContext
    {
       JsArray<LintItem> lint = JsArray.createArray().cast();
 
-      /*
-         There are certain dictionaries blacklisted from realtime spellchecking, it's
-         possible due to external preference funny business to get into a state where
-         this function was incorrectly called. Detect that state, clean it up, and return.
-       */
-      final String language = prefs_.spellingDictionaryLanguage().getValue();
-      if (!TypoSpellChecker.canRealtimeSpellcheckDict(language))
-      {
-         prefs_.realTimeSpellchecking().setGlobalValue(false);
-         return lint;
-      }
-      
       SpellingDoc spellingDoc = docDisplay_.getSpellingDoc();
       
       // only get tokens for the visible screen
@@ -84,7 +71,6 @@ public class TextEditingTargetSpelling extends SpellingContext
          docDisplay_.indexFromPosition(Position.create(docDisplay_.getLastVisibleRow(), docDisplay_.getLength(docDisplay_.getLastVisibleRow()))));
 
       final ArrayList<SpellingDoc.WordRange> wordRanges = new ArrayList<>();
-      ArrayList<String> prefetchWords = new ArrayList<>();
 
      
       for (SpellingDoc.WordRange wordRange : wordSource)
@@ -99,10 +85,11 @@ public class TextEditingTargetSpelling extends SpellingContext
             break;
 
          String word = spellingDoc.getText(wordRange);
-         if (!typo().checkSpelling(word)) {
-            if (prefetchWords.size() < prefs_.maxSpellcheckPrefetch().getValue())
-               prefetchWords.add(word);
 
+         // words the spelling worker hasn't seen yet are reported as correct
+         // for now; they're marked by refreshSpelling() if they turn out not
+         // to be
+         if (!typo().checkSpelling(word)) {
             Position wordStart = docDisplay_.positionFromIndex(wordRange.start);
             Position wordEnd = docDisplay_.positionFromIndex(wordRange.end);
             
@@ -116,9 +103,6 @@ public class TextEditingTargetSpelling extends SpellingContext
          }
       }
 
-      if (prefetchWords.size() > 0)
-         typo().prefetchWords(prefetchWords);
-
       return lint;
    }
 
@@ -134,6 +118,14 @@ public class TextEditingTargetSpelling extends SpellingContext
    {
       docDisplay_.removeMarkersAtWord(word);
    }
+
+   @Override
+   public void refreshSpelling(String[] words)
+   {
+      // spelling lint only covers the visible range (a bounded number of
+      // words), so it's recomputed as a whole rather than per word
+      lintManager_.refreshSpellingLint();
+   }
    
 
    private void injectContextMenuHandler()
@@ -184,74 +176,82 @@ public class TextEditingTargetSpelling extends SpellingContext
             return;
          }
 
-         // final variables for lambdas
-         final String replaceWord = word;
-         final Range replaceRange = wordRange;
-
-         final ToolbarPopupMenu menu = new ToolbarPopupMenu();
-
-         String[] suggestions = typo().suggestionList(word);
-
          // We now know we're going to show our menu, stop default context menu
          event.preventDefault();
          event.stopPropagation();
 
-         int i = 0;
-         for (String suggestion : suggestions)
-         {
-            // Only show a limited number of suggestions
-            if (i >= MAX_SUGGESTIONS)
-               break;
+         // suggestions come from the spelling worker, so show the menu once
+         // they're available
+         final String replaceWord = word;
+         final Range replaceRange = wordRange;
+         final int clientX = event.getNativeEvent().getClientX();
+         final int clientY = event.getNativeEvent().getClientY();
+         typo().suggestionList(word, (suggestions) ->
+            showSuggestionsMenu(replaceWord, replaceRange, suggestions, clientX, clientY));
+      });
 
-            MenuItem suggestionItem = new MenuItem(
-               AppCommand.formatMenuLabel(null, suggestion, ""),
-               true,
-               () -> {
-                  docDisplay_.removeMarkersAtCursorPosition();
-                  docDisplay_.replaceRange(replaceRange, suggestion);
-                  lintManager_.relintAfterDelay(LintManager.DEFAULT_LINT_DELAY);
-               });
-
-            menu.addItem(suggestionItem);
-            i++;
-         }
+      // relint the viewport as the user scrolls around
+      docDisplay_.addScrollYHandler((event) -> lintManager_.relintAfterDelay(LintManager.DEFAULT_LINT_DELAY));
+   }
+
+   private void showSuggestionsMenu(String replaceWord,
+                                    Range replaceRange,
+                                    String[] suggestions,
+                                    int clientX,
+                                    int clientY)
+   {
+      final ToolbarPopupMenu menu = new ToolbarPopupMenu();
 
-         // Only add a separator if we have suggestions to separate from
-         if (suggestions.length > 0)
-            menu.addSeparator();
+      int i = 0;
+      for (String suggestion : suggestions)
+      {
+         // Only show a limited number of suggestions
+         if (i >= MAX_SUGGESTIONS)
+            break;
 
-         MenuItem ignoreItem = new MenuItem(
-            AppCommand.formatMenuLabel(null, "Ignore word", ""),
+         MenuItem suggestionItem = new MenuItem(
+            AppCommand.formatMenuLabel(null, suggestion, ""),
             true,
             () -> {
-               typo().addIgnoredWord(replaceWord);
                docDisplay_.removeMarkersAtCursorPosition();
+               docDisplay_.replaceRange(replaceRange, suggestion);
+               lintManager_.relintAfterDelay(LintManager.DEFAULT_LINT_DELAY);
             });
 
-         menu.addItem(ignoreItem);
+         menu.addItem(suggestionItem);
+         i++;
+      }
+
+      // Only add a separator if we have suggestions to separate from
+      if (suggestions.length > 0)
          menu.addSeparator();
 
-         MenuItem addToDictionaryItem = new MenuItem(
-            AppCommand.formatMenuLabel(RES.addToDictIcon(), "Add to user dictionary", ""),
-            true,
-            () -> {
-               typo().addToUserDictionary(replaceWord);
-               docDisplay_.removeMarkersAtCursorPosition();
-            });
+      MenuItem ignoreItem = new MenuItem(
+         AppCommand.formatMenuLabel(null, "Ignore word", ""),
+         true,
+         () -> {
+            typo().addIgnoredWord(replaceWord);
+            docDisplay_.removeMarkersAtCursorPosition();
+         });
 
-         menu.addItem(addToDictionaryItem);
+      menu.addItem(ignoreItem);
+      menu.addSeparator();
 
-         menu.setPopupPositionAndShow((offWidth, offHeight) -> {
-            int clientX = event.getNativeEvent().getClientX();
-            int clientY = event.getNativeEvent().getClientY();
-            int menuX = Math.min(clientX, Window.getClientWidth() - offWidth);
-            int menuY = Math.min(clientY, Window.getClientHeight() - offHeight);
-            menu.setPopupPosition(menuX, menuY);
+      MenuItem addToDictionaryItem = new MenuItem(
+         AppCommand.formatMenuLabel(RES.addToDictIcon(), "Add to user dictionary", ""),
+         true,
+         () -> {
+            typo().addToUserDictionary(replaceWord);
+            docDisplay_.removeMarkersAtCursorPosition();
          });
-      });
 
-      // relint the viewport as the user scrolls around
-      docDisplay_.addScrollYHandler((event) -> lintManager_.relintAfterDelay(LintManager.DEFAULT_LINT_DELAY));
+      menu.addItem(addToDictionaryItem);
+
+      menu.setPopupPositionAndShow((offWidth, offHeight) -> {
+         int menuX = Math.min(clientX, Window.getClientWidth() - offWidth);
+         int menuY = Math.min(clientY, Window.getClientHeight() - offHeight);
+         menu.setPopupPosition(menuX, menuY);
+      });
    }
 
    private static final Resources RES = GWT.create(Resources.class);
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.rstudio.core.client.IdleScheduler;
 import org.rstudio.core.client.JsVector;
 import org.rstudio.core.client.JsVectorInteger;
 import org.rstudio.core.client.ListUtil;
@@ -29,17 +30,19 @@ import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.EditorModeChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.user.client.Timer;
 import com.google.inject.Inject;
 
 public class AceBackgroundHighlighter
       implements EditorModeChangedEvent.Handler,
-                 DocumentChangedEvent.Handler
+                 DocumentChangedEvent.Handler,
+                 RenderFinishedEvent.Handler
 {
    private static class HighlightPattern
    {
@@ -53,34 +56,31 @@ public class AceBackgroundHighlighter
       public Pattern end;
    }
   
-   private class Worker
+   // Synchronizes row states and markers a batch of rows at a time, from
+   // the shared idle scheduler. Rows are only synchronized as far as those in
+   // view; the rest are left until they're scrolled to.
+   private class Worker implements RepeatingCommand
    {
-      public Worker()
+      @Override
+      public boolean execute()
       {
-         timer_ = new Timer()
-         {
-            @Override
-            public void run()
-            {
-               work();
-            }
-         };
-      }
-      
-      private void work()
-      {
-         if (!enabled_)
-            return;
+         if (!enabled_ || !editor_.isShowing())
+            return false;
          
          // determine range to update
          int n = editor_.getRowCount();
+         int limit = Math.min(n, editor_.getLastVisibleRow() + VISIBLE_ROW_MARGIN);
          int startRow = row_;
-         int endRow = Math.min(startRow + CHUNK_SIZE, editor_.getRowCount());
+         int endRow = Math.min(startRow + CHUNK_SIZE, limit);
+         if (startRow >= endRow)
+            return false;
          
          activeHighlightPattern_ = findActiveHighlightPattern(startRow);
          
          // first, update local background state for each row
-         for (int row = startRow; row < endRow; row++)
+         int row = startRow;
+         boolean isSynchronized = false;
+         for (; row < endRow; row++)
          {
             // determine what state this row is in
             int state = computeState(row);
@@ -93,7 +93,10 @@ public class AceBackgroundHighlighter
                   (rowPatterns_.get(row) == activeHighlightPattern_);
             
             if (isConsistentState)
+            {
+               isSynchronized = true;
                break;
+            }
             
             // update state for this row
             rowStates_.set(row, state);
@@ -101,10 +104,11 @@ public class AceBackgroundHighlighter
          }
          
          // then, notify Ace and perform actual rendering of markers
-         for (int row = startRow; row < endRow; row++)
+         // for the rows whose state we updated
+         for (int i = startRow; i < row; i++)
          {
-            int state = rowStates_.get(row);
-            int marker = markerIds_.get(row, 0);
+            int state = rowStates_.get(i);
+            int marker = markerIds_.get(i, 0);
             
             // bail early if no action is necessary
             boolean isConsistentState =
@@ -118,39 +122,66 @@ public class AceBackgroundHighlighter
             if (marker != 0)
             {
                session_.removeMarker(marker);
-               markerIds_.set(row, 0);
+               markerIds_.set(i, 0);
             }
             
             // if this is a non-text state, then draw a marker
             if (state != STATE_TEXT)
             {
                int markerId = session_.addMarker(
-                     Range.create(row, 0, row, Integer.MAX_VALUE),
+                     Range.create(i, 0, i, Integer.MAX_VALUE),
                      MARKER_CLASS,
                      MARKER_TYPE,
                      false);
                
-               markerIds_.set(row, markerId);
+               markerIds_.set(i, markerId);
             }
          }
          
-         // update worker state and reschedule if there's
-         // more work to be done
-         row_ = endRow;
-         if (endRow != n)
-            timer_.schedule(DELAY_MS);
+         // once we reach a row whose state hasn't changed, the rows after it
+         // are up to date until the next row that's been edited (or never
+         // synchronized), so carry on from there
+         row_ = isSynchronized ? nextUnsynchronizedRow(row + 1, n) : row;
+         return row_ < limit;
       }
       
       public void start(int row)
       {
          row_ = Math.min(row, row_);
-         timer_.schedule(0);
+         resume();
+      }
+      
+      public void resume()
+      {
+         if (!IdleScheduler.get().isScheduled(this))
+            IdleScheduler.get().schedule(this);
+      }
+      
+      public boolean isPending()
+      {
+         return row_ < editor_.getRowCount();
+      }
+      
+      public int getRow()
+      {
+         return row_;
+      }
+      
+      private int nextUnsynchronizedRow(int row, int n)
+      {
+         // rows are unset when edited, and have state 0 when cleared
+         while (row < n &&
+                rowStates_.get(row, 0) != 0 &&
+                rowPatterns_.isSet(row))
+         {
+            row++;
+         }
+         
+         return row;
       }
       
-      private final Timer timer_;
       private int row_;
       
-      private static final int DELAY_MS = 5;
       private static final int CHUNK_SIZE = 200;
    }
    
@@ -186,12 +217,15 @@ public class AceBackgroundHighlighter
             {
                enabled_ = false;
                clearMarkers();
+               clearRowState();
             }
          }
       });
       
       activeModeId_ = editor.getSession().getMode().getId();
       refreshHighlighters();
+      
+      editor.addRenderFinishedHandler(this);
    }
    
    @Inject
@@ -226,6 +260,17 @@ public class AceBackgroundHighlighter
       }
    }
    
+   @Override
+   public void onRenderFinished(RenderFinishedEvent event)
+   {
+      // synchronize rows that have been scrolled into view
+      if (!enabled_ || highlightPatterns_.isEmpty() || !worker_.isPending())
+         return;
+      
+      if (worker_.getRow() < editor_.getLastVisibleRow() + VISIBLE_ROW_MARGIN)
+         worker_.resume();
+   }
+   
    @Override
    public void onDocumentChanged(DocumentChangedEvent event)
    {
@@ -462,6 +507,9 @@ public class AceBackgroundHighlighter
       HIGHLIGHT_PATTERN_REGISTRY.put("mode/rhtml", htmlStyleHighlightPatterns());
    }
    
+   // synchronize this many rows beyond those in view
+   private static final int VISIBLE_ROW_MARGIN = 50;
+   
    private static final int STATE_TEXT         = 1;
    private static final int STATE_CHUNK_START  = 2;
    private static final int STATE_CHUNK_BODY   = 3;
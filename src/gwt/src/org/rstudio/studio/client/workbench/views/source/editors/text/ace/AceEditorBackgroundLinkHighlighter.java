@@ -19,6 +19,8 @@ import java.util.List;
 
 import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.IdleScheduler;
+import org.rstudio.core.client.JsVectorString;
 import org.rstudio.core.client.ListUtil;
 import org.rstudio.core.client.MapUtil;
 import org.rstudio.core.client.MapUtil.ForEachCommand;
@@ -50,10 +52,12 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.EditorModeChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CommandClickEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.NativeEvent;
@@ -66,7 +70,6 @@ import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.CssResource;
 import com.google.gwt.user.client.Event;
-import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Event.NativePreviewEvent;
 import com.google.gwt.user.client.Event.NativePreviewHandler;
 import com.google.inject.Inject;
@@ -80,7 +83,8 @@ public class AceEditorBackgroundLinkHighlighter
             DocumentChangedEvent.Handler,
             EditorModeChangedEvent.Handler,
             MouseMoveHandler,
-            MouseUpHandler
+            MouseUpHandler,
+            RenderFinishedEvent.Handler
 {
    interface Highlighter
    {
@@ -110,26 +114,41 @@ public class AceEditorBackgroundLinkHighlighter
       editor_ = editor;
       activeMarkers_ = new SafeMap<Integer, List<MarkerRegistration>>();
       
-      nextHighlightStart_ = 0;
-      timer_ = new Timer()
+      rowText_ = JsVectorString.createVector();
+      
+      // highlight the rows in (or near) view which have changed since they
+      // were last highlighted, a batch at a time, while the browser is idle
+      worker_ = new RepeatingCommand()
       {
          @Override
-         public void run()
+         public boolean execute()
          {
+            if (highlighters_.isEmpty() || !editor_.isShowing())
+               return false;
+            
             int n = editor_.getCurrentLineCount();
-            int startRow = nextHighlightStart_;
-            int endRow   = Math.min(nextHighlightStart_ + N_HIGHLIGHT_ROWS, n);
+            int startRow = Math.max(0, editor_.getFirstVisibleRow() - VISIBLE_ROW_MARGIN);
+            int endRow   = Math.min(n, editor_.getLastVisibleRow() + VISIBLE_ROW_MARGIN);
             
+            int budget = N_HIGHLIGHT_ROWS;
             for (int row = startRow; row < endRow; row++)
-               highlightRow(row);
+            {
+               String line = editor_.getLine(row);
+               if (rowText_.isSet(row) && StringUtil.equals(rowText_.get(row), line))
+                  continue;
+               
+               highlightRow(row, line);
+               rowText_.set(row, line);
+               
+               // keep going on the next slice if we've used up this one
+               if (--budget == 0)
+                  return true;
+            }
             
-            nextHighlightStart_ = endRow;
-            if (endRow != n)
-               timer_.schedule(5);
+            return false;
          }
       };
       
-      
       highlighters_ = new ArrayList<Highlighter>();
       
       handlers_ = new ArrayList<HandlerRegistration>();
@@ -139,6 +158,7 @@ public class AceEditorBackgroundLinkHighlighter
       handlers_.add(editor_.addEditorModeChangedHandler(this));
       handlers_.add(editor_.addMouseMoveHandler(this));
       handlers_.add(editor_.addMouseUpHandler(this));
+      handlers_.add(editor_.addRenderFinishedHandler(this));
       
       refreshHighlighters(editor_.getModeId());
    }
@@ -167,16 +187,22 @@ public class AceEditorBackgroundLinkHighlighter
 		       }});
             if (fileType != null && (fileType.isMarkdown() || fileType.isRmd()))
                highlighters_.add(markdownLinkHighlighter());
-            nextHighlightStart_ = 0;
-            timer_.schedule(700);
+            rowText_ = JsVectorString.createVector();
+            scheduleHighlight();
          }
       });
    }
    
-   private void highlightRow(int row)
+   private void scheduleHighlight()
+   {
+      if (!IdleScheduler.get().isScheduled(worker_))
+         IdleScheduler.get().schedule(worker_);
+   }
+   
+   private void highlightRow(int row, String line)
    {
       for (Highlighter highlighter : highlighters_)
-         highlighter.highlight(editor_, editor_.getLine(row), row);
+         highlighter.highlight(editor_, line, row);
    }
    
    private void registerActiveMarker(int row,
@@ -581,6 +607,8 @@ public class AceEditorBackgroundLinkHighlighter
             handler.removeHandler();
          handlers_.clear();
          
+         IdleScheduler.get().cancel(worker_);
+         
          if (previewHandler_ != null)
          {
             previewHandler_.removeHandler();
@@ -595,10 +623,23 @@ public class AceEditorBackgroundLinkHighlighter
       // clear markers within the delete range
       clearMarkers(event.getEvent().getRange());
       
+      // forget what was highlighted on the changed rows, shifting what
+      // follows to match the rows it's now on
+      AceDocumentChangeEventNative nativeEvent = event.getEvent();
+      int startRow = nativeEvent.getRange().getStart().getRow();
+      int endRow = nativeEvent.getRange().getEnd().getRow();
+      if (nativeEvent.getAction().startsWith("insert"))
+      {
+         rowText_.insert(startRow, JsVectorString.ofLength(endRow - startRow));
+      }
+      else if (nativeEvent.getAction().startsWith("remove") && endRow > startRow)
+      {
+         rowText_.remove(startRow + 1, endRow - startRow);
+      }
+      rowText_.unset(startRow);
+      
       // prepare highlighter
-      int row = event.getEvent().getRange().getStart().getRow();
-      nextHighlightStart_ = Math.min(nextHighlightStart_, row);
-      timer_.schedule(700);
+      scheduleHighlight();
       
       // update marker positions (deferred so that anchors update)
       Scheduler.get().scheduleDeferred(new ScheduledCommand()
@@ -627,6 +668,13 @@ public class AceEditorBackgroundLinkHighlighter
       });
    }
    
+   @Override
+   public void onRenderFinished(RenderFinishedEvent event)
+   {
+      // highlight rows that have been scrolled into view
+      scheduleHighlight();
+   }
+   
    @Override
    public void onEditorModeChanged(EditorModeChangedEvent event)
    {
@@ -803,12 +851,13 @@ public class AceEditorBackgroundLinkHighlighter
    
    private final AceEditor editor_;
    private final List<Highlighter> highlighters_;
-   private final Timer timer_;
+   private final RepeatingCommand worker_;
    private final List<HandlerRegistration> handlers_;
    
    private SafeMap<Integer, List<MarkerRegistration>> activeMarkers_;
-   private int nextHighlightStart_;
+   private JsVectorString rowText_;
    private static final int N_HIGHLIGHT_ROWS = 200;
+   private static final int VISIBLE_ROW_MARGIN = 50;
    
    private HandlerRegistration previewHandler_;
    private Element activeHighlightMarkerEl_;
@@ -54,9 +54,11 @@ public class ChunkDefinition extends JavaScriptObject
    
    public final ChunkDefinition with(int row, String chunkLabel)
    {
-      return ChunkDefinition.create(row, getRowCount(), getVisible(), 
-            getExpansionState(), getOptions(), getDocumentId(),
+      ChunkDefinition def = ChunkDefinition.create(row, getRowCount(),
+            getVisible(), getExpansionState(), getOptions(), getDocumentId(),
             getChunkId(), chunkLabel);
+      def.setOutputHeight(getOutputHeight());
+      return def;
    }
    
    public native final int getRow()  /*-{
@@ -107,6 +109,16 @@ public class ChunkDefinition extends JavaScriptObject
       this.row = row;
    }-*/;
    
+   // the height of the chunk's output when last rendered (expanded), used to
+   // reserve space for output that hasn't been rendered yet; 0 if unknown
+   public native final int getOutputHeight() /*-{
+      return this.output_height || 0;
+   }-*/;
+   
+   public native final void setOutputHeight(int height) /*-{
+      this.output_height = height;
+   }-*/;
+   
    public final boolean equalTo(ChunkDefinition other)
    {
       return getRow() == other.getRow() &&
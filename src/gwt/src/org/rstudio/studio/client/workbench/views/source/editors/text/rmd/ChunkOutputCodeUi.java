@@ -102,6 +102,11 @@ public class ChunkOutputCodeUi extends ChunkOutputUi
       applyHeight(height);
       display_.onLineWidgetChanged(lineWidget_.getLineWidget());
       
+      // remember the height of the expanded output, so that space can be
+      // reserved for it when it isn't rendered
+      if (widget.getContentHeight() > 0)
+         getDefinition().setOutputHeight(widget.getContentHeight());
+      
       // if we need to ensure that this output is visible, wait for the event
       // loop to finish (so Ace gets a chance to adjust the line widgets and
       // do a render pass), then make sure the line beneath our widget is 
@@ -236,6 +236,11 @@ public class TextEditingTargetNotebook
          }
       }));
       
+      // render chunk output as it scrolls into view, and release it once it's
+      // well out of view (debounced, since this fires on every scroll step)
+      releaseOnDismiss.add(docDisplay_.addScrollYHandler((event) ->
+            syncDeferredOutput_.schedule(DEFERRED_OUTPUT_DELAY_MS)));
+      
       // rendering of chunk output line widgets (we wait until after the first
       // render to ensure that ace places the line widgets correctly)
       renderReg_ = docDisplay_.addRenderFinishedHandler(this);
@@ -744,8 +749,20 @@ public class TextEditingTargetNotebook
          if (ensureVisible && mode == NotebookQueueUnit.EXEC_MODE_BATCH)
             ensureVisible = false;
          
-         outputs().get(chunkId).getOutputWidget()
-                              .showChunkOutput(event.getOutput(), mode,
+         // don't render replayed output for chunks out of view (this is most 
+         // of them when opening a long notebook); just reserve space for it
+         ChunkOutputUi output = outputUi(chunkId);
+         if (event.getOutput().isReplay() &&
+             !queue_.isChunkExecuting(chunkId) &&
+             !editingTarget_.isVisualEditorActive() &&
+             !isNearViewport(output, 1))
+         {
+            output.getOutputWidget().deferChunkOutput(event.getOutput(),
+                  output.getDefinition().getOutputHeight());
+            return;
+         }
+         
+         output.getOutputWidget().showChunkOutput(event.getOutput(), mode,
                                   NotebookQueueUnit.EXEC_SCOPE_PARTIAL,
                                   !queue_.isChunkExecuting(chunkId),
                                   ensureVisible);
@@ -794,6 +811,9 @@ public class TextEditingTargetNotebook
           data.getRequestId() == Integer.toHexString(requestId_)) 
       {
          state_ = STATE_INITIALIZED;
+         
+         // outputs rendered during the replay may have moved others into view
+         syncDeferredOutput_.schedule(DEFERRED_OUTPUT_DELAY_MS);
       }
       else if (data.getType() == RmdChunkOutputFinishedEvent.TYPE_INTERACTIVE &&
                data.getDocId() == docUpdateSentinel_.getId())
@@ -928,6 +948,9 @@ public class TextEditingTargetNotebook
       // (this actually spins up a separate R process to re-render all the
       // plots at the new resolution)
       resizePlotsRemote_.schedule(500);
+      
+      // the viewport may now cover more (or fewer) chunk outputs
+      syncDeferredOutput_.schedule(DEFERRED_OUTPUT_DELAY_MS);
 
       for (ChunkOutputUi output: outputs().values())
       {
@@ -1400,6 +1423,7 @@ public class TextEditingTargetNotebook
 
    public void onDismiss()
    {
+      syncDeferredOutput_.cancel();
       closeAllSatelliteChunks();
    }
    
@@ -1488,8 +1512,10 @@ public class TextEditingTargetNotebook
          if (output.getScope().getPreamble().getRow() == 
              scope.getPreamble().getRow())
          {
-            // Detach the code output from the DOM
+            // Detach the code output from the DOM (visual mode shows all of
+            // its output, so first render any we've held back)
             ChunkOutputCodeUi codeOutput = (ChunkOutputCodeUi)output;
+            codeOutput.getOutputWidget().materialize();
             codeOutput.detach();
             
             // Create a new visual output from the widget
@@ -1549,6 +1575,9 @@ public class TextEditingTargetNotebook
       // Iterate over all known code chunk outputs
       for (ChunkOutputUi output: codeOutputs_.values())
       {
+         // Visual mode shows all output, so render any we've held back
+         output.getOutputWidget().materialize();
+         
          // If this chunk output is in code mode, create a version for visual mode
          if (visualOutputs_.containsKey(output.getChunkId()))
          {
@@ -1897,6 +1926,44 @@ public class TextEditingTargetNotebook
       }
    };
    
+   private Timer syncDeferredOutput_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         if (editingTarget_.isVisualEditorActive())
+            return;
+         
+         // render output near the viewport, and release output which is far
+         // from it (the gap between the two keeps output scrolling in and out
+         // of range from being built and torn down repeatedly)
+         for (ChunkOutputUi output: codeOutputs_.values())
+         {
+            ChunkOutputWidget widget = output.getOutputWidget();
+            if (isNearViewport(output, 1))
+               widget.materialize();
+            else if (!isNearViewport(output, 3))
+               widget.release();
+         }
+      }
+   };
+   
+   /**
+    * Whether a chunk's output is in view or close to it.
+    * 
+    * @param output The chunk output
+    * @param screens How close the output must be, in multiples of the 
+    *    viewport's height
+    */
+   private boolean isNearViewport(ChunkOutputUi output, int screens)
+   {
+      int first = docDisplay_.getFirstVisibleRow();
+      int last = docDisplay_.getLastVisibleRow();
+      int margin = Math.max(1, last - first) * screens;
+      int row = output.getCurrentRow();
+      return row >= first - margin && row <= last + margin;
+   }
+   
    private Timer resizePlotsLocal_ = new Timer()
    {
       @Override
@@ -2145,6 +2212,7 @@ public class TextEditingTargetNotebook
    public final static int STATE_INITIALIZED = 2;
    
    private final static String LAST_SETUP_CRC32 = "last_setup_crc32";
+   private final static int DEFERRED_OUTPUT_DELAY_MS = 100;
    public final static String SETUP_CHUNK_ID = "csetup_chunk";
    
    // stored document properties/values
@@ -321,18 +321,19 @@ public class CheckSpelling
 
             view_.focusReplacement();
 
-            // If Typo isn't loaded or isn't able to load (blacklisted dictionary)
-            // just defer to the async backend dictionary. Once we can load all dictionaries
-            // the legacy code can be removed.
+            // If Typo isn't loaded into the spelling worker (e.g. real time
+            // checking is off) just defer to the async backend dictionary.
             if (TypoSpellChecker.isLoaded())
             {
-               String[] suggestions = typoSpellChecker_.suggestionList(word);
-               view_.setSuggestions(suggestions);
-               if (suggestions.length > 0)
+               typoSpellChecker_.suggestionList(word, (suggestions) ->
                {
-                  view_.getReplacement().setText(suggestions[0]);
-                  view_.focusReplacement();
-               }
+                  view_.setSuggestions(suggestions);
+                  if (suggestions.length > 0)
+                  {
+                     view_.getReplacement().setText(suggestions[0]);
+                     view_.focusReplacement();
+                  }
+               });
             }
             else
             {
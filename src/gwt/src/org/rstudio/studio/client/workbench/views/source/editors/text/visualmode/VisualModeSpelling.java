@@ -294,6 +294,15 @@ public class VisualModeSpelling extends SpellingContext
       if (userDictionary)
          eventBus_.fireEvent(new VisualModeSpellingAddToDictionaryEvent(word));
    }
+
+   @Override
+   public void refreshSpelling(String[] words)
+   {
+      // recheck just the words that turned out to be misspelled (their
+      // results are now cached), not the whole document
+      for (String word : words)
+         context_.invalidateWord(word);
+   }
    
    private final DocDisplay docDisplay_;
    private final Context context_;
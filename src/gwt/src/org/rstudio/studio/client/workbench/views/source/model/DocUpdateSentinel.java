@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.model;
 
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
@@ -29,8 +30,8 @@ import org.rstudio.core.client.Barrier.Token;
 import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.DebouncedCommand;
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.js.JsObject;
-import org.rstudio.core.client.patch.SubstringDiff;
 import org.rstudio.core.client.widget.Operation;
 import org.rstudio.core.client.widget.ProgressIndicator;
 import org.rstudio.studio.client.RStudioGinjector;
@@ -48,6 +49,7 @@ import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.Fold;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.VimMarks;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.FoldChangeEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.SourceOnSaveChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkDefinition;
@@ -60,7 +62,8 @@ import java.util.Map;
 
 public class DocUpdateSentinel
       implements ValueChangeHandler<Void>,
-      FoldChangeEvent.Handler
+      FoldChangeEvent.Handler,
+      DocumentChangedEvent.Handler
 {
    private class ReopenFileCallback extends ServerRequestCallback<SourceDocument>
    {
@@ -80,6 +83,11 @@ public class DocUpdateSentinel
       {
          sourceDoc_ = response;
          docDisplay_.setCode(sourceDoc_.getContents(), true);
+
+         // the editor now matches the server's copy
+         edits_.clear();
+         contentsStale_ = false;
+         requireFullSync_ = false;
          dirtyState_.markClean();
 
          if (progress_ != null)
@@ -163,6 +171,7 @@ public class DocUpdateSentinel
 
       docDisplay_.addValueChangeHandler(this);
       docDisplay_.addFoldChangeHandler(this);
+      docDisplay_.addDocumentChangedHandler(this);
 
       // Web only
       if (!Desktop.isDesktop())
@@ -471,10 +480,6 @@ public class DocUpdateSentinel
          actually sent to the server. */
       final ChangeTracker thisChangeTracker = changeTracker_.fork();
 
-      final String newContents = docDisplay_.getCode();
-      String oldContents = sourceDoc_.getContents();
-      final String hash = sourceDoc_.getHash();
-
       final String foldSpec = Fold.encode(Fold.flatten(docDisplay_.getFolds()));
       String oldFoldSpec = sourceDoc_.getFoldSpec();
 
@@ -482,11 +487,10 @@ public class DocUpdateSentinel
       JsArray<ChunkDefinition> oldChunkDefs =
             sourceDoc_.getNotebookDoc().getChunkDefs();
 
-      SubstringDiff diff = new SubstringDiff(oldContents, newContents);
-
       // Don't auto-save when there are no changes. In addition to being
       // wasteful, it causes the server to think the document is dirty.
-      if (path == null && fileType == null && diff.isValid() && diff.isEmpty()
+      if (path == null && fileType == null && edits_.isEmpty()
+          && !requireFullSync_
           && foldSpec == oldFoldSpec
           && (newChunkDefs == null ||
               ChunkDefinition.equalTo(newChunkDefs, oldChunkDefs)))
@@ -496,19 +500,22 @@ public class DocUpdateSentinel
       }
 
       if (path == null && fileType == null
-          && oldContents.length() == 0
-          && newContents == "\n")
+          && docDisplay_.getRowCount() == 2
+          && StringUtil.equals(docDisplay_.getCode(), "\n"))
       {
          // This is necessary due to us adding an extra \n to empty
          // documents, which we have to do or else CodeMirror starts
          // acting funny. If we add the extra \n but don't do this
          // check, then reloading the browser causes empty documents
          // to appear dirty.
-         changesPending_ = false;
-         return false;
+         materializeContents();
+         if (sourceDoc_.getContents().length() == 0)
+         {
+            changesPending_ = false;
+            return false;
+         }
       }
 
-
       try
       {
          if (path != null)
@@ -522,119 +529,198 @@ public class DocUpdateSentinel
          Debug.logException(e);
       }
 
-      server_.saveDocumentDiff(
-            sourceDoc_.getId(),
-            path,
-            fileType,
-            encoding,
-            foldSpec,
-            newChunkDefs,
-            diff.getReplacement(),
-            diff.getOffset(),
-            diff.getLength(),
-            diff.isValid(),
-            hash,
-            retryWrite,
-            new ServerRequestCallback<String>()
-            {
-               @Override
-               public void onError(ServerError error)
-               {
-                  // Always log save errors.
-                  Debug.logError(error);
+      // Normally we send just the edits made since the last save. The edits
+      // are relative to the contents the server had when that save was sent,
+      // so if another save is still outstanding (or edits have been lost
+      // along the way) we send the full text instead.
+      final boolean fullSync = requireFullSync_ || savesInFlight_ > 0;
+      final String hash = sourceDoc_.getHash();
+      final String newContents;
+      final JavaScriptObject edits;
+      if (fullSync)
+      {
+         materializeContents();
+         newContents = docDisplay_.getCode();
+         edits = null;
+         edits_.clear();
+         requireFullSync_ = false;
+         unverifiedEditSaves_ = 0;
+
+         // the full text supersedes any edits still in flight
+         inFlightEdits_ = null;
+      }
+      else
+      {
+         newContents = null;
+         edits = edits_.take();
+         inFlightEdits_ = edits;
+      }
 
-                  // Report errors to indicator.
-                  if (progress != null)
-                  {
-                     String errorMessage =
-                           "Error saving " + path + ": " +
-                                 error.getUserMessage();
+      // Hashing the result costs a pass over the whole document, so only
+      // explicit saves and every so many autosaves are verified; anything
+      // the others get wrong is caught (and resynced) by the next check.
+      String contentsHash = "";
+      if (!fullSync && (path != null || ++unverifiedEditSaves_ >= VERIFY_EDIT_SAVES))
+      {
+         contentsHash = DocumentEditLog.contentsHash(docDisplay_.getLines());
+         unverifiedEditSaves_ = 0;
+      }
 
-                     progress.onError(errorMessage);
-                  }
+      savesInFlight_++;
+      ServerRequestCallback<String> callback = new ServerRequestCallback<String>()
+      {
+         @Override
+         public void onError(ServerError error)
+         {
+            onSaveCompleted(false);
 
-                  // Attempt to report save error.
-                  try
-                  {
-                     if (path != null)
-                     {
-                        eventBus_.fireEvent(new SaveFailedEvent(path, getId()));
-                     }
-                  }
-                  catch (Exception e)
-                  {
-                     Debug.logException(e);
-                  }
+            // the server never applied these edits; resync with the full
+            // text next time
+            if (!fullSync)
+               requireFullSync_ = true;
 
-                  changesPending_ = false;
-               }
+            // Always log save errors.
+            Debug.logError(error);
 
-               @Override
-               public void onResponseReceived(String newHash)
+            // Report errors to indicator.
+            if (progress != null)
+            {
+               String errorMessage =
+                     "Error saving " + path + ": " +
+                           error.getUserMessage();
+
+               progress.onError(errorMessage);
+            }
+
+            // Attempt to report save error.
+            try
+            {
+               if (path != null)
                {
-                  if (newHash != null)
-                  {
-                     // If the document hasn't changed further since the version
-                     // we saved, then we know we're all synced up.
-                     try
-                     {
-                        if (!thisChangeTracker.hasChanged())
-                           changeTracker_.reset();
-
-                        // update the foldSpec and newChunkDefs so we
-                        // can use them for change detection the next
-                        // time around
-                        sourceDoc_.setFoldSpec(foldSpec);
-                        sourceDoc_.getNotebookDoc().setChunkDefs(newChunkDefs);
-
-                        onSuccessfulUpdate(newContents,
-                                           newHash,
-                                           path,
-                                           fileType,
-                                           encoding);
-                     }
-                     catch(Exception ex)
-                     {
-                        // log exception, but continue (we want to guarantee the
-                        // progress indicator is updated)
-                        Debug.log("Exception in post-save update " + path +
-                                  " to " + newHash + ": " + ex.getMessage());
-                     }
-                     if (progress != null)
-                        progress.onCompleted();
+                  eventBus_.fireEvent(new SaveFailedEvent(path, getId()));
+               }
+            }
+            catch (Exception e)
+            {
+               Debug.logException(e);
+            }
 
-                     // let anyone interested know we just saved
-                     SaveFileEvent saveEvent = new SaveFileEvent(path, fileType, encoding);
-                     docDisplay_.fireEvent(saveEvent);
-                     eventBus_.fireEvent(saveEvent);
-                  }
-                  else if (hash != sourceDoc_.getHash())
-                  {
-                     // We just hit a race condition where two updates
-                     // happened at once. Try again
-                     doSave(path, fileType, encoding, retryWrite, progress);
-                  }
-                  else
-                  {
-                     /*Debug.log("Diff-based save failed--falling back to " +
-                               "snapshot save");*/
-                     server_.saveDocument(
-                           sourceDoc_.getId(),
-                           path,
-                           fileType,
-                           encoding,
-                           foldSpec,
-                           newChunkDefs,
-                           newContents,
-                           retryWrite,
-                           this);
-                  }
+            changesPending_ = false;
+         }
+
+         @Override
+         public void onResponseReceived(String newHash)
+         {
+            onSaveCompleted(newHash != null);
+
+            if (newHash != null)
+            {
+               // If the document hasn't changed further since the version
+               // we saved, then we know we're all synced up.
+               try
+               {
+                  if (!thisChangeTracker.hasChanged())
+                     changeTracker_.reset();
+
+                  // update the foldSpec and newChunkDefs so we
+                  // can use them for change detection the next
+                  // time around
+                  sourceDoc_.setFoldSpec(foldSpec);
+                  sourceDoc_.getNotebookDoc().setChunkDefs(newChunkDefs);
+
+                  onSuccessfulUpdate(newContents,
+                                     newHash,
+                                     path,
+                                     fileType,
+                                     encoding);
                }
-            });
+               catch(Exception ex)
+               {
+                  // log exception, but continue (we want to guarantee the
+                  // progress indicator is updated)
+                  Debug.log("Exception in post-save update " + path +
+                            " to " + newHash + ": " + ex.getMessage());
+               }
+               if (progress != null)
+                  progress.onCompleted();
+
+               // let anyone interested know we just saved
+               SaveFileEvent saveEvent = new SaveFileEvent(path, fileType, encoding);
+               docDisplay_.fireEvent(saveEvent);
+               eventBus_.fireEvent(saveEvent);
+            }
+            else
+            {
+               // The server either had different contents than the edits
+               // were based on (e.g. two saves raced) or the result didn't
+               // check out; fall back to sending the full text.
+               requireFullSync_ = true;
+               doSave(path, fileType, encoding, retryWrite, progress);
+            }
+         }
+
+         private void onSaveCompleted(boolean applied)
+         {
+            savesInFlight_--;
+
+            // unless a full save has superseded them, put edits the server
+            // didn't apply back in the log, so that the saved contents can
+            // still be reconstructed from it
+            if (!fullSync && inFlightEdits_ == edits)
+            {
+               if (!applied)
+                  edits_.restore(edits);
+               inFlightEdits_ = null;
+            }
+         }
+      };
+
+      if (fullSync)
+      {
+         server_.saveDocument(
+               sourceDoc_.getId(),
+               path,
+               fileType,
+               encoding,
+               foldSpec,
+               newChunkDefs,
+               newContents,
+               retryWrite,
+               callback);
+      }
+      else
+      {
+         server_.saveDocumentEdits(
+               sourceDoc_.getId(),
+               path,
+               fileType,
+               encoding,
+               foldSpec,
+               newChunkDefs,
+               DocumentEditLog.encode(edits),
+               contentsHash,
+               hash,
+               retryWrite,
+               callback);
+      }
 
       return true;
    }
 
+   // Brings sourceDoc_'s contents up to date after edit based saves (which
+   // don't keep a copy of the saved text) by undoing the unsaved edits on
+   // the current document.
+   private void materializeContents()
+   {
+      if (!contentsStale_)
+         return;
+
+      sourceDoc_.setContents(DocumentEditLog.revert(
+            docDisplay_.getLines(),
+            edits_.since(inFlightEdits_)));
+      contentsStale_ = false;
+   }
+
    private void onSuccessfulUpdate(String contents,
                                    String hash,
                                    String path,
@@ -642,7 +728,9 @@ public class DocUpdateSentinel
                                    String encoding)
    {
       changesPending_ = false;
-      sourceDoc_.setContents(contents);
+      if (contents != null)
+         sourceDoc_.setContents(contents);
+      contentsStale_ = contents == null;
       sourceDoc_.setHash(hash);
       if (path != null)
       {
@@ -828,6 +916,17 @@ public class DocUpdateSentinel
    {
       nudgeAutosave();
    }
+
+   @Override
+   public void onDocumentChanged(DocumentChangedEvent event)
+   {
+      // changes made with detection suspended bring the editor in line with
+      // the server's copy, so there's nothing to send for them
+      if (suspendDetectChanges_ > 0)
+         return;
+
+      edits_.record(event.getEvent());
+   }
    
    public void nudgeAutosave()
    {
@@ -846,11 +945,13 @@ public class DocUpdateSentinel
 
    public String getContents()
    {
+      materializeContents();
       return sourceDoc_.getContents();
    }
 
    public SourceDocument getDoc()
    {
+      materializeContents();
       return sourceDoc_;
    }
 
@@ -937,6 +1038,18 @@ public class DocUpdateSentinel
 
    private int suspendDetectChanges_ = 0;
    private boolean changesPending_ = false;
+
+   // edits not yet sent to the server, and those sent with the (single)
+   // outstanding edit based save
+   private final DocumentEditLog edits_ = new DocumentEditLog();
+   private JavaScriptObject inFlightEdits_ = null;
+   private int savesInFlight_ = 0;
+   private boolean requireFullSync_ = false;
+   private int unverifiedEditSaves_ = 0;
+   private static final int VERIFY_EDIT_SAVES = 10;
+
+   // true when sourceDoc_'s contents predate the last (edit based) save
+   private boolean contentsStale_ = false;
    private final ChangeTracker changeTracker_;
    private final SourceServerOperations server_;
    private final DocDisplay docDisplay_;
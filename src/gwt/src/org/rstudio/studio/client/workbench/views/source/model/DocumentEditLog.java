@@ -0,0 +1,187 @@
+/*
+ * DocumentEditLog.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+
+// Records the changes made to a document (as reported by Ace) since it was
+// last synced with the server, so that a save can send just those changes
+// rather than the full document text.
+//
+// Edits are kept as copies of the Ace deltas; they are sent to the server as
+// an ordered list of compact [0, row, column, text] (insert) and
+// [1, row, column, endRow, endColumn] (remove) arrays. Columns are in UTF-16
+// code units, as Ace reports them.
+class DocumentEditLog
+{
+   DocumentEditLog()
+   {
+      clear();
+   }
+
+   void record(AceDocumentChangeEventNative event)
+   {
+      recordImpl(edits_, event);
+   }
+
+   boolean isEmpty()
+   {
+      return length(edits_) == 0;
+   }
+
+   void clear()
+   {
+      edits_ = JavaScriptObject.createArray();
+   }
+
+   /**
+    * Removes and returns the recorded edits, leaving the log empty.
+    */
+   JavaScriptObject take()
+   {
+      JavaScriptObject edits = edits_;
+      clear();
+      return edits;
+   }
+
+   /**
+    * Puts edits taken from the log back in front of those recorded since
+    * (e.g. because the save that sent them didn't apply them).
+    */
+   void restore(JavaScriptObject earlier)
+   {
+      edits_ = concat(earlier, edits_);
+   }
+
+   /**
+    * @return The recorded edits, preceded by the given (earlier) edits.
+    */
+   JavaScriptObject since(JavaScriptObject earlier)
+   {
+      return earlier == null ? edits_ : concat(earlier, edits_);
+   }
+
+   static native final int length(JavaScriptObject edits) /*-{
+      return edits.length;
+   }-*/;
+
+   static native final JavaScriptObject encode(JavaScriptObject edits) /*-{
+      var encoded = new Array(edits.length);
+      for (var i = 0; i < edits.length; i++)
+      {
+         var edit = edits[i];
+         encoded[i] = edit.action === "insert"
+            ? [0, edit.start.row, edit.start.column, edit.lines.join("\n")]
+            : [1, edit.start.row, edit.start.column, edit.end.row, edit.end.column];
+      }
+      return encoded;
+   }-*/;
+
+   /**
+    * Computes the CRC-32 of a document's text as the editor holds it (UTF-16
+    * code units, low byte first, with lines joined by newlines), without
+    * joining the lines into one string. The session computes the same hash
+    * of its copy once it has applied the edits, to verify them; an empty
+    * hash skips that check.
+    *
+    * @return The hash, as a lower case hex string.
+    */
+   static native final String contentsHash(JsArrayString lines) /*-{
+      var crcTable = $wnd.rs_crc32Table;
+      if (!crcTable)
+      {
+         crcTable = [];
+         for (var n = 0; n < 256; n++)
+         {
+            var c = n;
+            for (var k = 0; k < 8; k++)
+               c = ((c & 1) ? (0xEDB88320 ^ (c >>> 1)) : (c >>> 1));
+            crcTable[n] = c;
+         }
+         $wnd.rs_crc32Table = crcTable;
+      }
+
+      var crc = 0 ^ (-1);
+      for (var i = 0; i < lines.length; i++)
+      {
+         if (i > 0)
+         {
+            crc = (crc >>> 8) ^ crcTable[(crc ^ 10) & 0xFF];
+            crc = (crc >>> 8) ^ crcTable[crc & 0xFF];
+         }
+
+         var line = lines[i];
+         for (var j = 0; j < line.length; j++)
+         {
+            var unit = line.charCodeAt(j);
+            crc = (crc >>> 8) ^ crcTable[(crc ^ unit) & 0xFF];
+            crc = (crc >>> 8) ^ crcTable[(crc ^ (unit >>> 8)) & 0xFF];
+         }
+      }
+
+      return ((crc ^ (-1)) >>> 0).toString(16);
+   }-*/;
+
+   /**
+    * Reconstructs the text of a document as it was before a list of edits
+    * were applied to it.
+    *
+    * @param lines The current lines of the document.
+    * @param edits The edits (oldest first) to undo.
+    */
+   static native final String revert(JsArrayString lines,
+                                     JavaScriptObject edits) /*-{
+      var Document = $wnd.require("ace/document").Document;
+      var doc = new Document(lines.slice());
+      for (var i = edits.length - 1; i >= 0; i--)
+         doc.revertDelta(edits[i]);
+      return doc.getAllLines().join("\n");
+   }-*/;
+
+   // copy the delta, since Ace may adjust the ones it keeps for undo; text
+   // typed at the end of the previous insert extends it, so a run of typing
+   // is sent (and applied) as one edit
+   private static native final void recordImpl(JavaScriptObject edits,
+                                               AceDocumentChangeEventNative event) /*-{
+      var last = edits.length > 0 ? edits[edits.length - 1] : null;
+      if (last != null &&
+          last.action === "insert" && event.action === "insert" &&
+          last.lines.length === 1 && event.lines.length === 1 &&
+          last.end.row === event.start.row &&
+          last.end.column === event.start.column)
+      {
+         last.lines = [last.lines[0] + event.lines[0]];
+         last.end = { row: event.end.row, column: event.end.column };
+         return;
+      }
+
+      edits.push({
+         action: event.action,
+         start:  { row: event.start.row, column: event.start.column },
+         end:    { row: event.end.row,   column: event.end.column },
+         lines:  event.lines
+      });
+   }-*/;
+
+   private static native final JavaScriptObject concat(JavaScriptObject lhs,
+                                                       JavaScriptObject rhs) /*-{
+      return lhs.concat(rhs);
+   }-*/;
+
+   private JavaScriptObject edits_;
+}
@@ -79,6 +79,15 @@ public class SourceDocument extends JavaScriptObject
       this.contents = contents;
    }-*/;
 
+   /**
+    * True if the contents were left out when the document was listed (as
+    * they are for clean documents restored at startup), in which case the
+    * document must be fetched before an editor can be built for it.
+    */
+   public native final boolean isContentsDeferred() /*-{
+      return !!this.contents_deferred;
+   }-*/;
+
    /**
     * True if changes have been saved to the ID that have not been persisted
     * to the file.
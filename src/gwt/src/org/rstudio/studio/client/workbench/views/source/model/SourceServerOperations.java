@@ -130,6 +130,28 @@ public interface SourceServerOperations extends FilesServerOperations,
                          boolean retryWrite,
                          ServerRequestCallback<String> requestCallback);
 
+   /**
+    * Same as saveDocumentDiff, but the change is sent as the ordered list of
+    * editor edits made since the contents with the given hash (see
+    * DocumentEditLog for the encoding), along with the hash of the editor's
+    * contents once they are applied (see DocumentEditLog.contentsHash).
+    *
+    * If the return value is null, the server's contents didn't match the
+    * hash or the edits didn't produce the expected document, and
+    * saveDocument() should be used as a fallback.
+    */
+   void saveDocumentEdits(String id,
+                          String path,
+                          String fileType,
+                          String encoding,
+                          String foldSpec,
+                          JsArray<ChunkDefinition> chunkOutput,
+                          JavaScriptObject edits,
+                          String contentsHash,
+                          String hash,
+                          boolean retryWrite,
+                          ServerRequestCallback<String> requestCallback);
+
    void checkForExternalEdit(
          String id,
          ServerRequestCallback<CheckForExternalEditResult> requestCallback);
@@ -0,0 +1,283 @@
+/*
+ * TerminalBufferSync.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.workbench.views.terminal;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import org.rstudio.studio.client.common.console.ConsoleOutputEvent;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.console.model.ProcessBufferTail;
+
+import com.google.gwt.core.client.Scheduler;
+
+/**
+ * Keeps a terminal emulator in step with the saved buffer of its console
+ * process when (re)connecting.
+ *
+ * The server numbers terminal output with a running count of the bytes saved
+ * to the process's buffer, and tags the output it sends with the count it has
+ * reached. We remember how far we've rendered, so that on reconnecting only
+ * the output we missed needs to be fetched rather than the whole buffer.
+ *
+ * The fetched output, followed by any live output that arrived meanwhile, is
+ * written to the terminal in large slices from an incremental command, so
+ * that replaying a big buffer doesn't hold up the UI thread.
+ */
+public class TerminalBufferSync
+{
+   public interface Source
+   {
+      /**
+       * Fetch the saved buffer's output since the given sequence number (or
+       * the whole buffer, if that isn't available).
+       */
+      void getBufferTail(double since, ServerRequestCallback<ProcessBufferTail> callback);
+   }
+
+   public interface Target
+   {
+      /**
+       * Discard everything shown, ahead of replaying the whole buffer.
+       */
+      void clearBuffer();
+
+      /**
+       * Write output from the saved buffer.
+       */
+      void writeBuffer(String output);
+
+      /**
+       * Write live output received from the server.
+       */
+      void writeOutput(String output);
+
+      /**
+       * Called once the saved buffer has been written, and before any live
+       * output received while fetching it.
+       */
+      void onBufferReplayed();
+
+      void onSyncFailed(ServerError error);
+   }
+
+   public TerminalBufferSync(Source source, Target target)
+   {
+      source_ = source;
+      target_ = target;
+   }
+
+   /**
+    * Fetch and write the output we haven't rendered. Live output received
+    * until that's done is held back and written afterwards.
+    */
+   public void sync()
+   {
+      if (syncing_)
+         return;
+
+      syncing_ = true;
+      fetch(++generation_);
+   }
+
+   /**
+    * Like sync(), for when the server has dropped live output rather than
+    * hold it back. A sync already under way may have fetched the buffer from
+    * before the gap, so in that case the buffer is fetched again once what
+    * it has fetched is written.
+    */
+   public void resync()
+   {
+      if (syncing_)
+         refetch_ = true;
+      else
+         sync();
+   }
+
+   private void fetch(final int generation)
+   {
+      source_.getBufferTail(renderedSequence_, new ServerRequestCallback<ProcessBufferTail>()
+      {
+         @Override
+         public void onResponseReceived(ProcessBufferTail tail)
+         {
+            if (generation != generation_)
+               return;
+
+            if (!tail.isTail() && renderedSequence_ != ConsoleOutputEvent.NO_SEQUENCE)
+               target_.clearBuffer();
+
+            // drop output held back which the buffer already includes
+            double sequence = tail.getSequence();
+            for (Iterator<Output> it = pending_.iterator(); it.hasNext(); )
+            {
+               double pendingSequence = it.next().sequence;
+               if (pendingSequence != ConsoleOutputEvent.NO_SEQUENCE &&
+                   pendingSequence <= sequence)
+               {
+                  it.remove();
+               }
+            }
+
+            buffer_ = tail.getChunk() == null ? "" : tail.getChunk();
+            bufferOffset_ = 0;
+            renderedSequence_ = sequence;
+            Scheduler.get().scheduleIncremental(() -> replay(generation));
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            if (generation != generation_)
+               return;
+
+            reset();
+            target_.onSyncFailed(error);
+         }
+      });
+   }
+
+   /**
+    * Handle live output from the server.
+    *
+    * @param output The output
+    * @param sequence The output sequence number it reaches, or
+    *    ConsoleOutputEvent.NO_SEQUENCE
+    */
+   public void receivedOutput(String output, double sequence)
+   {
+      Output item = new Output(output, sequence);
+      if (syncing_)
+         pending_.add(item);
+      else
+         write(item);
+   }
+
+   /**
+    * @return true while output is being fetched or replayed
+    */
+   public boolean isSyncing()
+   {
+      return syncing_;
+   }
+
+   /**
+    * @return The sequence number of the output rendered so far, or
+    *    ConsoleOutputEvent.NO_SEQUENCE if unknown
+    */
+   public double getRenderedSequence()
+   {
+      return renderedSequence_;
+   }
+
+   /**
+    * Abandon any sync in progress, along with output held back by it. What's
+    * been rendered is still remembered, so a later sync can pick up from it.
+    */
+   public void reset()
+   {
+      generation_++;
+      syncing_ = false;
+      refetch_ = false;
+      buffer_ = null;
+      pending_.clear();
+   }
+
+   private boolean replay(int generation)
+   {
+      if (generation != generation_)
+         return false;
+
+      int budget = REPLAY_BATCH_SIZE;
+      if (buffer_ != null)
+      {
+         int length = buffer_.length();
+         int end = Math.min(length, bufferOffset_ + budget);
+
+         // don't split a surrogate pair between writes
+         if (end < length && end - 1 > bufferOffset_ &&
+             Character.isHighSurrogate(buffer_.charAt(end - 1)))
+         {
+            end--;
+         }
+
+         if (end > bufferOffset_)
+            target_.writeBuffer(buffer_.substring(bufferOffset_, end));
+         budget -= end - bufferOffset_;
+         bufferOffset_ = end;
+         if (bufferOffset_ < length)
+            return true;
+
+         buffer_ = null;
+         target_.onBufferReplayed();
+         if (generation != generation_)
+            return false;
+      }
+
+      if (refetch_)
+      {
+         refetch_ = false;
+         fetch(generation);
+         return false;
+      }
+
+      while (budget > 0 && !pending_.isEmpty())
+      {
+         Output item = pending_.poll();
+         write(item);
+         budget -= item.output.length();
+      }
+
+      if (!pending_.isEmpty())
+         return true;
+
+      syncing_ = false;
+      return false;
+   }
+
+   private void write(Output item)
+   {
+      target_.writeOutput(item.output);
+      if (item.sequence > renderedSequence_)
+         renderedSequence_ = item.sequence;
+   }
+
+   private static class Output
+   {
+      Output(String output, double sequence)
+      {
+         this.output = output;
+         this.sequence = sequence;
+      }
+
+      final String output;
+      final double sequence;
+   }
+
+   private final Source source_;
+   private final Target target_;
+   private final ArrayDeque<Output> pending_ = new ArrayDeque<>();
+   private double renderedSequence_ = ConsoleOutputEvent.NO_SEQUENCE;
+   private boolean syncing_;
+   private boolean refetch_;
+   private int generation_;
+   private String buffer_;
+   private int bufferOffset_;
+
+   // characters written to the terminal per step of a replay
+   private static final int REPLAY_BATCH_SIZE = 65536;
+}
@@ -16,6 +16,8 @@ package org.rstudio.studio.client.workbench.views.terminal;
 
 import org.rstudio.core.client.StringUtil;
 
+import com.google.gwt.core.client.Duration;
+
 public class TerminalDiagnostics
 {
    public void log(String msg)
@@ -40,7 +42,74 @@ public class TerminalDiagnostics
    public void resetLog()
    {
       diagnostic_ = null;
+      inputChars_ = 0;
+      inputMessages_ = 0;
+      outputChars_ = 0;
+      outputMessages_ = 0;
+      outputFrames_ = 0;
+      maxFrameChars_ = 0;
+      acksSent_ = 0;
+      startTime_ = Duration.currentTimeMillis();
+   }
+
+   /**
+    * Count a message of user input sent to the server.
+    */
+   public void countInput(int chars)
+   {
+      inputChars_ += chars;
+      inputMessages_++;
+   }
+
+   /**
+    * Count a message of output received from the server.
+    */
+   public void countOutput(int chars)
+   {
+      outputChars_ += chars;
+      outputMessages_++;
+   }
+
+   /**
+    * Count a batch of output written to the terminal in one animation frame.
+    */
+   public void countOutputFrame(int chars)
+   {
+      outputFrames_++;
+      maxFrameChars_ = Math.max(maxFrameChars_, chars);
+   }
+
+   public void countAck()
+   {
+      acksSent_++;
+   }
+
+   /**
+    * @return Counts and rates of input and output since the log was reset
+    */
+   public String getThroughput()
+   {
+      double seconds = Math.max(1, (Duration.currentTimeMillis() - startTime_) / 1000);
+      StringBuilder result = new StringBuilder();
+      result.append("Input:   ").append(inputChars_).append(" chars in ")
+            .append(inputMessages_).append(" messages (")
+            .append(Math.round(inputChars_ / seconds)).append(" chars/sec)\n");
+      result.append("Output:  ").append(outputChars_).append(" chars in ")
+            .append(outputMessages_).append(" messages (")
+            .append(Math.round(outputChars_ / seconds)).append(" chars/sec)\n");
+      result.append("Frames:  ").append(outputFrames_).append(" (largest ")
+            .append(maxFrameChars_).append(" chars)\n");
+      result.append("Acks:    ").append(acksSent_).append("\n");
+      return result.toString();
    }
 
    private StringBuilder diagnostic_;
+   private long inputChars_;
+   private int inputMessages_;
+   private long outputChars_;
+   private int outputMessages_;
+   private int outputFrames_;
+   private int maxFrameChars_;
+   private int acksSent_;
+   private double startTime_ = Duration.currentTimeMillis();
 }
@@ -718,10 +718,10 @@ public class TerminalPane extends WorkbenchPane
       terminals_.addTerminal(terminal);
 
       // Check if this is a reconnect of an already displayed terminal, such
-      // as after a session suspend/resume.
+      // as after a session suspend/resume; if so, catch up on its output.
       if (terminal.haveLoadedBuffer())
       {
-         terminal.writeRestartSequence();
+         terminal.resyncBuffer();
       }
       else
       {
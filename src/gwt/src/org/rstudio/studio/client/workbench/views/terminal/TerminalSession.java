@@ -15,8 +15,6 @@
 
 package org.rstudio.studio.client.workbench.views.terminal;
 
-import java.util.ArrayList;
-
 import com.google.gwt.user.client.Timer;
 import org.rstudio.core.client.AnsiCode;
 import org.rstudio.core.client.BrowseCap;
@@ -33,6 +31,7 @@ import org.rstudio.studio.client.application.model.SessionSerializationAction;
 import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.Value;
+import org.rstudio.studio.client.common.console.ConsoleOutputEvent;
 import org.rstudio.studio.client.common.console.ConsoleProcess;
 import org.rstudio.studio.client.common.console.ConsoleProcessInfo;
 import org.rstudio.studio.client.common.shell.ShellInput;
@@ -54,6 +53,7 @@ import org.rstudio.studio.client.workbench.views.terminal.xterm.XTermOptions;
 import org.rstudio.studio.client.workbench.views.terminal.xterm.XTermTheme;
 import org.rstudio.studio.client.workbench.views.terminal.xterm.XTermWidget;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -94,6 +94,51 @@ public class TerminalSession extends XTermWidget
             this, this,
             sessionInfo_.getWebSocketPingInterval(),
             sessionInfo_.getWebSocketConnectTimeout());
+      bufferSync_ = new TerminalBufferSync(
+            (since, requestCallback) ->
+            {
+               if (consoleProcess_ != null)
+                  consoleProcess_.getTerminalBufferTail(since, requestCallback);
+            },
+            new TerminalBufferSync.Target()
+            {
+               @Override
+               public void clearBuffer()
+               {
+                  clear();
+                  accept(AnsiCode.CSI + AnsiCode.CHA + AnsiCode.CSI + AnsiCode.EL);
+               }
+
+               @Override
+               public void writeBuffer(String output)
+               {
+                  accept(output);
+               }
+
+               @Override
+               public void writeOutput(String output)
+               {
+                  socket_.dispatchOutput(output, doLocalEcho());
+               }
+
+               @Override
+               public void onBufferReplayed()
+               {
+                  boolean reloaded = !haveLoadedBuffer_;
+                  writeRestartSequence();
+                  if (reloaded && procInfo_.getZombie())
+                     showZombieMessage();
+                  setNotReloading();
+               }
+
+               @Override
+               public void onSyncFailed(ServerError error)
+               {
+                  Debug.logError(error);
+                  writeError(error.getUserMessage());
+                  setNotReloading();
+               }
+            });
 
       setHeight("100%");
    }
@@ -221,7 +266,7 @@ public class TerminalSession extends XTermWidget
                      {
                         connected_ = true;
                         connecting_ = false;
-                        sendUserInput();
+                        scheduleSendUserInput();
                         eventBus_.fireEvent(new TerminalSessionStartedEvent(TerminalSession.this));
                         callback.onSuccess(true /*connected*/);
                      }
@@ -266,14 +311,17 @@ public class TerminalSession extends XTermWidget
    {
       inputQueue_.setLength(0);
       inputSequence_ = ShellInput.IGNORE_SEQUENCE;
+      inputBatchTimer_.cancel();
+      inputSendScheduled_ = false;
+      inputInFlight_ = false;
       socket_.disconnect(permanent);
       registrations_.removeHandler();
       consoleProcess_ = null;
       connected_ = false;
       connecting_ = false;
       restartSequenceWritten_ = false;
+      bufferSync_.reset();
       setNotReloading();
-      deferredOutput_.clear();
    }
 
    @Override
@@ -311,14 +359,15 @@ public class TerminalSession extends XTermWidget
    }
 
    @Override
-   public void receivedOutput(String output)
+   public void receivedOutput(String output, double sequence)
    {
-      if (reloading_)
-      {
-         deferredOutput_.add(output);
-         return;
-      }
-      socket_.dispatchOutput(output, doLocalEcho());
+      bufferSync_.receivedOutput(output, sequence);
+   }
+
+   @Override
+   public void receivedResync()
+   {
+      bufferSync_.resync();
    }
 
    @Override
@@ -358,6 +407,7 @@ public class TerminalSession extends XTermWidget
    {
       if (input != null)
       {
+         socket_.echoInput(input, doLocalEcho());
          inputQueue_.append(input);
       }
 
@@ -371,7 +421,7 @@ public class TerminalSession extends XTermWidget
             {
                if (connected)
                {
-                  sendUserInput();
+                  scheduleSendUserInput();
                }
             }
 
@@ -385,7 +435,25 @@ public class TerminalSession extends XTermWidget
          return;
       }
 
-      sendUserInput();
+      scheduleSendUserInput();
+   }
+
+   /**
+    * Arrange for queued user input to be sent. Input typed after a pause is
+    * sent right away; otherwise input arriving within a short interval of the
+    * last send (or while it's still in flight) is gathered into one message.
+    */
+   private void scheduleSendUserInput()
+   {
+      if (inputInFlight_ || inputSendScheduled_ || inputQueue_.length() == 0)
+         return;
+
+      inputSendScheduled_ = true;
+      double elapsed = Duration.currentTimeMillis() - lastInputSentAt_;
+      if (elapsed >= INPUT_BATCH_MS)
+         Scheduler.get().scheduleFinally(() -> sendUserInput());
+      else
+         inputBatchTimer_.schedule((int) Math.ceil(INPUT_BATCH_MS - elapsed));
    }
 
    /**
@@ -395,17 +463,19 @@ public class TerminalSession extends XTermWidget
     */
    private void sendUserInput()
    {
-      final int MAXCHUNK = 128;
-      String userInput;
+      inputSendScheduled_ = false;
+      if (inputInFlight_ || !connected_ || consoleProcess_ == null)
+         return;
 
+      String userInput;
       if (inputQueue_.length() == 0)
       {
          return;
       }
-      if (inputQueue_.length() > MAXCHUNK)
+      if (inputQueue_.length() > MAX_INPUT_CHUNK)
       {
-         userInput = inputQueue_.substring(0, MAXCHUNK);
-         inputQueue_.delete(0, MAXCHUNK);
+         userInput = inputQueue_.substring(0, MAX_INPUT_CHUNK);
+         inputQueue_.delete(0, MAX_INPUT_CHUNK);
       }
       else
       {
@@ -443,18 +513,22 @@ public class TerminalSession extends XTermWidget
          }
       }
 
-      socket_.dispatchInput(inputSequence_, userInput, doLocalEcho(),
+      inputInFlight_ = true;
+      lastInputSentAt_ = Duration.currentTimeMillis();
+      socket_.dispatchInput(inputSequence_, userInput,
             new VoidServerRequestCallback() {
 
                @Override
                public void onResponseReceived(Void response)
                {
-                  sendUserInput();
+                  inputInFlight_ = false;
+                  scheduleSendUserInput();
                }
 
                @Override
                public void onError(ServerError error)
                {
+                  inputInFlight_ = false;
                   Debug.logError(error);
                   writeError(error.getUserMessage());
                }
@@ -730,7 +804,7 @@ public class TerminalSession extends XTermWidget
     */
    public void reloadBuffer()
    {
-      deferredOutput_.clear();
+      bufferSync_.reset();
       if (newTerminal_)
       {
          setNotReloading();
@@ -738,9 +812,22 @@ public class TerminalSession extends XTermWidget
       }
       else
       {
-         setReloading();
-         fetchNextChunk(0);
+         syncBuffer();
+      }
+   }
+
+   /**
+    * Catch up on output missed while disconnected (e.g. across a session
+    * suspend/resume), then write the restart sequence.
+    */
+   public void resyncBuffer()
+   {
+      if (bufferSync_.getRenderedSequence() == ConsoleOutputEvent.NO_SEQUENCE)
+      {
+         writeRestartSequence();
+         return;
       }
+      syncBuffer();
    }
 
    private boolean shellSupportsReload()
@@ -773,7 +860,7 @@ public class TerminalSession extends XTermWidget
       }
    }
 
-   private void fetchNextChunk(final int chunkToFetch)
+   private void syncBuffer()
    {
       if (!shellSupportsReload())
       {
@@ -781,47 +868,10 @@ public class TerminalSession extends XTermWidget
          return;
       }
 
-      Scheduler.get().scheduleDeferred(() ->
-      {
-         onResize();
-         if (consoleProcess_ != null)
-         {
-            consoleProcess_.getTerminalBufferChunk(chunkToFetch,
-                  new ServerRequestCallback<ProcessBufferChunk>()
-            {
-               @Override
-               public void onResponseReceived(final ProcessBufferChunk chunk)
-               {
-                  accept(chunk.getChunk());
-                  if (chunk.getMoreAvailable())
-                  {
-                     fetchNextChunk(chunk.getChunkNumber() + 1);
-                  }
-                  else
-                  {
-                     writeRestartSequence();
-                     if (procInfo_.getZombie())
-                        showZombieMessage();
-                     setNotReloading();
-                     for (String outputStr : deferredOutput_)
-                     {
-                        socket_.dispatchOutput(outputStr, doLocalEcho());
-                     }
-                     deferredOutput_.clear();
-                  }
-               }
-
-               @Override
-               public void onError(ServerError error)
-               {
-                  Debug.logError(error);
-                  writeError(error.getUserMessage());
-                  setNotReloading();
-                  deferredOutput_.clear();
-               }
-            });
-         }
-      });
+      // fetch only what we haven't already rendered; output arriving in the
+      // meantime is held back until that's been written
+      Scheduler.get().scheduleDeferred(() -> onResize());
+      bufferSync_.sync();
    }
 
    public void showZombieMessage()
@@ -912,11 +962,6 @@ public class TerminalSession extends XTermWidget
       return socket_;
    }
 
-   private void setReloading()
-   {
-      reloading_ = true;
-   }
-
    /**
     * Has this terminal loaded the buffer (e.g. upon reconnecting to an existing session)?
     */
@@ -937,7 +982,6 @@ public class TerminalSession extends XTermWidget
             updateOption("bellStyle", uiPrefs_.terminalBellStyle().getValue());
          }
       }.schedule(500);
-      reloading_ = false;
       haveLoadedBuffer_ = true;
    }
 
@@ -950,16 +994,31 @@ public class TerminalSession extends XTermWidget
    private boolean connected_;
    private boolean connecting_;
    private boolean terminating_;
-   private boolean reloading_;
    private boolean haveLoadedBuffer_;
-   private final ArrayList<String> deferredOutput_ = new ArrayList<>();
+   private final TerminalBufferSync bufferSync_;
    private boolean restartSequenceWritten_;
    private final StringBuilder inputQueue_ = new StringBuilder();
    private int inputSequence_ = ShellInput.IGNORE_SEQUENCE;
+   private boolean inputInFlight_;
+   private boolean inputSendScheduled_;
+   private double lastInputSentAt_;
+   private final Timer inputBatchTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         sendUserInput();
+      }
+   };
    private boolean newTerminal_ = true;
    private boolean showAltAfterReload_;
    private final boolean createdByApi_;
 
+   // most input sent in one message, and the interval over which input
+   // following a send is gathered up
+   private static final int MAX_INPUT_CHUNK = 4096;
+   private static final double INPUT_BATCH_MS = 16;
+
    // Injected ----
    private WorkbenchServerOperations server_;
    private EventBus eventBus_;
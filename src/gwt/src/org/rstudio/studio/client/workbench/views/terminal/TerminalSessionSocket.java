@@ -31,6 +31,7 @@ import org.rstudio.studio.client.server.VoidServerRequestCallback;
 import org.rstudio.studio.client.workbench.views.terminal.events.TerminalDataInputEvent;
 import org.rstudio.studio.client.workbench.views.terminal.xterm.XTermWidget;
 
+import com.google.gwt.animation.client.AnimationScheduler;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.sksamuel.gwt.websockets.CloseEvent;
@@ -55,8 +56,16 @@ public class TerminalSessionSocket
       /**
        * Called when there is output from the server.
        * @param output output from server
+       * @param sequence output sequence number reached by this output, or
+       *                 ConsoleOutputEvent.NO_SEQUENCE if unknown
        */
-      void receivedOutput(String output);
+      void receivedOutput(String output, double sequence);
+
+      /**
+       * Called when the server dropped output rather than hold it back any
+       * longer; what's missing has to be fetched from the saved buffer.
+       */
+      void receivedResync();
 
       /**
        * Called to disconnect the terminal
@@ -216,9 +225,22 @@ public class TerminalSessionSocket
                {
                   receivedKeepAlive();
                }
+               else if (TerminalSocketPacket.isResync(msg))
+               {
+                  // hand on the output that preceded the gap first, so the
+                  // resync starts from it
+                  if (frameHandle_ != null)
+                  {
+                     frameHandle_.cancel();
+                     onOutputFrame();
+                  }
+                  session_.receivedResync();
+               }
                else
                {
-                  onConsoleOutput(new ConsoleOutputEvent(TerminalSocketPacket.getMessage(msg)));
+                  receivedPackets_++;
+                  onConsoleOutput(new ConsoleOutputEvent(TerminalSocketPacket.getMessage(msg),
+                                                         TerminalSocketPacket.getSequence(msg)));
                }
             }
 
@@ -226,6 +248,8 @@ public class TerminalSessionSocket
             public void onOpen()
             {
                connectWebSocketTimer_.cancel();
+               receivedPackets_ = 0;
+               unackedOutput_ = 0;
                diagnostic_.log("WebSocket connected");
                callback.onConnected();
                if (webSocketPingInterval_ > 0)
@@ -283,22 +307,31 @@ public class TerminalSessionSocket
       });
    }
 
+   /**
+    * Echo user input locally, as it's typed (i.e. before it's batched up to
+    * send to the server).
+    * @param input text typed
+    * @param localEcho echo input locally
+    */
+   public void echoInput(String input, boolean localEcho)
+   {
+      if (localEcho)
+         localEcho_.echo(input);
+      else
+         localEcho_.clear();
+   }
+
    /**
     * Send user input to the server.
     * @param inputSequence used to fix out-of-order RPC calls
     * @param input text to send
-    * @param localEcho echo input locally
     * @param requestCallback callback
     */
    public void dispatchInput(int inputSequence,
                              String input,
-                             boolean localEcho,
                              VoidServerRequestCallback requestCallback)
    {
-      if (localEcho)
-         localEcho_.echo(input);
-      else
-         localEcho_.clear();
+      diagnostic_.countInput(input.length());
 
       switch (consoleProcess_.getChannelMode())
       {
@@ -360,7 +393,73 @@ public class TerminalSessionSocket
    @Override
    public void onConsoleOutput(ConsoleOutputEvent event)
    {
-      session_.receivedOutput(event.getOutput());
+      // Gather output arriving between animation frames and hand it on once
+      // per frame, so that a flood of small messages (e.g. from cat'ing a
+      // large file) doesn't mean a terminal write for each one.
+      String output = event.getOutput();
+      diagnostic_.countOutput(output.length());
+      queuedOutput_.append(output);
+      if (event.getSequence() != ConsoleOutputEvent.NO_SEQUENCE)
+         queuedSequence_ = event.getSequence();
+
+      if (frameHandle_ == null)
+      {
+         frameHandle_ = AnimationScheduler.get().requestAnimationFrame(
+               (double timestamp) -> onOutputFrame());
+      }
+   }
+
+   private void onOutputFrame()
+   {
+      frameHandle_ = null;
+      if (queuedOutput_.length() == 0)
+         return;
+
+      String output = queuedOutput_.toString();
+      double sequence = queuedSequence_;
+      queuedOutput_.setLength(0);
+      queuedSequence_ = ConsoleOutputEvent.NO_SEQUENCE;
+
+      diagnostic_.countOutputFrame(output.length());
+      session_.receivedOutput(output, sequence);
+      acknowledgeOutput(output.length());
+   }
+
+   /**
+    * Let the server know how far we've got with its output; it stops sending
+    * when too much is unacknowledged, so that a client that can't keep up
+    * isn't flooded. Only needed for WebSockets; with RPC the client already
+    * pulls output at its own pace.
+    * 
+    * We acknowledge the number of packets consumed rather than the output
+    * sequence, since output to the alternate buffer (e.g. from top or less)
+    * doesn't advance the sequence but still counts against the server's window.
+    */
+   private void acknowledgeOutput(int consumed)
+   {
+      if (socket_ == null)
+         return;
+
+      unackedOutput_ += consumed;
+      if (unackedOutput_ >= ACK_INTERVAL)
+      {
+         socket_.send(TerminalSocketPacket.ackPacket(receivedPackets_));
+         unackedOutput_ = 0;
+         diagnostic_.countAck();
+      }
+   }
+
+   private void cancelQueuedOutput()
+   {
+      if (frameHandle_ != null)
+      {
+         frameHandle_.cancel();
+         frameHandle_ = null;
+      }
+      queuedOutput_.setLength(0);
+      queuedSequence_ = ConsoleOutputEvent.NO_SEQUENCE;
+      receivedPackets_ = 0;
+      unackedOutput_ = 0;
    }
 
    private void addHandlerRegistration(HandlerRegistration reg)
@@ -384,6 +483,7 @@ public class TerminalSessionSocket
       if (socket_ != null)
          socket_.close();
       socket_ = null;
+      cancelQueuedOutput();
       registrations_.removeHandler();
       if (permanent)
       {
@@ -399,7 +499,7 @@ public class TerminalSessionSocket
 
    public String getConnectionDiagnostics()
    {
-      return diagnostic_.getLog();
+      return diagnostic_.getLog() + "\n" + diagnostic_.getThroughput();
    }
 
    public String getLocalEchoDiagnostics()
@@ -432,6 +532,17 @@ public class TerminalSessionSocket
 
    public static final Pattern PASSWORD_PATTERN = Pattern.create(PASSWORD_REGEX, "im");
 
+   private final StringBuilder queuedOutput_ = new StringBuilder();
+   private double queuedSequence_ = ConsoleOutputEvent.NO_SEQUENCE;
+   private int receivedPackets_ = 0;
+   private int unackedOutput_ = 0;
+   private AnimationScheduler.AnimationHandle frameHandle_;
+
+   // how many characters of output to consume before acknowledging it; must
+   // be well under the server's window (kOutputAckWindow bytes in
+   // SessionConsoleProcess.cpp), allowing for characters of up to 4 bytes
+   private static final int ACK_INTERVAL = 32768;
+
    private final Timer keepAliveTimer_;
    private final int webSocketPingInterval_;
    private final Timer connectWebSocketTimer_;
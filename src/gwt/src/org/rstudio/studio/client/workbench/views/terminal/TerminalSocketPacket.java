@@ -16,6 +16,7 @@
 package org.rstudio.studio.client.workbench.views.terminal;
 
 import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.common.console.ConsoleOutputEvent;
 
 /**
  * Super-simple packet format for Terminal Websocket payloads. Not using JSON to keep
@@ -25,8 +26,14 @@ import org.rstudio.core.client.StringUtil;
  * First character is a method indicator, as follows:
  *    "a" = send text, e.g. "aHello"
  *    "b" = ping/pong, e.g. "b"
+ *    "c" = send text with output sequence number, e.g. "c1234:Hello"
+ *    "d" = acknowledge the number of output packets consumed, e.g. "d12"
+ *    "e" = output was dropped; fetch it from the saved buffer, e.g. "e"
  *
- * Only the "send text" method has a payload (everything after the "a").
+ * The "send text" method's payload is everything after the "a". The sequenced
+ * form is sent from server to client: its payload is the output sequence
+ * number reached by the text, a colon, then the text. Acknowledgements are
+ * sent from client to server, and resync requests from server to client.
  *
  * See SessionConsoleProcessSocketPacket in session code for C++ side of this sophisticated
  * wire format.
@@ -38,6 +45,11 @@ public class TerminalSocketPacket
       return textPrefix + text;
    }
 
+   public static String ackPacket(int packets)
+   {
+      return ackPrefix + packets;
+   }
+
    public static String keepAlivePacket()
    {
       return keepAlivePrefix;
@@ -48,15 +60,52 @@ public class TerminalSocketPacket
       return StringUtil.equals(text, keepAlivePrefix);
    }
 
+   public static boolean isResync(String text)
+   {
+      return StringUtil.equals(text, resyncPrefix);
+   }
+
    public static String getMessage(String text)
    {
       if (text.startsWith(textPrefix))
       {
          return text.substring(1);
       }
+      if (text.startsWith(sequencedTextPrefix))
+      {
+         int sep = text.indexOf(':');
+         if (sep != -1)
+            return text.substring(sep + 1);
+      }
       return "";
    }
 
+   /**
+    * @return The output sequence number of a sequenced text packet, or
+    *    ConsoleOutputEvent.NO_SEQUENCE if it doesn't have one
+    */
+   public static double getSequence(String text)
+   {
+      if (text.startsWith(sequencedTextPrefix))
+      {
+         int sep = text.indexOf(':');
+         if (sep != -1)
+         {
+            try
+            {
+               return Double.parseDouble(text.substring(1, sep));
+            }
+            catch (NumberFormatException e)
+            {
+            }
+         }
+      }
+      return ConsoleOutputEvent.NO_SEQUENCE;
+   }
+
    private static final String keepAlivePrefix = "b";
    private static final String textPrefix = "a";
+   private static final String sequencedTextPrefix = "c";
+   private static final String ackPrefix = "d";
+   private static final String resyncPrefix = "e";
 }
@@ -0,0 +1,75 @@
+/*
+ * IncrementalDiffParser.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.vcs.common.diff;
+
+import java.util.ArrayList;
+
+/**
+ * Parses a single-file unified diff a few chunks at a time, so that the rows
+ * of a large diff are only parsed (and rendered) as the user scrolls to them.
+ *
+ * Note that this doesn't bound the cost of reviewing a large diff: the whole
+ * diff still arrives in one response, subject to the usual size warning, and
+ * rows stay in the table once rendered.
+ */
+public class IncrementalDiffParser
+{
+   public IncrementalDiffParser(String data)
+   {
+      parser_ = new UnifiedParser(data);
+      parser_.nextFilePair();
+   }
+
+   public boolean isDone()
+   {
+      return done_;
+   }
+
+   /**
+    * Parses whole chunks until at least the given number of rows (chunk
+    * headers and lines) have been produced, or the diff is exhausted.
+    */
+   public ArrayList<ChunkOrLine> next(int rowCount)
+   {
+      ArrayList<ChunkOrLine> rows = new ArrayList<ChunkOrLine>();
+      while (!done_ && rows.size() < rowCount)
+      {
+         DiffChunk chunk = parser_.nextChunk();
+         if (chunk == null)
+         {
+            done_ = true;
+            break;
+         }
+
+         chunks_.add(chunk);
+         rows.add(new ChunkOrLine(chunk));
+         for (Line line : chunk.getLines())
+            rows.add(new ChunkOrLine(line));
+      }
+      return rows;
+   }
+
+   /**
+    * @return The chunks parsed so far (the list grows as more are parsed).
+    */
+   public ArrayList<DiffChunk> getChunks()
+   {
+      return chunks_;
+   }
+
+   private final UnifiedParser parser_;
+   private final ArrayList<DiffChunk> chunks_ = new ArrayList<DiffChunk>();
+   private boolean done_ = false;
+}
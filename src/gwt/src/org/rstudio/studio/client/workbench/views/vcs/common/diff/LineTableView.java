@@ -442,18 +442,47 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
             break;
       }
 
-      lines_ = diffData;
-      setPageSize(diffData.size());
+      lines_ = new ArrayList<ChunkOrLine>(diffData);
+      setPageSize(lines_.size());
       selectionModel_.clear();
       firstSelectedLine_ = null;
-      setRowData(diffData);
 
       startRows_.clear();
       endRows_.clear();
+      borderState_ = Line.Type.Same;
+      suppressNextStart_ = true; // Suppress at start to avoid 2px border
+      updateBorders(0);
 
-      Line.Type state = Line.Type.Same;
-      boolean suppressNextStart = true; // Suppress at start to avoid 2px border
-      for (int i = 0; i < lines_.size(); i++)
+      setRowData(lines_);
+   }
+
+   /**
+    * Adds rows to the end of the table, rendering only the new rows (and the
+    * previous last row, whose borders may change).
+    */
+   @Override
+   public void appendData(ArrayList<ChunkOrLine> diffData)
+   {
+      if (diffData.isEmpty())
+         return;
+
+      int start = lines_.size();
+      lines_.addAll(diffData);
+
+      // the previous last row only had an end border because it was last
+      if (useEndBorder_ && start > 0)
+         endRows_.remove(start - 1);
+      updateBorders(start);
+
+      int redrawFrom = Math.max(0, start - 1);
+      setRowCount(lines_.size(), true);
+      setPageSize(lines_.size());
+      setRowData(redrawFrom, lines_.subList(redrawFrom, lines_.size()));
+   }
+
+   private void updateBorders(int from)
+   {
+      for (int i = from; i < lines_.size(); i++)
       {
          ChunkOrLine chunkOrLine = lines_.get(i);
          Line line = chunkOrLine.getLine();
@@ -467,20 +496,20 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
          if (useEndBorder_ && i == lines_.size() - 1)
             endRows_.add(i);
 
-         if (newState != state)
+         if (newState != borderState_)
          {
             // Note: endRows_ doesn't include the borders between insertions and
             // deletions, or vice versa. This is to avoid 2px borders between
             // these regions when just about everything else is 1px.
-            if (state != Line.Type.Same && newState == Line.Type.Same && !isChunk)
+            if (borderState_ != Line.Type.Same && newState == Line.Type.Same && !isChunk)
                endRows_.add(i-1);
-            if (!suppressNextStart && newState != Line.Type.Same)
+            if (!suppressNextStart_ && newState != Line.Type.Same)
                startRows_.add(i);
 
-            state = newState;
+            borderState_ = newState;
          }
 
-         suppressNextStart = isChunk;
+         suppressNextStart_ = isChunk;
       }
    }
 
@@ -549,6 +578,10 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
    private SwitchableSelectionModel<ChunkOrLine> selectionModel_;
    private HashSet<Integer> startRows_ = new HashSet<Integer>();
    private HashSet<Integer> endRows_ = new HashSet<Integer>();
+   // border computation state as of the last row, so appended rows can
+   // continue from there
+   private Line.Type borderState_ = Line.Type.Same;
+   private boolean suppressNextStart_ = true;
    private boolean useStartBorder_ = false;
    private boolean useEndBorder_ = true;
    // Keep explicit track of the first selected line so we can render it differently
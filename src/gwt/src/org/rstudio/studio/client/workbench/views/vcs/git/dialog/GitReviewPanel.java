@@ -18,6 +18,7 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
@@ -504,6 +505,30 @@ public class GitReviewPanel extends ResizeComposite implements Display
       diffScroll_.setHorizontalScrollPosition(hscroll);
    }
 
+   @Override
+   public void appendData(ArrayList<ChunkOrLine> lines)
+   {
+      getLineTableDisplay().appendData(lines);
+   }
+
+   @Override
+   public HandlerRegistration addDiffScrolledNearEndHandler(final Command command)
+   {
+      return diffScroll_.addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            // show more once the user is within a screenful of the end
+            Element el = diffScroll_.getElement();
+            int remaining = el.getScrollHeight() - el.getScrollTop() -
+                            el.getClientHeight();
+            if (remaining < el.getClientHeight())
+               command.execute();
+         }
+      });
+   }
+
    @Override
    public HasText getCommitMessage()
    {
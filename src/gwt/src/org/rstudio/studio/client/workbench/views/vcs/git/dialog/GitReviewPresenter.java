@@ -112,6 +112,8 @@ public class GitReviewPresenter implements ReviewPresenter
       HasValue<Boolean> getCommitIsAmend();
 
       void setData(ArrayList<ChunkOrLine> lines, PatchMode patchMode);
+      void appendData(ArrayList<ChunkOrLine> lines);
+      HandlerRegistration addDiffScrolledNearEndHandler(Command command);
 
       HasClickHandlers getOverrideSizeWarningButton();
       void showSizeWarning(long sizeInBytes);
@@ -515,6 +517,7 @@ public class GitReviewPresenter implements ReviewPresenter
       
       view_.getLineTableDisplay().addDiffChunkActionHandler(new ApplyPatchHandler());
       view_.getLineTableDisplay().addDiffLineActionHandler(new ApplyPatchHandler());
+      view_.addDiffScrolledNearEndHandler(() -> loadMoreDiff());
 
       new IntStateValue(MODULE_GIT, KEY_CONTEXT_LINES, ClientState.PERSISTENT,
                         session.getSessionInfo().getClientState())
@@ -812,25 +815,19 @@ public class GitReviewPresenter implements ReviewPresenter
                   currentResponse_ = response;
                   currentSourceEncoding_ = diffResult.getSourceEncoding();
 
-                  UnifiedParser parser = new UnifiedParser(response);
-                  parser.nextFilePair();
-
-                  ArrayList<ChunkOrLine> allLines = new ArrayList<ChunkOrLine>();
-
-                  activeChunks_.clear();
-                  for (DiffChunk chunk;
-                       null != (chunk = parser.nextChunk());)
-                  {
-                     activeChunks_.add(chunk);
-                     allLines.add(new ChunkOrLine(chunk));
-                     for (Line line : chunk.getLines())
-                        allLines.add(new ChunkOrLine(line));
-                  }
+                  // parse and show only as much as was showing before (so
+                  // the scroll position survives a refresh); the rest of the
+                  // response is parsed and appended as the user scrolls
+                  diffParser_ = new IncrementalDiffParser(response);
+                  activeChunks_ = diffParser_.getChunks();
+                  ArrayList<ChunkOrLine> lines = diffParser_.next(
+                        Math.max(DIFF_PAGE_ROWS, diffRowCount_));
+                  diffRowCount_ = lines.size();
 
                   view_.setShowActions(
                         !"??".equals(item.getStatus()) &&
                         !"UU".equals(item.getStatus()));
-                  view_.setData(allLines, patchMode);
+                  view_.setData(lines, patchMode);
                }
 
                @Override
@@ -848,10 +845,22 @@ public class GitReviewPresenter implements ReviewPresenter
             });
    }
 
+   private void loadMoreDiff()
+   {
+      if (diffParser_ == null || diffParser_.isDone())
+         return;
+
+      ArrayList<ChunkOrLine> lines = diffParser_.next(DIFF_PAGE_ROWS);
+      diffRowCount_ += lines.size();
+      view_.appendData(lines);
+   }
+
    private void clearDiff()
    {
       softModeSwitch_ = false;
       currentResponse_ = null;
+      diffParser_ = null;
+      diffRowCount_ = 0;
       currentFilename_ = null;
       view_.getLineTableDisplay().clear();
    }
@@ -933,6 +942,8 @@ public class GitReviewPresenter implements ReviewPresenter
    private final GlobalDisplay globalDisplay_;
    private ArrayList<DiffChunk> activeChunks_ = new ArrayList<DiffChunk>();
    private String currentResponse_;
+   private IncrementalDiffParser diffParser_;
+   private int diffRowCount_;
    private String currentSourceEncoding_;
    private String currentFilename_;
    // Hack to prevent us flipping to unstaged view when a line is unstaged
@@ -944,6 +955,7 @@ public class GitReviewPresenter implements ReviewPresenter
    private boolean initialized_;
    private static final String MODULE_GIT = "vcs_git";
    private static final String KEY_CONTEXT_LINES = "context_lines";
+   private static final int DIFF_PAGE_ROWS = 1000;
    private final int gitCommitLargeFileSize_;
 
    private boolean overrideSizeWarning_ = false;
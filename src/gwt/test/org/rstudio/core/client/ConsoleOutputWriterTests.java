@@ -688,4 +688,55 @@ public class ConsoleOutputWriterTests extends GWTTestCase
       Assert.assertEquals(1, output.getCurrentLines());
       Assert.assertEquals("<span class=\"myClass\">Message\n</span>", getInnerHTML(output));
    }
+
+   public void testQueuedOutput()
+   {
+      // queued writes with the same style are merged into a single write
+      ConsoleOutputWriter output = getCOW();
+      output.queueOutput("One\n", myClass, false);
+      output.queueOutput("Two\n", myClass, false);
+      output.queueOutput("Three\n", myErrorClass, false);
+      output.flushQueuedOutput();
+
+      Assert.assertEquals(3, output.getCurrentLines());
+      Assert.assertEquals("<span class=\"myClass\">One\nTwo\n</span>" +
+            "<span class=\"myErrorClass\">Three\n</span>",
+            getInnerHTML(output));
+
+      // immediate output is written after anything still queued
+      output.queueOutput("Four\n", myClass, false);
+      output.outputToConsole("5\n", myErrorClass, isError, ignoreLineCount, false);
+      Assert.assertEquals(5, output.getCurrentLines());
+      Assert.assertEquals("<span class=\"myClass\">One\nTwo\n</span>" +
+            "<span class=\"myErrorClass\">Three\n</span>" +
+            "<span class=\"myClass\">Four\n</span>" +
+            "<span class=\"myErrorClass\">5\n</span>",
+            getInnerHTML(output));
+   }
+
+   public void testTrimWholeChunks()
+   {
+      // output from earlier prompts is trimmed a chunk at a time once all of
+      // its lines are in excess
+      ConsoleOutputWriter output = getCOW();
+      output.setMaxOutputLines(3);
+
+      output.outputToConsole("1\n2\n", myClass, notError, checkLineCount, false);
+      output.ensureStartingOnNewLine();
+      output.outputToConsole("3\n4\n", myClass, notError, checkLineCount, false);
+      Assert.assertEquals(3, output.getCurrentLines());
+      Assert.assertEquals(2, output.getElement().getChildCount());
+
+      output.ensureStartingOnNewLine();
+      output.outputToConsole("5\n", myClass, notError, checkLineCount, false);
+      Assert.assertEquals(3, output.getCurrentLines());
+      Assert.assertEquals(2, output.getElement().getChildCount());
+
+      output.outputToConsole("6\n", myClass, notError, checkLineCount, false);
+      Assert.assertEquals(3, output.getCurrentLines());
+      Assert.assertEquals(2, output.getElement().getChildCount());
+      Assert.assertEquals(3, DomUtils.countLines(output.getElement(), true));
+      Assert.assertEquals("<span class=\"myClass\">4\n</span>",
+            SpanElement.as(output.getElement().getFirstChildElement()).getInnerHTML());
+   }
 }
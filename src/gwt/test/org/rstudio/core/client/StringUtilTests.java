@@ -326,4 +326,21 @@ public class StringUtilTests extends GWTTestCase
       assertEquals(StringUtil.charAt(str, 2), 'c');
       assertEquals(StringUtil.charAt(str, 3), 'd');
    }
+
+   public void testCharMask()
+   {
+      assertEquals(0, StringUtil.charMask(""));
+      assertEquals(0, StringUtil.charMask("._ -"));
+      assertEquals(StringUtil.charMask("ab"), StringUtil.charMask("baba"));
+
+      // all digits share a bit
+      assertEquals(StringUtil.charMask("x1"), StringUtil.charMask("x9"));
+
+      // a subsequence's mask is covered by the string's
+      int mask = StringUtil.charMask("read_csv");
+      int sub = StringUtil.charMask("rcsv");
+      assertEquals(sub, mask & sub);
+      int other = StringUtil.charMask("rz");
+      assertTrue((mask & other) != other);
+   }
 }
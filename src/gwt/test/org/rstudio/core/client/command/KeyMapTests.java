@@ -0,0 +1,203 @@
+/*
+ * KeyMapTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.command;
+
+import org.rstudio.core.client.command.KeyMap.CommandBinding;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class KeyMapTests extends GWTTestCase
+{
+   private static class Binding implements CommandBinding
+   {
+      Binding(String id)
+      {
+         id_ = id;
+      }
+
+      @Override
+      public String getId()
+      {
+         return id_;
+      }
+
+      @Override
+      public void execute()
+      {
+      }
+
+      @Override
+      public boolean isEnabled()
+      {
+         return enabled_;
+      }
+
+      @Override
+      public boolean isUserDefinedBinding()
+      {
+         return false;
+      }
+
+      @Override
+      public AppCommand.Context getContext()
+      {
+         return null;
+      }
+
+      private final String id_;
+      boolean enabled_ = true;
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testAddBindingRebuildsTable()
+   {
+      KeyMap map = new KeyMap();
+      Binding save = new Binding("save");
+      map.addBinding(keys(CTRL_S), save);
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_S), false));
+
+      // bindings added after a lookup are seen by the next one
+      Binding knit = new Binding("knit");
+      map.addBinding(keys(CTRL_K), knit);
+      Assert.assertSame(knit, map.getActiveBinding(keys(CTRL_K), false));
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_S), false));
+
+      // the latest binding for a sequence wins
+      Binding saveAll = new Binding("saveAll");
+      map.addBinding(keys(CTRL_S), saveAll);
+      Assert.assertSame(saveAll, map.getActiveBinding(keys(CTRL_S), false));
+   }
+
+   public void testClearBindingsRebuildsTable()
+   {
+      KeyMap map = new KeyMap();
+      Binding save = new Binding("save");
+      Binding saveAll = new Binding("saveAll");
+      map.addBinding(keys(CTRL_S), save);
+      map.addBinding(keys(CTRL_S), saveAll);
+      Assert.assertSame(saveAll, map.getActiveBinding(keys(CTRL_S), false));
+
+      map.clearBindings(saveAll);
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_S), false));
+
+      map.clearBindings(save);
+      Assert.assertNull(map.getActiveBinding(keys(CTRL_S), false));
+   }
+
+   public void testSetBindingsRebuildsTable()
+   {
+      KeyMap map = new KeyMap();
+      Binding save = new Binding("save");
+      map.addBinding(keys(CTRL_S), save);
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_S), false));
+
+      map.setBindings(keys(CTRL_K), save);
+      Assert.assertNull(map.getActiveBinding(keys(CTRL_S), false));
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_K), false));
+   }
+
+   public void testDisabledBindings()
+   {
+      KeyMap map = new KeyMap();
+      Binding save = new Binding("save");
+      Binding saveAll = new Binding("saveAll");
+      map.addBinding(keys(CTRL_S), save);
+      map.addBinding(keys(CTRL_S), saveAll);
+
+      // enabled state is checked on each lookup, not when the table is built
+      Assert.assertSame(saveAll, map.getActiveBinding(keys(CTRL_S), false));
+      saveAll.enabled_ = false;
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_S), false));
+      Assert.assertSame(saveAll, map.getActiveBinding(keys(CTRL_S), true));
+   }
+
+   public void testPrefixes()
+   {
+      KeyMap map = new KeyMap();
+      Binding saveAs = new Binding("saveAs");
+      map.addBinding(keys(CTRL_X, CTRL_S), saveAs);
+
+      Assert.assertTrue(map.isPrefix(keys(CTRL_X)));
+      Assert.assertNull(map.getActiveBinding(keys(CTRL_X), false));
+      Assert.assertSame(saveAs, map.getActiveBinding(keys(CTRL_X, CTRL_S), false));
+      Assert.assertFalse(map.isPrefix(keys(CTRL_S)));
+
+      // a prefix of only disabled bindings isn't one
+      saveAs.enabled_ = false;
+      Assert.assertFalse(map.isPrefix(keys(CTRL_X)));
+      saveAs.enabled_ = true;
+
+      map.clearBindings(saveAs);
+      Assert.assertFalse(map.isPrefix(keys(CTRL_X)));
+   }
+
+   public void testKeyCombinationEncoding()
+   {
+      KeyMap map = new KeyMap();
+      Binding save = new Binding("save");
+      map.addBinding(keys(CTRL_S), save);
+
+      // combinations are matched on key code and modifiers, not the key
+      Assert.assertSame(save, map.getActiveBinding(
+            keys(new KeyCombination("S", 83, KeyboardShortcut.CTRL)), false));
+
+      // and every modifier counts
+      Assert.assertNull(map.getActiveBinding(
+            keys(new KeyCombination("s", 83, KeyboardShortcut.NONE)), false));
+      Assert.assertNull(map.getActiveBinding(
+            keys(new KeyCombination("s", 83,
+                  KeyboardShortcut.CTRL | KeyboardShortcut.SHIFT)), false));
+      Assert.assertNull(map.getActiveBinding(
+            keys(new KeyCombination("s", 83, KeyboardShortcut.META)), false));
+      Assert.assertNull(map.getActiveBinding(keys(CTRL_K), false));
+
+      // many bindings, as in the real key map, still resolve exactly
+      for (int code = 48; code < 91; code++)
+      {
+         for (int modifiers = 0; modifiers < 16; modifiers++)
+         {
+            if (code == 83 && modifiers == KeyboardShortcut.CTRL)
+               continue;
+            map.addBinding(keys(new KeyCombination("", code, modifiers)),
+                           new Binding(code + ":" + modifiers));
+         }
+      }
+      Assert.assertSame(save, map.getActiveBinding(keys(CTRL_S), false));
+      Assert.assertEquals("75:" + KeyboardShortcut.CTRL,
+            map.getActiveBinding(keys(CTRL_K), false).getId());
+   }
+
+   private static KeySequence keys(KeyCombination... combinations)
+   {
+      KeySequence keys = new KeySequence();
+      for (KeyCombination combination : combinations)
+         keys.add(combination);
+      return keys;
+   }
+
+   private static final KeyCombination CTRL_S =
+         new KeyCombination("s", 83, KeyboardShortcut.CTRL);
+   private static final KeyCombination CTRL_K =
+         new KeyCombination("k", 75, KeyboardShortcut.CTRL);
+   private static final KeyCombination CTRL_X =
+         new KeyCombination("x", 88, KeyboardShortcut.CTRL);
+}
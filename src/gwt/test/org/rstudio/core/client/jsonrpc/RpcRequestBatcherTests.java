@@ -0,0 +1,241 @@
+/*
+ * RpcRequestBatcherTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class RpcRequestBatcherTests extends GWTTestCase
+{
+   // records requests instead of sending them to the server
+   private class StubRequest extends RpcRequest
+   {
+      StubRequest(String method, JSONArray params)
+      {
+         super("rpc/" + method, method, params, null, false, null, null,
+               null, "1", true);
+      }
+
+      @Override
+      public void send(RpcRequestCallback callback)
+      {
+         callback_ = callback;
+         sent_.add(getMethod());
+      }
+
+      void respond(String json)
+      {
+         callback_.onResponseReceived(this, JsonUtils.safeEval(json));
+      }
+
+      void fail()
+      {
+         callback_.onError(this, RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                                 "failed"));
+      }
+
+      private RpcRequestCallback callback_;
+   }
+
+   // records the responses a caller sees
+   private class Recorder implements RpcRequestCallback
+   {
+      @Override
+      public void onError(RpcRequest request, RpcError error)
+      {
+         received_.add(request.getMethod() + ":error");
+      }
+
+      @Override
+      public void onResponseReceived(RpcRequest request, RpcResponse response)
+      {
+         received_.add(request.getMethod());
+      }
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   @Override
+   protected void gwtSetUp()
+   {
+      sent_ = new ArrayList<>();
+      received_ = new ArrayList<>();
+      envelopes_ = new ArrayList<>();
+      batcher_ = new RpcRequestBatcher((calls, redactLog, refreshCreds) ->
+      {
+         StubRequest envelope = new StubRequest("multi_call", calls);
+         envelopes_.add(envelope);
+         return envelope;
+      });
+      batcher_.setEnabled(true);
+   }
+
+   public void testBatchesRequests()
+   {
+      batch("a");
+      batch("b");
+      batcher_.flush();
+      Assert.assertEquals("[multi_call]", sent_.toString());
+
+      envelopes_.get(0).respond("{\"result\": [{\"result\": 1}, {\"result\": 2}]}");
+      Assert.assertEquals("[a, b]", received_.toString());
+   }
+
+   public void testLaterRequestsWaitForEnvelope()
+   {
+      batch("a");
+      batch("b");
+      batch("c");
+      batcher_.flush();
+      batch("d");
+      batcher_.flush();
+      Assert.assertEquals("[multi_call]", sent_.toString());
+
+      // the server couldn't execute b in the batch, so stopped there; b and
+      // c are sent on their own before the batched requests made after them
+      envelopes_.get(0).respond(
+            "{\"result\": [{\"result\": 1}, {\"error\": {\"code\": 7}}]}");
+      Assert.assertEquals("[a]", received_.toString());
+      Assert.assertEquals("[multi_call, b, c, d]", sent_.toString());
+   }
+
+   public void testUnbatchedRequestsDontWaitForEnvelope()
+   {
+      // e.g. an interrupt, while R is busy with a call in the envelope
+      batch("a");
+      batch("b");
+      batcher_.flush();
+      batcher_.sendNow(new StubRequest("c", null), new Recorder());
+      Assert.assertEquals("[multi_call, c]", sent_.toString());
+
+      // batched requests queued before it go out first
+      batch("d");
+      batch("e");
+      batcher_.sendNow(new StubRequest("f", null), new Recorder());
+      Assert.assertEquals("[multi_call, c, f]", sent_.toString());
+
+      envelopes_.get(0).respond("{\"result\": [{\"result\": 1}, {\"result\": 2}]}");
+      Assert.assertEquals("[multi_call, c, f, multi_call]", sent_.toString());
+   }
+
+   public void testBatchedCallsAreLogged()
+   {
+      batch("logged_a");
+      RpcRequest b = batch("logged_b");
+      batch("logged_c");
+      batcher_.flush();
+      b.cancel();
+      envelopes_.get(0).respond(
+            "{\"result\": [{\"result\": 1}, {\"result\": 2}]}");
+
+      Assert.assertEquals(ResponseType.Normal, logEntry("logged_a").getResponseType());
+      Assert.assertEquals(ResponseType.Cancelled, logEntry("logged_b").getResponseType());
+      Assert.assertEquals(ResponseType.Unknown, logEntry("logged_c").getResponseType());
+   }
+
+   public void testShortResultResendsRemainingCalls()
+   {
+      batch("a");
+      batch("b");
+      batch("c");
+      batcher_.flush();
+
+      envelopes_.get(0).respond("{\"result\": [{\"result\": 1}]}");
+      Assert.assertEquals("[a]", received_.toString());
+      Assert.assertEquals("[multi_call, b, c]", sent_.toString());
+   }
+
+   public void testCancelledWhileQueuedIsNotSent()
+   {
+      batch("a");
+      RpcRequest b = batch("b");
+      batch("c");
+      b.cancel();
+      batcher_.flush();
+
+      Assert.assertEquals(2, envelopes_.get(0).getParams().get(0).isArray().size());
+      envelopes_.get(0).respond("{\"result\": [{\"result\": 1}, {\"result\": 3}]}");
+      Assert.assertEquals("[a, c]", received_.toString());
+   }
+
+   public void testCancelledWhileInFlightIsIgnored()
+   {
+      batch("a");
+      RpcRequest b = batch("b");
+      batcher_.flush();
+      b.cancel();
+
+      envelopes_.get(0).respond("{\"result\": [{\"result\": 1}, {\"result\": 2}]}");
+      Assert.assertEquals("[a]", received_.toString());
+   }
+
+   public void testFailedEnvelopeResendsIndividually()
+   {
+      batch("a");
+      batch("b");
+      batcher_.flush();
+      envelopes_.get(0).fail();
+
+      Assert.assertEquals("[multi_call, a, b]", sent_.toString());
+      Assert.assertTrue(batcher_.isEnabled());
+   }
+
+   public void testUnsupportedServerStopsBatching()
+   {
+      batch("a");
+      batch("b");
+      batcher_.flush();
+      envelopes_.get(0).respond("{\"error\": {\"code\": 7}}");
+      Assert.assertEquals("[multi_call, a, b]", sent_.toString());
+      Assert.assertFalse(batcher_.isEnabled());
+
+      batch("c");
+      Assert.assertEquals("[multi_call, a, b, c]", sent_.toString());
+   }
+
+   private RpcRequest batch(String method)
+   {
+      StubRequest request = new StubRequest(method, null);
+      batcher_.send(request, new Recorder(), false);
+      return request;
+   }
+
+   private RequestLogEntry logEntry(String method)
+   {
+      for (RequestLogEntry entry : RequestLog.getEntries())
+      {
+         if (method.equals(entry.getRequestMethodName()))
+            return entry;
+      }
+      return null;
+   }
+
+   private List<String> sent_;
+   private List<String> received_;
+   private List<StubRequest> envelopes_;
+   private RpcRequestBatcher batcher_;
+}
@@ -22,14 +22,28 @@ import org.rstudio.core.client.StringUtilTests;
 import org.rstudio.core.client.URIUtilsTests;
 import org.rstudio.core.client.VirtualConsoleTests;
 import org.rstudio.core.client.dom.DomUtilsTests;
+import org.rstudio.core.client.command.KeyMapTests;
+import org.rstudio.core.client.jsonrpc.RpcRequestBatcherTests;
 import org.rstudio.studio.client.application.model.SessionScopeTests;
 import org.rstudio.studio.client.common.r.RTokenizerTests;
+import org.rstudio.studio.client.palette.ui.CommandPaletteIndexTests;
+import org.rstudio.studio.client.server.remote.RemoteServerEventStreamTests;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionSchemaCacheTests;
+import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionIndexTests;
+import org.rstudio.studio.client.workbench.views.connections.ui.ObjectBrowserModelTests;
+import org.rstudio.studio.client.workbench.views.history.HistorySearchIndexTests;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobManagerTests;
+import org.rstudio.studio.client.workbench.views.jobs.model.JobOutputBufferTests;
 import org.rstudio.studio.client.workbench.views.jobs.view.JobsListTests;
+import org.rstudio.studio.client.workbench.views.source.PendingTabsTests;
+import org.rstudio.studio.client.workbench.views.source.model.DocumentEditLogTests;
 // Disabled in v1.3 due to failures. See #4249.
 // import org.rstudio.studio.client.workbench.views.source.editors.text.assist.RChunkHeaderParserTests;
+import org.rstudio.studio.client.workbench.views.terminal.TerminalBufferSyncTests;
 import org.rstudio.studio.client.workbench.views.terminal.TerminalLocalEchoTests;
 import org.rstudio.studio.client.workbench.views.terminal.TerminalSessionSocketTests;
+import org.rstudio.studio.client.workbench.views.vcs.common.diff.IncrementalDiffParserTests;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ChunkOutputReplayTests;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkContextUiTests;
 
 import com.google.gwt.junit.tools.GWTTestSuite;
@@ -47,6 +61,7 @@ public class RStudioUnitTestSuite extends GWTTestSuite
       suite.addTestSuite(StringUtilTests.class);
       suite.addTestSuite(DomUtilsTests.class);
       suite.addTestSuite(AnsiCodeTests.class);
+      suite.addTestSuite(TerminalBufferSyncTests.class);
       suite.addTestSuite(TerminalLocalEchoTests.class);
       suite.addTestSuite(TerminalSessionSocketTests.class);
       suite.addTestSuite(JobManagerTests.class);
@@ -58,6 +73,19 @@ public class RStudioUnitTestSuite extends GWTTestSuite
       suite.addTestSuite(ElementIdsTests.class);
       suite.addTestSuite(ChunkContextUiTests.class);
       suite.addTestSuite(SafeHtmlUtilTests.class);
+      suite.addTestSuite(ConnectionSchemaCacheTests.class);
+      suite.addTestSuite(RemoteServerEventStreamTests.class);
+      suite.addTestSuite(DocumentEditLogTests.class);
+      suite.addTestSuite(IncrementalDiffParserTests.class);
+      suite.addTestSuite(ObjectBrowserModelTests.class);
+      suite.addTestSuite(PendingTabsTests.class);
+      suite.addTestSuite(ChunkOutputReplayTests.class);
+      suite.addTestSuite(RpcRequestBatcherTests.class);
+      suite.addTestSuite(JobOutputBufferTests.class);
+      suite.addTestSuite(CompletionIndexTests.class);
+      suite.addTestSuite(CommandPaletteIndexTests.class);
+      suite.addTestSuite(HistorySearchIndexTests.class);
+      suite.addTestSuite(KeyMapTests.class);
 
       return suite;
    }
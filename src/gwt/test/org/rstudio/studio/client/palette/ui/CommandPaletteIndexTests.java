@@ -0,0 +1,193 @@
+/*
+ * CommandPaletteIndexTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.palette.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.rstudio.studio.client.palette.events.PaletteItemInvokedEvent;
+import org.rstudio.studio.client.palette.model.CommandPaletteItem;
+
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.ui.Widget;
+
+import junit.framework.Assert;
+
+public class CommandPaletteIndexTests extends GWTTestCase
+{
+   // an item which only has search text
+   private static class TextItem implements CommandPaletteItem
+   {
+      TextItem(String text)
+      {
+         text_ = text;
+      }
+
+      @Override
+      public String getSearchText()
+      {
+         return text_;
+      }
+
+      @Override
+      public boolean isRendered()
+      {
+         return false;
+      }
+
+      @Override
+      public void invoke(InvocationSource source)
+      {
+      }
+
+      @Override
+      public HandlerRegistration addInvokeHandler(
+            PaletteItemInvokedEvent.Handler handler)
+      {
+         return null;
+      }
+
+      @Override
+      public void setSearchHighlight(String[] keywords)
+      {
+      }
+
+      @Override
+      public boolean dismissOnInvoke()
+      {
+         return true;
+      }
+
+      @Override
+      public void setSelected(boolean selected)
+      {
+      }
+
+      @Override
+      public Widget asWidget()
+      {
+         return null;
+      }
+
+      @Override
+      public void fireEvent(GwtEvent<?> event)
+      {
+      }
+
+      private final String text_;
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testMatchesEveryTerm()
+   {
+      CommandPaletteIndex index = index(
+            "New R Script",
+            "New R Markdown",
+            "Open File");
+      Assert.assertEquals("[New R Markdown]",
+            search(index, new String[] { "new", "mark" }, 10));
+      Assert.assertEquals("[]", search(index, new String[] { "new", "zip" }, 10));
+   }
+
+   public void testScoresWordStartsAndRuns()
+   {
+      // a match at the start of words beats a run of consecutive characters,
+      // which beats a match split by a gap in the middle of a word
+      CommandPaletteIndex index = index(
+            "Reformat Code",
+            "Source",
+            "Run Current File");
+      Assert.assertEquals("[Run Current File, Source, Reformat Code]",
+            search(index, new String[] { "rc" }, 10));
+   }
+
+   public void testCamelCaseStartsWords()
+   {
+      CommandPaletteIndex index = index("gohome", "goHome");
+      Assert.assertEquals("[goHome, gohome]",
+            search(index, new String[] { "gh" }, 10));
+   }
+
+   public void testScoreWithoutMatch()
+   {
+      boolean[] boundaries = new boolean[] { true, false, false };
+      Assert.assertEquals(CommandPaletteIndex.NO_MATCH,
+            CommandPaletteIndex.score("abc", boundaries, "ca"));
+      Assert.assertEquals(0, CommandPaletteIndex.score("abc", boundaries, ""));
+   }
+
+   public void testRanksTopMatches()
+   {
+      CommandPaletteIndex index = index(
+            "Insert Chunk",
+            "Find in Files",
+            "Insert Section",
+            "Find",
+            "Insert Pipe Operator");
+
+      // the heap keeps the best matches, in order; ties keep index order
+      Assert.assertEquals("[Find in Files, Find]",
+            search(index, new String[] { "find" }, 2));
+      Assert.assertEquals("[Insert Chunk, Insert Section]",
+            search(index, new String[] { "insert" }, 2));
+      Assert.assertEquals("[Insert Chunk, Insert Section, Insert Pipe Operator]",
+            search(index, new String[] { "insert" }, 10));
+      Assert.assertEquals("[]", search(index, new String[] { "insert" }, 0));
+   }
+
+   public void testNarrowsFromPreviousMatches()
+   {
+      CommandPaletteIndex index = index(
+            "New R Script",
+            "New R Markdown",
+            "Knit Document",
+            "Save File");
+
+      int[] previous = index.match(new String[] { "n" }, null);
+      Assert.assertEquals(3, previous.length);
+
+      int[] narrowed = index.match(new String[] { "new" }, previous);
+      Assert.assertEquals(
+            Arrays.toString(index.match(new String[] { "new" }, null)),
+            Arrays.toString(narrowed));
+      Assert.assertEquals(2, narrowed.length);
+   }
+
+   private static CommandPaletteIndex index(String... texts)
+   {
+      ArrayList<CommandPaletteItem> items = new ArrayList<>();
+      for (String text : texts)
+         items.add(new TextItem(text));
+      return new CommandPaletteIndex(items);
+   }
+
+   private static String search(CommandPaletteIndex index,
+                                String[] needles,
+                                int max)
+   {
+      int[] ranked = index.rank(index.match(needles, null), max);
+      ArrayList<String> texts = new ArrayList<>();
+      for (int i : ranked)
+         texts.add(index.get(i).getSearchText());
+      return texts.toString();
+   }
+}
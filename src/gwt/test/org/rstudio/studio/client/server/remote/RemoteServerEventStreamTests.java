@@ -0,0 +1,218 @@
+/*
+ * RemoteServerEventStreamTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class RemoteServerEventStreamTests extends GWTTestCase
+{
+   // stands in for the session's events/stream endpoint
+   private static class StubServer implements RemoteServerEventStream.Connection
+   {
+      StubServer(String url)
+      {
+         this.url = url;
+      }
+
+      @Override
+      public boolean isClosed()
+      {
+         return closed;
+      }
+
+      @Override
+      public void close()
+      {
+         closed = true;
+      }
+
+      final String url;
+      boolean closed = false;
+   }
+
+   // records what the event listener would see
+   private static class Recorder implements RemoteServerEventStream.Handler
+   {
+      @Override
+      public void onEventReceived(ClientEvent event)
+      {
+         received.add(event.getId());
+      }
+
+      @Override
+      public void onStreamFailed()
+      {
+         // the event listener falls back to polling here
+         fallbacks++;
+      }
+
+      final List<Integer> received = new ArrayList<>();
+      int fallbacks = 0;
+   }
+
+   private static class Stream extends RemoteServerEventStream
+   {
+      Stream(Recorder recorder)
+      {
+         super(recorder);
+         this.received = recorder.received;
+         this.recorder = recorder;
+      }
+
+      @Override
+      Connection connect(String url)
+      {
+         server = new StubServer(url);
+         return server;
+      }
+
+      void send(int id)
+      {
+         onMessage(server, "{\"id\": " + id + ", \"type\": \"test\", \"data\": null}");
+      }
+
+      int fallbacks()
+      {
+         return recorder.fallbacks;
+      }
+
+      StubServer server;
+      final List<Integer> received;
+      private final Recorder recorder;
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testStreamsEventsInSequence()
+   {
+      Stream stream = new Stream(new Recorder());
+      stream.open("events/stream", "client", 4);
+      Assert.assertEquals("events/stream?clientId=client&lastEventId=4",
+            stream.server.url);
+
+      stream.onOpen(stream.server);
+      stream.send(5);
+      stream.send(6);
+      stream.send(7);
+
+      Assert.assertTrue(stream.isOpen());
+      Assert.assertEquals(3, stream.received.size());
+      Assert.assertEquals(5, (int) stream.received.get(0));
+      Assert.assertEquals(7, (int) stream.received.get(2));
+      Assert.assertEquals(0, stream.fallbacks());
+   }
+
+   public void testIgnoresEventsAlreadySeen()
+   {
+      Stream stream = new Stream(new Recorder());
+      stream.open("events/stream", "client", 4);
+      stream.onOpen(stream.server);
+      stream.send(3);
+      stream.send(4);
+      stream.send(5);
+
+      Assert.assertEquals(1, stream.received.size());
+      Assert.assertEquals(5, (int) stream.received.get(0));
+      Assert.assertEquals(0, stream.fallbacks());
+   }
+
+   public void testFallsBackOnGap()
+   {
+      Stream stream = new Stream(new Recorder());
+      stream.open("events/stream", "client", 4);
+      stream.onOpen(stream.server);
+      stream.send(5);
+      stream.send(7);
+
+      Assert.assertEquals(1, stream.received.size());
+      Assert.assertEquals(1, stream.fallbacks());
+      Assert.assertFalse(stream.isOpen());
+      Assert.assertTrue(stream.server.closed);
+
+      // a gap doesn't mean the server can't stream
+      Assert.assertTrue(stream.isSupported());
+   }
+
+   public void testFallsBackWithoutEndpoint()
+   {
+      // the stream errors before it ever connects
+      Stream stream = new Stream(new Recorder());
+      stream.open("events/stream", "client", -1);
+      stream.onError(stream.server);
+
+      Assert.assertEquals(1, stream.fallbacks());
+      Assert.assertFalse(stream.isOpen());
+      Assert.assertFalse(stream.isSupported());
+   }
+
+   public void testFallsBackAfterRepeatedDrops()
+   {
+      Stream stream = new Stream(new Recorder());
+      int lastEventId = -1;
+      for (int i = 0; i < RemoteServerEventStream.MAX_FAILURES; i++)
+      {
+         Assert.assertTrue(stream.isSupported());
+         stream.open("events/stream", "client", lastEventId);
+         stream.onOpen(stream.server);
+         stream.onError(stream.server);
+      }
+
+      Assert.assertEquals(RemoteServerEventStream.MAX_FAILURES, stream.fallbacks());
+      Assert.assertFalse(stream.isSupported());
+   }
+
+   public void testDeliveredEventsResetDrops()
+   {
+      Stream stream = new Stream(new Recorder());
+      int lastEventId = 0;
+      for (int i = 0; i < RemoteServerEventStream.MAX_FAILURES * 2; i++)
+      {
+         stream.open("events/stream", "client", lastEventId);
+         stream.onOpen(stream.server);
+         stream.send(++lastEventId);
+         stream.onError(stream.server);
+      }
+
+      Assert.assertTrue(stream.isSupported());
+   }
+
+   public void testIgnoresClosedConnections()
+   {
+      Stream stream = new Stream(new Recorder());
+      stream.open("events/stream", "client", 0);
+      StubServer first = stream.server;
+      stream.onOpen(first);
+
+      // reopening leaves the first connection behind
+      stream.open("events/stream", "client", 0);
+      Assert.assertTrue(first.closed);
+
+      stream.onMessage(first, "{\"id\": 1, \"type\": \"test\", \"data\": null}");
+      stream.onError(first);
+
+      Assert.assertEquals(0, stream.received.size());
+      Assert.assertEquals(0, stream.fallbacks());
+      Assert.assertTrue(stream.isOpen());
+   }
+}
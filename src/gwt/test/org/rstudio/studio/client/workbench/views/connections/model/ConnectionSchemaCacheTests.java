@@ -0,0 +1,118 @@
+/*
+ * ConnectionSchemaCacheTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.connections.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import junit.framework.Assert;
+
+public class ConnectionSchemaCacheTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   private static List<String> items(int count)
+   {
+      ArrayList<String> items = new ArrayList<>();
+      for (int i = 0; i < count; i++)
+         items.add("table" + i);
+      return items;
+   }
+
+   public void testHoldsListing()
+   {
+      ConnectionSchemaCache<String> cache = new ConnectionSchemaCache<>(100, 60000);
+      cache.put("odbc|host|schema:main/|", Arrays.asList("a", "b"), 10);
+
+      ConnectionSchemaCache.Entry<String> entry = cache.get("odbc|host|schema:main/|");
+      Assert.assertNotNull(entry);
+      Assert.assertEquals(2, entry.getItems().size());
+      Assert.assertEquals(10, entry.getTotal());
+      Assert.assertFalse(entry.isComplete());
+      Assert.assertNull(cache.get("odbc|host|schema:other/|"));
+   }
+
+   public void testEntriesExpire()
+   {
+      ConnectionSchemaCache<String> cache = new ConnectionSchemaCache<>(100, 0);
+      cache.put("key", items(3), 3);
+
+      Assert.assertNull(cache.get("key"));
+      Assert.assertEquals(0, cache.size());
+   }
+
+   public void testReportsExpiry()
+   {
+      ConnectionSchemaCache<String> stale = new ConnectionSchemaCache<>(100, 0);
+      stale.put("key", items(3), 3);
+      Assert.assertTrue(stale.hasExpired("key"));
+      Assert.assertFalse(stale.hasExpired("other"));
+
+      // once an expired entry has been dropped there's nothing to report
+      Assert.assertNull(stale.get("key"));
+      Assert.assertFalse(stale.hasExpired("key"));
+
+      ConnectionSchemaCache<String> fresh = new ConnectionSchemaCache<>(100, 60000);
+      fresh.put("key", items(3), 3);
+      Assert.assertFalse(fresh.hasExpired("key"));
+   }
+
+   public void testEvictsLeastRecentlyUsed()
+   {
+      ConnectionSchemaCache<String> cache = new ConnectionSchemaCache<>(10, 60000);
+      cache.put("a", items(4), 4);
+      cache.put("b", items(4), 4);
+
+      // using 'a' leaves 'b' as the least recently used
+      Assert.assertNotNull(cache.get("a"));
+      cache.put("c", items(4), 4);
+
+      Assert.assertNotNull(cache.get("a"));
+      Assert.assertNull(cache.get("b"));
+      Assert.assertNotNull(cache.get("c"));
+      Assert.assertEquals(8, cache.size());
+   }
+
+   public void testKeepsOversizedEntry()
+   {
+      ConnectionSchemaCache<String> cache = new ConnectionSchemaCache<>(10, 60000);
+      cache.put("a", items(4), 4);
+      cache.put("b", items(20), 20);
+
+      Assert.assertNull(cache.get("a"));
+      Assert.assertNotNull(cache.get("b"));
+   }
+
+   public void testInvalidatesConnection()
+   {
+      ConnectionSchemaCache<String> cache = new ConnectionSchemaCache<>(100, 60000);
+      cache.put("odbc|one|", items(2), 2);
+      cache.put("odbc|one|schema:main/|", items(3), 3);
+      cache.put("odbc|two|", items(4), 4);
+
+      cache.invalidate("odbc|one|");
+
+      Assert.assertNull(cache.get("odbc|one|"));
+      Assert.assertNull(cache.get("odbc|one|schema:main/|"));
+      Assert.assertNotNull(cache.get("odbc|two|"));
+      Assert.assertEquals(4, cache.size());
+   }
+}
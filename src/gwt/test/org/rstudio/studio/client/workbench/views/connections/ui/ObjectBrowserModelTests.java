@@ -0,0 +1,330 @@
+/*
+ * ObjectBrowserModelTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.connections.ui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.rstudio.studio.client.common.console.ConsoleProcess;
+import org.rstudio.studio.client.common.crypto.PublicKeyInfo;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.server.Void;
+import org.rstudio.studio.client.server.remote.RResult;
+import org.rstudio.studio.client.workbench.views.connections.model.Connection;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionId;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectPage;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionObjectSpecifier;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionPathEntry;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionUninstallResult;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionUpdateResult;
+import org.rstudio.studio.client.workbench.views.connections.model.ConnectionsServerOperations;
+import org.rstudio.studio.client.workbench.views.connections.model.DatabaseObject;
+import org.rstudio.studio.client.workbench.views.connections.model.Field;
+import org.rstudio.studio.client.workbench.views.connections.model.NewConnectionContext;
+import org.rstudio.studio.client.workbench.views.connections.model.NewConnectionInfo;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class ObjectBrowserModelTests extends GWTTestCase
+{
+   // lists objects synchronously from a fixed tree: schemas (containing
+   // tables) and tables (containing fields), filtered the way the session
+   // filters them
+   private static class StubServer implements ConnectionsServerOperations
+   {
+      void addObjects(String container, String type, String... names)
+      {
+         ArrayList<String[]> objects = objects_.get(container);
+         if (objects == null)
+         {
+            objects = new ArrayList<>();
+            objects_.put(container, objects);
+         }
+         for (String name : names)
+            objects.add(new String[] { name, type });
+      }
+
+      void addFields(String table, String... names)
+      {
+         fields_.put(table, names);
+      }
+
+      @Override
+      public void connectionListObjectsPage(ConnectionId connectionId,
+                                            ConnectionObjectSpecifier object,
+                                            String filter,
+                                            int offset,
+                                            int limit,
+                                            boolean refresh,
+                                            ServerRequestCallback<ConnectionObjectPage> callback)
+      {
+         requests++;
+         ArrayList<String[]> listing = objects_.get(containerName(object));
+         if (listing == null)
+            listing = new ArrayList<>();
+
+         ArrayList<String[]> matches = new ArrayList<>();
+         for (String[] entry : listing)
+         {
+            if (filter.isEmpty() || !entry[1].equals("table") ||
+                entry[0].toLowerCase().contains(filter))
+               matches.add(entry);
+         }
+
+         StringBuilder json = new StringBuilder("{\"objects\": [");
+         for (int i = offset; i < Math.min(matches.size(), offset + limit); i++)
+         {
+            if (i > offset)
+               json.append(", ");
+            json.append("{\"name\": \"" + matches.get(i)[0] + "\", " +
+                        "\"type\": \"" + matches.get(i)[1] + "\"}");
+         }
+         json.append("], \"offset\": " + offset + ", \"total\": " + matches.size() + "}");
+         callback.onResponseReceived(JsonUtils.safeEval(json.toString()));
+      }
+
+      @Override
+      public void connectionListFields(ConnectionId connectionId,
+                                       ConnectionObjectSpecifier object,
+                                       ServerRequestCallback<JsArray<Field>> callback)
+      {
+         JsArray<Field> fields = JsArray.createArray().cast();
+         String[] names = fields_.get(containerName(object));
+         if (names != null)
+         {
+            for (String name : names)
+               fields.push(Field.create(name, "integer"));
+         }
+         callback.onResponseReceived(fields);
+      }
+
+      private static String containerName(ConnectionObjectSpecifier object)
+      {
+         JsArray<ConnectionPathEntry> path = object.asJsArray();
+         return path.length() == 0 ? "" : path.get(path.length() - 1).getName();
+      }
+
+      @Override
+      public void getPublicKey(ServerRequestCallback<PublicKeyInfo> requestCallback) {}
+
+      @Override
+      public void removeConnection(ConnectionId id, ServerRequestCallback<Void> callback) {}
+
+      @Override
+      public void connectionDisconnect(ConnectionId connectionId,
+                                       ServerRequestCallback<Void> callback) {}
+
+      @Override
+      public void connectionExecuteAction(ConnectionId connectionId, String action,
+                                          ServerRequestCallback<Void> callback) {}
+
+      @Override
+      public void connectionListObjects(ConnectionId connectionId,
+                                        ConnectionObjectSpecifier object,
+                                        ServerRequestCallback<JsArray<DatabaseObject>> callback) {}
+
+      @Override
+      public void connectionPreviewObject(ConnectionId connectionId,
+                                          ConnectionObjectSpecifier object,
+                                          ServerRequestCallback<Void> callback) {}
+
+      @Override
+      public void getNewConnectionContext(ServerRequestCallback<NewConnectionContext> callback) {}
+
+      @Override
+      public void launchEmbeddedShinyConnectionUI(String packageName, String connectionName,
+                                                  ServerRequestCallback<RResult<Void>> serverRequestCallback) {}
+
+      @Override
+      public void connectionTest(String code, ServerRequestCallback<String> callback) {}
+
+      @Override
+      public void connectionAddPackage(String packageName, ServerRequestCallback<Void> callback) {}
+
+      @Override
+      public void installOdbcDriver(String name, String installationPath,
+                                    ServerRequestCallback<ConsoleProcess> requestCallback) {}
+
+      @Override
+      public void getOdbcConnectionContext(String name,
+                                           ServerRequestCallback<NewConnectionInfo> callback) {}
+
+      @Override
+      public void uninstallOdbcDriver(String name,
+                                      ServerRequestCallback<ConnectionUninstallResult> callback) {}
+
+      @Override
+      public void updateOdbcInstallers(ServerRequestCallback<ConnectionUpdateResult> callback) {}
+
+      int requests = 0;
+      private final HashMap<String, ArrayList<String[]>> objects_ = new HashMap<>();
+      private final HashMap<String, String[]> fields_ = new HashMap<>();
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // each test uses its own host, since listings are cached across models
+   private static Connection connection(String host)
+   {
+      return JsonUtils.safeEval(
+            "{\"id\": {\"type\": \"Test\", \"host\": \"" + host + "\"}, " +
+            "\"object_types\": [" +
+            "{\"name\": \"schema\", \"contains\": \"table\"}, " +
+            "{\"name\": \"table\", \"contains\": \"data\"}]}");
+   }
+
+   private static StubServer schemas()
+   {
+      StubServer server = new StubServer();
+      server.addObjects("", "schema", "main", "other", "cats");
+      server.addObjects("main", "table", "cars", "iris");
+      server.addObjects("other", "table", "flights");
+      server.addFields("cars", "speed", "dist");
+      return server;
+   }
+
+   private static String describe(List<ObjectBrowserModel.Node> rows)
+   {
+      StringBuilder result = new StringBuilder();
+      for (ObjectBrowserModel.Node row : rows)
+      {
+         if (result.length() > 0)
+            result.append(" ");
+         for (int i = 0; i < row.getDepth(); i++)
+            result.append("-");
+         if (row.isMore())
+            result.append("(more)");
+         else if (row.isField())
+            result.append(row.getField().getName());
+         else
+            result.append(row.getObject().getName());
+      }
+      return result.toString();
+   }
+
+   private static ObjectBrowserModel.Node find(ObjectBrowserModel model, String name)
+   {
+      for (ObjectBrowserModel.Node row : model.getRows())
+      {
+         if (row.getObject() != null && row.getObject().getName().equals(name))
+            return row;
+      }
+      return null;
+   }
+
+   public void testFlattensExpandedNodes()
+   {
+      ObjectBrowserModel model = new ObjectBrowserModel(schemas(), null);
+      model.update(connection("flatten"), true, null);
+      Assert.assertEquals("main other cats", describe(model.getRows()));
+
+      model.setExpanded(find(model, "main"), true);
+      Assert.assertEquals("main -cars -iris other cats", describe(model.getRows()));
+
+      model.setExpanded(find(model, "cars"), true);
+      Assert.assertEquals("main -cars --speed --dist -iris other cats",
+            describe(model.getRows()));
+
+      // collapsing hides descendants, but they stay expanded underneath
+      model.setExpanded(find(model, "main"), false);
+      Assert.assertEquals("main other cats", describe(model.getRows()));
+      model.setExpanded(find(model, "main"), true);
+      Assert.assertEquals("main -cars --speed --dist -iris other cats",
+            describe(model.getRows()));
+   }
+
+   public void testListsMoreOnRequest()
+   {
+      StubServer server = new StubServer();
+      String[] names = new String[600];
+      for (int i = 0; i < names.length; i++)
+         names[i] = "table" + i;
+      server.addObjects("", "table", names);
+
+      ObjectBrowserModel model = new ObjectBrowserModel(server, null);
+      model.update(connection("more"), true, null);
+
+      List<ObjectBrowserModel.Node> rows = model.getRows();
+      Assert.assertEquals(501, rows.size());
+      ObjectBrowserModel.Node more = rows.get(500);
+      Assert.assertTrue(more.isMore());
+      Assert.assertEquals(500, more.getParent().getLoaded());
+      Assert.assertEquals(600, more.getParent().getTotal());
+
+      model.loadMore(more);
+      rows = model.getRows();
+      Assert.assertEquals(600, rows.size());
+      Assert.assertEquals("table599", rows.get(599).getObject().getName());
+   }
+
+   public void testFilterShowsMatchesAndTheirContainers()
+   {
+      ObjectBrowserModel model = new ObjectBrowserModel(schemas(), null);
+      model.update(connection("filter"), true, null);
+      model.setExpanded(find(model, "main"), true);
+      model.setExpanded(find(model, "other"), true);
+
+      // 'main' is shown for the table within it that matches, 'other' is
+      // hidden since nothing in it does, and 'cats' matches by name
+      model.setFilterText("CA");
+      Assert.assertEquals("ca", model.getFilterText());
+      Assert.assertEquals("main -cars cats", describe(model.getRows()));
+
+      model.setFilterText("");
+      Assert.assertEquals("main -cars -iris other -flights cats",
+            describe(model.getRows()));
+   }
+
+   public void testFilterHidesCollapsedContainers()
+   {
+      ObjectBrowserModel model = new ObjectBrowserModel(schemas(), null);
+      model.update(connection("collapsed"), true, null);
+
+      // nothing has been listed within collapsed containers, so only those
+      // whose names match are shown
+      model.setFilterText("cars");
+      Assert.assertEquals("", describe(model.getRows()));
+
+      model.setFilterText("ma");
+      Assert.assertEquals("main", describe(model.getRows()));
+   }
+
+   public void testReusesCachedListings()
+   {
+      StubServer server = schemas();
+      ObjectBrowserModel model = new ObjectBrowserModel(server, null);
+      model.update(connection("cached"), true, null);
+      model.setExpanded(find(model, "main"), true);
+      int requests = server.requests;
+
+      // re-expanding, or updating without a refresh, lists nothing again
+      model.setExpanded(find(model, "main"), false);
+      model.setExpanded(find(model, "main"), true);
+      model.update(connection("cached"), false, null);
+      Assert.assertEquals(requests, server.requests);
+
+      model.update(connection("cached"), true, null);
+      Assert.assertEquals(requests + 2, server.requests);
+   }
+}
@@ -0,0 +1,156 @@
+/*
+ * CompletionIndexTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.console.shell.assist;
+
+import java.util.ArrayList;
+
+import org.rstudio.studio.client.common.codetools.RCompletionType;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class CompletionIndexTests extends GWTTestCase
+{
+   // a completion as the index sees it
+   private static class Completion implements CompletionIndex.Item<Completion>
+   {
+      Completion(String name, int type)
+      {
+         name_ = name;
+         type_ = type;
+      }
+
+      @Override
+      public String getName()
+      {
+         return name_;
+      }
+
+      @Override
+      public int getType()
+      {
+         return type_;
+      }
+
+      @Override
+      public int compareTo(Completion other)
+      {
+         return name_.compareTo(other.name_);
+      }
+
+      private final String name_;
+      private final int type_;
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testRanksSubsequenceMatches()
+   {
+      CompletionIndex<Completion> index = index(
+            variable("summary"),
+            variable("median"),
+            variable("max_element"),
+            variable("mean"));
+
+      // equal scores fall back to name order; a match after '_' ranks below
+      // matches at the start
+      Assert.assertEquals("[mean, median, max_element]",
+            names(index, index.narrow("me", null)));
+   }
+
+   public void testRejectsMissingCharacters()
+   {
+      CompletionIndex<Completion> index = index(variable("mean"), variable("x1"));
+      Assert.assertEquals(0, index.narrow("mz", null).length);
+
+      // digits share a bit in the mask, but are still matched exactly
+      Assert.assertEquals("[x1]", names(index, index.narrow("x1", null)));
+      Assert.assertEquals(0, index.narrow("x2", null).length);
+   }
+
+   public void testIgnoresSeparatorsInToken()
+   {
+      CompletionIndex<Completion> index = index(variable("max_element"), variable("maxel"));
+      Assert.assertEquals(2, index.narrow("max_el", null).length);
+      Assert.assertEquals(2, index.narrow("m.a.x", null).length);
+   }
+
+   public void testHidesDottedNamesUnlessTyped()
+   {
+      CompletionIndex<Completion> index = index(variable(".hidden"), variable("help"));
+      Assert.assertEquals("[help]", names(index, index.narrow("h", null)));
+      Assert.assertEquals("[.hidden]", names(index, index.narrow(".h", null)));
+   }
+
+   public void testRanksArgumentsFirst()
+   {
+      CompletionIndex<Completion> index = index(
+            variable("x"),
+            new Completion("xlab=", RCompletionType.ARGUMENT));
+      Assert.assertEquals("[xlab=, x]", names(index, index.narrow("x", null)));
+   }
+
+   public void testMatchesFilesByName()
+   {
+      CompletionIndex<Completion> index = index(
+            new Completion("~/analysis/report.R", RCompletionType.FILE));
+      Assert.assertEquals(1, index.narrow("rep", null).length);
+
+      // the directory isn't matched against
+      Assert.assertEquals(0, index.narrow("ana", null).length);
+   }
+
+   public void testNarrowsFromPrefixMatches()
+   {
+      CompletionIndex<Completion> index = index(
+            variable("mean"),
+            variable("median"),
+            variable("max_element"),
+            variable("summary"));
+
+      int[] prefixMatches = index.narrow("me", null);
+      Assert.assertEquals(
+            names(index, index.narrow("med", null)),
+            names(index, index.narrow("med", prefixMatches)));
+      Assert.assertEquals("[median]",
+            names(index, index.narrow("med", prefixMatches)));
+   }
+
+   private static Completion variable(String name)
+   {
+      return new Completion(name, RCompletionType.VECTOR);
+   }
+
+   private static CompletionIndex<Completion> index(Completion... completions)
+   {
+      ArrayList<Completion> list = new ArrayList<>();
+      for (Completion completion : completions)
+         list.add(completion);
+      return new CompletionIndex<>(list);
+   }
+
+   private static String names(CompletionIndex<Completion> index, int[] matches)
+   {
+      ArrayList<String> names = new ArrayList<>();
+      for (Completion completion : index.toList(matches))
+         names.add(completion.getName());
+      return names.toString();
+   }
+}
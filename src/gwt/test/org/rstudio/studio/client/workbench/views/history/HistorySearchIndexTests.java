@@ -0,0 +1,146 @@
+/*
+ * HistorySearchIndexTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.history;
+
+import java.util.ArrayList;
+
+import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class HistorySearchIndexTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // tokenize() should split queries as boost's default char_separator does
+   // on the server: whitespace is dropped, punctuation kept as terms of its
+   // own, and empty tokens never produced
+   public void testTokenizeWhitespace()
+   {
+      Assert.assertEquals("[read, csv]", tokens("read csv"));
+      Assert.assertEquals("[read, csv]", tokens("  read \t csv\n"));
+   }
+
+   public void testTokenizePunctuation()
+   {
+      Assert.assertEquals("[x, <, -, 1]", tokens("x<-1"));
+      Assert.assertEquals("[df, $, col]", tokens("df$col"));
+      Assert.assertEquals("[(, x, ), ;]", tokens("(x);"));
+      Assert.assertEquals("[mean, (, ), ., x]", tokens("mean() .x"));
+   }
+
+   public void testTokenizeEmpty()
+   {
+      Assert.assertEquals("[]", tokens(""));
+      Assert.assertEquals("[]", tokens(" \t "));
+   }
+
+   public void testSearchMatchesEveryTerm()
+   {
+      HistorySearchIndex index = new HistorySearchIndex();
+      index.addResults("read", entries(
+            "read.csv(\"a.csv\")",
+            "readRDS(\"model.rds\")",
+            "read.csv(\"b.csv\", header = FALSE)"), true);
+
+      // newest first
+      Assert.assertEquals(
+            "[read.csv(\"b.csv\", header = FALSE), read.csv(\"a.csv\")]",
+            commands(index.search("read csv", 10)));
+      Assert.assertEquals("[read.csv(\"b.csv\", header = FALSE)]",
+            commands(index.search("csv FALSE", 10)));
+      Assert.assertEquals("[]", commands(index.search("write", 10)));
+
+      // a query without terms matches nothing
+      Assert.assertEquals("[]", commands(index.search(" ", 10)));
+   }
+
+   public void testSearchPrefixes()
+   {
+      HistorySearchIndex index = new HistorySearchIndex();
+      index.addResults("r", entries("readRDS(x)", "rm(x)", "library(readr)"), true);
+
+      // terms shorter than a trigram are checked against every entry
+      Assert.assertEquals("[library(readr), rm(x), readRDS(x)]",
+            commands(index.search("r", 10)));
+      Assert.assertEquals("[library(readr), readRDS(x)]",
+            commands(index.search("re", 10)));
+      Assert.assertEquals("[library(readr), readRDS(x)]",
+            commands(index.search("rea", 10)));
+      Assert.assertEquals("[readRDS(x)]",
+            commands(index.search("readR", 10)));
+      Assert.assertEquals("[library(readr)]",
+            commands(index.search("library(", 1)));
+      Assert.assertEquals("[library(readr)]",
+            commands(index.search("r", 1)));
+   }
+
+   public void testEntriesIndexedOnce()
+   {
+      HistorySearchIndex index = new HistorySearchIndex();
+      ArrayList<HistoryEntry> entries = entries("print(x)");
+      index.addResults("print", entries, true);
+      index.addResults("x", entries, true);
+      Assert.assertEquals(1, index.search("print", 10).size());
+   }
+
+   public void testCompleteQueries()
+   {
+      HistorySearchIndex index = new HistorySearchIndex();
+      index.addResults("read", entries("read.csv(x)"), true);
+      index.addResults("plot", entries("plot(x)"), false);
+
+      // refinements of a complete query can be answered locally
+      Assert.assertTrue(index.isComplete("read"));
+      Assert.assertTrue(index.isComplete("read.csv"));
+      Assert.assertTrue(index.isComplete("x <- readRDS"));
+      Assert.assertFalse(index.isComplete("rea"));
+      Assert.assertFalse(index.isComplete("plot"));
+
+      index.invalidate();
+      Assert.assertFalse(index.isComplete("read"));
+      Assert.assertEquals(1, index.search("read", 10).size());
+   }
+
+   private static String tokens(String query)
+   {
+      return HistorySearchIndex.tokenize(query).toString();
+   }
+
+   // entries with increasing indices (so later ones are newer)
+   private ArrayList<HistoryEntry> entries(String... commands)
+   {
+      ArrayList<HistoryEntry> entries = new ArrayList<HistoryEntry>();
+      for (String command : commands)
+         entries.add(HistoryEntry.create(nextIndex_++, command));
+      return entries;
+   }
+
+   private static String commands(ArrayList<HistoryEntry> entries)
+   {
+      ArrayList<String> commands = new ArrayList<String>();
+      for (HistoryEntry entry : entries)
+         commands.add(entry.getCommand());
+      return commands.toString();
+   }
+
+   private int nextIndex_ = 0;
+}
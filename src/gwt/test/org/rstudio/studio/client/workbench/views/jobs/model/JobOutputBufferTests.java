@@ -0,0 +1,131 @@
+/*
+ * JobOutputBufferTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.jobs.model;
+
+import java.util.List;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class JobOutputBufferTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testKeepsOutputWithinMaxLines()
+   {
+      JobOutputBuffer buffer = new JobOutputBuffer(5);
+      buffer.append(1, "a\nb\n");
+      buffer.append(1, "c\nd\n");
+      Assert.assertEquals(0, buffer.takeDroppedLines());
+
+      // the oldest chunk goes to make room
+      buffer.append(1, "e\nf\n");
+      Assert.assertEquals(2, buffer.takeDroppedLines());
+      Assert.assertEquals(0, buffer.takeDroppedLines());
+      Assert.assertEquals("c\nd\n", buffer.poll().output);
+      Assert.assertEquals("e\nf\n", buffer.poll().output);
+      Assert.assertTrue(buffer.isEmpty());
+
+      Assert.assertEquals(12, buffer.getBytesReceived());
+      Assert.assertEquals(4, buffer.getBytesDropped());
+   }
+
+   public void testCountsPartialLines()
+   {
+      JobOutputBuffer buffer = new JobOutputBuffer(2);
+      buffer.append(1, "a");
+      buffer.append(1, "b");
+      buffer.append(1, "c");
+      Assert.assertEquals(1, buffer.takeDroppedLines());
+   }
+
+   public void testKeepsNewestChunk()
+   {
+      // a chunk longer than the limit by itself is still kept
+      JobOutputBuffer buffer = new JobOutputBuffer(2);
+      buffer.append(1, "a\n");
+      buffer.append(2, "b\nc\nd\n");
+      Assert.assertEquals(1, buffer.takeDroppedLines());
+
+      JobOutputBuffer.Chunk chunk = buffer.poll();
+      Assert.assertEquals(2, chunk.type);
+      Assert.assertEquals("b\nc\nd\n", chunk.output);
+      Assert.assertNull(buffer.poll());
+   }
+
+   public void testLoweringMaxLinesTrims()
+   {
+      JobOutputBuffer buffer = new JobOutputBuffer(10);
+      for (int i = 0; i < 5; i++)
+         buffer.append(1, i + "\n");
+
+      buffer.setMaxLines(2);
+      Assert.assertEquals(3, buffer.takeDroppedLines());
+      Assert.assertEquals("3\n", buffer.poll().output);
+   }
+
+   public void testClearDoesNotCountAsDropped()
+   {
+      JobOutputBuffer buffer = new JobOutputBuffer(1);
+      buffer.append(1, "a\n");
+      buffer.append(1, "b\n");
+      buffer.clear();
+      Assert.assertTrue(buffer.isEmpty());
+      Assert.assertEquals(0, buffer.takeDroppedLines());
+   }
+
+   public void testPollsInBatches()
+   {
+      JobOutputBuffer buffer = new JobOutputBuffer(100);
+      for (int i = 0; i < 5; i++)
+         buffer.append(1, i + "\n");
+
+      List<JobOutputBuffer.Chunk> batch = buffer.pollBatch(2);
+      Assert.assertEquals(2, batch.size());
+      Assert.assertEquals("0\n", batch.get(0).output);
+      Assert.assertEquals("1\n", batch.get(1).output);
+
+      batch = buffer.pollBatch(2);
+      Assert.assertEquals("2\n", batch.get(0).output);
+
+      // the last batch holds whatever is left
+      batch = buffer.pollBatch(2);
+      Assert.assertEquals(1, batch.size());
+      Assert.assertEquals("4\n", batch.get(0).output);
+      Assert.assertTrue(buffer.isEmpty());
+      Assert.assertTrue(buffer.pollBatch(2).isEmpty());
+   }
+
+   public void testOutputArrivingBetweenBatches()
+   {
+      // output trimmed while a batch is being rendered is reported before
+      // the next batch
+      JobOutputBuffer buffer = new JobOutputBuffer(3);
+      buffer.append(1, "a\n");
+      buffer.append(1, "b\n");
+      Assert.assertEquals(1, buffer.pollBatch(1).size());
+
+      buffer.append(1, "c\n");
+      buffer.append(1, "d\n");
+      buffer.append(1, "e\n");
+      Assert.assertEquals(1, buffer.takeDroppedLines());
+      Assert.assertEquals("c\n", buffer.pollBatch(5).get(0).output);
+   }
+}
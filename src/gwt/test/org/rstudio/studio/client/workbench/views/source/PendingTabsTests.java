@@ -0,0 +1,480 @@
+/*
+ * PendingTabsTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.command.AppCommand;
+import org.rstudio.core.client.events.EnsureHeightEvent;
+import org.rstudio.core.client.events.EnsureVisibleEvent;
+import org.rstudio.core.client.files.FileSystemContext;
+import org.rstudio.studio.client.common.ReadOnlyValue;
+import org.rstudio.studio.client.common.Value;
+import org.rstudio.studio.client.common.filetypes.FileIcon;
+import org.rstudio.studio.client.common.filetypes.FileType;
+import org.rstudio.studio.client.common.filetypes.TextFileType;
+import org.rstudio.studio.client.palette.model.CommandPaletteItem;
+import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
+import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetSource;
+import org.rstudio.studio.client.workbench.views.source.editors.PendingEditingTarget;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.events.CollabEditStartParams;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
+
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.event.logical.shared.CloseHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.HasValue;
+import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.Widget;
+
+import junit.framework.Assert;
+
+public class PendingTabsTests extends GWTTestCase
+{
+   // a stand-in for a real editor, which records the calls forwarded to it
+   private static class StubEditor implements EditingTarget
+   {
+      StubEditor(SourceDocument document)
+      {
+         document_ = document;
+      }
+
+      SourceDocument getDocument()
+      {
+         return document_;
+      }
+
+      @Override
+      public Widget asWidget()
+      {
+         return widget;
+      }
+
+      @Override
+      public void focus()
+      {
+         calls.add("focus");
+      }
+
+      @Override
+      public void save(Command onCompleted)
+      {
+         calls.add("save");
+         onCompleted.execute();
+      }
+
+      @Override
+      public String getId()
+      {
+         return document_.getId();
+      }
+
+      @Override
+      public HasValue<String> getName()
+      {
+         return name_;
+      }
+
+      @Override
+      public ReadOnlyValue<Boolean> dirtyState()
+      {
+         return dirtyState_;
+      }
+
+      @Override
+      public HandlerRegistration addEnsureVisibleHandler(EnsureVisibleEvent.Handler handler)
+      {
+         return null;
+      }
+
+      @Override
+      public HandlerRegistration addEnsureHeightHandler(EnsureHeightEvent.Handler handler)
+      {
+         return null;
+      }
+
+      @Override
+      public HandlerRegistration addCloseHandler(CloseHandler<Void> handler)
+      {
+         return null;
+      }
+
+      @Override
+      public void fireEvent(GwtEvent<?> event) {}
+
+      @Override
+      public String getTitle() { return null; }
+
+      @Override
+      public String getPath() { return document_.getPath(); }
+
+      @Override
+      public String getContext() { return null; }
+
+      @Override
+      public FileIcon getIcon() { return null; }
+
+      @Override
+      public String getTabTooltip() { return null; }
+
+      @Override
+      public FileType getFileType() { return null; }
+
+      @Override
+      public TextFileType getTextFileType() { return null; }
+
+      @Override
+      public void adaptToExtendedFileType(String extendedType) {}
+
+      @Override
+      public String getExtendedFileType() { return null; }
+
+      @Override
+      public HashSet<AppCommand> getSupportedCommands() { return new HashSet<>(); }
+
+      @Override
+      public void manageCommands() {}
+
+      @Override
+      public boolean canCompilePdf() { return false; }
+
+      @Override
+      public void verifyCppPrerequisites() {}
+
+      @Override
+      public void verifyPythonPrerequisites() {}
+
+      @Override
+      public void verifyD3Prerequisites() {}
+
+      @Override
+      public void verifyNewSqlPrerequisites() {}
+
+      @Override
+      public void onActivate() {}
+
+      @Override
+      public void onDeactivate() {}
+
+      @Override
+      public void onInitiallyLoaded() {}
+
+      @Override
+      public void recordCurrentNavigationPosition() {}
+
+      @Override
+      public void navigateToPosition(SourcePosition position, boolean recordCurrent) {}
+
+      @Override
+      public void navigateToPosition(SourcePosition position, boolean recordCurrent,
+                                     boolean highlightLine) {}
+
+      @Override
+      public void navigateToPosition(SourcePosition position, boolean recordCurrent,
+                                     boolean highlightLine, boolean moveCursor,
+                                     Command onNavigationCompleted) {}
+
+      @Override
+      public void restorePosition(SourcePosition position) {}
+
+      @Override
+      public SourcePosition currentPosition() { return null; }
+
+      @Override
+      public boolean isAtSourceRow(SourcePosition position) { return false; }
+
+      @Override
+      public void forceLineHighlighting() {}
+
+      @Override
+      public void setSourceOnSave(boolean sourceOnSave) {}
+
+      @Override
+      public void setCursorPosition(Position position) {}
+
+      @Override
+      public void ensureCursorVisible() {}
+
+      @Override
+      public Position search(String regex) { return null; }
+
+      @Override
+      public Position search(Position startPos, String regex) { return null; }
+
+      @Override
+      public void highlightDebugLocation(SourcePosition startPos, SourcePosition endPos,
+                                         boolean executing) {}
+
+      @Override
+      public void endDebugHighlighting() {}
+
+      @Override
+      public void beginCollabSession(CollabEditStartParams params) {}
+
+      @Override
+      public void endCollabSession() {}
+
+      @Override
+      public boolean onBeforeDismiss() { return true; }
+
+      @Override
+      public void onDismiss(int dismissType) {}
+
+      @Override
+      public boolean isSaveCommandActive() { return false; }
+
+      @Override
+      public void forceSaveCommandActive() {}
+
+      @Override
+      public void saveWithPrompt(Command onCompleted, Command onCancelled) {}
+
+      @Override
+      public void revertChanges(Command onCompleted) {}
+
+      @Override
+      public void initialize(SourceColumn column, SourceDocument document,
+                             FileSystemContext fileContext, FileType type,
+                             EditingTargetSource.EditingTargetNameProvider defaultNameProvider) {}
+
+      @Override
+      public long getFileSizeLimit() { return 0; }
+
+      @Override
+      public long getLargeFileSize() { return 0; }
+
+      @Override
+      public String getDefaultNamePrefix() { return null; }
+
+      @Override
+      public String getCurrentStatus() { return null; }
+
+      @Override
+      public List<CommandPaletteItem> getCommandPaletteItems() { return null; }
+
+      final Label widget = new Label();
+      final List<String> calls = new ArrayList<>();
+      private final SourceDocument document_;
+      private final Value<String> name_ = new Value<>("");
+      private final Value<Boolean> dirtyState_ = new Value<>(false);
+   }
+
+   // a column of tabs, which holds on to document fetches so tests can
+   // complete them
+   private static class Column implements PendingTabs.Column
+   {
+      @Override
+      public ArrayList<EditingTarget> getEditors()
+      {
+         return editors;
+      }
+
+      @Override
+      public EditingTarget createTarget(SourceDocument doc)
+      {
+         StubEditor editor = new StubEditor(doc);
+         built.add(editor);
+         return editor;
+      }
+
+      @Override
+      public void onReplaced(PendingEditingTarget pending,
+                             EditingTarget target,
+                             Widget host,
+                             boolean fetched)
+      {
+         replaced.add(pending.getId() + (fetched ? " (fetched)" : ""));
+      }
+
+      @Override
+      public void fetchDocument(String docId,
+                                CommandWithArg<SourceDocument> onFetched,
+                                Command onFailed)
+      {
+         fetches.add(onFetched);
+         failures.add(onFailed);
+      }
+
+      PendingEditingTarget addPending(SourceDocument doc)
+      {
+         // the file type only supplies the tab's icon, and the registry's
+         // types can't be created without the injector
+         PendingEditingTarget pending = new PendingEditingTarget(tabs, doc, null);
+         editors.add(pending);
+         return pending;
+      }
+
+      final PendingTabs tabs = new PendingTabs(this);
+      final ArrayList<EditingTarget> editors = new ArrayList<>();
+      final List<StubEditor> built = new ArrayList<>();
+      final List<String> replaced = new ArrayList<>();
+      final List<CommandWithArg<SourceDocument>> fetches = new ArrayList<>();
+      final List<Command> failures = new ArrayList<>();
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   private static SourceDocument document(String id, boolean deferred)
+   {
+      return JsonUtils.safeEval(
+            "{\"id\": \"" + id + "\", \"path\": \"~/" + id + ".txt\", " +
+            "\"type\": \"text\", \"contents\": \"" + (deferred ? "" : id) + "\", " +
+            "\"contents_deferred\": " + deferred + ", " +
+            "\"properties\": {}, \"read_only\": false}");
+   }
+
+   public void testHydratesRightAway()
+   {
+      Column column = new Column();
+      PendingEditingTarget pending = column.addPending(document("a", false));
+
+      EditingTarget target = pending.getTarget();
+      Assert.assertNotNull(target);
+      Assert.assertEquals(0, column.fetches.size());
+      Assert.assertSame(target, column.editors.get(0));
+      Assert.assertSame(target, column.tabs.ensureHydrated(pending));
+      Assert.assertFalse(pending.isHydrating());
+      Assert.assertEquals("[a]", column.replaced.toString());
+   }
+
+   public void testTabKeepsPlaceholderWidget()
+   {
+      Column column = new Column();
+      PendingEditingTarget pending = column.addPending(document("a", false));
+      StubEditor editor = (StubEditor) pending.getTarget();
+
+      // the editor sits within the placeholder, which is what the tab holds
+      Assert.assertSame(pending.asWidget(), editor.widget.getParent());
+      Assert.assertSame(pending.asWidget(), column.tabs.getTabWidget(editor.widget));
+
+      // other widgets are left alone
+      Label other = new Label();
+      Assert.assertSame(other, column.tabs.getTabWidget(other));
+
+      column.editors.remove(editor);
+      column.tabs.onClosed(editor);
+      Assert.assertSame(editor.widget, column.tabs.getTabWidget(editor.widget));
+   }
+
+   public void testQueuesCallsWhileFetching()
+   {
+      Column column = new Column();
+      PendingEditingTarget pending = column.addPending(document("a", true));
+
+      pending.focus();
+      List<String> saved = new ArrayList<>();
+      pending.save(() -> saved.add("a"));
+
+      // nothing is built until the contents arrive
+      Assert.assertEquals(1, column.fetches.size());
+      Assert.assertTrue(pending.isHydrating());
+      Assert.assertNull(pending.getTarget());
+      Assert.assertSame(pending, column.tabs.ensureHydrated(pending));
+      Assert.assertEquals(0, column.built.size());
+      Assert.assertEquals(0, saved.size());
+
+      column.fetches.get(0).execute(document("a", false));
+
+      StubEditor editor = column.built.get(0);
+      Assert.assertSame(editor, pending.getTarget());
+      Assert.assertSame(editor, column.editors.get(0));
+      Assert.assertEquals("a", editor.getDocument().getContents());
+      Assert.assertEquals("a", pending.getDocument().getContents());
+      Assert.assertEquals("[focus, save]", editor.calls.toString());
+      Assert.assertEquals(1, saved.size());
+      Assert.assertEquals("[a (fetched)]", column.replaced.toString());
+
+      // later calls go straight through
+      pending.focus();
+      Assert.assertEquals(3, editor.calls.size());
+      Assert.assertEquals(1, column.fetches.size());
+   }
+
+   public void testTabClosedWhileFetching()
+   {
+      Column column = new Column();
+      PendingEditingTarget pending = column.addPending(document("a", true));
+      List<String> saved = new ArrayList<>();
+      pending.save(() -> saved.add("a"));
+
+      column.editors.remove(pending);
+      column.fetches.get(0).execute(document("a", false));
+
+      Assert.assertEquals(0, column.built.size());
+      Assert.assertEquals(0, column.replaced.size());
+      Assert.assertFalse(pending.isHydrating());
+
+      // the save has nothing left to do
+      Assert.assertEquals(1, saved.size());
+   }
+
+   public void testRetriesAfterFailedFetch()
+   {
+      Column column = new Column();
+      PendingEditingTarget pending = column.addPending(document("a", true));
+      List<String> saved = new ArrayList<>();
+      pending.save(() -> saved.add("a"));
+
+      column.failures.get(0).execute();
+
+      Assert.assertTrue(pending.hasFailed());
+      Assert.assertFalse(pending.isHydrating());
+      Assert.assertEquals(1, saved.size());
+
+      // the idle hydrator leaves it be, but asking for the editor tries again
+      Assert.assertFalse(column.tabs.hydrateNext());
+      Assert.assertEquals(1, column.fetches.size());
+      pending.getTarget();
+      Assert.assertEquals(2, column.fetches.size());
+
+      column.fetches.get(1).execute(document("a", false));
+      Assert.assertFalse(pending.hasFailed());
+      Assert.assertNotNull(pending.getTarget());
+   }
+
+   public void testHydrateNextSkipsFetches()
+   {
+      Column column = new Column();
+      PendingEditingTarget first = column.addPending(document("a", true));
+      PendingEditingTarget second = column.addPending(document("b", false));
+
+      Assert.assertTrue(column.tabs.hydrateNext());
+      Assert.assertTrue(first.isHydrating());
+      Assert.assertEquals(1, column.fetches.size());
+
+      // the first tab is still loading, so the second is built next
+      Assert.assertTrue(column.tabs.hydrateNext());
+      Assert.assertNotNull(second.getTarget());
+      Assert.assertEquals(1, column.fetches.size());
+
+      Assert.assertFalse(column.tabs.hydrateNext());
+
+      column.fetches.get(0).execute(document("a", false));
+      Assert.assertFalse(column.tabs.hydrateNext());
+      Assert.assertEquals(2, column.built.size());
+   }
+}
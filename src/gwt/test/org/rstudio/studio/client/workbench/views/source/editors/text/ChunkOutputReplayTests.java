@@ -0,0 +1,168 @@
+/*
+ * ChunkOutputReplayTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.List;
+
+import org.rstudio.studio.client.rmarkdown.model.RmdChunkOutput;
+
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class ChunkOutputReplayTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // the replay behind deferChunkOutput(), materialize() and release()
+   public void testDeferMaterializeRelease()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      RmdChunkOutput first = output("[" + TEXT_UNIT + "]", true);
+      RmdChunkOutput second = output("[" + PLOT_UNIT + "]", true);
+
+      // deferChunkOutput: held back, with space reserved for it
+      replay.record(first, true, true);
+      replay.hold();
+      replay.reserve(0);
+      Assert.assertTrue(replay.isHeld());
+      Assert.assertTrue(replay.isReplayable());
+      Assert.assertEquals(replay.estimateHeight(), replay.getReservedHeight());
+
+      // materialize: the output is handed back, and recorded again as it's
+      // rendered
+      List<RmdChunkOutput> outputs = replay.release();
+      Assert.assertFalse(replay.isHeld());
+      Assert.assertEquals(1, outputs.size());
+      Assert.assertSame(first, outputs.get(0));
+      replay.record(first, true, true);
+      replay.record(second, true, false);
+      replay.setReservedHeight(120);
+      Assert.assertTrue(replay.hasPlots());
+
+      // release: held back again, keeping the rendered height
+      Assert.assertTrue(replay.isReplayable());
+      replay.hold();
+      Assert.assertTrue(replay.isHeld());
+      Assert.assertEquals(120, replay.getReservedHeight());
+
+      outputs = replay.release();
+      Assert.assertEquals(2, outputs.size());
+      Assert.assertSame(first, outputs.get(0));
+      Assert.assertSame(second, outputs.get(1));
+   }
+
+   public void testKnownHeightIsReserved()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      replay.record(output("[" + TEXT_UNIT + "]", true), true, true);
+      replay.reserve(300);
+      Assert.assertEquals(300, replay.getReservedHeight());
+   }
+
+   public void testOtherOutputDiscardsReplay()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      replay.record(output("[" + TEXT_UNIT + "]", true), true, true);
+      replay.record(output("[" + TEXT_UNIT + "]", false), true, false);
+      Assert.assertFalse(replay.isReplayable());
+
+      // once discarded, later replays can't make the output whole again
+      replay.record(output("[" + TEXT_UNIT + "]", true), true, false);
+      Assert.assertFalse(replay.isReplayable());
+
+      // but output replayed into an empty widget can
+      replay.record(output("[" + TEXT_UNIT + "]", true), true, true);
+      Assert.assertTrue(replay.isReplayable());
+   }
+
+   public void testIncompleteReplayIsDiscarded()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      replay.record(output("[" + TEXT_UNIT + "]", true), false, true);
+      Assert.assertFalse(replay.isReplayable());
+   }
+
+   public void testRefreshedPlotsAreKept()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      replay.onPlotUpdated("chunk_output/s1/plot1.png");
+      Assert.assertTrue(replay.getRefreshedPlots().isEmpty());
+
+      replay.record(output("[" + PLOT_UNIT + "]", true), true, true);
+      // a plot's latest URL replaces any earlier one
+      replay.onPlotUpdated("chunk_output/s1/plot1.png");
+      replay.onPlotUpdated("chunk_output/s2/plot1.png");
+      Assert.assertEquals(1, replay.getRefreshedPlots().size());
+      Assert.assertEquals("chunk_output/s2/plot1.png",
+            replay.getRefreshedPlots().iterator().next());
+
+      replay.discard();
+      Assert.assertTrue(replay.getRefreshedPlots().isEmpty());
+   }
+
+   public void testEstimateHeightCountsTextLines()
+   {
+      // two lines of output plus a trailing partial line; console input
+      // isn't counted
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      replay.record(output("[" + TEXT_UNIT + "]", true), true, true);
+      Assert.assertEquals(3 * 15, replay.estimateHeight());
+
+      // an error takes a line of its own
+      replay.record(output("[" + ERROR_UNIT + "]", true), true, false);
+      Assert.assertEquals(4 * 15, replay.estimateHeight());
+      Assert.assertTrue(replay.hasErrors());
+   }
+
+   public void testEstimateHeightForBlockOutput()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      replay.record(output("[" + TEXT_UNIT + "," + PLOT_UNIT + "]", true),
+            true, true);
+      Assert.assertEquals(432, replay.estimateHeight());
+   }
+
+   public void testEstimateHeightMinimum()
+   {
+      ChunkOutputReplay replay = new ChunkOutputReplay();
+      Assert.assertEquals(25, replay.estimateHeight());
+
+      replay.record(output("[{\"output_type\": 5, \"output_ordinal\": 1}]", true),
+            true, true);
+      Assert.assertEquals(25, replay.estimateHeight());
+   }
+
+   private RmdChunkOutput output(String units, boolean replay)
+   {
+      return JsonUtils.safeEval(
+            "{\"chunk_id\": \"c1\", \"doc_id\": \"d1\"," +
+            " \"request_id\": \"" + (replay ? "r1" : "") + "\"," +
+            " \"chunk_outputs\": " + units + "}");
+   }
+
+   private static final String TEXT_UNIT =
+         "{\"output_type\": 1, \"output_val\": " +
+         "[[0, \"x <- 1\\n\"], [1, \"a\\nb\\n\"], [1, \"c\"]]}";
+   private static final String PLOT_UNIT =
+         "{\"output_type\": 2, \"output_val\": \"chunk_output/plot1.png\"}";
+   private static final String ERROR_UNIT =
+         "{\"output_type\": 4, \"output_val\": {}}";
+}
@@ -0,0 +1,118 @@
+/*
+ * DocumentEditLogTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import jsinterop.base.Js;
+import junit.framework.Assert;
+
+public class DocumentEditLogTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // expected values are the CRC-32 of the UTF-16LE encoded text, which is
+   // what the session computes from its UTF-8 copy
+   public void testContentsHash()
+   {
+      Assert.assertEquals("0", DocumentEditLog.contentsHash(lines("[\"\"]")));
+      Assert.assertEquals("4a1c941d",
+            DocumentEditLog.contentsHash(lines("[\"a\", \"b\"]")));
+      Assert.assertEquals("72395c41",
+            DocumentEditLog.contentsHash(lines("[\"x <- 1\", \"\", \"print(x)\"]")));
+   }
+
+   public void testContentsHashOutsideAscii()
+   {
+      // includes a character outside the BMP (a surrogate pair)
+      Assert.assertEquals("358a073e",
+            DocumentEditLog.contentsHash(lines("[\"caf\\u00e9 \\ud83d\\ude00\"]")));
+   }
+
+   public void testRestorePrecedesNewerEdits()
+   {
+      DocumentEditLog log = new DocumentEditLog();
+      log.record(insert(0, 0, "a"));
+      JavaScriptObject taken = log.take();
+      Assert.assertTrue(log.isEmpty());
+
+      log.record(insert(0, 1, "b"));
+      log.restore(taken);
+
+      Assert.assertEquals("[[0,0,0,\"a\"],[0,0,1,\"b\"]]",
+            JsonUtils.stringify(DocumentEditLog.encode(log.since(null))));
+   }
+
+   public void testSinceIncludesEarlierEdits()
+   {
+      DocumentEditLog log = new DocumentEditLog();
+      log.record(insert(0, 0, "a"));
+      JavaScriptObject inFlight = log.take();
+      log.record(insert(0, 1, "b"));
+
+      Assert.assertEquals(2, DocumentEditLog.length(log.since(inFlight)));
+      Assert.assertEquals(1, DocumentEditLog.length(log.since(null)));
+   }
+
+   public void testMergesTyping()
+   {
+      DocumentEditLog log = new DocumentEditLog();
+      log.record(insert(0, 0, "a"));
+      log.record(insert(0, 1, "b"));
+      log.record(insert(0, 2, "c"));
+
+      // an insert elsewhere starts a new edit
+      log.record(insert(0, 0, "x"));
+
+      Assert.assertEquals("[[0,0,0,\"abc\"],[0,0,0,\"x\"]]",
+            JsonUtils.stringify(DocumentEditLog.encode(log.since(null))));
+   }
+
+   public void testTakenEditsAreNotMerged()
+   {
+      DocumentEditLog log = new DocumentEditLog();
+      log.record(insert(0, 0, "a"));
+      JavaScriptObject inFlight = log.take();
+      log.record(insert(0, 1, "b"));
+
+      Assert.assertEquals("[[0,0,0,\"a\"]]",
+            JsonUtils.stringify(DocumentEditLog.encode(inFlight)));
+      Assert.assertEquals("[[0,0,1,\"b\"]]",
+            JsonUtils.stringify(DocumentEditLog.encode(log.since(null))));
+   }
+
+   private static JsArrayString lines(String json)
+   {
+      return JsonUtils.safeEval(json);
+   }
+
+   private static AceDocumentChangeEventNative insert(int row, int column, String text)
+   {
+      return Js.uncheckedCast(JsonUtils.safeEval(
+            "{\"action\": \"insert\", " +
+            "\"start\": {\"row\": " + row + ", \"column\": " + column + "}, " +
+            "\"end\": {\"row\": " + row + ", \"column\": " + (column + text.length()) + "}, " +
+            "\"lines\": [\"" + text + "\"]}"));
+   }
+}
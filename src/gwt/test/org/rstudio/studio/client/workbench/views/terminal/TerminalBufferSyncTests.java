@@ -0,0 +1,271 @@
+/*
+ * TerminalBufferSyncTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.terminal;
+
+import java.util.ArrayList;
+
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.console.model.ProcessBufferTail;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.Timer;
+import junit.framework.Assert;
+
+public class TerminalBufferSyncTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // Stands in for the server side of a console process
+   private static class FakeConsoleProcess implements TerminalBufferSync.Source
+   {
+      @Override
+      public void getBufferTail(double since, ServerRequestCallback<ProcessBufferTail> callback)
+      {
+         requests.add(since);
+         callback_ = callback;
+         if (next_ != null)
+         {
+            ProcessBufferTail tail = next_;
+            next_ = null;
+            callback.onResponseReceived(tail);
+         }
+      }
+
+      // answer the next request as soon as it's made
+      void respondNext(String chunk, double sequence, boolean isTail)
+      {
+         next_ = ProcessBufferTail.create(chunk, sequence, isTail);
+      }
+
+      void respond(String chunk, double sequence, boolean isTail)
+      {
+         callback_.onResponseReceived(ProcessBufferTail.create(chunk, sequence, isTail));
+      }
+
+      final ArrayList<Double> requests = new ArrayList<>();
+      private ServerRequestCallback<ProcessBufferTail> callback_;
+      private ProcessBufferTail next_;
+   }
+
+   // Records what would be written to the terminal emulator
+   private static class FakeTerminal implements TerminalBufferSync.Target
+   {
+      @Override
+      public void clearBuffer()
+      {
+         log.add("clear");
+      }
+
+      @Override
+      public void writeBuffer(String output)
+      {
+         log.add("buffer:" + output);
+      }
+
+      @Override
+      public void writeOutput(String output)
+      {
+         log.add("output:" + output);
+      }
+
+      @Override
+      public void onBufferReplayed()
+      {
+         log.add("replayed");
+      }
+
+      @Override
+      public void onSyncFailed(ServerError error)
+      {
+         log.add("failed");
+      }
+
+      final ArrayList<String> log = new ArrayList<>();
+   }
+
+   private void whenSynced(final TerminalBufferSync sync, final Runnable check)
+   {
+      delayTestFinish(5000);
+      new Timer()
+      {
+         @Override
+         public void run()
+         {
+            if (sync.isSyncing())
+               return;
+            cancel();
+            check.run();
+            finishTest();
+         }
+      }.scheduleRepeating(10);
+   }
+
+   public void testLiveOutputWrittenDirectly()
+   {
+      FakeConsoleProcess proc = new FakeConsoleProcess();
+      FakeTerminal term = new FakeTerminal();
+      TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      sync.receivedOutput("hello", 5);
+      Assert.assertEquals(1, term.log.size());
+      Assert.assertEquals("output:hello", term.log.get(0));
+      Assert.assertEquals(5.0, sync.getRenderedSequence());
+   }
+
+   public void testFetchesOnlyMissingTail()
+   {
+      FakeConsoleProcess proc = new FakeConsoleProcess();
+      final FakeTerminal term = new FakeTerminal();
+      final TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      sync.receivedOutput("abc", 3);
+      sync.sync();
+      Assert.assertEquals(3.0, proc.requests.get(0));
+
+      // live output arriving while the tail is fetched is held back; that
+      // which the tail includes is dropped
+      sync.receivedOutput("de", 5);
+      sync.receivedOutput("f", 6);
+      proc.respond("de", 5, true);
+
+      whenSynced(sync, () ->
+      {
+         Assert.assertEquals(4, term.log.size());
+         Assert.assertEquals("output:abc", term.log.get(0));
+         Assert.assertEquals("buffer:de", term.log.get(1));
+         Assert.assertEquals("replayed", term.log.get(2));
+         Assert.assertEquals("output:f", term.log.get(3));
+         Assert.assertEquals(6.0, sync.getRenderedSequence());
+      });
+   }
+
+   public void testReplacesOutputWhenTailUnavailable()
+   {
+      FakeConsoleProcess proc = new FakeConsoleProcess();
+      final FakeTerminal term = new FakeTerminal();
+      final TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      sync.receivedOutput("abc", 3);
+      sync.sync();
+      proc.respond("xyz", 100, false);
+
+      whenSynced(sync, () ->
+      {
+         Assert.assertEquals(4, term.log.size());
+         Assert.assertEquals("clear", term.log.get(1));
+         Assert.assertEquals("buffer:xyz", term.log.get(2));
+         Assert.assertEquals(100.0, sync.getRenderedSequence());
+      });
+   }
+
+   public void testLargeBufferReplayedInBatches()
+   {
+      FakeConsoleProcess proc = new FakeConsoleProcess();
+      final FakeTerminal term = new FakeTerminal();
+      final TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 20000; i++)
+         builder.append("line ").append(i).append("\r\n");
+      final String buffer = builder.toString();
+
+      sync.sync();
+      Assert.assertEquals(-1.0, proc.requests.get(0));
+      proc.respond(buffer, buffer.length(), false);
+
+      whenSynced(sync, () ->
+      {
+         StringBuilder replayed = new StringBuilder();
+         int writes = 0;
+         for (String entry : term.log)
+         {
+            if (entry.startsWith("buffer:"))
+            {
+               replayed.append(entry.substring("buffer:".length()));
+               writes++;
+            }
+         }
+         Assert.assertTrue(writes > 1);
+         Assert.assertEquals(buffer, replayed.toString());
+         Assert.assertFalse(term.log.contains("clear"));
+      });
+   }
+
+   public void testResyncAfterLiveOutput()
+   {
+      FakeConsoleProcess proc = new FakeConsoleProcess();
+      final FakeTerminal term = new FakeTerminal();
+      final TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      sync.receivedOutput("abc", 3);
+      sync.resync();
+      Assert.assertEquals(3.0, proc.requests.get(0));
+      sync.receivedOutput("h", 8);
+      proc.respond("defg", 7, true);
+
+      whenSynced(sync, () ->
+      {
+         Assert.assertEquals("[output:abc, buffer:defg, replayed, output:h]",
+               term.log.toString());
+         Assert.assertEquals(8.0, sync.getRenderedSequence());
+      });
+   }
+
+   public void testResyncDuringSyncFetchesAgain()
+   {
+      final FakeConsoleProcess proc = new FakeConsoleProcess();
+      final FakeTerminal term = new FakeTerminal();
+      final TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      sync.receivedOutput("abc", 3);
+      sync.sync();
+
+      // output from 5 to 7 was dropped after the buffer was fetched
+      sync.resync();
+      sync.receivedOutput("h", 8);
+      proc.respondNext("fg", 7, true);
+      proc.respond("de", 5, true);
+
+      whenSynced(sync, () ->
+      {
+         Assert.assertEquals(2, proc.requests.size());
+         Assert.assertEquals(5.0, proc.requests.get(1));
+         Assert.assertEquals(
+               "[output:abc, buffer:de, replayed, buffer:fg, replayed, output:h]",
+               term.log.toString());
+         Assert.assertEquals(8.0, sync.getRenderedSequence());
+      });
+   }
+
+   public void testResetAbandonsSync()
+   {
+      FakeConsoleProcess proc = new FakeConsoleProcess();
+      FakeTerminal term = new FakeTerminal();
+      TerminalBufferSync sync = new TerminalBufferSync(proc, term);
+
+      sync.sync();
+      sync.receivedOutput("abc", 3);
+      sync.reset();
+      proc.respond("abc", 3, false);
+
+      Assert.assertFalse(sync.isSyncing());
+      Assert.assertTrue(term.log.isEmpty());
+   }
+}
@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.workbench.views.terminal;
 
+import org.rstudio.studio.client.common.console.ConsoleOutputEvent;
+
 import com.google.gwt.junit.client.GWTTestCase;
 import junit.framework.Assert;
 
@@ -59,4 +61,25 @@ public class TerminalSessionSocketTests extends GWTTestCase
             TerminalSessionSocket.PASSWORD_PATTERN.test("passphrasepasswordpassphrase: "));
    }
 
+   public void testSequencedTextPackets()
+   {
+      Assert.assertEquals("Hello", TerminalSocketPacket.getMessage("aHello"));
+      Assert.assertEquals(ConsoleOutputEvent.NO_SEQUENCE,
+            TerminalSocketPacket.getSequence("aHello"));
+
+      Assert.assertEquals("Hello: there", TerminalSocketPacket.getMessage("c1234:Hello: there"));
+      Assert.assertEquals(1234.0, TerminalSocketPacket.getSequence("c1234:Hello: there"));
+      Assert.assertEquals("", TerminalSocketPacket.getMessage("c1234:"));
+
+      Assert.assertEquals("d12", TerminalSocketPacket.ackPacket(12));
+   }
+
+   public void testResyncPackets()
+   {
+      Assert.assertTrue(TerminalSocketPacket.isResync("e"));
+      Assert.assertFalse(TerminalSocketPacket.isResync("eHello"));
+      Assert.assertFalse(TerminalSocketPacket.isResync("b"));
+      Assert.assertEquals("", TerminalSocketPacket.getMessage("e"));
+   }
+
 }
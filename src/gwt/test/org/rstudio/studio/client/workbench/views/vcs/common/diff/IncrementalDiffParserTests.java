@@ -0,0 +1,101 @@
+/*
+ * IncrementalDiffParserTests.java
+ *
+ * Copyright (C) 2020 by RStudio, PBC
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.vcs.common.diff;
+
+import java.util.ArrayList;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+public class IncrementalDiffParserTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // three chunks, each of which is a header row plus three line rows
+   private static final String DIFF =
+         "diff --git a/test.R b/test.R\n" +
+         "index 1111111..2222222 100644\n" +
+         "--- a/test.R\n" +
+         "+++ b/test.R\n" +
+         "@@ -1,2 +1,2 @@\n" +
+         " a <- 1\n" +
+         "-b <- 2\n" +
+         "+b <- 3\n" +
+         "@@ -10,2 +10,2 @@\n" +
+         " c <- 1\n" +
+         "-d <- 2\n" +
+         "+d <- 3\n" +
+         "@@ -20,2 +20,2 @@\n" +
+         " e <- 1\n" +
+         "-f <- 2\n" +
+         "+f <- 3\n";
+
+   public void testParsesWholeChunks()
+   {
+      IncrementalDiffParser parser = new IncrementalDiffParser(DIFF);
+
+      // asking for fewer rows than a chunk still yields the whole chunk
+      ArrayList<ChunkOrLine> rows = parser.next(2);
+      Assert.assertEquals(4, rows.size());
+      Assert.assertNotNull(rows.get(0).getChunk());
+      Assert.assertEquals(Line.Type.Same, rows.get(1).getLine().getType());
+      Assert.assertEquals(Line.Type.Deletion, rows.get(2).getLine().getType());
+      Assert.assertEquals(Line.Type.Insertion, rows.get(3).getLine().getType());
+      Assert.assertEquals(1, parser.getChunks().size());
+      Assert.assertFalse(parser.isDone());
+   }
+
+   public void testPagesThroughDiff()
+   {
+      IncrementalDiffParser parser = new IncrementalDiffParser(DIFF);
+
+      Assert.assertEquals(8, parser.next(5).size());
+      Assert.assertEquals(2, parser.getChunks().size());
+
+      ArrayList<ChunkOrLine> rows = parser.next(5);
+      Assert.assertEquals(4, rows.size());
+      Assert.assertEquals("f <- 3", rows.get(3).getLine().getText());
+      Assert.assertEquals(3, parser.getChunks().size());
+
+      // the end of the diff is only noticed on the next request
+      Assert.assertEquals(0, parser.next(5).size());
+      Assert.assertTrue(parser.isDone());
+      Assert.assertEquals(0, parser.next(5).size());
+   }
+
+   public void testMatchesFullParse()
+   {
+      IncrementalDiffParser parser = new IncrementalDiffParser(DIFF);
+      ArrayList<ChunkOrLine> all = parser.next(Integer.MAX_VALUE);
+      Assert.assertTrue(parser.isDone());
+
+      UnifiedParser full = new UnifiedParser(DIFF);
+      full.nextFilePair();
+      int i = 0;
+      for (DiffChunk chunk; null != (chunk = full.nextChunk());)
+      {
+         Assert.assertEquals(chunk.getLineText(),
+               all.get(i++).getChunk().getLineText());
+         for (Line line : chunk.getLines())
+            Assert.assertEquals(line.getText(), all.get(i++).getLine().getText());
+      }
+      Assert.assertEquals(all.size(), i);
+   }
+}